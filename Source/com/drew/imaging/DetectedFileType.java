@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The result of {@link FileTypeDetector#detectFileType(java.nio.file.Path)}: the detected {@link FileType}, along with
+ * the leading bytes of the file that were read in order to detect it.
+ * <p>
+ * The leading bytes may be passed on to the reader of the file, so that they need not be read again.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class DetectedFileType
+{
+    @NotNull
+    private final FileType _fileType;
+    @NotNull
+    private final byte[] _prefix;
+    private final int _prefixLength;
+
+    DetectedFileType(@NotNull FileType fileType, @NotNull byte[] prefix, int prefixLength)
+    {
+        _fileType = fileType;
+        _prefix = prefix;
+        _prefixLength = prefixLength;
+    }
+
+    @NotNull
+    public FileType getFileType()
+    {
+        return _fileType;
+    }
+
+    /**
+     * Gets a read-only buffer over the leading bytes of the file, positioned at zero. This may be fewer than
+     * {@link FileTypeDetector#getBytesNeeded()} bytes if the file is shorter than that.
+     */
+    @NotNull
+    public ByteBuffer getPrefix()
+    {
+        return ByteBuffer.wrap(_prefix, 0, _prefixLength).asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+/**
+ * Describes an embedded preview image found by {@link PreviewLocator}, such as an Exif thumbnail or the large JPEG
+ * preview stored within a camera raw file.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class EmbeddedPreview
+{
+    @NotNull
+    private final String _source;
+    private final long _offset;
+    private final long _length;
+    @NotNull
+    private final String _mimeType;
+    @Nullable
+    private final Integer _width;
+    @Nullable
+    private final Integer _height;
+
+    public EmbeddedPreview(@NotNull String source, long offset, long length, @NotNull String mimeType, @Nullable Integer width, @Nullable Integer height)
+    {
+        _source = source;
+        _offset = offset;
+        _length = length;
+        _mimeType = mimeType;
+        _width = width;
+        _height = height;
+    }
+
+    /** Gets a description of where the preview was referenced from, such as the name of an Exif directory. */
+    @NotNull
+    public String getSource()
+    {
+        return _source;
+    }
+
+    /** Gets the position of the preview's first byte within the file. */
+    public long getOffset()
+    {
+        return _offset;
+    }
+
+    /** Gets the length of the preview's data, in bytes. */
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @NotNull
+    public String getMimeType()
+    {
+        return _mimeType;
+    }
+
+    /** Gets the width of the preview in pixels, as stated in its frame header, if known. */
+    @Nullable
+    public Integer getWidth()
+    {
+        return _width;
+    }
+
+    /** Gets the height of the preview in pixels, as stated in its frame header, if known. */
+    @Nullable
+    public Integer getHeight()
+    {
+        return _height;
+    }
+
+    @Override
+    @NotNull
+    public String toString()
+    {
+        return String.format("%s %s %sx%s, %d bytes at offset %d", _source, _mimeType, _width, _height, _length, _offset);
+    }
+}
@@ -29,6 +29,11 @@ import com.drew.lang.annotations.Nullable;
 
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Examines a file's first bytes and estimates the file's type.
@@ -55,6 +60,8 @@ public class FileTypeDetector
         _root.addPath(FileType.Jpeg, new byte[]{(byte)0xff, (byte)0xd8});
         _root.addPath(FileType.Tiff, "II".getBytes(), new byte[]{0x2a, 0x00});
         _root.addPath(FileType.Tiff, "MM".getBytes(), new byte[]{0x00, 0x2a});
+        _root.addPath(FileType.Tiff, "II".getBytes(), new byte[]{0x2b, 0x00}); // BigTIFF
+        _root.addPath(FileType.Tiff, "MM".getBytes(), new byte[]{0x00, 0x2b}); // BigTIFF
         _root.addPath(FileType.Psd, "8BPS".getBytes());
         _root.addPath(FileType.Png, new byte[]{(byte)0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 0x00, 0x00, 0x00, 0x0D, 0x49, 0x48, 0x44, 0x52});
         _root.addPath(FileType.Bmp, "BM".getBytes()); // Standard Bitmap Windows and OS/2
@@ -170,7 +177,125 @@ public class FileTypeDetector
 
         inputStream.reset();
 
-        FileType fileType = _root.find(bytes, 0, offset);
+        return detectFileType(bytes, offset, filePath);
+    }
+
+    /**
+     * Gets the number of leading bytes examined by this class. Supplying at least this many bytes to
+     * {@link #detectFileType(byte[], String)} or {@link #detectFileType(ByteBuffer, String)} gives the same result as
+     * detecting from the whole file.
+     */
+    public static int getBytesNeeded()
+    {
+        return _bytesNeeded;
+    }
+
+    /**
+     * Examines the leading bytes of a file and estimates the file's type.
+     * When ambiguous, use the file name extension (if available).
+     *
+     * @param prefix The leading bytes of the file, ideally at least {@link #getBytesNeeded()} of them.
+     * @param filePath The file path or file name of the file, if available. Only the extension is used.
+     */
+    @NotNull
+    public static FileType detectFileType(@NotNull final byte[] prefix, @Nullable String filePath)
+    {
+        return detectFileType(prefix, Math.min(prefix.length, _bytesNeeded), filePath);
+    }
+
+    /**
+     * Examines the remaining bytes of a buffer, being the leading bytes of a file, and estimates the file's type.
+     * When ambiguous, use the file name extension (if available).
+     * <p>
+     * The buffer's position is not changed.
+     *
+     * @param prefix A buffer whose remaining bytes are the leading bytes of the file, ideally at least
+     *               {@link #getBytesNeeded()} of them.
+     * @param filePath The file path or file name of the file, if available. Only the extension is used.
+     */
+    @NotNull
+    public static FileType detectFileType(@NotNull final ByteBuffer prefix, @Nullable String filePath)
+    {
+        int count = Math.min(prefix.remaining(), _bytesNeeded);
+
+        if (prefix.hasArray() && prefix.arrayOffset() + prefix.position() == 0)
+            return detectFileType(prefix.array(), count, filePath);
+
+        byte[] bytes = new byte[_bytesNeeded];
+        prefix.duplicate().get(bytes, 0, count);
+        return detectFileType(bytes, count, filePath);
+    }
+
+    /**
+     * Reads the leading bytes of a file and estimates the file's type, using a single read.
+     *
+     * @param path The file to examine. Its extension is used when the type is ambiguous.
+     * @return The detected type, along with the bytes that were examined.
+     * @throws IOException if the file cannot be read.
+     */
+    @NotNull
+    public static DetectedFileType detectFileType(@NotNull final Path path) throws IOException
+    {
+        Path fileName = path.getFileName();
+        SeekableByteChannel channel = Files.newByteChannel(path);
+        try {
+            return detectFileType(channel, fileName == null ? null : fileName.toString());
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the leading bytes of a file from a channel, starting at its current position, and estimates the file's
+     * type.
+     * <p>
+     * For a {@link FileChannel} this is a single positional read, and the channel's position is unchanged. Other
+     * channels are read and then returned to their original position.
+     *
+     * @param channel The channel from which to read the file's leading bytes.
+     * @param filePath The file path or file name of the file, if available. Only the extension is used.
+     * @return The detected type, along with the bytes that were examined.
+     * @throws IOException if the channel cannot be read.
+     */
+    @NotNull
+    public static DetectedFileType detectFileType(@NotNull final SeekableByteChannel channel, @Nullable String filePath) throws IOException
+    {
+        long startPosition = channel.position();
+        byte[] bytes = new byte[_bytesNeeded];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        int bytesRead;
+        if (channel instanceof FileChannel) {
+            // A local file normally satisfies the request in one read
+            FileChannel fileChannel = (FileChannel)channel;
+            do {
+                bytesRead = fileChannel.read(buffer, startPosition + buffer.position());
+            } while (bytesRead > 0 && buffer.hasRemaining());
+        } else {
+            do {
+                bytesRead = channel.read(buffer);
+            } while (bytesRead > 0 && buffer.hasRemaining());
+            channel.position(startPosition);
+        }
+
+        int count = buffer.position();
+        return new DetectedFileType(detectFileType(bytes, count, filePath), bytes, count);
+    }
+
+    /**
+     * @param bytes the leading bytes of the file, of which only the first <code>count</code> are valid.
+     */
+    @NotNull
+    private static FileType detectFileType(@NotNull byte[] bytes, int count, @Nullable String filePath)
+    {
+        if (count < _bytesNeeded) {
+            // the fixed checkers examine bytes at set offsets, so must not see any bytes beyond the valid ones
+            byte[] padded = new byte[_bytesNeeded];
+            System.arraycopy(bytes, 0, padded, 0, count);
+            bytes = padded;
+        }
+
+        FileType fileType = _root.find(bytes, 0, count);
 
         assert(fileType != null);
 
@@ -37,12 +37,19 @@ import com.drew.imaging.raf.RafMetadataReader;
 import com.drew.imaging.tiff.TiffMetadataReader;
 import com.drew.imaging.wav.WavMetadataReader;
 import com.drew.imaging.webp.WebpMetadataReader;
+import com.drew.lang.ByteSource;
+import com.drew.lang.ByteSourceInputStream;
+import com.drew.lang.CoalescingByteSource;
+import com.drew.lang.RandomAccessByteSourceReader;
 import com.drew.lang.RandomAccessStreamReader;
+import com.drew.lang.SeekableChannelByteSource;
+import com.drew.lang.SeekableChannelInputStream;
 import com.drew.lang.StringUtil;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataProjection;
 import com.drew.metadata.Tag;
 import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.file.FileSystemMetadataReader;
@@ -50,6 +57,10 @@ import com.drew.metadata.file.FileTypeDirectory;
 import com.drew.metadata.xmp.XmpDirectory;
 
 import java.io.*;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -65,7 +76,7 @@ import java.util.Map;
  * <ul>
  *     <li>{@link AviMetadataReader} for AVI files</li>
  *     <li>{@link BmpMetadataReader} for BMP files</li>
- *     <li>{@link FileSystemMetadataReader} for metadata from the file system when a {@link File} is provided</li>
+ *     <li>{@link FileSystemMetadataReader} for metadata from the file system when a {@link File} or {@link Path} is provided</li>
  *     <li>{@link GifMetadataReader} for GIF files</li>
  *     <li>{@link IcoMetadataReader} for ICO files</li>
  *     <li>{@link JpegMetadataReader} for JPEG files</li>
@@ -132,13 +143,32 @@ public class ImageMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull final InputStream inputStream, final long streamLength, @Nullable String filePath) throws ImageProcessingException, IOException
     {
-        BufferedInputStream bufferedInputStream = inputStream instanceof BufferedInputStream
-            ? (BufferedInputStream)inputStream
+        return readMetadata(inputStream, streamLength, filePath, null);
+    }
+
+    /**
+     * Reads metadata from an {@link InputStream} of known length, skipping data that cannot contribute to the
+     * projected directories and tags. See {@link #readMetadata(InputStream, long, FileType, MetadataProjection)}.
+     *
+     * @param inputStream a stream from which the file data may be read.  The stream must be positioned at the
+     *                    beginning of the file's data.
+     * @param streamLength the length of the stream, if known, otherwise -1.
+     * @param filePath The file path or file name of the file, if available. Only the extension is used.
+     * @param projection the directories and tags required, or <code>null</code> if all are required.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final InputStream inputStream, final long streamLength, @Nullable String filePath, @Nullable MetadataProjection projection) throws ImageProcessingException, IOException
+    {
+        // Detection requires mark/reset, so only wrap streams that lack it
+        InputStream markableInputStream = inputStream.markSupported()
+            ? inputStream
             : new BufferedInputStream(inputStream);
 
-        FileType fileType = FileTypeDetector.detectFileType(bufferedInputStream, filePath);
+        FileType fileType = FileTypeDetector.detectFileType(markableInputStream, filePath);
 
-        Metadata metadata = readMetadata(bufferedInputStream, streamLength, fileType);
+        Metadata metadata = readMetadata(markableInputStream, streamLength, fileType, projection);
 
         metadata.addDirectory(new FileTypeDirectory(fileType));
 
@@ -157,10 +187,33 @@ public class ImageMetadataReader
      */
     @NotNull
     public static Metadata readMetadata(@NotNull final InputStream inputStream, final long streamLength, final FileType fileType) throws IOException, ImageProcessingException
+    {
+        return readMetadata(inputStream, streamLength, fileType, null);
+    }
+
+    /**
+     * Reads metadata from an {@link InputStream} of known length and file type, skipping data that cannot contribute
+     * to the projected directories and tags.
+     * <p>
+     * The projection determines which segment types are read from JPEG files, which chunk types are read from PNG
+     * files, which boxes and atoms are read from MPEG-4 and QuickTime files, and whether makernotes are decoded in
+     * Exif data. Other formats are read in full. The projection is a hint: the returned {@link Metadata} may contain
+     * directories and tags beyond those projected.
+     *
+     * @param inputStream a stream from which the file data may be read.  The stream must be positioned at the
+     *                    beginning of the file's data.
+     * @param streamLength the length of the stream, if known, otherwise -1.
+     * @param fileType the file type of the data stream.
+     * @param projection the directories and tags required, or <code>null</code> if all are required.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final InputStream inputStream, final long streamLength, final FileType fileType, @Nullable MetadataProjection projection) throws IOException, ImageProcessingException
     {
         switch (fileType) {
             case Jpeg:
-                return JpegMetadataReader.readMetadata(inputStream);
+                return JpegMetadataReader.readMetadata(inputStream, JpegMetadataReader.getReaders(projection));
             case Tiff:
             case Arw:
             case Cr2:
@@ -173,11 +226,11 @@ public class ImageMetadataReader
             case ThreeFR:
             case Pef:
             case Srw:
-                return TiffMetadataReader.readMetadata(new RandomAccessStreamReader(inputStream, RandomAccessStreamReader.DEFAULT_CHUNK_LENGTH, streamLength));
+                return TiffMetadataReader.readMetadata(new RandomAccessStreamReader(inputStream, RandomAccessStreamReader.DEFAULT_CHUNK_LENGTH, streamLength), projection);
             case Psd:
                 return PsdMetadataReader.readMetadata(inputStream);
             case Png:
-                return PngMetadataReader.readMetadata(inputStream);
+                return PngMetadataReader.readMetadata(inputStream, projection);
             case Bmp:
                 return BmpMetadataReader.readMetadata(inputStream);
             case Gif:
@@ -195,9 +248,9 @@ public class ImageMetadataReader
             case Wav:
                 return WavMetadataReader.readMetadata(inputStream);
             case QuickTime:
-                return QuickTimeMetadataReader.readMetadata(inputStream);
+                return QuickTimeMetadataReader.readMetadata(inputStream, projection);
             case Mp4:
-                return Mp4MetadataReader.readMetadata(inputStream);
+                return Mp4MetadataReader.readMetadata(inputStream, projection);
             case Mp3:
                 return Mp3MetadataReader.readMetadata(inputStream);
             case Eps:
@@ -222,17 +275,166 @@ public class ImageMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull final File file) throws ImageProcessingException, IOException
     {
-        InputStream inputStream = new FileInputStream(file);
+        return readMetadata(file.toPath());
+    }
+
+    /**
+     * Reads {@link Metadata} from a {@link Path}.
+     * <p>
+     * The file is read via a {@link SeekableByteChannel}. See {@link #readMetadata(SeekableByteChannel, String)}.
+     *
+     * @param path a path from which the image data may be read.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final Path path) throws ImageProcessingException, IOException
+    {
+        return readMetadata(path, null);
+    }
+
+    /**
+     * Reads {@link Metadata} from a {@link Path}, skipping data that cannot contribute to the projected directories
+     * and tags. See {@link #readMetadata(InputStream, long, FileType, MetadataProjection)}.
+     *
+     * @param path a path from which the image data may be read.
+     * @param projection the directories and tags required, or <code>null</code> if all are required.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final Path path, @Nullable MetadataProjection projection) throws ImageProcessingException, IOException
+    {
+        Path fileName = path.getFileName();
+        SeekableByteChannel channel = Files.newByteChannel(path);
         Metadata metadata;
         try {
-            metadata = readMetadata(inputStream, file.length(), file.getName());
+            metadata = readMetadata(channel, fileName == null ? null : fileName.toString(), projection);
         } finally {
-            inputStream.close();
+            channel.close();
+        }
+        if (path.getFileSystem() == FileSystems.getDefault())
+            new FileSystemMetadataReader().read(path.toFile(), metadata);
+        return metadata;
+    }
+
+    /**
+     * Reads metadata from a {@link SeekableByteChannel}, starting at its current position.
+     *
+     * @param channel a channel from which the file data may be read, positioned at the beginning of the file's data.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final SeekableByteChannel channel) throws ImageProcessingException, IOException
+    {
+        return readMetadata(channel, null);
+    }
+
+    /**
+     * Reads metadata from a {@link SeekableByteChannel}, starting at its current position.
+     * <p>
+     * The file type is detected from a single read of the channel's leading bytes. TIFF-based files are read by
+     * position. For other formats, rather than streaming through the data, regions that do not contain metadata (such
+     * as media data in MP4 and QuickTime files, or layer data in PSD files) are skipped by repositioning. Formats that
+     * need to revisit earlier data, such as HEIF, do so in the same way.
+     * <p>
+     * The channel is not closed by this method.
+     *
+     * @param channel a channel from which the file data may be read, positioned at the beginning of the file's data.
+     * @param filePath The file path or file name of the file, if available. Only the extension is used.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final SeekableByteChannel channel, @Nullable String filePath) throws ImageProcessingException, IOException
+    {
+        return readMetadata(channel, filePath, null);
+    }
+
+    /**
+     * Reads metadata from a {@link SeekableByteChannel}, starting at its current position, skipping data that cannot
+     * contribute to the projected directories and tags. See {@link #readMetadata(SeekableByteChannel, String)} and
+     * {@link #readMetadata(InputStream, long, FileType, MetadataProjection)}.
+     *
+     * @param channel a channel from which the file data may be read, positioned at the beginning of the file's data.
+     * @param filePath The file path or file name of the file, if available. Only the extension is used.
+     * @param projection the directories and tags required, or <code>null</code> if all are required.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final SeekableByteChannel channel, @Nullable String filePath, @Nullable MetadataProjection projection) throws ImageProcessingException, IOException
+    {
+        long startPosition = channel.position();
+
+        DetectedFileType detectedFileType = FileTypeDetector.detectFileType(channel, filePath);
+        FileType fileType = detectedFileType.getFileType();
+
+        Metadata metadata;
+        if (isTiffBased(fileType)) {
+            // TIFF directories may be anywhere in the file (beyond 2 GB, for BigTIFF), so are read by position
+            metadata = TiffMetadataReader.readMetadata(new RandomAccessByteSourceReader(new SeekableChannelByteSource(channel, startPosition)), projection);
+        } else {
+            // The bytes read during detection are served from memory rather than being read again
+            InputStream inputStream = new SeekableChannelInputStream(channel, detectedFileType.getPrefix());
+            metadata = readMetadata(inputStream, channel.size() - startPosition, fileType, projection);
         }
-        new FileSystemMetadataReader().read(file, metadata);
+
+        metadata.addDirectory(new FileTypeDirectory(fileType));
+
+        return metadata;
+    }
+
+    /**
+     * Reads metadata from a {@link ByteSource}, such as an object in a remote store.
+     * <p>
+     * Only the ranges of the source required for metadata are read. TIFF-based files are read by position, and other
+     * formats skip over regions that do not contain metadata without reading them. Where each read of the source is
+     * expensive, wrap it in a {@link CoalescingByteSource} so that nearby reads are served by a single request.
+     *
+     * @param source the source from which the file data may be read.
+     * @param filePath The file path or file name of the file, if available. Only the extension is used.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final ByteSource source, @Nullable String filePath) throws ImageProcessingException, IOException
+    {
+        InputStream inputStream = new ByteSourceInputStream(source);
+
+        FileType fileType = FileTypeDetector.detectFileType(inputStream, filePath);
+
+        Metadata metadata = isTiffBased(fileType)
+            ? TiffMetadataReader.readMetadata(new RandomAccessByteSourceReader(source))
+            : readMetadata(inputStream, source.getLength(), fileType);
+
+        metadata.addDirectory(new FileTypeDirectory(fileType));
+
         return metadata;
     }
 
+    static boolean isTiffBased(@NotNull FileType fileType)
+    {
+        switch (fileType) {
+            case Tiff:
+            case Arw:
+            case Cr2:
+            case Nef:
+            case Orf:
+            case Rw2:
+            case Dng:
+            case GoPro:
+            case Kdc:
+            case ThreeFR:
+            case Pef:
+            case Srw:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private ImageMetadataReader() throws Exception
     {
         throw new Exception("Not intended for instantiation");
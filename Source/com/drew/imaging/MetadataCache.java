@@ -0,0 +1,545 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Caches the results of {@link ImageMetadataReader#readMetadata(File)} on disk, so that files which have not changed
+ * since they were last read need not be extracted again.
+ * <p>
+ * Entries are keyed by canonical path, and are only used while the file's length and last-modified time (and
+ * optionally a hash of its content) are unchanged. Metadata is stored via {@link MetadataCodec}. Files that fail
+ * extraction are not cached.
+ * <p>
+ * The cache file is append-only. Each record carries its length and a checksum, so a record left incomplete by a
+ * crash is discarded (along with anything after it) when the cache is next opened. The file begins with a stamp of
+ * the cache format, {@link MetadataCodec#FORMAT_VERSION} and the library version; if this differs from the running
+ * library, all entries are discarded, as extraction may since have changed.
+ * <p>
+ * The number of entries and the total size of their records are bounded, with the least recently used entries
+ * evicted first. Records that are evicted or superseded remain in the file until it is compacted, which happens
+ * automatically once they exceed the size limit, or on {@link #close()} once they exceed the size of live records.
+ * Compaction writes a new file then renames it over the original, so the cache remains intact if interrupted.
+ * <p>
+ * Instances are safe for use by multiple threads, though a cache file must not be opened by more than one instance
+ * at a time.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataCache implements Closeable
+{
+    public final static int DEFAULT_MAX_ENTRY_COUNT = 1000000;
+    public final static long DEFAULT_MAX_BYTE_COUNT = 1L << 30;
+
+    /** The ASCII characters <code>MXMC</code>. */
+    private static final int MAGIC = 0x4D584D43;
+    /** Incremented whenever the layout of the cache file changes. */
+    private static final int FORMAT_VERSION = 1;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final String HASH_ALGORITHM = "SHA-1";
+
+    @NotNull
+    private final File _file;
+    private final int _maxEntryCount;
+    private final long _maxByteCount;
+    private final boolean _isContentHashed;
+
+    /** Entries in least-recently-used order, keyed by canonical path. */
+    private final LinkedHashMap<String, Entry> _entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    @NotNull
+    private RandomAccessFile _raf;
+    private int _headerLength;
+    private long _liveByteCount;
+    private long _deadByteCount;
+
+    private long _hitCount;
+    private long _missCount;
+    private long _evictionCount;
+
+    public MetadataCache(@NotNull File file) throws IOException
+    {
+        this(file, DEFAULT_MAX_ENTRY_COUNT, DEFAULT_MAX_BYTE_COUNT, false);
+    }
+
+    /**
+     * @param file            the cache file, which is created if it does not exist
+     * @param maxEntryCount   the maximum number of files to hold metadata for
+     * @param maxByteCount    the maximum total size of cached records, in bytes
+     * @param isContentHashed whether entries are also validated against a hash of the file's content, which detects
+     *                        changes that preserve length and last-modified time, at the cost of reading each file
+     */
+    public MetadataCache(@NotNull File file, int maxEntryCount, long maxByteCount, boolean isContentHashed) throws IOException
+    {
+        if (maxEntryCount <= 0)
+            throw new IllegalArgumentException("maxEntryCount must be greater than zero");
+        if (maxByteCount <= 0)
+            throw new IllegalArgumentException("maxByteCount must be greater than zero");
+
+        _file = file;
+        _maxEntryCount = maxEntryCount;
+        _maxByteCount = maxByteCount;
+        _isContentHashed = isContentHashed;
+
+        // Left behind if a previous compaction was interrupted, in which case the original file is still intact
+        File tempFile = getTempFile();
+        if (tempFile.exists() && !tempFile.delete())
+            throw new IOException("Unable to delete " + tempFile);
+
+        _raf = new RandomAccessFile(file, "rw");
+        try {
+            load();
+        } catch (IOException e) {
+            _raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets metadata for <code>file</code> from the cache if it has not changed since it was cached, or otherwise
+     * reads it via {@link ImageMetadataReader#readMetadata(File)} and caches the result. Metadata holding values that
+     * {@link MetadataCodec} cannot encode is returned without being cached.
+     */
+    @NotNull
+    public Metadata readMetadata(@NotNull File file) throws ImageProcessingException, IOException
+    {
+        String path = file.getCanonicalPath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        byte[] hash = _isContentHashed ? hash(file) : null;
+
+        Metadata metadata = get(path, length, lastModified, hash);
+        if (metadata != null)
+            return metadata;
+
+        metadata = ImageMetadataReader.readMetadata(file);
+
+        byte[] encoded;
+        try {
+            encoded = MetadataCodec.encode(metadata);
+        } catch (IllegalArgumentException e) {
+            // A value cannot be encoded, so this file's metadata is not cached
+            return metadata;
+        }
+        put(path, length, lastModified, hash, encoded);
+        return metadata;
+    }
+
+    /** Gets the number of calls to {@link #readMetadata(File)} that were served from the cache. */
+    public synchronized long getHitCount()
+    {
+        return _hitCount;
+    }
+
+    /** Gets the number of calls to {@link #readMetadata(File)} that required metadata to be extracted. */
+    public synchronized long getMissCount()
+    {
+        return _missCount;
+    }
+
+    /** Gets the number of entries evicted in order to remain within the configured limits. */
+    public synchronized long getEvictionCount()
+    {
+        return _evictionCount;
+    }
+
+    /** Gets the number of files for which metadata is cached. */
+    public synchronized int getEntryCount()
+    {
+        return _entries.size();
+    }
+
+    /**
+     * Rewrites the cache file so that it holds only live records, in least-recently-used order.
+     */
+    public synchronized void compact() throws IOException
+    {
+        // Entries keep their current offsets until the new file has replaced the original
+        long[] offsets = new long[_entries.size()];
+        int index = 0;
+
+        File tempFile = getTempFile();
+        RandomAccessFile temp = new RandomAccessFile(tempFile, "rw");
+        try {
+            temp.setLength(0);
+            writeHeader(temp);
+            for (Entry entry : _entries.values()) {
+                byte[] record = new byte[entry.recordLength];
+                _raf.seek(entry.offset);
+                _raf.readFully(record);
+                offsets[index++] = temp.getFilePointer();
+                temp.write(record);
+            }
+            temp.getFD().sync();
+        } finally {
+            temp.close();
+        }
+
+        _raf.close();
+        try {
+            replaceFile(tempFile, _file);
+        } finally {
+            _raf = new RandomAccessFile(_file, "rw");
+        }
+
+        index = 0;
+        for (Entry entry : _entries.values())
+            entry.offset = offsets[index++];
+        _deadByteCount = 0;
+    }
+
+    /**
+     * Replaces <code>target</code> with <code>source</code>, atomically if the file system supports it.
+     */
+    void replaceFile(@NotNull File source, @NotNull File target) throws IOException
+    {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Compacts the cache file if it holds more superseded or evicted data than live data, then closes it.
+     */
+    public synchronized void close() throws IOException
+    {
+        try {
+            if (_deadByteCount > _liveByteCount)
+                compact();
+            _raf.getFD().sync();
+        } finally {
+            _raf.close();
+        }
+    }
+
+    @Nullable
+    private synchronized Metadata get(@NotNull String path, long length, long lastModified, @Nullable byte[] hash) throws IOException
+    {
+        Entry entry = _entries.get(path);
+
+        if (entry != null && entry.length == length && entry.lastModified == lastModified && Arrays.equals(entry.hash, hash)) {
+            byte[] record = new byte[entry.recordLength];
+            _raf.seek(entry.offset);
+            _raf.readFully(record);
+
+            Record parsed = Record.parse(record);
+            if (parsed != null && parsed.path.equals(path)) {
+                try {
+                    Metadata metadata = MetadataCodec.decode(Arrays.copyOfRange(record, parsed.metadataOffset, record.length));
+                    _hitCount++;
+                    return metadata;
+                } catch (IOException ignored) {
+                    // Treat as a miss, so that the entry is replaced
+                }
+            }
+        }
+
+        _missCount++;
+        return null;
+    }
+
+    private synchronized void put(@NotNull String path, long length, long lastModified, @Nullable byte[] hash, @NotNull byte[] metadata) throws IOException
+    {
+        byte[] record = Record.create(path, length, lastModified, hash, metadata);
+
+        // Entries that could never fit are not written
+        if (record.length > _maxByteCount)
+            return;
+
+        long offset = _raf.length();
+        _raf.seek(offset);
+        _raf.write(record);
+
+        addEntry(path, new Entry(offset, record.length, length, lastModified, hash));
+
+        if (_deadByteCount > _maxByteCount)
+            compact();
+    }
+
+    private void addEntry(@NotNull String path, @NotNull Entry entry)
+    {
+        Entry previous = _entries.put(path, entry);
+        if (previous != null)
+            removed(previous);
+        _liveByteCount += entry.recordLength;
+
+        Iterator<Map.Entry<String, Entry>> iterator = _entries.entrySet().iterator();
+        while (_entries.size() > _maxEntryCount || _liveByteCount > _maxByteCount) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            removed(eldest);
+            _evictionCount++;
+        }
+    }
+
+    private void removed(@NotNull Entry entry)
+    {
+        _liveByteCount -= entry.recordLength;
+        _deadByteCount += entry.recordLength;
+    }
+
+    /**
+     * Reads the header and indexes all records, truncating the file at the first incomplete or corrupt record.
+     * If the header does not match the running library, the file is cleared.
+     */
+    private void load() throws IOException
+    {
+        long fileLength = _raf.length();
+
+        if (!readHeader()) {
+            _raf.setLength(0);
+            _raf.seek(0);
+            writeHeader(_raf);
+            _headerLength = (int)_raf.length();
+            return;
+        }
+
+        long offset = _headerLength;
+        while (offset < fileLength) {
+            if (offset + RECORD_HEADER_LENGTH > fileLength)
+                break;
+            _raf.seek(offset);
+            int payloadLength = _raf.readInt();
+            if (payloadLength < 0 || offset + RECORD_HEADER_LENGTH + payloadLength > fileLength)
+                break;
+
+            byte[] record = new byte[RECORD_HEADER_LENGTH + payloadLength];
+            _raf.seek(offset);
+            _raf.readFully(record);
+
+            Record parsed = Record.parse(record);
+            if (parsed == null)
+                break;
+
+            addEntry(parsed.path, new Entry(offset, record.length, parsed.length, parsed.lastModified, parsed.hash));
+            offset += record.length;
+        }
+
+        if (offset < fileLength)
+            _raf.setLength(offset);
+    }
+
+    private boolean readHeader() throws IOException
+    {
+        if (_raf.length() == 0)
+            return false;
+
+        try {
+            _raf.seek(0);
+            if (_raf.readInt() != MAGIC)
+                throw new IOException("File is not a metadata cache: " + _file);
+            if (_raf.readInt() != FORMAT_VERSION)
+                return false;
+            if (!_raf.readUTF().equals(getVersionStamp()))
+                return false;
+            _headerLength = (int)_raf.getFilePointer();
+            return true;
+        } catch (EOFException e) {
+            // Interrupted while writing the header
+            return false;
+        }
+    }
+
+    private static void writeHeader(@NotNull RandomAccessFile raf) throws IOException
+    {
+        raf.writeInt(MAGIC);
+        raf.writeInt(FORMAT_VERSION);
+        raf.writeUTF(getVersionStamp());
+    }
+
+    /**
+     * Gets a value identifying the version of extraction that produced cached metadata.
+     */
+    @NotNull
+    private static String getVersionStamp()
+    {
+        String libraryVersion = ImageMetadataReader.class.getPackage().getImplementationVersion();
+        return "codec=" + MetadataCodec.FORMAT_VERSION + ";library=" + (libraryVersion == null ? "unknown" : libraryVersion);
+    }
+
+    @NotNull
+    private File getTempFile()
+    {
+        return new File(_file.getPath() + ".tmp");
+    }
+
+    @NotNull
+    private static byte[] hash(@NotNull File file) throws IOException
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+
+        InputStream stream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int count;
+            while ((count = stream.read(buffer)) != -1)
+                digest.update(buffer, 0, count);
+        } finally {
+            stream.close();
+        }
+        return digest.digest();
+    }
+
+    private static class Entry
+    {
+        long offset;
+        final int recordLength;
+        final long length;
+        final long lastModified;
+        @Nullable
+        final byte[] hash;
+
+        Entry(long offset, int recordLength, long length, long lastModified, @Nullable byte[] hash)
+        {
+            this.offset = offset;
+            this.recordLength = recordLength;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * A record consists of the payload length and its CRC-32, then the payload: the path, file length, last-modified
+     * time and content hash (of zero length if absent), followed by the encoded metadata.
+     */
+    private static class Record
+    {
+        @NotNull
+        final String path;
+        final long length;
+        final long lastModified;
+        @Nullable
+        final byte[] hash;
+        final int metadataOffset;
+
+        private Record(@NotNull String path, long length, long lastModified, @Nullable byte[] hash, int metadataOffset)
+        {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.metadataOffset = metadataOffset;
+        }
+
+        @NotNull
+        static byte[] create(@NotNull String path, long length, long lastModified, @Nullable byte[] hash, @NotNull byte[] metadata) throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_HEADER_LENGTH + metadata.length + path.length() + 32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeUTF(path);
+            out.writeLong(length);
+            out.writeLong(lastModified);
+            out.writeShort(hash == null ? 0 : hash.length);
+            if (hash != null)
+                out.write(hash);
+            out.write(metadata);
+            out.flush();
+
+            byte[] record = bytes.toByteArray();
+            int payloadLength = record.length - RECORD_HEADER_LENGTH;
+            CRC32 crc = new CRC32();
+            crc.update(record, RECORD_HEADER_LENGTH, payloadLength);
+            writeInt(record, 0, payloadLength);
+            writeInt(record, 4, (int)crc.getValue());
+            return record;
+        }
+
+        /** Returns <code>null</code> if the record is incomplete or its checksum does not match. */
+        @Nullable
+        static Record parse(@NotNull byte[] record)
+        {
+            if (record.length < RECORD_HEADER_LENGTH || readInt(record, 0) != record.length - RECORD_HEADER_LENGTH)
+                return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(record, RECORD_HEADER_LENGTH, record.length - RECORD_HEADER_LENGTH);
+            if ((int)crc.getValue() != readInt(record, 4))
+                return null;
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, RECORD_HEADER_LENGTH, record.length - RECORD_HEADER_LENGTH));
+            try {
+                String path = in.readUTF();
+                long length = in.readLong();
+                long lastModified = in.readLong();
+                int hashLength = in.readUnsignedShort();
+                byte[] hash = null;
+                if (hashLength != 0) {
+                    hash = new byte[hashLength];
+                    in.readFully(hash);
+                }
+                return new Record(path, length, lastModified, hash, record.length - in.available());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        private static int readInt(@NotNull byte[] bytes, int offset)
+        {
+            return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF);
+        }
+
+        private static void writeInt(@NotNull byte[] bytes, int offset, int value)
+        {
+            bytes[offset] = (byte)(value >> 24);
+            bytes[offset + 1] = (byte)(value >> 16);
+            bytes[offset + 2] = (byte)(value >> 8);
+            bytes[offset + 3] = (byte)value;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.imaging.jpeg.JpegProcessingException;
+import com.drew.imaging.jpeg.JpegSegmentHandler;
+import com.drew.imaging.jpeg.JpegSegmentReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.tiff.TiffMetadataReader;
+import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.RandomAccessByteSourceReader;
+import com.drew.lang.SeekableChannelByteSource;
+import com.drew.lang.SeekableChannelInputStream;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifDirectoryBase;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Locates embedded JPEG preview images, such as Exif thumbnails and the larger previews stored in camera raw files,
+ * without decoding the main image.
+ * <p>
+ * Previews are found via the JPEG interchange format and single-strip JPEG compressed images of any Exif IFD in JPEG
+ * (APP1), TIFF-based raw (such as NEF, ARW, CR2 and DNG) and RAF files, and via the JPEG image referenced by the RAF
+ * header. Each candidate's frame header is read to confirm that it is a displayable JPEG and obtain its
+ * dimensions, so lossless JPEG raw data is not reported.
+ * <p>
+ * Offsets are relative to the start of the file. Once located, a preview's bytes can be copied directly from the
+ * file to another channel using {@link #transferTo}, which lets the operating system avoid copying them through
+ * the Java heap.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class PreviewLocator
+{
+    private static final String MIME_TYPE_JPEG = "image/jpeg";
+
+    /** RAF files begin with this magic string, and store the offset and length of a JPEG image at bytes 84 and 88. */
+    private static final String RAF_MAGIC = "FUJIFILMCCD-RAW";
+    private static final int RAF_JPEG_POINTER_OFFSET = 84;
+
+    private static final int JPEG_COMPRESSION_OLD = 6;
+    private static final int JPEG_COMPRESSION = 7;
+
+    /**
+     * Locates embedded previews in the file at <code>path</code>.
+     */
+    @NotNull
+    public static List<EmbeddedPreview> locate(@NotNull Path path) throws ImageProcessingException, IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return locate(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Locates embedded previews in the file whose data is in <code>channel</code>, beginning at position zero.
+     * The channel's position is not used.
+     *
+     * @return the located previews, in the order they are referenced by the file. Duplicate references to the same
+     *         data are reported once.
+     * @throws ImageProcessingException if the file's type does not support previews, or it could not be processed
+     */
+    @NotNull
+    public static List<EmbeddedPreview> locate(@NotNull SeekableByteChannel channel) throws ImageProcessingException, IOException
+    {
+        byte[] prefix = readBytes(channel, 0, (int)Math.min(FileTypeDetector.getBytesNeeded(), channel.size()));
+        FileType fileType = FileTypeDetector.detectFileType(prefix, null);
+
+        List<EmbeddedPreview> previews = new ArrayList<EmbeddedPreview>();
+
+        if (fileType == FileType.Jpeg) {
+            addJpegPreviews(previews, channel, 0, channel.size());
+        } else if (fileType == FileType.Raf) {
+            addRafPreviews(previews, channel);
+        } else if (ImageMetadataReader.isTiffBased(fileType)) {
+            addTiffPreviews(previews, channel);
+        } else {
+            throw new ImageProcessingException("Locating previews is not supported for file type: " + fileType.getName());
+        }
+
+        return previews;
+    }
+
+    /**
+     * Copies a preview's bytes from <code>channel</code> to <code>target</code> using
+     * {@link FileChannel#transferTo}, which can avoid copying the data into user space.
+     *
+     * @return the number of bytes transferred, being the length of the preview
+     * @throws EOFException if the file ends before the end of the preview
+     * @throws IOException if <code>target</code> accepts no data, as a non-blocking channel may
+     */
+    public static long transferTo(@NotNull FileChannel channel, @NotNull EmbeddedPreview preview, @NotNull WritableByteChannel target) throws IOException
+    {
+        long position = preview.getOffset();
+        long remaining = preview.getLength();
+
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred == 0) {
+                if (position >= channel.size())
+                    throw new EOFException("End of file reached before end of preview data.");
+                // A non-blocking target may accept nothing indefinitely, so rather than spin, fail
+                throw new IOException("Target channel accepted no preview data.");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+
+        return preview.getLength();
+    }
+
+    private static void addJpegPreviews(@NotNull List<EmbeddedPreview> previews, @NotNull SeekableByteChannel channel, final long jpegOffset, long jpegLength) throws IOException
+    {
+        final List<Metadata> exifMetadata = new ArrayList<Metadata>();
+        final List<Long> tiffHeaderOffsets = new ArrayList<Long>();
+
+        final StreamReader reader = new StreamReader(new SeekableChannelInputStream(channel, jpegOffset, jpegLength));
+
+        try {
+            JpegSegmentReader.readSegments(reader, Arrays.asList(JpegSegmentType.APP1), new JpegSegmentHandler()
+            {
+                @Override
+                public boolean onSegment(byte segmentType, @NotNull SequentialReader segmentReader, int segmentLength) throws IOException
+                {
+                    long segmentOffset = jpegOffset + reader.getPosition();
+                    byte[] segmentBytes = segmentReader.getBytes(segmentLength);
+                    if (ExifReader.startsWithJpegExifPreamble(segmentBytes)) {
+                        Metadata metadata = new Metadata();
+                        int preambleLength = ExifReader.JPEG_SEGMENT_PREAMBLE.length();
+                        new ExifReader().extract(new ByteArrayReader(segmentBytes), metadata, preambleLength);
+                        exifMetadata.add(metadata);
+                        tiffHeaderOffsets.add(segmentOffset + preambleLength);
+                    }
+                    return true;
+                }
+            });
+        } catch (JpegProcessingException e) {
+            return;
+        }
+
+        for (int i = 0; i < exifMetadata.size(); i++) {
+            addExifPreviews(previews, channel, exifMetadata.get(i), tiffHeaderOffsets.get(i), jpegOffset + jpegLength);
+        }
+    }
+
+    private static void addRafPreviews(@NotNull List<EmbeddedPreview> previews, @NotNull SeekableByteChannel channel) throws IOException
+    {
+        byte[] header = readBytes(channel, 0, RAF_JPEG_POINTER_OFFSET + 8);
+        if (header.length < RAF_JPEG_POINTER_OFFSET + 8 || !new String(header, 0, RAF_MAGIC.length()).equals(RAF_MAGIC))
+            return;
+
+        ByteArrayReader reader = new ByteArrayReader(header);
+        long jpegOffset = reader.getUInt32(RAF_JPEG_POINTER_OFFSET);
+        long jpegLength = reader.getUInt32(RAF_JPEG_POINTER_OFFSET + 4);
+
+        if (!addPreview(previews, channel, "RAF", jpegOffset, jpegLength, channel.size()))
+            return;
+
+        // The embedded JPEG is a full size preview, and may itself contain an Exif thumbnail
+        addJpegPreviews(previews, channel, jpegOffset, jpegLength);
+    }
+
+    private static void addTiffPreviews(@NotNull List<EmbeddedPreview> previews, @NotNull SeekableByteChannel channel) throws ImageProcessingException, IOException
+    {
+        Metadata metadata;
+        try {
+            // Read by position, as IFDs may be located anywhere within the file
+            metadata = TiffMetadataReader.readMetadata(new RandomAccessByteSourceReader(new SeekableChannelByteSource(channel, 0)));
+        } catch (TiffProcessingException e) {
+            throw new ImageProcessingException(e);
+        }
+
+        addExifPreviews(previews, channel, metadata, 0, channel.size());
+    }
+
+    /**
+     * Adds previews referenced by Exif directories, whose offsets are relative to a TIFF header at
+     * <code>tiffHeaderOffset</code> within the file.
+     */
+    private static void addExifPreviews(@NotNull List<EmbeddedPreview> previews, @NotNull SeekableByteChannel channel, @NotNull Metadata metadata, long tiffHeaderOffset, long limit) throws IOException
+    {
+        for (Directory directory : metadata.getDirectories()) {
+            if (!(directory instanceof ExifDirectoryBase))
+                continue;
+
+            Long offset = directory.getLongObject(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
+            Long length = directory.getLongObject(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH);
+            if (offset != null && length != null)
+                addPreview(previews, channel, directory.getName(), tiffHeaderOffset + offset, length, limit);
+
+            Integer compression = directory.getInteger(ExifDirectoryBase.TAG_COMPRESSION);
+            if (compression != null && (compression == JPEG_COMPRESSION || compression == JPEG_COMPRESSION_OLD)) {
+                // Only single-strip images are contiguous in the file
+                Long stripOffset = directory.getLongObject(ExifDirectoryBase.TAG_STRIP_OFFSETS);
+                Long stripLength = directory.getLongObject(ExifDirectoryBase.TAG_STRIP_BYTE_COUNTS);
+                if (stripOffset != null && stripLength != null)
+                    addPreview(previews, channel, directory.getName(), tiffHeaderOffset + stripOffset, stripLength, limit);
+            }
+        }
+    }
+
+    /**
+     * Adds a preview if its range is valid, it has not already been found, and its frame header shows it to be a
+     * displayable JPEG.
+     *
+     * @return <code>true</code> if the preview was added
+     */
+    private static boolean addPreview(@NotNull List<EmbeddedPreview> previews, @NotNull SeekableByteChannel channel, @NotNull String source, long offset, long length, long limit) throws IOException
+    {
+        if (offset < 0 || length <= 0 || offset + length > limit)
+            return false;
+
+        for (EmbeddedPreview preview : previews) {
+            if (preview.getOffset() == offset)
+                return false;
+        }
+
+        int[] frame = readJpegFrame(channel, offset, length);
+        if (frame == null)
+            return false;
+
+        Integer width = frame[0] == -1 ? null : frame[0];
+        Integer height = frame[1] == -1 ? null : frame[1];
+        previews.add(new EmbeddedPreview(source, offset, length, MIME_TYPE_JPEG, width, height));
+        return true;
+    }
+
+    /**
+     * Reads the frame header of JPEG data, without reading its entropy-coded data.
+     *
+     * @return the width and height, which are -1 if there is no frame header before the scan, or <code>null</code>
+     *         if the data is not a JPEG or uses lossless coding
+     */
+    @Nullable
+    private static int[] readJpegFrame(@NotNull SeekableByteChannel channel, long offset, long length) throws IOException
+    {
+        final int[] frame = { -1, -1 };
+        final boolean[] isLossless = { false };
+
+        List<JpegSegmentType> frameTypes = Arrays.asList(
+            JpegSegmentType.SOF0, JpegSegmentType.SOF1, JpegSegmentType.SOF2, JpegSegmentType.SOF3,
+            JpegSegmentType.SOF5, JpegSegmentType.SOF6, JpegSegmentType.SOF7,
+            JpegSegmentType.SOF9, JpegSegmentType.SOF10, JpegSegmentType.SOF11,
+            JpegSegmentType.SOF13, JpegSegmentType.SOF14, JpegSegmentType.SOF15);
+
+        StreamReader reader = new StreamReader(new SeekableChannelInputStream(channel, offset, length), 256);
+
+        try {
+            JpegSegmentReader.readSegments(reader, frameTypes, new JpegSegmentHandler()
+            {
+                @Override
+                public boolean onSegment(byte segmentType, @NotNull SequentialReader segmentReader, int segmentLength) throws IOException
+                {
+                    // Lossless processes have SOF markers 0xC3, 0xC7, 0xCB and 0xCF
+                    isLossless[0] = (segmentType & 0x03) == 0x03;
+                    segmentReader.skip(1); // sample precision
+                    frame[1] = segmentReader.getUInt16();
+                    frame[0] = segmentReader.getUInt16();
+                    return false;
+                }
+            });
+        } catch (JpegProcessingException e) {
+            return null;
+        } catch (EOFException e) {
+            return null;
+        }
+
+        return isLossless[0] ? null : frame;
+    }
+
+    @NotNull
+    private static byte[] readBytes(@NotNull SeekableByteChannel channel, long position, int count) throws IOException
+    {
+        InputStream stream = new SeekableChannelInputStream(channel, position, count);
+        try {
+            byte[] bytes = new byte[count];
+            int totalBytesRead = 0;
+            while (totalBytesRead != count) {
+                int bytesRead = stream.read(bytes, totalBytesRead, count - totalBytesRead);
+                if (bytesRead == -1)
+                    return Arrays.copyOf(bytes, totalBytesRead);
+                totalBytesRead += bytesRead;
+            }
+            return bytes;
+        } finally {
+            stream.close();
+        }
+    }
+
+    private PreviewLocator() throws Exception
+    {
+        throw new Exception("Not intended for instantiation.");
+    }
+}
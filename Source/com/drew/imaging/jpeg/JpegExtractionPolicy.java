@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Limits how much of a JPEG stream {@link JpegMetadataReader} reads, which matters most when the stream is slow, such
+ * as over a network.
+ * <p>
+ * Two limits are supported:
+ * <ul>
+ *     <li>A byte budget. Reading stops before any segment that would extend past the given number of bytes from
+ *     the start of the stream, whether or not that segment is of interest.</li>
+ *     <li>Early exit. Application segments (APP0 to APP15, and COM) conventionally precede the tables and frame
+ *     header (DQT, DHT, SOFn, etc.). When every segment type requested by the active readers is an application
+ *     segment type, reading stops at the first table or frame segment, rather than continuing until the start of
+ *     scan. Application segments placed after the tables, which some encoders produce, are missed.</li>
+ * </ul>
+ * When the byte budget stops reading, {@link JpegMetadataReader} adds an error to an
+ * {@link com.drew.metadata.ErrorDirectory}. Whether reading stopped for either reason is returned by
+ * {@link JpegMetadataReader#process(com.drew.metadata.Metadata, java.io.InputStream, Iterable, JpegExtractionPolicy)}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class JpegExtractionPolicy
+{
+    /** A policy that reads all segments up to the start of scan, being the behaviour when no policy is given. */
+    @NotNull
+    public static final JpegExtractionPolicy DEFAULT = new JpegExtractionPolicy(Long.MAX_VALUE, false);
+
+    private final long _maxBytes;
+    private final boolean _isEarlyExitEnabled;
+
+    /**
+     * @param maxBytes the maximum number of bytes to read from the start of the stream
+     * @param isEarlyExitEnabled whether to stop at the first table or frame segment when only application segments
+     *                           are required
+     */
+    public JpegExtractionPolicy(long maxBytes, boolean isEarlyExitEnabled)
+    {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes must be zero or greater");
+
+        _maxBytes = maxBytes;
+        _isEarlyExitEnabled = isEarlyExitEnabled;
+    }
+
+    public long getMaxBytes()
+    {
+        return _maxBytes;
+    }
+
+    public boolean isEarlyExitEnabled()
+    {
+        return _isEarlyExitEnabled;
+    }
+
+    /**
+     * Determines whether a segment can hold application data, being one of APP0 to APP15 or COM. Such segments
+     * conventionally appear before any other segment types.
+     */
+    public static boolean isApplicationSegment(byte segmentType)
+    {
+        return (segmentType & 0xF0) == 0xE0 || segmentType == JpegSegmentType.COM.byteValue;
+    }
+
+    /**
+     * Determines whether early exit may apply to the given set of requested segment types, being the case when it
+     * is enabled and all of them are application segment types.
+     */
+    boolean canExitEarly(@NotNull Iterable<JpegSegmentType> segmentTypes)
+    {
+        if (!_isEarlyExitEnabled)
+            return false;
+
+        for (JpegSegmentType segmentType : segmentTypes) {
+            if (!isApplicationSegment(segmentType.byteValue))
+                return false;
+        }
+        return true;
+    }
+}
@@ -20,32 +20,59 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Directory;
+import com.drew.metadata.DirectoryDecoder;
+import com.drew.metadata.ErrorDirectory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataProjection;
+import com.drew.metadata.adobe.AdobeJpegDirectory;
 import com.drew.metadata.adobe.AdobeJpegReader;
 import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.file.FileSystemMetadataReader;
+import com.drew.metadata.icc.IccDirectory;
 import com.drew.metadata.icc.IccReader;
+import com.drew.metadata.iptc.IptcDirectory;
 import com.drew.metadata.iptc.IptcReader;
+import com.drew.metadata.jfif.JfifDirectory;
 import com.drew.metadata.jfif.JfifReader;
+import com.drew.metadata.jfxx.JfxxDirectory;
 import com.drew.metadata.jfxx.JfxxReader;
+import com.drew.metadata.jpeg.HuffmanTablesDirectory;
+import com.drew.metadata.jpeg.JpegCommentDirectory;
 import com.drew.metadata.jpeg.JpegCommentReader;
 import com.drew.metadata.jpeg.JpegDhtReader;
+import com.drew.metadata.jpeg.JpegDirectory;
 import com.drew.metadata.jpeg.JpegDnlReader;
 import com.drew.metadata.jpeg.JpegReader;
+import com.drew.metadata.mpf.MpfDirectory;
+import com.drew.metadata.mpf.MpfReader;
+import com.drew.metadata.photoshop.DuckyDirectory;
 import com.drew.metadata.photoshop.DuckyReader;
 import com.drew.metadata.photoshop.PhotoshopReader;
+import com.drew.metadata.xmp.XmpDirectory;
 import com.drew.metadata.xmp.XmpReader;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * Obtains all available metadata from JPEG formatted files.
@@ -67,9 +94,75 @@ public class JpegMetadataReader
             new IptcReader(),
             new AdobeJpegReader(),
             new JpegDhtReader(),
-            new JpegDnlReader()
+            new JpegDnlReader(),
+            new MpfReader()
     );
 
+    /** The directory types produced by readers whose output is limited to directories of known types. */
+    private static final Map<Class<? extends JpegSegmentMetadataReader>, List<Class<? extends Directory>>> READER_DIRECTORY_TYPES = new HashMap<Class<? extends JpegSegmentMetadataReader>, List<Class<? extends Directory>>>();
+
+    static {
+        addDirectoryTypes(JpegReader.class, JpegDirectory.class);
+        addDirectoryTypes(JpegCommentReader.class, JpegCommentDirectory.class);
+        addDirectoryTypes(JfifReader.class, JfifDirectory.class);
+        addDirectoryTypes(JfxxReader.class, JfxxDirectory.class);
+        addDirectoryTypes(XmpReader.class, XmpDirectory.class);
+        addDirectoryTypes(IccReader.class, IccDirectory.class);
+        addDirectoryTypes(DuckyReader.class, DuckyDirectory.class);
+        addDirectoryTypes(IptcReader.class, IptcDirectory.class);
+        addDirectoryTypes(AdobeJpegReader.class, AdobeJpegDirectory.class);
+        addDirectoryTypes(JpegDhtReader.class, HuffmanTablesDirectory.class);
+        addDirectoryTypes(MpfReader.class, MpfDirectory.class, ErrorDirectory.class);
+    }
+
+    @SafeVarargs
+    private static void addDirectoryTypes(@NotNull Class<? extends JpegSegmentMetadataReader> readerType, @NotNull Class<? extends Directory>... directoryTypes)
+    {
+        List<Class<? extends Directory>> types = new ArrayList<Class<? extends Directory>>(directoryTypes.length);
+        for (Class<? extends Directory> directoryType : directoryTypes)
+            types.add(directoryType);
+        READER_DIRECTORY_TYPES.put(readerType, types);
+    }
+
+    /**
+     * Gets those of {@link #ALL_READERS} whose output may include tags in <code>projection</code>, so that only the
+     * segment types they require are read. Readers whose output cannot be predicted, such as {@link ExifReader} and
+     * {@link PhotoshopReader}, are always included, though makernotes are only decoded when projected.
+     */
+    @NotNull
+    public static Iterable<JpegSegmentMetadataReader> getReaders(@Nullable MetadataProjection projection)
+    {
+        if (MetadataProjection.isUnrestricted(projection))
+            return ALL_READERS;
+
+        boolean isJpegDirectoryIncluded = projection.includesDirectory(JpegDirectory.class);
+        List<JpegSegmentMetadataReader> readers = new ArrayList<JpegSegmentMetadataReader>();
+
+        for (JpegSegmentMetadataReader reader : ALL_READERS) {
+            if (reader instanceof ExifReader) {
+                readers.add(new ExifReader(projection.includesMakernotes()));
+            } else if (dependsOnOtherReaders(reader)) {
+                if (isJpegDirectoryIncluded)
+                    readers.add(reader);
+            } else {
+                List<Class<? extends Directory>> directoryTypes = getDirectoryTypes(reader);
+                if (directoryTypes == null || includesAnyDirectory(projection, directoryTypes))
+                    readers.add(reader);
+            }
+        }
+
+        return readers;
+    }
+
+    private static boolean includesAnyDirectory(@NotNull MetadataProjection projection, @NotNull List<Class<? extends Directory>> directoryTypes)
+    {
+        for (Class<? extends Directory> directoryType : directoryTypes) {
+            if (projection.includesDirectory(directoryType))
+                return true;
+        }
+        return false;
+    }
+
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
@@ -78,6 +171,14 @@ public class JpegMetadataReader
         return metadata;
     }
 
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull JpegExtractionPolicy policy) throws JpegProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, inputStream, readers, policy);
+        return metadata;
+    }
+
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream) throws JpegProcessingException, IOException
     {
@@ -110,6 +211,187 @@ public class JpegMetadataReader
     }
 
     public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
+    {
+        process(metadata, inputStream, readers, JpegExtractionPolicy.DEFAULT);
+    }
+
+    /**
+     * Reads metadata from the JPEG data in <code>inputStream</code>, passing each segment to the interested readers
+     * as soon as it has been read, so the memory required is bounded by the largest segment plus whatever the readers
+     * keep. No segments are retained until the end of the segment stream:
+     * <ul>
+     * <li>a {@link JpegSequentialSegmentMetadataReader} that is the only reader of a segment's type reads the segment
+     * directly from the stream, without it being copied;</li>
+     * <li>a {@link JpegMultiSegmentMetadataReader} is passed each segment via a {@link JpegSegmentConsumer}, which is
+     * completed after the last segment;</li>
+     * <li>a reader that depends on the directories of other readers is passed them as they stand when its segment is
+     * read.</li>
+     * </ul>
+     * Each reader populates its own {@link Metadata}, and the resulting directories are added to
+     * <code>metadata</code> in the order of <code>readers</code>, so the result is the same as with
+     * {@link #processJpegSegmentData(Metadata, Iterable, JpegSegmentData)}.
+     * <p>
+     * Reading stops at the start of scan, or earlier if permitted by <code>policy</code>. If the policy's byte budget
+     * is reached first, an error is added to an {@link ErrorDirectory} in <code>metadata</code>.
+     *
+     * @return <code>true</code> if all segments up to the start of scan were read, or <code>false</code> if reading
+     *         stopped earlier, due to <code>policy</code> or the end of the data.
+     */
+    public static boolean process(@NotNull Metadata metadata, @NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull final JpegExtractionPolicy policy) throws JpegProcessingException, IOException
+    {
+        if (readers == null)
+            readers = ALL_READERS;
+
+        final Iterable<JpegSegmentMetadataReader> allReaders = readers;
+        final Set<JpegSegmentType> segmentTypes = new HashSet<JpegSegmentType>();
+        final Map<JpegSegmentType, List<JpegSegmentMetadataReader>> segmentReaders = new HashMap<JpegSegmentType, List<JpegSegmentMetadataReader>>();
+        final Map<JpegSegmentType, List<JpegSegmentConsumer>> segmentConsumers = new HashMap<JpegSegmentType, List<JpegSegmentConsumer>>();
+        final Map<JpegSegmentMetadataReader, Metadata> readerMetadata = new IdentityHashMap<JpegSegmentMetadataReader, Metadata>();
+
+        for (JpegSegmentMetadataReader reader : readers) {
+            Metadata output = new Metadata();
+            readerMetadata.put(reader, output);
+            for (JpegSegmentType type : reader.getSegmentTypes()) {
+                segmentTypes.add(type);
+                if (reader instanceof JpegMultiSegmentMetadataReader) {
+                    getOrCreateList(segmentConsumers, type).add(((JpegMultiSegmentMetadataReader)reader).createSegmentConsumer(output, type));
+                } else {
+                    getOrCreateList(segmentReaders, type).add(reader);
+                }
+            }
+        }
+
+        final StreamReader streamReader = new StreamReader(inputStream);
+        final boolean canExitEarly = policy.canExitEarly(segmentTypes);
+        final long maxBytes = policy.getMaxBytes();
+
+        // The policy must see every segment's header in order to stop before unwanted segments are skipped
+        boolean isPolicyActive = canExitEarly || maxBytes != Long.MAX_VALUE;
+        final boolean[] isBudgetReached = new boolean[1];
+
+        boolean isScanReached = JpegSegmentReader.readSegments(streamReader, isPolicyActive ? null : segmentTypes, new JpegSegmentHandler()
+        {
+            @Override
+            public boolean onSegment(byte segmentTypeByte, @NotNull SequentialReader reader, int segmentLength) throws IOException
+            {
+                if (streamReader.getPosition() + segmentLength > maxBytes) {
+                    isBudgetReached[0] = true;
+                    return false;
+                }
+                if (canExitEarly && !JpegExtractionPolicy.isApplicationSegment(segmentTypeByte))
+                    return false;
+
+                JpegSegmentType segmentType = JpegSegmentType.fromByte(segmentTypeByte);
+                if (segmentType == null || !segmentTypes.contains(segmentType))
+                    return true;
+
+                List<JpegSegmentMetadataReader> typeReaders = segmentReaders.get(segmentType);
+                List<JpegSegmentConsumer> typeConsumers = segmentConsumers.get(segmentType);
+
+                if (typeConsumers == null && typeReaders.size() == 1 && typeReaders.get(0) instanceof JpegSequentialSegmentMetadataReader && !dependsOnOtherReaders(typeReaders.get(0))) {
+                    JpegSequentialSegmentMetadataReader typeReader = (JpegSequentialSegmentMetadataReader)typeReaders.get(0);
+                    typeReader.readJpegSegment(reader, segmentLength, readerMetadata.get(typeReader), segmentType);
+                    return true;
+                }
+
+                byte[] segmentBytes = reader.getBytes(segmentLength);
+
+                if (typeReaders != null) {
+                    List<byte[]> segments = Collections.singletonList(segmentBytes);
+                    for (JpegSegmentMetadataReader typeReader : typeReaders) {
+                        if (dependsOnOtherReaders(typeReader)) {
+                            readDependentSegment(typeReader, segments, segmentType, allReaders, readerMetadata);
+                        } else {
+                            typeReader.readJpegSegments(segments, readerMetadata.get(typeReader), segmentType);
+                        }
+                    }
+                }
+
+                if (typeConsumers != null) {
+                    for (JpegSegmentConsumer consumer : typeConsumers) {
+                        consumer.addSegment(segmentBytes);
+                    }
+                }
+
+                return true;
+            }
+        }, maxBytes);
+
+        for (List<JpegSegmentConsumer> consumers : segmentConsumers.values()) {
+            for (JpegSegmentConsumer consumer : consumers) {
+                consumer.complete();
+            }
+        }
+
+        for (JpegSegmentMetadataReader reader : readers) {
+            for (Directory directory : readerMetadata.get(reader).getDirectories()) {
+                metadata.addDirectory(directory);
+            }
+        }
+
+        // Reading may also stop within the data between segments, in which case the budget is used up
+        if (isBudgetReached[0] || (!isScanReached && streamReader.getPosition() >= maxBytes))
+            metadata.addDirectory(new ErrorDirectory("JPEG data beyond the byte budget of " + maxBytes + " bytes was not read"));
+
+        return isScanReached;
+    }
+
+    /**
+     * Passes a segment to a reader that depends on the directories of other readers. The reader is given a view of
+     * all directories read so far, and any directories it adds are then moved to its own {@link Metadata}.
+     */
+    private static void readDependentSegment(@NotNull JpegSegmentMetadataReader reader, @NotNull List<byte[]> segments, @NotNull JpegSegmentType segmentType, @NotNull Iterable<JpegSegmentMetadataReader> readers, @NotNull Map<JpegSegmentMetadataReader, Metadata> readerMetadata)
+    {
+        Metadata view = new Metadata();
+        Set<Directory> existing = Collections.newSetFromMap(new IdentityHashMap<Directory, Boolean>());
+        for (JpegSegmentMetadataReader other : readers) {
+            for (Directory directory : readerMetadata.get(other).getDirectories()) {
+                view.addDirectory(directory);
+                existing.add(directory);
+            }
+        }
+
+        reader.readJpegSegments(segments, view, segmentType);
+
+        Metadata output = readerMetadata.get(reader);
+        for (Directory directory : view.getDirectories()) {
+            if (!existing.contains(directory))
+                output.addDirectory(directory);
+        }
+    }
+
+    @NotNull
+    private static <T> List<T> getOrCreateList(@NotNull Map<JpegSegmentType, List<T>> map, @NotNull JpegSegmentType type)
+    {
+        List<T> list = map.get(type);
+        if (list == null) {
+            list = new ArrayList<T>();
+            map.put(type, list);
+        }
+        return list;
+    }
+
+    @NotNull
+    public static Metadata readMetadataLazily(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        processLazily(metadata, inputStream, readers);
+        return metadata;
+    }
+
+    /**
+     * Reads the segments of the JPEG data in <code>inputStream</code>, but defers decoding them until their
+     * directories are requested from <code>metadata</code>. Each reader's segments are retained and decoded together
+     * by a {@link DirectoryDecoder}, so callers that only access a few directory types avoid the cost of decoding
+     * the others.
+     * <p>
+     * Readers whose directory types are not known in advance, such as {@link ExifReader} whose data may contain
+     * makernotes and embedded ICC, IPTC or XMP data, are decoded upon any request for a specific directory type.
+     * Readers that depend on directories produced by other readers are run immediately.
+     * <p>
+     * Directories are ordered by reader, as with {@link #processJpegSegmentData(Metadata, Iterable, JpegSegmentData)}.
+     */
+    public static void processLazily(@NotNull Metadata metadata, @NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
         if (readers == null)
             readers = ALL_READERS;
@@ -121,9 +403,46 @@ public class JpegMetadataReader
             }
         }
 
-        JpegSegmentData segmentData = JpegSegmentReader.readSegments(new StreamReader(inputStream), segmentTypes);
+        final JpegSegmentData segmentData = JpegSegmentReader.readSegments(new StreamReader(inputStream), segmentTypes);
+
+        List<JpegSegmentMetadataReader> dependentReaders = new ArrayList<JpegSegmentMetadataReader>();
+
+        for (final JpegSegmentMetadataReader reader : readers) {
+            if (dependsOnOtherReaders(reader)) {
+                dependentReaders.add(reader);
+                continue;
+            }
 
-        processJpegSegmentData(metadata, readers, segmentData);
+            if (!hasSegments(reader, segmentData))
+                continue;
+
+            final List<Class<? extends Directory>> directoryTypes = getDirectoryTypes(reader);
+
+            metadata.addDirectoryDecoder(new DirectoryDecoder()
+            {
+                @Override
+                public boolean mayProduce(@NotNull Class<? extends Directory> type)
+                {
+                    if (directoryTypes == null)
+                        return true;
+                    for (Class<? extends Directory> directoryType : directoryTypes) {
+                        if (type.isAssignableFrom(directoryType))
+                            return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public void decode(@NotNull Metadata metadata)
+                {
+                    for (JpegSegmentType segmentType : reader.getSegmentTypes()) {
+                        reader.readJpegSegments(segmentData.getSegments(segmentType), metadata, segmentType);
+                    }
+                }
+            });
+        }
+
+        processJpegSegmentData(metadata, dependentReaders, segmentData);
     }
 
     public static void processJpegSegmentData(Metadata metadata, Iterable<JpegSegmentMetadataReader> readers, JpegSegmentData segmentData)
@@ -136,6 +455,129 @@ public class JpegMetadataReader
         }
     }
 
+    /**
+     * Reads metadata from the JPEG data in <code>inputStream</code>, running the readers concurrently on
+     * <code>executor</code> once the segments have been read. See
+     * {@link #processJpegSegmentData(Metadata, Iterable, JpegSegmentData, Executor)}.
+     */
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull Executor executor) throws JpegProcessingException, IOException, InterruptedException
+    {
+        if (readers == null)
+            readers = ALL_READERS;
+
+        Set<JpegSegmentType> segmentTypes = new HashSet<JpegSegmentType>();
+        for (JpegSegmentMetadataReader reader : readers) {
+            for (JpegSegmentType type : reader.getSegmentTypes()) {
+                segmentTypes.add(type);
+            }
+        }
+
+        JpegSegmentData segmentData = JpegSegmentReader.readSegments(new StreamReader(inputStream), segmentTypes);
+
+        processJpegSegmentData(metadata, readers, segmentData, executor);
+    }
+
+    /**
+     * Passes segments to each reader as per {@link #processJpegSegmentData(Metadata, Iterable, JpegSegmentData)},
+     * running readers concurrently on <code>executor</code>. This reduces latency for a single file when several
+     * costly readers (such as Exif and XMP) have segments to process.
+     * <p>
+     * Each reader populates its own {@link Metadata}, and the resulting directories are added to
+     * <code>metadata</code> in the order of <code>readers</code>, so the result is the same as when reading
+     * sequentially. Readers with no segments to process are not scheduled. Readers that depend on directories
+     * produced by other readers are run afterwards, on the calling thread.
+     *
+     * @throws RuntimeException if a reader threw, in which case <code>metadata</code> is unchanged
+     * @throws InterruptedException if interrupted while waiting for readers to complete
+     */
+    public static void processJpegSegmentData(@NotNull Metadata metadata, @NotNull Iterable<JpegSegmentMetadataReader> readers, @NotNull final JpegSegmentData segmentData, @NotNull Executor executor) throws InterruptedException
+    {
+        List<FutureTask<Metadata>> tasks = new ArrayList<FutureTask<Metadata>>();
+        List<JpegSegmentMetadataReader> dependentReaders = new ArrayList<JpegSegmentMetadataReader>();
+
+        for (final JpegSegmentMetadataReader reader : readers) {
+            if (dependsOnOtherReaders(reader)) {
+                dependentReaders.add(reader);
+                continue;
+            }
+
+            if (!hasSegments(reader, segmentData))
+                continue;
+
+            FutureTask<Metadata> task = new FutureTask<Metadata>(new Callable<Metadata>()
+            {
+                @Override
+                public Metadata call()
+                {
+                    Metadata readerMetadata = new Metadata();
+                    for (JpegSegmentType segmentType : reader.getSegmentTypes()) {
+                        reader.readJpegSegments(segmentData.getSegments(segmentType), readerMetadata, segmentType);
+                    }
+                    return readerMetadata;
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        List<Metadata> results = new ArrayList<Metadata>(tasks.size());
+        try {
+            for (FutureTask<Metadata> task : tasks) {
+                try {
+                    results.add(task.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException)cause;
+                    if (cause instanceof Error)
+                        throw (Error)cause;
+                    throw new RuntimeException(cause);
+                }
+            }
+        } finally {
+            if (results.size() != tasks.size()) {
+                for (FutureTask<Metadata> task : tasks)
+                    task.cancel(true);
+            }
+        }
+
+        for (Metadata result : results) {
+            for (Directory directory : result.getDirectories()) {
+                metadata.addDirectory(directory);
+            }
+        }
+
+        processJpegSegmentData(metadata, dependentReaders, segmentData);
+    }
+
+    private static boolean hasSegments(@NotNull JpegSegmentMetadataReader reader, @NotNull JpegSegmentData segmentData)
+    {
+        for (JpegSegmentType segmentType : reader.getSegmentTypes()) {
+            if (segmentData.containsSegment(segmentType))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the types of directory that the given reader may produce, or <code>null</code> if these are not known.
+     */
+    @Nullable
+    private static List<Class<? extends Directory>> getDirectoryTypes(@NotNull JpegSegmentMetadataReader reader)
+    {
+        return READER_DIRECTORY_TYPES.get(reader.getClass());
+    }
+
+    /**
+     * Determines whether a reader uses directories produced by other readers, and so cannot be run concurrently
+     * with them. {@link JpegDnlReader} updates the {@link com.drew.metadata.jpeg.JpegDirectory} created by
+     * {@link JpegReader}.
+     */
+    private static boolean dependsOnOtherReaders(@NotNull JpegSegmentMetadataReader reader)
+    {
+        return reader instanceof JpegDnlReader;
+    }
+
     private JpegMetadataReader() throws Exception
     {
         throw new Exception("Not intended for instantiation");
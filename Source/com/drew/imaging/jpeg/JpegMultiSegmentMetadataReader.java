@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+
+/**
+ * A {@link JpegSegmentMetadataReader} whose data may be split across several segments of the same type, such as
+ * ICC profiles and extended XMP.
+ * <p>
+ * {@link JpegMetadataReader} passes each segment of the types such readers request to a {@link JpegSegmentConsumer}
+ * as soon as it is read, so that the segments themselves need not be retained until the end of the segment stream.
+ * {@link #readJpegSegments} is equivalent to passing each segment to a new consumer and then completing it.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface JpegMultiSegmentMetadataReader extends JpegSegmentMetadataReader
+{
+    /**
+     * Creates a consumer for the segments of <code>segmentType</code>, which extracts metadata into
+     * <code>metadata</code>.
+     *
+     * @param metadata The {@link Metadata} object into which extracted values should be merged.
+     * @param segmentType The {@link JpegSegmentType} being read.
+     */
+    @NotNull
+    JpegSegmentConsumer createSegmentConsumer(@NotNull Metadata metadata, @NotNull JpegSegmentType segmentType);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Accumulates the segments of a {@link JpegMultiSegmentMetadataReader} as they are encountered, holding only the
+ * state its reader needs (such as the concatenated payload of an ICC profile) rather than the segments themselves.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface JpegSegmentConsumer
+{
+    /**
+     * Called for each segment of the consumer's type, in the order encountered in the original file. Consumers
+     * should keep only the data they need from <code>segmentBytes</code>.
+     *
+     * @param segmentBytes the segment's payload.
+     */
+    void addSegment(@NotNull byte[] segmentBytes);
+
+    /**
+     * Called once after the last segment, to extract any metadata not already extracted.
+     */
+    void complete();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.SequentialReader;
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Receives JPEG segments, one at a time and in file order, as they are encountered by
+ * {@link JpegSegmentReader#readSegments(SequentialReader, Iterable, JpegSegmentHandler)}.
+ * <p>
+ * Unlike {@link JpegSegmentData}, segments are not retained once the handler returns, so the memory required to
+ * process a file is bounded by what the handler itself chooses to keep.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface JpegSegmentHandler
+{
+    /**
+     * Called for each segment of a requested type.
+     * <p>
+     * The supplied reader is positioned at the first byte of the segment's payload (after the length field) and
+     * cannot be read beyond the end of the segment. Any bytes the handler does not consume are skipped once it returns.
+     * The reader is only valid for the duration of this call.
+     *
+     * @param segmentType the byte value of the segment's marker, which may not correspond to a {@link JpegSegmentType}
+     *                    when all segment types were requested.
+     * @param reader a reader over the segment's payload.
+     * @param segmentLength the number of bytes in the segment's payload.
+     * @return <code>true</code> to continue reading segments, or <code>false</code> to stop reading immediately.
+     */
+    boolean onSegment(byte segmentType, @NotNull SequentialReader reader, int segmentLength) throws IOException, JpegProcessingException;
+}
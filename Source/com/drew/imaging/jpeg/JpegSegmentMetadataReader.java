@@ -15,7 +15,12 @@ public interface JpegSegmentMetadataReader
     Iterable<JpegSegmentType> getSegmentTypes();
 
     /**
-     * Extracts metadata from all instances of a particular JPEG segment type.
+     * Extracts metadata from instances of a particular JPEG segment type.
+     * <p>
+     * {@link JpegMetadataReader} passes each segment to this method as soon as it is read, so that segments need not
+     * be held in memory together. Readers whose data may span several segments should implement
+     * {@link JpegMultiSegmentMetadataReader}, and readers that can parse a segment in a single forward pass may
+     * implement {@link JpegSequentialSegmentMetadataReader} so that the segment need not be copied.
      *
      * @param segments A sequence of byte arrays from which the metadata should be extracted. These are in the order
      *                 encountered in the original file.
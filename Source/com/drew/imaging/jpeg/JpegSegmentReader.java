@@ -25,6 +25,7 @@ import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -36,7 +37,8 @@ import java.util.Set;
  * <p>
  * JPEG files are composed of a sequence of consecutive JPEG 'segments'. Each is identified by one of a set of byte
  * values, modelled in the {@link JpegSegmentType} enumeration. Use <code>readSegments</code> to read out the some
- * or all segments into a {@link JpegSegmentData} object, from which the raw JPEG segment byte arrays may be accessed.
+ * or all segments into a {@link JpegSegmentData} object, from which the raw JPEG segment byte arrays may be accessed,
+ * or to pass each segment to a {@link JpegSegmentHandler} as it is encountered.
  *
  * @author Drew Noakes https://drewnoakes.com
  */
@@ -92,6 +94,55 @@ public class JpegSegmentReader
      */
     @NotNull
     public static JpegSegmentData readSegments(@NotNull final SequentialReader reader, @Nullable Iterable<JpegSegmentType> segmentTypes) throws JpegProcessingException, IOException
+    {
+        final JpegSegmentData segmentData = new JpegSegmentData();
+
+        readSegments(reader, segmentTypes, new JpegSegmentHandler()
+        {
+            @Override
+            public boolean onSegment(byte segmentType, @NotNull SequentialReader segmentReader, int segmentLength) throws IOException
+            {
+                byte[] segmentBytes = segmentReader.getBytes(segmentLength);
+                assert (segmentLength == segmentBytes.length);
+                segmentData.addSegment(segmentType, segmentBytes);
+                return true;
+            }
+        });
+
+        return segmentData;
+    }
+
+    /**
+     * Processes the provided JPEG data, passing each of the specified JPEG segments to <code>handler</code> as it
+     * is encountered. Segments are not retained by this method, so the memory required is independent of the number
+     * and size of segments in the file.
+     * <p>
+     * Will not return SOS (start of scan) or EOI (end of image) segments.
+     *
+     * @param reader a {@link SequentialReader} from which the JPEG data will be read. It must be positioned at the
+     *               beginning of the JPEG data stream.
+     * @param segmentTypes the set of JPEG segments types that are to be passed to the handler. If this argument is
+     *                     <code>null</code> then all found segment types are passed.
+     * @param handler the {@link JpegSegmentHandler} to receive segments. Reading stops if it returns <code>false</code>.
+     * @return <code>true</code> if reading stopped at the SOS (start of scan) marker, in which case <code>reader</code>
+     *         is positioned immediately after the marker. Otherwise reading stopped at an EOI marker, at the end of the
+     *         data, or because the handler returned <code>false</code>.
+     */
+    public static boolean readSegments(@NotNull final SequentialReader reader, @Nullable Iterable<JpegSegmentType> segmentTypes, @NotNull JpegSegmentHandler handler) throws JpegProcessingException, IOException
+    {
+        return readSegments(reader, segmentTypes, handler, Long.MAX_VALUE);
+    }
+
+    /**
+     * Processes the provided JPEG data as per {@link #readSegments(SequentialReader, Iterable, JpegSegmentHandler)},
+     * but stops when searching for a segment marker would advance <code>reader</code> to <code>maxPosition</code>.
+     * This bounds the bytes consumed by padding or corrupt data between segments, which the handler does not see.
+     * The handler remains responsible for checking segment lengths against the limit.
+     *
+     * @param maxPosition the position of <code>reader</code> at which to stop scanning for segment markers
+     * @return <code>true</code> if reading stopped at the SOS (start of scan) marker, otherwise <code>false</code>
+     */
+    public static boolean readSegments(@NotNull final SequentialReader reader, @Nullable Iterable<JpegSegmentType> segmentTypes, @NotNull JpegSegmentHandler handler, long maxPosition) throws JpegProcessingException, IOException
     {
         // Must be big-endian
         assert (reader.isMotorolaByteOrder());
@@ -110,8 +161,6 @@ public class JpegSegmentReader
             }
         }
 
-        JpegSegmentData segmentData = new JpegSegmentData();
-
         do {
             // Find the segment marker. Markers are zero or more 0xFF bytes, followed
             // by a 0xFF and then a byte not equal to 0x00 or 0xFF.
@@ -119,22 +168,28 @@ public class JpegSegmentReader
             byte segmentIdentifier = reader.getInt8();
             byte segmentType = reader.getInt8();
 
-            // Read until we have a 0xFF byte followed by a byte that is not 0xFF or 0x00
+            // Read until we have a 0xFF byte followed by a byte that is not 0xFF or 0x00.
+            // Padding and corrupt data between segments can be large, so scan for the next 0xFF in bulk.
             while (segmentIdentifier != SEGMENT_IDENTIFIER || segmentType == SEGMENT_IDENTIFIER || segmentType == 0) {
-            	segmentIdentifier = segmentType;
-            	segmentType = reader.getInt8();
+                long remaining = maxPosition - reader.getPosition();
+                if (remaining <= 0)
+                    return false;
+                if (segmentType != SEGMENT_IDENTIFIER && reader.skipPast(SEGMENT_IDENTIFIER, remaining) == -1)
+                    return false;
+                segmentIdentifier = SEGMENT_IDENTIFIER;
+                segmentType = reader.getInt8();
             }
 
             if (segmentType == SEGMENT_SOS) {
                 // The 'Start-Of-Scan' segment's length doesn't include the image data, instead would
                 // have to search for the two bytes: 0xFF 0xD9 (EOI).
                 // It comes last so simply return at this point
-                return segmentData;
+                return true;
             }
 
             if (segmentType == MARKER_EOI) {
                 // the 'End-Of-Image' segment -- this should never be found in this fashion
-                return segmentData;
+                return false;
             }
 
             // next 2-bytes are <segment-size>: [high-byte] [low-byte]
@@ -148,20 +203,115 @@ public class JpegSegmentReader
 
             // Check whether we are interested in this segment
             if (segmentTypeBytes == null || segmentTypeBytes.contains(segmentType)) {
-                byte[] segmentBytes = reader.getBytes(segmentLength);
-                assert (segmentLength == segmentBytes.length);
-                segmentData.addSegment(segmentType, segmentBytes);
+                SegmentReader segmentReader = new SegmentReader(reader, segmentLength);
+                if (!handler.onSegment(segmentType, segmentReader, segmentLength))
+                    return false;
+                segmentReader.close();
+                if (segmentReader.available() != 0 && !reader.trySkip(segmentReader.available())) {
+                    // If skipping failed, the stream has ended
+                    return false;
+                }
             } else {
                 // Skip this segment
                 if (!reader.trySkip(segmentLength)) {
                     // If skipping failed, just return the segments we found so far
-                    return segmentData;
+                    return false;
                 }
             }
 
         } while (true);
     }
 
+    /**
+     * A view over the payload of a single segment, which reads through to the underlying reader without copying.
+     * Reads beyond the end of the segment fail, and the view cannot be used once its handler has returned.
+     */
+    private static class SegmentReader extends SequentialReader
+    {
+        @NotNull
+        private final SequentialReader _reader;
+        private final int _length;
+        private int _position;
+        private boolean _isClosed;
+
+        SegmentReader(@NotNull SequentialReader reader, int length)
+        {
+            _reader = reader;
+            _length = length;
+        }
+
+        void close()
+        {
+            _isClosed = true;
+        }
+
+        @Override
+        public long getPosition()
+        {
+            return _position;
+        }
+
+        @Override
+        public byte getByte() throws IOException
+        {
+            take(1);
+            return _reader.getByte();
+        }
+
+        @NotNull
+        @Override
+        public byte[] getBytes(int count) throws IOException
+        {
+            take(count);
+            return _reader.getBytes(count);
+        }
+
+        @Override
+        public void getBytes(@NotNull byte[] buffer, int offset, int count) throws IOException
+        {
+            take(count);
+            _reader.getBytes(buffer, offset, count);
+        }
+
+        @Override
+        public void skip(long n) throws IOException
+        {
+            if (n < 0)
+                throw new IllegalArgumentException("n must be zero or greater.");
+            if (n > _length - _position)
+                throw new EOFException("Unable to skip past the end of the JPEG segment.");
+            take((int)n);
+            _reader.skip(n);
+        }
+
+        @Override
+        public boolean trySkip(long n) throws IOException
+        {
+            if (n < 0)
+                throw new IllegalArgumentException("n must be zero or greater.");
+            int count = (int)Math.min(n, _length - _position);
+            take(count);
+            return _reader.trySkip(count) && count == n;
+        }
+
+        @Override
+        public int available()
+        {
+            return _length - _position;
+        }
+
+        private void take(int count) throws IOException
+        {
+            if (_isClosed)
+                throw new IOException("JPEG segment reader used after its handler returned.");
+            if (count < 0)
+                throw new IllegalArgumentException("count must be zero or greater.");
+            if (count > _length - _position)
+                throw new EOFException("End of JPEG segment reached.");
+            _position += count;
+        }
+    }
+
     private JpegSegmentReader() throws Exception
     {
         throw new Exception("Not intended for instantiation.");
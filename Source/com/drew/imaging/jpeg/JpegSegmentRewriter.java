@@ -0,0 +1,363 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.SeekableChannelInputStream;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.mpf.MpfReader;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Copies JPEG data while removing selected application (APP0-APP15) and comment (COM) segments, for example to
+ * remove metadata from an image before it is published.
+ * <p>
+ * Segments are read and written one at a time, and the data following the first SOS (start of scan) marker is copied
+ * without being decoded, so memory use does not depend on the size of the image. All other segments, such as
+ * quantisation and Huffman tables and frame headers, are always retained, so the image data is unchanged. Note that
+ * segments appearing after the first scan are copied unchanged.
+ * <p>
+ * Data following the primary image's EOI (end of image) marker, such as the additional images described by MPF
+ * (including Ultra HDR gain maps) and Motion Photo videos, may carry its own metadata. It is copied unchanged unless
+ * trailer removal is requested, in which case output ends at the primary image's EOI marker and MPF segments, which
+ * index the removed images, are dropped.
+ * <p>
+ * Optionally, GPS information can be removed from retained Exif APP1 segments. The GPS IFD and the values it
+ * references are overwritten with zeroes and the pointer to it removed from IFD0, so the positions of all other
+ * Exif data are unchanged. As GPS information in trailing images cannot be removed, rewriting fails with a
+ * {@link JpegProcessingException} if an MPF segment or any data after the primary image is found, unless trailer
+ * removal is also requested. Output written before the failure must be discarded.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class JpegSegmentRewriter
+{
+    private static final byte MARKER_SOS = (byte)0xDA;
+    private static final byte MARKER_EOI = (byte)0xD9;
+    /** The length of an IFD entry: tag, format, component count and value or offset. */
+    private static final int IFD_ENTRY_LENGTH = 12;
+    /** The number of bytes occupied by a single component of each TIFF format code, or zero for unknown codes. */
+    private static final int[] TIFF_FORMAT_COMPONENT_LENGTHS = { 0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8, 0, 0, 0, 8, 8, 8 };
+
+    @NotNull
+    private final Set<Byte> _segmentTypes = new HashSet<Byte>();
+    private final boolean _isAllowlist;
+    private final boolean _isGpsRemoved;
+    private final boolean _isTrailerRemoved;
+
+    /**
+     * Creates a rewriter which copies any data following the primary image, or fails if GPS information is to be
+     * removed and such data is present.
+     *
+     * @param segmentTypes the types of segment to retain if <code>isAllowlist</code> is <code>true</code>, otherwise
+     *                     the types to remove. Only application and comment segment types are considered; all other
+     *                     segments are always retained.
+     * @param isAllowlist whether <code>segmentTypes</code> lists the segments to retain, rather than to remove
+     * @param isGpsRemoved whether GPS information should be removed from retained Exif segments
+     */
+    public JpegSegmentRewriter(@NotNull Iterable<JpegSegmentType> segmentTypes, boolean isAllowlist, boolean isGpsRemoved)
+    {
+        this(segmentTypes, isAllowlist, isGpsRemoved, false);
+    }
+
+    /**
+     * @param segmentTypes the types of segment to retain if <code>isAllowlist</code> is <code>true</code>, otherwise
+     *                     the types to remove. Only application and comment segment types are considered; all other
+     *                     segments are always retained.
+     * @param isAllowlist whether <code>segmentTypes</code> lists the segments to retain, rather than to remove
+     * @param isGpsRemoved whether GPS information should be removed from retained Exif segments
+     * @param isTrailerRemoved whether output should end at the primary image's EOI marker, removing any MPF images,
+     *                         gain maps or videos that follow it
+     */
+    public JpegSegmentRewriter(@NotNull Iterable<JpegSegmentType> segmentTypes, boolean isAllowlist, boolean isGpsRemoved, boolean isTrailerRemoved)
+    {
+        for (JpegSegmentType segmentType : segmentTypes)
+            _segmentTypes.add(segmentType.byteValue);
+        _isAllowlist = isAllowlist;
+        _isGpsRemoved = isGpsRemoved;
+        _isTrailerRemoved = isTrailerRemoved;
+    }
+
+    /**
+     * Copies JPEG data from <code>input</code> to <code>output</code>, removing segments as configured. Neither
+     * stream is closed.
+     *
+     * @throws JpegProcessingException if the input is not JPEG data, or ends before the first scan, or GPS
+     *         information is to be removed and trailing images are present but not removed
+     */
+    public void rewrite(@NotNull InputStream input, @NotNull OutputStream output) throws JpegProcessingException, IOException
+    {
+        StreamReader reader = new StreamReader(input);
+        copySegments(reader, output);
+        if (isEndOfImageSought())
+            copyPrimaryImageData(reader.getRemainingStream(), output);
+        else
+            reader.copyRemainingTo(output);
+    }
+
+    /**
+     * Copies JPEG data from <code>channel</code>, beginning at position zero, to <code>target</code>, removing
+     * segments as configured. Data following the first scan marker is copied using {@link FileChannel#transferTo},
+     * which can avoid copying it through the Java heap, unless it must be examined for the end of the primary image
+     * because GPS information or trailing data is to be removed.
+     *
+     * @throws JpegProcessingException if the input is not JPEG data, or ends before the first scan, or GPS
+     *         information is to be removed and trailing images are present but not removed
+     * @throws IOException if <code>target</code> accepts no data, as a non-blocking channel may
+     */
+    public void rewrite(@NotNull FileChannel channel, @NotNull WritableByteChannel target) throws JpegProcessingException, IOException
+    {
+        long size = channel.size();
+        StreamReader reader = new StreamReader(new SeekableChannelInputStream(channel, 0, size));
+
+        OutputStream output = new BufferedOutputStream(Channels.newOutputStream(target));
+        copySegments(reader, output);
+
+        if (isEndOfImageSought()) {
+            copyPrimaryImageData(reader.getRemainingStream(), output);
+            output.flush();
+            return;
+        }
+
+        output.flush();
+
+        long position = reader.getPosition();
+        while (position < size) {
+            long transferred = channel.transferTo(position, size - position, target);
+            if (transferred == 0) {
+                if (position >= channel.size())
+                    break;
+                // A non-blocking target may accept nothing indefinitely, so rather than spin, fail
+                throw new IOException("Target channel accepted no image data.");
+            }
+            position += transferred;
+        }
+    }
+
+    /**
+     * Gets whether segments of the given type are written. Only application and comment segments may be removed.
+     */
+    public boolean isRetained(byte segmentType)
+    {
+        if (!JpegExtractionPolicy.isApplicationSegment(segmentType))
+            return true;
+        return _segmentTypes.contains(segmentType) == _isAllowlist;
+    }
+
+    /**
+     * Gets whether data following the first scan marker must be examined to find the end of the primary image.
+     */
+    private boolean isEndOfImageSought()
+    {
+        return _isTrailerRemoved || _isGpsRemoved;
+    }
+
+    /**
+     * Copies the scan data of the primary image from <code>input</code> up to and including its EOI marker. Any data
+     * that follows is dropped if trailer removal was requested, and otherwise causes an exception.
+     * <p>
+     * Within entropy-coded data, 0xFF bytes are followed by zero (stuffing) or a restart marker, and the tables and
+     * headers of later scans in progressive images are ordinary segments, so the first 0xFF 0xD9 pair marks the end
+     * of the image. Any number of 0xFF fill bytes may precede a marker.
+     */
+    private void copyPrimaryImageData(@NotNull InputStream input, @NotNull OutputStream output) throws JpegProcessingException, IOException
+    {
+        byte[] buffer = new byte[8192];
+        boolean isMarkerPending = false;
+        int bytesRead;
+
+        while ((bytesRead = input.read(buffer)) != -1) {
+            for (int i = 0; i < bytesRead; i++) {
+                byte b = buffer[i];
+                if (isMarkerPending && b == MARKER_EOI) {
+                    output.write(buffer, 0, i + 1);
+                    if (!_isTrailerRemoved && (i + 1 < bytesRead || input.read() != -1))
+                        throw new JpegProcessingException("JPEG data follows the primary image and may contain GPS information; enable trailer removal to remove it");
+                    return;
+                }
+                isMarkerPending = b == (byte)0xFF;
+            }
+            output.write(buffer, 0, bytesRead);
+        }
+    }
+
+    /**
+     * Writes SOI and the retained segments up to and including the first SOS marker, leaving <code>reader</code>
+     * positioned immediately after that marker.
+     */
+    private void copySegments(@NotNull SequentialReader reader, @NotNull final OutputStream output) throws JpegProcessingException, IOException
+    {
+        output.write(0xFF);
+        output.write(0xD8);
+
+        boolean isScanReached = JpegSegmentReader.readSegments(reader, null, new JpegSegmentHandler()
+        {
+            @Override
+            public boolean onSegment(byte segmentType, @NotNull SequentialReader segmentReader, int segmentLength) throws IOException, JpegProcessingException
+            {
+                if (!isRetained(segmentType))
+                    return true;
+
+                byte[] payload = segmentReader.getBytes(segmentLength);
+
+                if (segmentType == JpegSegmentType.APP2.byteValue && MpfReader.startsWithMpfPreamble(payload)) {
+                    // The images indexed by MPF follow the primary image, and may have their own Exif data
+                    if (_isTrailerRemoved)
+                        return true;
+                    if (_isGpsRemoved)
+                        throw new JpegProcessingException("JPEG data contains MPF images which may contain GPS information; enable trailer removal to remove them");
+                }
+
+                if (_isGpsRemoved && segmentType == JpegSegmentType.APP1.byteValue && ExifReader.startsWithJpegExifPreamble(payload)) {
+                    // Rather than risk retaining location data, Exif data that cannot be understood is removed
+                    if (!removeGpsIfd(payload, ExifReader.JPEG_SEGMENT_PREAMBLE.length()))
+                        return true;
+                }
+
+                output.write(0xFF);
+                output.write(segmentType);
+                output.write((segmentLength + 2) >> 8);
+                output.write(segmentLength + 2);
+                output.write(payload);
+                return true;
+            }
+        });
+
+        if (!isScanReached)
+            throw new JpegProcessingException("JPEG data ended before the start of scan (SOS) marker");
+
+        output.write(0xFF);
+        output.write(MARKER_SOS);
+    }
+
+    /**
+     * Removes the GPS IFD pointer from IFD0 of the TIFF data at <code>tiffHeaderOffset</code> within
+     * <code>bytes</code>, and overwrites the GPS IFD and its values with zeroes, without moving any other data.
+     *
+     * @return <code>false</code> if the TIFF data is malformed
+     */
+    static boolean removeGpsIfd(@NotNull byte[] bytes, int tiffHeaderOffset)
+    {
+        ByteArrayReader reader = new ByteArrayReader(bytes, tiffHeaderOffset);
+
+        try {
+            int byteOrder = reader.getUInt16(0);
+            if (byteOrder == 0x4949)
+                reader.setMotorolaByteOrder(false);
+            else if (byteOrder != 0x4D4D)
+                return false;
+
+            long ifd0Offset = reader.getUInt32(4);
+            if (ifd0Offset > Integer.MAX_VALUE)
+                return false;
+            int entryCount = reader.getUInt16((int)ifd0Offset);
+            int entriesOffset = (int)ifd0Offset + 2;
+
+            // Include the offset of the next IFD that follows the entries
+            if (!isWithin(bytes, tiffHeaderOffset, entriesOffset, entryCount * IFD_ENTRY_LENGTH + 4))
+                return false;
+
+            for (int i = 0; i < entryCount; i++) {
+                int entryOffset = entriesOffset + i * IFD_ENTRY_LENGTH;
+                if (reader.getUInt16(entryOffset) != ExifIFD0Directory.TAG_GPS_INFO_OFFSET)
+                    continue;
+
+                long gpsIfdOffset = reader.getUInt32(entryOffset + 8);
+                if (gpsIfdOffset > Integer.MAX_VALUE || !clearIfd(bytes, reader, tiffHeaderOffset, (int)gpsIfdOffset))
+                    return false;
+
+                // Shift the later entries and the next IFD offset over the removed entry, and clear the freed bytes
+                int start = tiffHeaderOffset + entryOffset;
+                int end = tiffHeaderOffset + entriesOffset + entryCount * IFD_ENTRY_LENGTH + 4;
+                System.arraycopy(bytes, start + IFD_ENTRY_LENGTH, bytes, start, end - start - IFD_ENTRY_LENGTH);
+                clear(bytes, end - IFD_ENTRY_LENGTH, IFD_ENTRY_LENGTH);
+                putUInt16(bytes, tiffHeaderOffset + (int)ifd0Offset, entryCount - 1, reader.isMotorolaByteOrder());
+                return true;
+            }
+
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean clearIfd(@NotNull byte[] bytes, @NotNull ByteArrayReader reader, int tiffHeaderOffset, int ifdOffset) throws IOException
+    {
+        int entryCount = reader.getUInt16(ifdOffset);
+        int ifdLength = 2 + entryCount * IFD_ENTRY_LENGTH + 4;
+        if (!isWithin(bytes, tiffHeaderOffset, ifdOffset, ifdLength))
+            return false;
+
+        for (int i = 0; i < entryCount; i++) {
+            int entryOffset = ifdOffset + 2 + i * IFD_ENTRY_LENGTH;
+            int formatCode = reader.getUInt16(entryOffset + 2);
+            long componentCount = reader.getUInt32(entryOffset + 4);
+            if (formatCode >= TIFF_FORMAT_COMPONENT_LENGTHS.length)
+                continue;
+
+            long byteCount = componentCount * TIFF_FORMAT_COMPONENT_LENGTHS[formatCode];
+            if (byteCount > 4) {
+                long valueOffset = reader.getUInt32(entryOffset + 8);
+                if (valueOffset > Integer.MAX_VALUE || byteCount > Integer.MAX_VALUE || !isWithin(bytes, tiffHeaderOffset, (int)valueOffset, (int)byteCount))
+                    return false;
+                clear(bytes, tiffHeaderOffset + (int)valueOffset, (int)byteCount);
+            }
+        }
+
+        clear(bytes, tiffHeaderOffset + ifdOffset, ifdLength);
+        return true;
+    }
+
+    private static boolean isWithin(@NotNull byte[] bytes, int tiffHeaderOffset, int offset, int length)
+    {
+        return offset >= 0 && length >= 0 && (long)tiffHeaderOffset + offset + length <= bytes.length;
+    }
+
+    private static void clear(@NotNull byte[] bytes, int index, int count)
+    {
+        for (int i = index; i < index + count; i++)
+            bytes[i] = 0;
+    }
+
+    private static void putUInt16(@NotNull byte[] bytes, int index, int value, boolean isMotorolaByteOrder)
+    {
+        if (isMotorolaByteOrder) {
+            bytes[index] = (byte)(value >> 8);
+            bytes[index + 1] = (byte)value;
+        } else {
+            bytes[index] = (byte)value;
+            bytes[index + 1] = (byte)(value >> 8);
+        }
+    }
+}
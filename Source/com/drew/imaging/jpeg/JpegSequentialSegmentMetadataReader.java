@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.SequentialReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+
+import java.io.IOException;
+
+/**
+ * A {@link JpegSegmentMetadataReader} which reads a segment's payload in a single forward pass, and so may be passed
+ * a reader over the segment stream itself rather than a copy of the segment's bytes.
+ * <p>
+ * {@link JpegMetadataReader} passes the segment stream directly when such a reader is the only one interested in a
+ * segment's type. Otherwise the segment is copied once and passed to each reader via {@link #readJpegSegments}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface JpegSequentialSegmentMetadataReader extends JpegSegmentMetadataReader
+{
+    /**
+     * Extracts metadata from a single segment.
+     * <p>
+     * The reader is positioned at the first byte of the segment's payload and cannot be read beyond its end. Any bytes
+     * not consumed are skipped once this method returns.
+     *
+     * @param reader a reader over the segment's payload, which is only valid for the duration of this call.
+     * @param segmentLength the number of bytes in the segment's payload.
+     * @param metadata The {@link Metadata} object into which extracted values should be merged.
+     * @param segmentType The {@link JpegSegmentType} being read.
+     * @throws IOException if the segment stream cannot be read.
+     */
+    void readJpegSegment(@NotNull SequentialReader reader, int segmentLength, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType) throws IOException;
+}
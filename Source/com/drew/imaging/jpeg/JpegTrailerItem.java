@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+/**
+ * Describes a payload stored after the primary image of a JPEG file, such as a Multi-Picture Format image, an
+ * Ultra HDR gain map or a Motion Photo video, as found by {@link JpegTrailerLocator}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class JpegTrailerItem
+{
+    /** Identifies the metadata from which an item was located. */
+    public enum Source
+    {
+        /** The MP Entry list of a Multi-Picture Format APP2 segment. */
+        MPF,
+        /** An XMP <code>Container:Directory</code>, as used by Ultra HDR and Motion Photo files. */
+        CONTAINER_DIRECTORY,
+        /** The XMP <code>MicroVideoOffset</code> property of older Motion Photo files. */
+        MICRO_VIDEO
+    }
+
+    @NotNull
+    private final Source _source;
+    private final long _offset;
+    private final long _length;
+    @Nullable
+    private final String _mimeType;
+    @Nullable
+    private final String _semantic;
+
+    public JpegTrailerItem(@NotNull Source source, long offset, long length, @Nullable String mimeType, @Nullable String semantic)
+    {
+        _source = source;
+        _offset = offset;
+        _length = length;
+        _mimeType = mimeType;
+        _semantic = semantic;
+    }
+
+    @NotNull
+    public Source getSource()
+    {
+        return _source;
+    }
+
+    /** Gets the position of the item's first byte within the file. */
+    public long getOffset()
+    {
+        return _offset;
+    }
+
+    /** Gets the length of the item, in bytes. */
+    public long getLength()
+    {
+        return _length;
+    }
+
+    /** Gets the MIME type of the item, such as <code>image/jpeg</code> or <code>video/mp4</code>, if known. */
+    @Nullable
+    public String getMimeType()
+    {
+        return _mimeType;
+    }
+
+    /**
+     * Gets the item's role, if known. For container directory items this is the <code>Item:Semantic</code> value
+     * (such as <code>GainMap</code> or <code>MotionPhoto</code>), and for MPF items it describes the MP type.
+     */
+    @Nullable
+    public String getSemantic()
+    {
+        return _semantic;
+    }
+
+    @Override
+    @NotNull
+    public String toString()
+    {
+        return String.format("%s %s (%s), %d bytes at offset %d", _source, _semantic, _mimeType, _length, _offset);
+    }
+}
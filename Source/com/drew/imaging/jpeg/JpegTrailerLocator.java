@@ -0,0 +1,276 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.adobe.internal.xmp.XMPException;
+import com.adobe.internal.xmp.XMPMeta;
+import com.adobe.internal.xmp.XMPMetaFactory;
+import com.adobe.internal.xmp.XMPPathFactory;
+import com.adobe.internal.xmp.properties.XMPProperty;
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.ImageProcessingException;
+import com.drew.imaging.mp4.Mp4MetadataReader;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.SeekableChannelInputStream;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.mpf.MpfDirectory;
+import com.drew.metadata.mpf.MpfImageEntry;
+import com.drew.metadata.mpf.MpfReader;
+import com.drew.metadata.xmp.XmpDirectory;
+import com.drew.metadata.xmp.XmpReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Locates payloads stored after the primary image of a JPEG file, such as Multi-Picture Format (MPF) images,
+ * Ultra HDR gain maps and Motion Photo videos.
+ * <p>
+ * Only the segments preceding the primary image's scan data are read. The positions of trailing payloads are then
+ * computed from the MPF index, the XMP <code>Container:Directory</code> and the XMP <code>MicroVideoOffset</code>
+ * property, so the entropy-coded image data is never decoded or scanned. Payloads are read with positional reads
+ * on the channel via {@link #readMetadata(SeekableByteChannel, JpegTrailerItem)}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class JpegTrailerLocator
+{
+    private static final String CONTAINER_NAMESPACE = "http://ns.google.com/photos/1.0/container/";
+    private static final String CONTAINER_ITEM_NAMESPACE = "http://ns.google.com/photos/1.0/container/item/";
+    private static final String CAMERA_NAMESPACE = "http://ns.google.com/photos/1.0/camera/";
+
+    private static final String MIME_TYPE_JPEG = "image/jpeg";
+
+    static {
+        try {
+            // Struct field paths are composed using prefixes, so the namespaces must be known to the XMP library
+            XMPMetaFactory.getSchemaRegistry().registerNamespace(CONTAINER_NAMESPACE, "Container");
+            XMPMetaFactory.getSchemaRegistry().registerNamespace(CONTAINER_ITEM_NAMESPACE, "Item");
+            XMPMetaFactory.getSchemaRegistry().registerNamespace(CAMERA_NAMESPACE, "GCamera");
+        } catch (XMPException ignored) {
+        }
+    }
+
+    /**
+     * Locates payloads following the primary image of the JPEG file at <code>path</code>.
+     */
+    @NotNull
+    public static List<JpegTrailerItem> locate(@NotNull Path path) throws JpegProcessingException, IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return locate(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Locates payloads following the primary image of the JPEG data in <code>channel</code>, which must begin at
+     * position zero. The channel's position is not used.
+     *
+     * @return the located items, in the order they are described by the file's metadata. Items whose ranges fall
+     *         outside the channel are omitted.
+     */
+    @NotNull
+    public static List<JpegTrailerItem> locate(@NotNull SeekableByteChannel channel) throws JpegProcessingException, IOException
+    {
+        final long fileLength = channel.size();
+        final Metadata metadata = new Metadata();
+        final List<byte[]> xmpSegments = new ArrayList<byte[]>();
+        final long[] mpHeaderOffset = { -1 };
+
+        final StreamReader reader = new StreamReader(new SeekableChannelInputStream(channel, 0, fileLength));
+
+        JpegSegmentReader.readSegments(reader, Arrays.asList(JpegSegmentType.APP1, JpegSegmentType.APP2), new JpegSegmentHandler()
+        {
+            @Override
+            public boolean onSegment(byte segmentType, @NotNull SequentialReader segmentReader, int segmentLength) throws IOException
+            {
+                long segmentOffset = reader.getPosition();
+                byte[] segmentBytes = segmentReader.getBytes(segmentLength);
+
+                if (segmentType == JpegSegmentType.APP2.byteValue) {
+                    if (mpHeaderOffset[0] == -1 && MpfReader.startsWithMpfPreamble(segmentBytes)) {
+                        int preambleLength = MpfReader.JPEG_SEGMENT_PREAMBLE.length();
+                        mpHeaderOffset[0] = segmentOffset + preambleLength;
+                        new MpfReader().extract(new ByteArrayReader(segmentBytes), metadata, preambleLength);
+                    }
+                } else if (!ExifReader.startsWithJpegExifPreamble(segmentBytes)) {
+                    xmpSegments.add(segmentBytes);
+                }
+                return true;
+            }
+        });
+
+        List<JpegTrailerItem> items = new ArrayList<JpegTrailerItem>();
+
+        MpfDirectory mpfDirectory = metadata.getFirstDirectoryOfType(MpfDirectory.class);
+        if (mpfDirectory != null)
+            addMpfItems(items, mpfDirectory, mpHeaderOffset[0], fileLength);
+
+        if (!xmpSegments.isEmpty()) {
+            new XmpReader().readJpegSegments(xmpSegments, metadata, JpegSegmentType.APP1);
+            XmpDirectory xmpDirectory = metadata.getFirstDirectoryOfType(XmpDirectory.class);
+            if (xmpDirectory != null) {
+                XMPMeta xmpMeta = xmpDirectory.getXMPMeta();
+                addContainerItems(items, xmpMeta, fileLength);
+                addMicroVideoItem(items, xmpMeta, fileLength);
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * Reads metadata from a located item. JPEG images are read via {@link JpegMetadataReader}, MP4 videos via
+     * {@link Mp4MetadataReader}, and anything else via {@link ImageMetadataReader}, which detects the type.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull SeekableByteChannel channel, @NotNull JpegTrailerItem item) throws ImageProcessingException, IOException
+    {
+        InputStream stream = new SeekableChannelInputStream(channel, item.getOffset(), item.getLength());
+        try {
+            String mimeType = item.getMimeType();
+            if (MIME_TYPE_JPEG.equalsIgnoreCase(mimeType))
+                return JpegMetadataReader.readMetadata(stream);
+            if ("video/mp4".equalsIgnoreCase(mimeType))
+                return Mp4MetadataReader.readMetadata(stream);
+            return ImageMetadataReader.readMetadata(stream, item.getLength());
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static void addMpfItems(@NotNull List<JpegTrailerItem> items, @NotNull MpfDirectory directory, long mpHeaderOffset, long fileLength)
+    {
+        for (MpfImageEntry entry : directory.getImageEntries()) {
+            // The primary image has an offset of zero, as its position cannot be expressed relative to the MP header
+            if (entry.getOffset() == 0)
+                continue;
+
+            String mimeType = entry.getDataFormat() == 0 ? MIME_TYPE_JPEG : null;
+            addItem(items, new JpegTrailerItem(JpegTrailerItem.Source.MPF, mpHeaderOffset + entry.getOffset(), entry.getSize(), mimeType, entry.getTypeDescription()), fileLength);
+        }
+    }
+
+    /**
+     * Adds items of a <code>Container:Directory</code>. The first item is the primary image, and the others are
+     * stored contiguously after it in directory order, so their offsets are found by working back from the end of
+     * the file.
+     */
+    private static void addContainerItems(@NotNull List<JpegTrailerItem> items, @NotNull XMPMeta xmpMeta, long fileLength)
+    {
+        try {
+            int count = xmpMeta.countArrayItems(CONTAINER_NAMESPACE, "Directory");
+            if (count < 2)
+                return;
+
+            String[] mimeTypes = new String[count];
+            String[] semantics = new String[count];
+            long[] lengths = new long[count];
+            long[] paddings = new long[count];
+
+            for (int i = 0; i < count; i++) {
+                String itemPath = XMPPathFactory.composeArrayItemPath("Directory", i + 1) + XMPPathFactory.composeStructFieldPath(CONTAINER_NAMESPACE, "Item");
+                mimeTypes[i] = getStructFieldValue(xmpMeta, itemPath, "Mime");
+                semantics[i] = getStructFieldValue(xmpMeta, itemPath, "Semantic");
+                lengths[i] = parseLength(getStructFieldValue(xmpMeta, itemPath, "Length"));
+                paddings[i] = parseLength(getStructFieldValue(xmpMeta, itemPath, "Padding"));
+            }
+
+            JpegTrailerItem[] containerItems = new JpegTrailerItem[count];
+            long end = fileLength;
+            for (int i = count - 1; i > 0; i--) {
+                if (lengths[i] <= 0)
+                    return;
+                long offset = end - lengths[i];
+                containerItems[i] = new JpegTrailerItem(JpegTrailerItem.Source.CONTAINER_DIRECTORY, offset, lengths[i], mimeTypes[i], semantics[i]);
+                end = offset - paddings[i - 1];
+            }
+
+            for (int i = 1; i < count; i++)
+                addItem(items, containerItems[i], fileLength);
+        } catch (XMPException ignored) {
+        }
+    }
+
+    private static void addMicroVideoItem(@NotNull List<JpegTrailerItem> items, @NotNull XMPMeta xmpMeta, long fileLength)
+    {
+        try {
+            // Gives the number of bytes from the start of the video to the end of the file
+            Long microVideoOffset = xmpMeta.getPropertyLong(CAMERA_NAMESPACE, "MicroVideoOffset");
+            if (microVideoOffset != null && microVideoOffset > 0)
+                addItem(items, new JpegTrailerItem(JpegTrailerItem.Source.MICRO_VIDEO, fileLength - microVideoOffset, microVideoOffset, "video/mp4", "MotionPhoto"), fileLength);
+        } catch (XMPException ignored) {
+        }
+    }
+
+    private static void addItem(@NotNull List<JpegTrailerItem> items, @NotNull JpegTrailerItem item, long fileLength)
+    {
+        if (item.getOffset() <= 0 || item.getLength() <= 0 || item.getOffset() + item.getLength() > fileLength)
+            return;
+
+        // The same payload may be described by several sources, such as an Ultra HDR gain map listed by both MPF and XMP
+        for (JpegTrailerItem existing : items) {
+            if (existing.getOffset() == item.getOffset())
+                return;
+        }
+
+        items.add(item);
+    }
+
+    @Nullable
+    private static String getStructFieldValue(@NotNull XMPMeta xmpMeta, @NotNull String structPath, @NotNull String fieldName) throws XMPException
+    {
+        XMPProperty property = xmpMeta.getStructField(CONTAINER_NAMESPACE, structPath, CONTAINER_ITEM_NAMESPACE, fieldName);
+        return property == null ? null : property.getValue();
+    }
+
+    private static long parseLength(@Nullable String value)
+    {
+        if (value == null)
+            return 0;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private JpegTrailerLocator() throws Exception
+    {
+        throw new Exception("Not intended for instantiation.");
+    }
+}
@@ -21,14 +21,23 @@
 package com.drew.imaging.mp4;
 
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataProjection;
 import com.drew.metadata.file.FileSystemMetadataReader;
 import com.drew.metadata.mp4.Mp4BoxHandler;
+import com.drew.metadata.mp4.Mp4BoxTypes;
+import com.drew.metadata.mp4.Mp4ContainerTypes;
+import com.drew.metadata.mp4.Mp4Directory;
+import com.drew.metadata.mp4.media.Mp4MediaDirectory;
+import com.drew.metadata.mp4.media.Mp4UuidBoxDirectory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author Payton Garland
@@ -51,9 +60,41 @@ public class Mp4MetadataReader
 
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream)
+    {
+        return readMetadata(inputStream, null);
+    }
+
+    /**
+     * Reads metadata from <code>inputStream</code>, skipping track, user data and UUID boxes when they cannot
+     * contribute to <code>projection</code>.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable MetadataProjection projection)
     {
         Metadata metadata = new Metadata();
-        Mp4Reader.extract(inputStream, new Mp4BoxHandler(metadata));
+        Mp4Reader.extract(inputStream, new Mp4BoxHandler(metadata), getSkippedBoxTypes(projection));
         return metadata;
     }
+
+    @NotNull
+    private static Set<String> getSkippedBoxTypes(@Nullable MetadataProjection projection)
+    {
+        Set<String> skippedBoxTypes = new HashSet<String>();
+
+        if (MetadataProjection.isUnrestricted(projection))
+            return skippedBoxTypes;
+
+        // Media directories are populated from within tracks, as are rotation and the media time scale
+        if (!projection.includesDirectory(Mp4MediaDirectory.class)
+                && !projection.includesAnyTag(Mp4Directory.class, Mp4Directory.TAG_ROTATION, Mp4Directory.TAG_MEDIA_TIME_SCALE))
+            skippedBoxTypes.add(Mp4ContainerTypes.BOX_TRACK);
+        if (!projection.includesAnyTag(Mp4Directory.class, Mp4Directory.TAG_LATITUDE, Mp4Directory.TAG_LONGITUDE,
+                Mp4Directory.TAG_TITLE, Mp4Directory.TAG_COMMENT, Mp4Directory.TAG_SUBTITLE,
+                Mp4Directory.TAG_USER_RATING, Mp4Directory.TAG_CATEGORY, Mp4Directory.TAG_MOOD))
+            skippedBoxTypes.add(Mp4BoxTypes.BOX_USER_DATA);
+        if (!projection.includesDirectory(Mp4UuidBoxDirectory.class))
+            skippedBoxTypes.add(Mp4BoxTypes.BOX_USER_DEFINED);
+
+        return skippedBoxTypes;
+    }
 }
@@ -26,6 +26,8 @@ import com.drew.metadata.mp4.Mp4Context;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * @author Payton Garland
@@ -35,16 +37,25 @@ public class Mp4Reader
     private Mp4Reader() {}
 
     public static void extract(@NotNull InputStream inputStream, @NotNull Mp4Handler<?> handler)
+    {
+        extract(inputStream, handler, Collections.<String>emptySet());
+    }
+
+    /**
+     * Processes the boxes in <code>inputStream</code>, skipping boxes of the types in <code>skippedBoxTypes</code>
+     * (along with any boxes they contain) without reading them, regardless of whether the handler accepts them.
+     */
+    public static void extract(@NotNull InputStream inputStream, @NotNull Mp4Handler<?> handler, @NotNull Set<String> skippedBoxTypes)
     {
         StreamReader reader = new StreamReader(inputStream);
         reader.setMotorolaByteOrder(true);
 
         Mp4Context context = new Mp4Context();
 
-        processBoxes(reader, -1, handler, context);
+        processBoxes(reader, -1, handler, context, skippedBoxTypes);
     }
 
-    private static void processBoxes(StreamReader reader, long atomEnd, Mp4Handler<?> handler, Mp4Context context)
+    private static void processBoxes(StreamReader reader, long atomEnd, Mp4Handler<?> handler, Mp4Context context, Set<String> skippedBoxTypes)
     {
         try {
             while (atomEnd == -1 || reader.getPosition() < atomEnd) {
@@ -70,12 +81,14 @@ public class Mp4Reader
                 }
 
                 // Determine if fourCC is container/atom and process accordingly.
-                // Unknown atoms will be skipped
+                // Unknown and skipped atoms will be skipped
+
+                boolean isSkipped = skippedBoxTypes.contains(boxType);
 
-                if (handler.shouldAcceptContainer(boxType)) {
+                if (!isSkipped && handler.shouldAcceptContainer(boxType)) {
                     // Recur, to process nested boxes within container box
-                    processBoxes(reader, boxSize + reader.getPosition() - 8, handler.processContainer(boxType, boxSize, context), context);
-                } else if (handler.shouldAcceptBox(boxType)) {
+                    processBoxes(reader, boxSize + reader.getPosition() - 8, handler.processContainer(boxType, boxSize, context), context, skippedBoxTypes);
+                } else if (!isSkipped && handler.shouldAcceptBox(boxType)) {
                     handler = handler.processBox(boxType, reader.getBytes((int)boxSize - 8), boxSize, context);
                 } else if (isLargeSize) {
                     if (boxSize < 16) {
@@ -27,13 +27,19 @@ import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.ErrorDirectory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataProjection;
 import com.drew.metadata.StringValue;
+import com.drew.metadata.exif.ExifDirectoryBase;
 import com.drew.metadata.exif.ExifTiffHandler;
 import com.drew.metadata.file.FileSystemMetadataReader;
+import com.drew.metadata.icc.IccDirectory;
 import com.drew.metadata.icc.IccReader;
+import com.drew.metadata.iptc.IptcDirectory;
 import com.drew.metadata.iptc.IptcReader;
+import com.drew.metadata.photoshop.PhotoshopDirectory;
 import com.drew.metadata.png.PngChromaticitiesDirectory;
 import com.drew.metadata.png.PngDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
 import com.drew.metadata.xmp.XmpReader;
 
 import java.io.*;
@@ -102,13 +108,28 @@ public class PngMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream) throws PngProcessingException, IOException
     {
-        Iterable<PngChunk> chunks = new PngChunkReader().extract(new StreamReader(inputStream), _desiredChunkTypes);
+        return readMetadata(inputStream, null);
+    }
+
+    /**
+     * Reads metadata from <code>inputStream</code>, skipping chunks that cannot contribute to <code>projection</code>
+     * without buffering their contents.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable MetadataProjection projection) throws PngProcessingException, IOException
+    {
+        Set<PngChunkType> desiredChunkTypes = MetadataProjection.isUnrestricted(projection)
+            ? _desiredChunkTypes
+            : getDesiredChunkTypes(projection);
+        boolean isMakernoteProcessed = projection == null || projection.includesMakernotes();
+
+        Iterable<PngChunk> chunks = new PngChunkReader().extract(new StreamReader(inputStream), desiredChunkTypes);
 
         Metadata metadata = new Metadata();
 
         for (PngChunk chunk : chunks) {
             try {
-                processChunk(metadata, chunk);
+                processChunk(metadata, chunk, isMakernoteProcessed);
             } catch (Exception e) {
                 metadata.addDirectory(new ErrorDirectory("Exception reading PNG chunk: " + e.getMessage()));
             }
@@ -117,7 +138,59 @@ public class PngMetadataReader
         return metadata;
     }
 
-    private static void processChunk(@NotNull Metadata metadata, @NotNull PngChunk chunk) throws PngProcessingException, IOException
+    /**
+     * Gets the chunk types that may produce a tag included in <code>projection</code>.
+     */
+    @NotNull
+    private static Set<PngChunkType> getDesiredChunkTypes(@NotNull MetadataProjection projection)
+    {
+        Set<PngChunkType> desiredChunkTypes = new HashSet<PngChunkType>();
+
+        if (projection.includesAnyTag(PngDirectory.class, PngDirectory.TAG_IMAGE_WIDTH, PngDirectory.TAG_IMAGE_HEIGHT,
+                PngDirectory.TAG_BITS_PER_SAMPLE, PngDirectory.TAG_COLOR_TYPE, PngDirectory.TAG_COMPRESSION_TYPE,
+                PngDirectory.TAG_FILTER_METHOD, PngDirectory.TAG_INTERLACE_METHOD))
+            desiredChunkTypes.add(PngChunkType.IHDR);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_PALETTE_SIZE))
+            desiredChunkTypes.add(PngChunkType.PLTE);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_PALETTE_HAS_TRANSPARENCY))
+            desiredChunkTypes.add(PngChunkType.tRNS);
+        if (projection.includesDirectory(PngChromaticitiesDirectory.class))
+            desiredChunkTypes.add(PngChunkType.cHRM);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_SRGB_RENDERING_INTENT))
+            desiredChunkTypes.add(PngChunkType.sRGB);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_GAMMA))
+            desiredChunkTypes.add(PngChunkType.gAMA);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_ICC_PROFILE_NAME) || projection.includesDirectory(IccDirectory.class))
+            desiredChunkTypes.add(PngChunkType.iCCP);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_BACKGROUND_COLOR))
+            desiredChunkTypes.add(PngChunkType.bKGD);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_TEXTUAL_DATA)
+                || projection.includesDirectory(XmpDirectory.class)
+                || projection.includesDirectory(IptcDirectory.class)) {
+            desiredChunkTypes.add(PngChunkType.tEXt);
+            desiredChunkTypes.add(PngChunkType.zTXt);
+            desiredChunkTypes.add(PngChunkType.iTXt);
+        }
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_LAST_MODIFICATION_TIME))
+            desiredChunkTypes.add(PngChunkType.tIME);
+        if (projection.includesAnyTag(PngDirectory.class, PngDirectory.TAG_PIXELS_PER_UNIT_X,
+                PngDirectory.TAG_PIXELS_PER_UNIT_Y, PngDirectory.TAG_UNIT_SPECIFIER))
+            desiredChunkTypes.add(PngChunkType.pHYs);
+        if (projection.includesTag(PngDirectory.class, PngDirectory.TAG_SIGNIFICANT_BITS))
+            desiredChunkTypes.add(PngChunkType.sBIT);
+        // Exif data may embed other kinds of metadata, as well as makernotes
+        if (projection.includesDirectory(ExifDirectoryBase.class)
+                || projection.includesMakernotes()
+                || projection.includesDirectory(IptcDirectory.class)
+                || projection.includesDirectory(IccDirectory.class)
+                || projection.includesDirectory(XmpDirectory.class)
+                || projection.includesDirectory(PhotoshopDirectory.class))
+            desiredChunkTypes.add(PngChunkType.eXIf);
+
+        return desiredChunkTypes;
+    }
+
+    private static void processChunk(@NotNull Metadata metadata, @NotNull PngChunk chunk, boolean isMakernoteProcessed) throws PngProcessingException, IOException
     {
         PngChunkType chunkType = chunk.getType();
         byte[] bytes = chunk.getBytes();
@@ -362,7 +435,7 @@ public class PngMetadataReader
             metadata.addDirectory(directory);
         } else if (chunkType.equals(PngChunkType.eXIf)) {
             try {
-                ExifTiffHandler handler = new ExifTiffHandler(metadata, null, 0);
+                ExifTiffHandler handler = new ExifTiffHandler(metadata, null, 0, isMakernoteProcessed);
                 new TiffReader().processTiff(new ByteArrayReader(bytes), handler, 0);
             } catch (TiffProcessingException ex) {
                 PngDirectory directory = new PngDirectory(PngChunkType.eXIf);
@@ -22,11 +22,20 @@ package com.drew.imaging.quicktime;
 
 import com.drew.imaging.ImageProcessingException;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataProjection;
 import com.drew.metadata.file.FileSystemMetadataReader;
 import com.drew.metadata.mov.QuickTimeAtomHandler;
+import com.drew.metadata.mov.QuickTimeContainerTypes;
+import com.drew.metadata.mov.QuickTimeDirectory;
+import com.drew.metadata.mov.media.QuickTimeMediaDirectory;
+import com.drew.metadata.mov.metadata.QuickTimeMetadataDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
 
 import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author Payton Garland
@@ -49,9 +58,44 @@ public class QuickTimeMetadataReader
 
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream)
+    {
+        return readMetadata(inputStream, null);
+    }
+
+    /**
+     * Reads metadata from <code>inputStream</code>, skipping track, user data and metadata atoms when they cannot
+     * contribute to <code>projection</code>.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable MetadataProjection projection)
     {
         Metadata metadata = new Metadata();
-        QuickTimeReader.extract(inputStream, new QuickTimeAtomHandler(metadata));
+        QuickTimeReader.extract(inputStream, new QuickTimeAtomHandler(metadata), getSkippedAtomTypes(projection));
         return metadata;
     }
+
+    @NotNull
+    private static Set<String> getSkippedAtomTypes(@Nullable MetadataProjection projection)
+    {
+        Set<String> skippedAtomTypes = new HashSet<String>();
+
+        if (MetadataProjection.isUnrestricted(projection))
+            return skippedAtomTypes;
+
+        boolean isMetadataIncluded = projection.includesDirectory(QuickTimeMetadataDirectory.class);
+
+        // Media directories are populated from within tracks, as is rotation
+        if (!projection.includesDirectory(QuickTimeMediaDirectory.class)
+                && !projection.includesTag(QuickTimeDirectory.class, QuickTimeDirectory.TAG_ROTATION))
+            skippedAtomTypes.add(QuickTimeContainerTypes.ATOM_TRACK);
+        // User data holds XMP and Canon thumbnail data, and may hold metadata atoms
+        if (!isMetadataIncluded
+                && !projection.includesDirectory(XmpDirectory.class)
+                && !projection.includesTag(QuickTimeDirectory.class, QuickTimeDirectory.TAG_CANON_THUMBNAIL_DT))
+            skippedAtomTypes.add(QuickTimeContainerTypes.ATOM_USER_DATA);
+        if (!isMetadataIncluded)
+            skippedAtomTypes.add(QuickTimeContainerTypes.ATOM_METADATA);
+
+        return skippedAtomTypes;
+    }
 }
@@ -27,6 +27,8 @@ import com.drew.metadata.mov.atoms.Atom;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * @author Payton Garland
@@ -36,16 +38,25 @@ public class QuickTimeReader
     private QuickTimeReader() {}
 
     public static void extract(@NotNull InputStream inputStream, @NotNull QuickTimeHandler<?> handler)
+    {
+        extract(inputStream, handler, Collections.<String>emptySet());
+    }
+
+    /**
+     * Processes the atoms in <code>inputStream</code>, skipping atoms of the types in <code>skippedAtomTypes</code>
+     * (along with any atoms they contain) without reading them, regardless of whether the handler accepts them.
+     */
+    public static void extract(@NotNull InputStream inputStream, @NotNull QuickTimeHandler<?> handler, @NotNull Set<String> skippedAtomTypes)
     {
         StreamReader reader = new StreamReader(inputStream);
         reader.setMotorolaByteOrder(true);
 
         QuickTimeContext context = new QuickTimeContext();
 
-        processAtoms(reader, -1, handler, context);
+        processAtoms(reader, -1, handler, context, skippedAtomTypes);
     }
 
-    private static void processAtoms(StreamReader reader, long atomEnd, QuickTimeHandler<?> handler, QuickTimeContext context)
+    private static void processAtoms(StreamReader reader, long atomEnd, QuickTimeHandler<?> handler, QuickTimeContext context, Set<String> skippedAtomTypes)
     {
         try {
             while (atomEnd == -1 || reader.getPosition() < atomEnd) {
@@ -53,7 +64,7 @@ public class QuickTimeReader
                 Atom atom = new Atom(reader);
 
                 // Determine if fourCC is container/atom and process accordingly.
-                // Unknown atoms will be skipped
+                // Unknown and skipped atoms will be skipped
 
                 if (atom.size > Integer.MAX_VALUE) {
                     handler.addError("Atom size too large.");
@@ -65,9 +76,11 @@ public class QuickTimeReader
                     break;
                 }
 
-                if (handler.shouldAcceptContainer(atom)) {
-                    processAtoms(reader, atom.size + reader.getPosition() - 8, handler.processContainer(atom, context), context);
-                } else if (handler.shouldAcceptAtom(atom)) {
+                boolean isSkipped = skippedAtomTypes.contains(atom.type);
+
+                if (!isSkipped && handler.shouldAcceptContainer(atom)) {
+                    processAtoms(reader, atom.size + reader.getPosition() - 8, handler.processContainer(atom, context), context, skippedAtomTypes);
+                } else if (!isSkipped && handler.shouldAcceptAtom(atom)) {
                     handler = handler.processAtom(atom, reader.getBytes((int)atom.size - 8), context);
                 } else if (atom.size > 8) {
                     reader.skip(atom.size - 8);
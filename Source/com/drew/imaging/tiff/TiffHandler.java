@@ -42,6 +42,9 @@ public interface TiffHandler
      * <p>
      * Implementations are not obligated to use this information for any purpose, though it may be useful for
      * validation or perhaps differentiating the type of mapping to use for observed tags and IFDs.
+     * <p>
+     * A value of {@link TiffReader#BIG_TIFF_MARKER} indicates a BigTIFF file. Such files have 64-bit offsets,
+     * and their IFDs are processed by {@link TiffReader#processBigTiffIfd}.
      *
      * @param marker the 2-byte value found at position 2 of the TIFF header
      */
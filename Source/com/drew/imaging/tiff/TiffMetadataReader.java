@@ -21,14 +21,18 @@
 package com.drew.imaging.tiff;
 
 import com.drew.lang.RandomAccessFileReader;
+import com.drew.lang.RandomAccessMappedFileReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.RandomAccessStreamReader;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataProjection;
 import com.drew.metadata.exif.ExifTiffHandler;
 import com.drew.metadata.file.FileSystemMetadataReader;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 
 /**
  * Obtains all available metadata from TIFF formatted files.  Note that TIFF files include many digital camera RAW
@@ -63,11 +67,40 @@ public class TiffMetadataReader
         return readMetadata(new RandomAccessStreamReader(inputStream));
     }
 
+    /**
+     * Reads metadata from the start of a local file by mapping it into memory, which avoids a system call per read.
+     * <p>
+     * The mapping outlives <code>channel</code> until it is garbage collected, and on some platforms (notably Windows)
+     * the file cannot be deleted or replaced until then. Callers reading many files, or that go on to modify them,
+     * should use {@link #readMetadata(File)} instead.
+     * <p>
+     * The channel is not closed by this method.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull FileChannel channel) throws IOException, TiffProcessingException
+    {
+        return readMetadata(new RandomAccessMappedFileReader(channel));
+    }
+
+    /**
+     * Reads metadata from <code>reader</code>.
+     */
     @NotNull
     public static Metadata readMetadata(@NotNull RandomAccessReader reader) throws IOException, TiffProcessingException
+    {
+        return readMetadata(reader, null);
+    }
+
+    /**
+     * Reads metadata from <code>reader</code>, skipping camera manufacturer makernotes unless <code>projection</code>
+     * includes them.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull RandomAccessReader reader, @Nullable MetadataProjection projection) throws IOException, TiffProcessingException
     {
         Metadata metadata = new Metadata();
-        ExifTiffHandler handler = new ExifTiffHandler(metadata, null, 0);
+        boolean isMakernoteProcessed = projection == null || projection.includesMakernotes();
+        ExifTiffHandler handler = new ExifTiffHandler(metadata, null, 0, isMakernoteProcessed);
         new TiffReader().processTiff(reader, handler, 0);
         return metadata;
     }
@@ -20,6 +20,7 @@
  */
 package com.drew.imaging.tiff;
 
+import com.drew.lang.ByteArrayReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
@@ -35,6 +36,12 @@ import java.util.Set;
  */
 public class TiffReader
 {
+    /** The value found at position 2 of a standard TIFF header. */
+    public static final int STANDARD_TIFF_MARKER = 0x002A;
+
+    /** The value found at position 2 of a BigTIFF header, which uses 64-bit offsets throughout. */
+    public static final int BIG_TIFF_MARKER = 0x002B;
+
     /**
      * Processes a TIFF data sequence.
      *
@@ -64,11 +71,15 @@ public class TiffReader
         final int tiffMarker = reader.getUInt16(2 + tiffHeaderOffset);
         handler.setTiffMarker(tiffMarker);
 
+        if (tiffMarker == BIG_TIFF_MARKER) {
+            processBigTiff(reader, handler, tiffHeaderOffset);
+            return;
+        }
+
         int firstIfdOffset = reader.getInt32(4 + tiffHeaderOffset) + tiffHeaderOffset;
 
         // David Ekholm sent a digital camera image that has this problem
-        // TODO getLength should be avoided as it causes RandomAccessStreamReader to read to the end of the stream
-        if (firstIfdOffset >= reader.getLength() - 1) {
+        if (!reader.hasBytes(firstIfdOffset, 2)) {
             handler.warn("First IFD offset is beyond the end of the TIFF data segment -- trying default offset");
             // First directory normally starts immediately after the offset bytes, so try that
             firstIfdOffset = tiffHeaderOffset + 2 + 2 + 4;
@@ -117,7 +128,7 @@ public class TiffReader
             // remember that we've visited this directory so that we don't visit it again later
             processedIfdOffsets.add(ifdOffset);
 
-            if (ifdOffset >= reader.getLength() || ifdOffset < 0) {
+            if (!reader.hasBytes(ifdOffset, 1)) {
                 handler.error("Ignored IFD marked to start outside data segment");
                 return;
             }
@@ -136,7 +147,7 @@ public class TiffReader
             }
 
             int dirLength = (2 + (12 * dirTagCount) + 4);
-            if (dirLength + ifdOffset > reader.getLength()) {
+            if (!reader.hasBytes(ifdOffset, dirLength)) {
                 handler.error("Illegally sized IFD");
                 return;
             }
@@ -181,7 +192,7 @@ public class TiffReader
                 if (byteCount > 4) {
                     // If it's bigger than 4 bytes, the dir entry contains an offset.
                     final long offsetVal = reader.getUInt32(tagOffset + 8);
-                    if (offsetVal + byteCount > reader.getLength()) {
+                    if (!reader.hasBytes(offsetVal, byteCount)) {
                         // Bogus pointer offset and / or byteCount value
                         handler.error("Illegal TIFF tag pointer offset");
                         continue;
@@ -192,14 +203,14 @@ public class TiffReader
                     tagValueOffset = tagOffset + 8;
                 }
 
-                if (tagValueOffset < 0 || tagValueOffset > reader.getLength()) {
+                if (!reader.hasBytes(tagValueOffset, 0)) {
                     handler.error("Illegal TIFF tag pointer offset");
                     continue;
                 }
 
                 // Check that this tag isn't going to allocate outside the bounds of the data array.
                 // This addresses an uncommon OutOfMemoryError.
-                if (byteCount < 0 || tagValueOffset + byteCount > reader.getLength()) {
+                if (!reader.hasBytes(tagValueOffset, byteCount)) {
                     handler.error("Illegal number of bytes for TIFF tag data: " + byteCount);
                     continue;
                 }
@@ -216,6 +227,9 @@ public class TiffReader
                     }
                 }
 
+                if (!isIfdPointer && handler instanceof TiffValueLocationHandler)
+                    ((TiffValueLocationHandler)handler).setValueLocation(tagId, formatCode, componentCount, tagValueOffset);
+
                 // If it wasn't an IFD pointer, allow custom tag processing to occur
                 if (!isIfdPointer && !handler.customProcessTag((int) tagValueOffset, processedIfdOffsets, tiffHeaderOffset, reader, tagId, (int) byteCount)) {
                     // If no custom processing occurred, process the tag in the standard fashion
@@ -228,7 +242,7 @@ public class TiffReader
             int nextIfdOffset = reader.getInt32(finalTagOffset);
             if (nextIfdOffset != 0) {
                 nextIfdOffset += tiffHeaderOffset;
-                if (nextIfdOffset >= reader.getLength()) {
+                if (!reader.hasBytes(nextIfdOffset, 1)) {
                     // Last 4 bytes of IFD reference another IFD with an address that is out of bounds
                     // Note this could have been caused by jhead 1.3 cropping too much
                     return;
@@ -249,6 +263,198 @@ public class TiffReader
         }
     }
 
+    /**
+     * Processes the remainder of a BigTIFF header, after the byte order and marker have been read.
+     * <p>
+     * BigTIFF header:
+     * <ul>
+     *     <li><b>2 bytes</b> byte size of offsets, always 8</li>
+     *     <li><b>2 bytes</b> reserved, always 0</li>
+     *     <li><b>8 bytes</b> offset of the first IFD</li>
+     * </ul>
+     */
+    private static void processBigTiff(@NotNull final RandomAccessReader reader,
+                                       @NotNull final TiffHandler handler,
+                                       final int tiffHeaderOffset) throws TiffProcessingException, IOException
+    {
+        final int offsetByteSize = reader.getUInt16(4 + tiffHeaderOffset);
+        if (offsetByteSize != 8)
+            throw new TiffProcessingException("Unsupported BigTIFF offset byte size: " + offsetByteSize);
+
+        long firstIfdOffset = reader.getInt64(8 + tiffHeaderOffset) + tiffHeaderOffset;
+
+        if (!reader.hasBytes(firstIfdOffset, 2)) {
+            handler.warn("First IFD offset is beyond the end of the TIFF data segment -- trying default offset");
+            // First directory normally starts immediately after the header
+            firstIfdOffset = tiffHeaderOffset + 2 + 2 + 2 + 2 + 8;
+        }
+
+        processBigTiffIfd(handler, reader, new HashSet<Long>(), new HashSet<Integer>(), firstIfdOffset, tiffHeaderOffset);
+    }
+
+    /**
+     * Processes a BigTIFF IFD, whose offsets may lie anywhere within a 64-bit address space.
+     *
+     * IFD Header:
+     * <ul>
+     *     <li><b>8 bytes</b> number of tags</li>
+     * </ul>
+     * Tag structure:
+     * <ul>
+     *     <li><b>2 bytes</b> tag type</li>
+     *     <li><b>2 bytes</b> format code</li>
+     *     <li><b>8 bytes</b> component count</li>
+     *     <li><b>8 bytes</b> inline value, or offset pointer if too large to fit in eight bytes</li>
+     * </ul>
+     *
+     * Tags whose values lie within the first 2 GB of <code>reader</code> are passed to the handler's custom tag
+     * processing, so that makernotes (which use the standard IFD layout) are supported.
+     *
+     * @param handler the {@link com.drew.imaging.tiff.TiffHandler} that will coordinate processing and accept read values
+     * @param reader the {@link com.drew.lang.RandomAccessReader} from which the data should be read
+     * @param processedIfdOffsets the set of visited BigTIFF IFD offsets, to avoid revisiting the same IFD in an endless loop
+     * @param processedStandardIfdOffsets the set of visited standard IFD offsets, passed to custom tag processing
+     * @param ifdOffset the offset within <code>reader</code> at which the IFD data starts
+     * @param tiffHeaderOffset the offset within <code>reader</code> at which the TIFF header starts
+     * @throws IOException an error occurred while accessing the required data
+     */
+    public static void processBigTiffIfd(@NotNull final TiffHandler handler,
+                                         @NotNull final RandomAccessReader reader,
+                                         @NotNull final Set<Long> processedIfdOffsets,
+                                         @NotNull final Set<Integer> processedStandardIfdOffsets,
+                                         final long ifdOffset,
+                                         final int tiffHeaderOffset) throws IOException
+    {
+        try {
+            // check for directories we've already visited to avoid stack overflows when recursive/cyclic directory structures exist
+            if (processedIfdOffsets.contains(Long.valueOf(ifdOffset))) {
+                return;
+            }
+
+            // remember that we've visited this directory so that we don't visit it again later
+            processedIfdOffsets.add(ifdOffset);
+
+            if (!reader.hasBytes(ifdOffset, 1)) {
+                handler.error("Ignored IFD marked to start outside data segment");
+                return;
+            }
+
+            // First eight bytes in the IFD are the number of tags in this directory
+            final long dirTagCount = reader.getInt64(ifdOffset);
+
+            // A tag id is 16 bits wide, so any larger count indicates a corrupt IFD
+            if (dirTagCount < 0 || dirTagCount > 0xFFFF || !reader.hasBytes(ifdOffset, 8 + (20 * dirTagCount) + 8)) {
+                handler.error("Illegally sized IFD");
+                return;
+            }
+
+            //
+            // Handle each tag in this directory
+            //
+            int invalidTiffFormatCodeCount = 0;
+            for (int tagNumber = 0; tagNumber < dirTagCount; tagNumber++) {
+                final long tagOffset = calculateBigTiffTagOffset(ifdOffset, tagNumber);
+
+                // 2 bytes for the tag id
+                final int tagId = reader.getUInt16(tagOffset);
+
+                // 2 bytes for the format code
+                final int formatCode = reader.getUInt16(tagOffset + 2);
+                final TiffDataFormat format = TiffDataFormat.fromTiffFormatCode(formatCode);
+
+                // 8 bytes dictate the number of components in this tag's data
+                final long componentCount = reader.getInt64(tagOffset + 4);
+
+                final long byteCount;
+                if (format == null) {
+                    Long byteCountOverride = handler.tryCustomProcessFormat(tagId, formatCode, componentCount);
+                    if (byteCountOverride == null) {
+                        handler.error(String.format("Invalid TIFF tag format code %d for tag 0x%04X", formatCode, tagId));
+                        if (++invalidTiffFormatCodeCount > 5) {
+                            handler.error("Stopping processing as too many errors seen in TIFF IFD");
+                            return;
+                        }
+                        continue;
+                    }
+                    byteCount = byteCountOverride;
+                } else if (componentCount < 0 || componentCount > Long.MAX_VALUE / format.getComponentSizeBytes()) {
+                    handler.error("Illegal number of bytes for TIFF tag data: " + componentCount);
+                    continue;
+                } else {
+                    byteCount = componentCount * format.getComponentSizeBytes();
+                }
+
+                final long tagValueOffset;
+                if (byteCount > 8) {
+                    // If it's bigger than 8 bytes, the dir entry contains an offset.
+                    tagValueOffset = tiffHeaderOffset + reader.getInt64(tagOffset + 12);
+                } else {
+                    // 8 bytes or less and value is in the dir entry itself.
+                    tagValueOffset = tagOffset + 12;
+                }
+
+                if (!reader.hasBytes(tagValueOffset, byteCount)) {
+                    handler.error("Illegal TIFF tag pointer offset");
+                    continue;
+                }
+
+                // Some tags point to one or more additional IFDs to process, using either 32-bit or 64-bit offsets
+                boolean isIfdPointer = false;
+                if (byteCount == 4 * componentCount || byteCount == 8 * componentCount) {
+                    final int pointerSize = (int)(byteCount / Math.max(componentCount, 1));
+                    for (int i = 0; i < componentCount; i++) {
+                        if (handler.tryEnterSubIfd(tagId)) {
+                            isIfdPointer = true;
+                            long pointerOffset = tagValueOffset + (long)i * pointerSize;
+                            long subDirOffset = tiffHeaderOffset + (pointerSize == 4 ? reader.getUInt32(pointerOffset) : reader.getInt64(pointerOffset));
+                            processBigTiffIfd(handler, reader, processedIfdOffsets, processedStandardIfdOffsets, subDirOffset, tiffHeaderOffset);
+                        }
+                    }
+                }
+
+                if (isIfdPointer)
+                    continue;
+
+                if (handler instanceof TiffValueLocationHandler)
+                    ((TiffValueLocationHandler)handler).setValueLocation(tagId, formatCode, componentCount, tagValueOffset);
+
+                if (tagValueOffset + byteCount <= Integer.MAX_VALUE) {
+                    // The value is addressable by the standard 32-bit code paths
+                    if (!handler.customProcessTag((int) tagValueOffset, processedStandardIfdOffsets, tiffHeaderOffset, reader, tagId, (int) byteCount)) {
+                        processTag(handler, tagId, (int) tagValueOffset, (int) componentCount, formatCode, reader);
+                    }
+                } else if (byteCount > Integer.MAX_VALUE) {
+                    handler.error("Illegal number of bytes for TIFF tag data: " + byteCount);
+                } else {
+                    // The value lies beyond 2 GB, so copy it out and decode it from memory
+                    ByteArrayReader valueReader = new ByteArrayReader(reader.getBytes(tagValueOffset, (int) byteCount));
+                    valueReader.setMotorolaByteOrder(reader.isMotorolaByteOrder());
+                    processTag(handler, tagId, 0, (int) componentCount, formatCode, valueReader);
+                }
+            }
+
+            // at the end of each IFD is an optional link to the next IFD
+            final long finalTagOffset = calculateBigTiffTagOffset(ifdOffset, (int) dirTagCount);
+            long nextIfdOffset = reader.getInt64(finalTagOffset);
+            if (nextIfdOffset != 0) {
+                nextIfdOffset += tiffHeaderOffset;
+                if (!reader.hasBytes(nextIfdOffset, 1)) {
+                    // Last 8 bytes of IFD reference another IFD with an address that is out of bounds
+                    return;
+                } else if (nextIfdOffset < ifdOffset) {
+                    // Last 8 bytes of IFD reference another IFD with an address that is before the start of this directory
+                    return;
+                }
+
+                if (handler.hasFollowerIfd()) {
+                    processBigTiffIfd(handler, reader, processedIfdOffsets, processedStandardIfdOffsets, nextIfdOffset, tiffHeaderOffset);
+                }
+            }
+        } finally {
+            handler.endingIFD();
+        }
+    }
+
     private static void processTag(@NotNull final TiffHandler handler,
                                    final int tagId,
                                    final int tagValueOffset,
@@ -268,80 +474,56 @@ public class TiffReader
                 if (componentCount == 1) {
                     handler.setRational(tagId, new Rational(reader.getInt32(tagValueOffset), reader.getInt32(tagValueOffset + 4)));
                 } else if (componentCount > 1) {
-                    Rational[] array = new Rational[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = new Rational(reader.getInt32(tagValueOffset + (8 * i)), reader.getInt32(tagValueOffset + 4 + (8 * i)));
-                    handler.setRationalArray(tagId, array);
+                    handler.setRationalArray(tagId, reader.getRationalArray(tagValueOffset, componentCount, true));
                 }
                 break;
             case TiffDataFormat.CODE_RATIONAL_U:
                 if (componentCount == 1) {
                     handler.setRational(tagId, new Rational(reader.getUInt32(tagValueOffset), reader.getUInt32(tagValueOffset + 4)));
                 } else if (componentCount > 1) {
-                    Rational[] array = new Rational[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = new Rational(reader.getUInt32(tagValueOffset + (8 * i)), reader.getUInt32(tagValueOffset + 4 + (8 * i)));
-                    handler.setRationalArray(tagId, array);
+                    handler.setRationalArray(tagId, reader.getRationalArray(tagValueOffset, componentCount, false));
                 }
                 break;
             case TiffDataFormat.CODE_SINGLE:
                 if (componentCount == 1) {
                     handler.setFloat(tagId, reader.getFloat32(tagValueOffset));
                 } else {
-                    float[] array = new float[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getFloat32(tagValueOffset + (i * 4));
-                    handler.setFloatArray(tagId, array);
+                    handler.setFloatArray(tagId, reader.getFloat32Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_DOUBLE:
                 if (componentCount == 1) {
                     handler.setDouble(tagId, reader.getDouble64(tagValueOffset));
                 } else {
-                    double[] array = new double[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getDouble64(tagValueOffset + (i * 8));
-                    handler.setDoubleArray(tagId, array);
+                    handler.setDoubleArray(tagId, reader.getDouble64Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT8_S:
                 if (componentCount == 1) {
                     handler.setInt8s(tagId, reader.getInt8(tagValueOffset));
                 } else {
-                    byte[] array = new byte[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getInt8(tagValueOffset + i);
-                    handler.setInt8sArray(tagId, array);
+                    handler.setInt8sArray(tagId, reader.getBytes(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT8_U:
                 if (componentCount == 1) {
                     handler.setInt8u(tagId, reader.getUInt8(tagValueOffset));
                 } else {
-                    short[] array = new short[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getUInt8(tagValueOffset + i);
-                    handler.setInt8uArray(tagId, array);
+                    handler.setInt8uArray(tagId, reader.getUInt8Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT16_S:
                 if (componentCount == 1) {
                     handler.setInt16s(tagId, (int)reader.getInt16(tagValueOffset));
                 } else {
-                    short[] array = new short[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getInt16(tagValueOffset + (i * 2));
-                    handler.setInt16sArray(tagId, array);
+                    handler.setInt16sArray(tagId, reader.getInt16Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT16_U:
                 if (componentCount == 1) {
                     handler.setInt16u(tagId, reader.getUInt16(tagValueOffset));
                 } else {
-                    int[] array = new int[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getUInt16(tagValueOffset + (i * 2));
-                    handler.setInt16uArray(tagId, array);
+                    handler.setInt16uArray(tagId, reader.getUInt16Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT32_S:
@@ -349,10 +531,7 @@ public class TiffReader
                 if (componentCount == 1) {
                     handler.setInt32s(tagId, reader.getInt32(tagValueOffset));
                 } else {
-                    int[] array = new int[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getInt32(tagValueOffset + (i * 4));
-                    handler.setInt32sArray(tagId, array);
+                    handler.setInt32sArray(tagId, reader.getInt32Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT32_U:
@@ -360,30 +539,22 @@ public class TiffReader
                 if (componentCount == 1) {
                     handler.setInt32u(tagId, reader.getUInt32(tagValueOffset));
                 } else {
-                    long[] array = new long[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getUInt32(tagValueOffset + (i * 4));
-                    handler.setInt32uArray(tagId, array);
+                    handler.setInt32uArray(tagId, reader.getUInt32Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT64_S:
                 if (componentCount == 1) {
                     handler.setInt64s(tagId, reader.getInt64(tagValueOffset));
                 } else {
-                    long[] array = new long[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getInt64(tagValueOffset + (i * 8));
-                    handler.setInt64sArray(tagId, array);
+                    handler.setInt64sArray(tagId, reader.getInt64Array(tagValueOffset, componentCount));
                 }
                 break;
             case TiffDataFormat.CODE_INT64_U:
+            case TiffDataFormat.CODE_IFD8:
                 if (componentCount == 1) {
                     handler.setInt64u(tagId, reader.getInt64(tagValueOffset));
                 } else {
-                    long[] array = new long[componentCount];
-                    for (int i = 0; i < componentCount; i++)
-                        array[i] = reader.getInt64(tagValueOffset + (i * 8));
-                    handler.setInt64uArray(tagId, array);
+                    handler.setInt64uArray(tagId, reader.getInt64Array(tagValueOffset, componentCount));
                 }
                 break;
             default:
@@ -403,4 +574,17 @@ public class TiffReader
         // Each entry is 12 bytes.
         return ifdStartOffset + 2 + (12 * entryNumber);
     }
+
+    /**
+     * Determine the offset of a given tag within the specified BigTIFF IFD.
+     *
+     * @param ifdStartOffset the offset at which the IFD starts
+     * @param entryNumber    the zero-based entry number
+     */
+    private static long calculateBigTiffTagOffset(long ifdStartOffset, int entryNumber)
+    {
+        // Add 8 bytes for the tag count.
+        // Each entry is 20 bytes.
+        return ifdStartOffset + 8 + (20L * entryNumber);
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.tiff;
+
+/**
+ * Optionally implemented by a {@link TiffHandler} that needs to know where each tag's value is stored, for example
+ * in order to modify values in place.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface TiffValueLocationHandler
+{
+    /**
+     * Receives the location of a tag's value, before the value itself is passed to the handler. This is not called
+     * for tags that point to sub-IFDs.
+     *
+     * @param tagId the tag's identifier
+     * @param formatCode the TIFF format code of the value, as defined by {@link TiffDataFormat}
+     * @param componentCount the number of components in the value
+     * @param valueOffset the offset of the value within the reader, whether stored inline in the IFD entry or elsewhere
+     */
+    void setValueLocation(int tagId, int formatCode, long componentCount, long valueOffset);
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A variant of {@link RandomAccessStreamReader} which holds at most a fixed number of chunks in memory.
+ * <p>
+ * Chunks are read from the stream in order, as with {@link RandomAccessStreamReader}. When the number of chunks in
+ * memory exceeds the configured budget, the least recently used chunk is evicted. If it is needed again, it is
+ * re-read from the source when the stream is a {@link FileInputStream} (via positional reads on its channel), or
+ * otherwise from a temporary spill file created on first eviction.
+ * <p>
+ * Counts of chunk hits, misses and evictions are available for tuning the chunk length and budget of particular
+ * formats. Instances should be closed once no longer needed, in order to delete any spill file.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class BoundedRandomAccessStreamReader extends RandomAccessStreamReader implements Closeable
+{
+    public final static int DEFAULT_MAX_CHUNKS_IN_MEMORY = 64;
+
+    private final int _maxChunksInMemory;
+
+    /** Chunks currently held in memory, in least-recently-used order. */
+    private final LinkedHashMap<Integer, byte[]> _chunks = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true);
+
+    @Nullable
+    private final FileChannel _sourceChannel;
+    private final long _sourceStartPosition;
+
+    @Nullable
+    private File _spillFile;
+    @Nullable
+    private RandomAccessFile _spill;
+    /** The indexes of chunks that have been written to the spill file. */
+    private final BitSet _spilledChunks = new BitSet();
+
+    private int _lastChunkIndex = -1;
+    @Nullable
+    private byte[] _lastChunk;
+
+    private long _hitCount;
+    private long _missCount;
+    private long _evictionCount;
+
+    public BoundedRandomAccessStreamReader(@NotNull InputStream stream) throws IOException
+    {
+        this(stream, DEFAULT_CHUNK_LENGTH, DEFAULT_MAX_CHUNKS_IN_MEMORY, -1);
+    }
+
+    public BoundedRandomAccessStreamReader(@NotNull InputStream stream, int chunkLength, int maxChunksInMemory) throws IOException
+    {
+        this(stream, chunkLength, maxChunksInMemory, -1);
+    }
+
+    public BoundedRandomAccessStreamReader(@NotNull InputStream stream, int chunkLength, int maxChunksInMemory, long streamLength) throws IOException
+    {
+        super(stream, chunkLength, streamLength);
+
+        if (maxChunksInMemory <= 0)
+            throw new IllegalArgumentException("maxChunksInMemory must be greater than zero");
+
+        _maxChunksInMemory = maxChunksInMemory;
+
+        if (stream instanceof FileInputStream) {
+            // Evicted chunks can be re-read from the file directly, without disturbing the stream's position
+            _sourceChannel = ((FileInputStream)stream).getChannel();
+            _sourceStartPosition = _sourceChannel.position();
+        } else {
+            _sourceChannel = null;
+            _sourceStartPosition = 0;
+        }
+    }
+
+    /** Gets the number of chunk lookups that were served from memory. */
+    public long getChunkHitCount()
+    {
+        return _hitCount;
+    }
+
+    /** Gets the number of chunk lookups for previously evicted chunks, which had to be re-read. */
+    public long getChunkMissCount()
+    {
+        return _missCount;
+    }
+
+    /** Gets the number of chunks evicted from memory in order to remain within the budget. */
+    public long getChunkEvictionCount()
+    {
+        return _evictionCount;
+    }
+
+    /**
+     * Deletes the spill file, if one was created. This does not close the underlying stream.
+     */
+    public void close() throws IOException
+    {
+        _chunks.clear();
+        _lastChunk = null;
+        _lastChunkIndex = -1;
+
+        if (_spill != null) {
+            _spill.close();
+            _spill = null;
+        }
+
+        if (_spillFile != null) {
+            if (!_spillFile.delete())
+                _spillFile.deleteOnExit();
+            _spillFile = null;
+        }
+    }
+
+    @NotNull
+    @Override
+    protected byte[] getChunk(int chunkIndex) throws IOException
+    {
+        // Consecutive reads tend to hit the same chunk, so avoid the map lookup in that case
+        if (chunkIndex == _lastChunkIndex && _lastChunk != null) {
+            _hitCount++;
+            return _lastChunk;
+        }
+
+        byte[] chunk = _chunks.get(chunkIndex);
+
+        if (chunk != null) {
+            _hitCount++;
+        } else {
+            _missCount++;
+            chunk = reloadChunk(chunkIndex);
+            storeChunk(chunkIndex, chunk);
+        }
+
+        _lastChunkIndex = chunkIndex;
+        _lastChunk = chunk;
+        return chunk;
+    }
+
+    @Override
+    protected void storeChunk(int chunkIndex, @NotNull byte[] chunk) throws IOException
+    {
+        _chunks.put(chunkIndex, chunk);
+
+        Iterator<Map.Entry<Integer, byte[]>> iterator = _chunks.entrySet().iterator();
+        while (_chunks.size() > _maxChunksInMemory) {
+            Map.Entry<Integer, byte[]> eldest = iterator.next();
+            spillChunk(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+            _evictionCount++;
+
+            // Holding on to an evicted chunk would exceed the budget
+            if (eldest.getKey() == _lastChunkIndex) {
+                _lastChunkIndex = -1;
+                _lastChunk = null;
+            }
+        }
+    }
+
+    private void spillChunk(int chunkIndex, @NotNull byte[] chunk) throws IOException
+    {
+        // Chunks can be re-read from a seekable source, and chunk content never changes once spilled
+        if (_sourceChannel != null || _spilledChunks.get(chunkIndex))
+            return;
+
+        if (_spill == null) {
+            _spillFile = File.createTempFile("metadata-extractor-", ".spill");
+            _spillFile.deleteOnExit();
+            _spill = new RandomAccessFile(_spillFile, "rw");
+        }
+
+        _spill.seek((long)chunkIndex * _chunkLength);
+        _spill.write(chunk);
+        _spilledChunks.set(chunkIndex);
+    }
+
+    @NotNull
+    private byte[] reloadChunk(int chunkIndex) throws IOException
+    {
+        if (chunkIndex >= getChunkCount())
+            throw new BufferBoundsException("Attempt to read from beyond end of underlying data source");
+
+        byte[] chunk = new byte[_chunkLength];
+        long position = (long)chunkIndex * _chunkLength;
+
+        if (_sourceChannel != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            while (buffer.hasRemaining()) {
+                int bytesRead = _sourceChannel.read(buffer, _sourceStartPosition + position + buffer.position());
+                if (bytesRead == -1)
+                    break;
+            }
+        } else {
+            if (_spill == null)
+                throw new IOException("Chunk was evicted without being spilled");
+            _spill.seek(position);
+            _spill.readFully(chunk);
+        }
+
+        return chunk;
+    }
+}
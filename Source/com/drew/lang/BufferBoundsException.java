@@ -37,6 +37,11 @@ public final class BufferBoundsException extends IOException
         super(getMessage(index, bytesRequested, bufferLength));
     }
 
+    public BufferBoundsException(long index, int bytesRequested, long bufferLength)
+    {
+        super(getMessage(index, bytesRequested, bufferLength));
+    }
+
     public BufferBoundsException(final String message)
     {
         super(message);
@@ -56,4 +61,16 @@ public final class BufferBoundsException extends IOException
         return String.format("Attempt to read from beyond end of underlying data source (requested index: %d, requested count: %d, max index: %d)",
                 index, bytesRequested, bufferLength - 1);
     }
+
+    private static String getMessage(long index, int bytesRequested, long bufferLength)
+    {
+        if (index < 0)
+            return String.format("Attempt to read from buffer using a negative index (%d)", index);
+
+        if (bytesRequested < 0)
+            return String.format("Number of requested bytes cannot be negative (%d)", bytesRequested);
+
+        return String.format("Attempt to read from beyond end of underlying data source (requested index: %d, requested count: %d, max index: %d)",
+                index, bytesRequested, bufferLength - 1);
+    }
 }
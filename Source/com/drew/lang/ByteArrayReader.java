@@ -24,6 +24,7 @@ package com.drew.lang;
 import com.drew.lang.annotations.NotNull;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Provides methods to read specific values from a byte array, with a consistent, checked exception structure for
@@ -39,6 +40,7 @@ public class ByteArrayReader extends RandomAccessReader
     @NotNull
     private final byte[] _buffer;
     private final int _baseOffset;
+    private final int _length;
 
     @SuppressWarnings({ "ConstantConditions" })
     @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
@@ -58,6 +60,27 @@ public class ByteArrayReader extends RandomAccessReader
 
         _buffer = buffer;
         _baseOffset = baseOffset;
+        _length = Math.max(0, buffer.length - baseOffset);
+    }
+
+    /**
+     * Creates a reader over <code>length</code> bytes of <code>buffer</code>, starting at <code>baseOffset</code>.
+     * The buffer is shared, not copied.
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public ByteArrayReader(@NotNull byte[] buffer, int baseOffset, int length)
+    {
+        if (buffer == null)
+            throw new NullPointerException();
+        if (baseOffset < 0)
+            throw new IllegalArgumentException("Must be zero or greater");
+        if (length < 0 || (long)baseOffset + length > buffer.length)
+            throw new IllegalArgumentException("Length must be zero or greater, and within the buffer");
+
+        _buffer = buffer;
+        _baseOffset = baseOffset;
+        _length = length;
     }
 
     @Override
@@ -69,7 +92,7 @@ public class ByteArrayReader extends RandomAccessReader
     @Override
     public long getLength()
     {
-        return _buffer.length - _baseOffset;
+        return _length;
     }
 
     @Override
@@ -83,7 +106,7 @@ public class ByteArrayReader extends RandomAccessReader
     protected void validateIndex(int index, int bytesRequested) throws IOException
     {
         if (!isValidIndex(index, bytesRequested))
-            throw new BufferBoundsException(toUnshiftedOffset(index), bytesRequested, _buffer.length);
+            throw new BufferBoundsException(toUnshiftedOffset(index), bytesRequested, _baseOffset + _length);
     }
 
     @Override
@@ -104,4 +127,31 @@ public class ByteArrayReader extends RandomAccessReader
         System.arraycopy(_buffer, index + _baseOffset, bytes, 0, count);
         return bytes;
     }
+
+    @NotNull
+    @Override
+    protected ByteBuffer getByteBuffer(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return ByteBuffer.wrap(_buffer, index + _baseOffset, count);
+    }
+
+    @NotNull
+    @Override
+    public RandomAccessReader slice(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return new ByteArrayReader(_buffer, _baseOffset + index, count);
+    }
+
+    @NotNull
+    @Override
+    public SequentialReader sequentialSlice(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return SequentialByteArrayReader.createSlice(_buffer, _baseOffset + index, count);
+    }
 }
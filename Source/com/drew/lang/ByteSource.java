@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A source of bytes supporting positional reads, such as a local file or an object in a remote store.
+ * <p>
+ * Implementations need not be efficient for small reads. Wrap a source for which each read is expensive (for
+ * example, an HTTP range request) in a {@link CoalescingByteSource}, which reads ahead and serves nearby reads from
+ * a single request.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface ByteSource
+{
+    /**
+     * Gets the total number of bytes in this source.
+     *
+     * @return the length of the data source, in bytes
+     * @throws IOException if the length is unable to be determined
+     */
+    long getLength() throws IOException;
+
+    /**
+     * Reads bytes starting at <code>position</code> into <code>buffer</code>, up to its number of remaining bytes.
+     * The buffer's position is advanced by the number of bytes read.
+     *
+     * @param position the position within the source of the first byte to read
+     * @param buffer the buffer into which bytes are transferred
+     * @return the number of bytes read, which may be fewer than requested but is greater than zero when the buffer has
+     *         remaining space, or -1 if <code>position</code> is at or beyond the end of the source
+     * @throws IOException if the bytes are unable to be read
+     */
+    int read(long position, @NotNull ByteBuffer buffer) throws IOException;
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} over a {@link ByteSource}, starting at position zero.
+ * <p>
+ * Skipping advances the position without reading the skipped bytes, and mark and reset are supported without limit.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ByteSourceInputStream extends InputStream
+{
+    @NotNull
+    private final ByteSource _source;
+    private long _position;
+    private long _markPosition = -1;
+
+    @SuppressWarnings("ConstantConditions")
+    public ByteSourceInputStream(@NotNull ByteSource source)
+    {
+        if (source == null)
+            throw new NullPointerException();
+
+        _source = source;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        byte[] bytes = new byte[1];
+        int bytesRead = read(bytes, 0, 1);
+        return bytesRead == -1 ? -1 : bytes[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NotNull byte[] b, int off, int len) throws IOException
+    {
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        int bytesRead;
+        do {
+            bytesRead = _source.read(_position, buffer);
+        } while (bytesRead == 0);
+
+        if (bytesRead != -1)
+            _position += bytesRead;
+
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        if (n <= 0)
+            return 0;
+
+        long skipped = Math.min(n, Math.max(0, _source.getLength() - _position));
+        _position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        long remaining = _source.getLength() - _position;
+        return (int)Math.max(0, Math.min(remaining, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit)
+    {
+        _markPosition = _position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        if (_markPosition == -1)
+            throw new IOException("Stream has not been marked");
+
+        _position = _markPosition;
+    }
+}
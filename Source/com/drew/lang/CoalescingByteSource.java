@@ -0,0 +1,226 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A {@link ByteSource} which reduces the number of reads made of an underlying source, for which each read is
+ * assumed to be expensive.
+ * <p>
+ * When a requested byte has not been read before, a single range of at least {@link #DEFAULT_READ_AHEAD_LENGTH} bytes
+ * is fetched from the underlying source. If the range would begin or end close to a range that has already been
+ * fetched, it is extended to meet it, so that the gap is not fetched by a later, separate request. Fetched ranges are
+ * retained until their total length exceeds {@link #DEFAULT_MAX_RETAINED_BYTES} (or the limit given on construction),
+ * at which point the least recently used ranges are discarded. The most recently fetched range is always retained,
+ * even if it alone exceeds the limit.
+ * <p>
+ * The number of ranges fetched, their total length and the number discarded are available, for example to verify the
+ * cost of reading a particular format.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class CoalescingByteSource implements ByteSource
+{
+    public final static int DEFAULT_READ_AHEAD_LENGTH = 64 * 1024;
+    public final static long DEFAULT_MAX_RETAINED_BYTES = 8 * 1024 * 1024;
+
+    @NotNull
+    private final ByteSource _source;
+    private final int _readAheadLength;
+    private final int _maxGapLength;
+    private final long _maxRetainedBytes;
+
+    /** Fetched ranges, keyed by their starting position. Ranges never overlap. */
+    private final TreeMap<Long, byte[]> _ranges = new TreeMap<Long, byte[]>();
+    /** The starting positions of fetched ranges, in least-recently-used order. */
+    private final LinkedHashMap<Long, byte[]> _rangeUsage = new LinkedHashMap<Long, byte[]>(16, 0.75f, true);
+
+    private long _length = -1;
+    private long _fetchCount;
+    private long _fetchedByteCount;
+    private long _retainedByteCount;
+    private long _evictionCount;
+
+    public CoalescingByteSource(@NotNull ByteSource source)
+    {
+        this(source, DEFAULT_READ_AHEAD_LENGTH, DEFAULT_READ_AHEAD_LENGTH, DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+    /**
+     * @param source the source to read from
+     * @param readAheadLength the minimum number of bytes to fetch in a single request
+     * @param maxGapLength the largest gap between a new request and a previously fetched range that will be fetched
+     *                     in order to join them
+     */
+    public CoalescingByteSource(@NotNull ByteSource source, int readAheadLength, int maxGapLength)
+    {
+        this(source, readAheadLength, maxGapLength, DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+    /**
+     * @param source the source to read from
+     * @param readAheadLength the minimum number of bytes to fetch in a single request
+     * @param maxGapLength the largest gap between a new request and a previously fetched range that will be fetched
+     *                     in order to join them
+     * @param maxRetainedBytes the total length of fetched ranges above which the least recently used are discarded
+     */
+    @SuppressWarnings("ConstantConditions")
+    public CoalescingByteSource(@NotNull ByteSource source, int readAheadLength, int maxGapLength, long maxRetainedBytes)
+    {
+        if (source == null)
+            throw new NullPointerException();
+        if (readAheadLength <= 0)
+            throw new IllegalArgumentException("readAheadLength must be greater than zero");
+        if (maxGapLength < 0)
+            throw new IllegalArgumentException("maxGapLength must be zero or greater");
+        if (maxRetainedBytes <= 0)
+            throw new IllegalArgumentException("maxRetainedBytes must be greater than zero");
+
+        _source = source;
+        _readAheadLength = readAheadLength;
+        _maxGapLength = maxGapLength;
+        _maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /** Gets the number of ranges fetched from the underlying source. */
+    public long getFetchCount()
+    {
+        return _fetchCount;
+    }
+
+    /** Gets the total number of bytes fetched from the underlying source. */
+    public long getFetchedByteCount()
+    {
+        return _fetchedByteCount;
+    }
+
+    /** Gets the total length of the fetched ranges currently retained. */
+    public long getRetainedByteCount()
+    {
+        return _retainedByteCount;
+    }
+
+    /** Gets the number of fetched ranges discarded in order to remain within the retained byte limit. */
+    public long getEvictionCount()
+    {
+        return _evictionCount;
+    }
+
+    @Override
+    public long getLength() throws IOException
+    {
+        if (_length == -1)
+            _length = _source.getLength();
+        return _length;
+    }
+
+    @Override
+    public int read(long position, @NotNull ByteBuffer buffer) throws IOException
+    {
+        if (position < 0)
+            throw new IllegalArgumentException("position must be zero or greater");
+
+        long length = getLength();
+        if (position >= length)
+            return -1;
+
+        int count = (int)Math.min(buffer.remaining(), length - position);
+        int totalBytesRead = 0;
+
+        while (totalBytesRead != count) {
+            long rangePosition = position + totalBytesRead;
+
+            Map.Entry<Long, byte[]> range = _ranges.floorEntry(rangePosition);
+            if (range == null || range.getKey() + range.getValue().length <= rangePosition)
+                range = fetch(rangePosition, count - totalBytesRead);
+            else
+                _rangeUsage.get(range.getKey()); // marks the range as recently used
+
+            int offset = (int)(rangePosition - range.getKey());
+            int bytesRead = Math.min(count - totalBytesRead, range.getValue().length - offset);
+            buffer.put(range.getValue(), offset, bytesRead);
+            totalBytesRead += bytesRead;
+        }
+
+        return count;
+    }
+
+    @NotNull
+    private Map.Entry<Long, byte[]> fetch(long position, int count) throws IOException
+    {
+        long length = getLength();
+        long start = position;
+        long end = Math.min(length, position + Math.max(count, _readAheadLength));
+
+        // Fill a small gap after the preceding range, rather than leaving it for a separate request
+        Map.Entry<Long, byte[]> previous = _ranges.floorEntry(position);
+        if (previous != null) {
+            long previousEnd = previous.getKey() + previous.getValue().length;
+            if (position - previousEnd <= _maxGapLength)
+                start = previousEnd;
+        }
+
+        // Stop at the following range, extending to meet it if the gap is small
+        Long next = _ranges.higherKey(position);
+        if (next != null && (next < end || next - end <= _maxGapLength))
+            end = next;
+
+        end = Math.min(end, start + Integer.MAX_VALUE);
+
+        byte[] bytes = new byte[(int)(end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            int bytesRead = _source.read(start + buffer.position(), buffer);
+            if (bytesRead == -1)
+                throw new EOFException("End of data reached.");
+            if (bytesRead == 0)
+                throw new IOException("Underlying source returned no data.");
+        }
+
+        _fetchCount++;
+        _fetchedByteCount += bytes.length;
+        _ranges.put(start, bytes);
+        _rangeUsage.put(start, bytes);
+        _retainedByteCount += bytes.length;
+
+        // The range just fetched is the most recently used, so is evicted last
+        Iterator<Map.Entry<Long, byte[]>> iterator = _rangeUsage.entrySet().iterator();
+        while (_retainedByteCount > _maxRetainedBytes && _rangeUsage.size() > 1) {
+            Map.Entry<Long, byte[]> eldest = iterator.next();
+            _ranges.remove(eldest.getKey());
+            _retainedByteCount -= eldest.getValue().length;
+            iterator.remove();
+            _evictionCount++;
+        }
+
+        return _ranges.floorEntry(position);
+    }
+}
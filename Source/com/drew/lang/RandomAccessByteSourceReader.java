@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Provides methods to read specific values from a {@link ByteSource}, with a consistent, checked exception structure
+ * for issues.
+ * <p>
+ * Each access results in a single positional read of the source, including multi-byte values and bulk array reads.
+ * For sources where reads are expensive, wrap the source in a {@link CoalescingByteSource}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class RandomAccessByteSourceReader extends RandomAccessReader
+{
+    @NotNull
+    private final ByteSource _source;
+    private final long _length;
+
+    @SuppressWarnings({ "ConstantConditions" })
+    public RandomAccessByteSourceReader(@NotNull ByteSource source) throws IOException
+    {
+        if (source == null)
+            throw new NullPointerException();
+
+        _source = source;
+        _length = source.getLength();
+    }
+
+    @Override
+    public int toUnshiftedOffset(int localOffset)
+    {
+        return localOffset;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    public byte getByte(int index) throws IOException
+    {
+        return getByte((long)index);
+    }
+
+    @Override
+    public byte getByte(long index) throws IOException
+    {
+        return read(index, 1).get(0);
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+        readFully(index, bytes);
+        return bytes;
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(long index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+        readFully(index, bytes);
+        return bytes;
+    }
+
+    @Override
+    @NotNull
+    protected ByteBuffer getByteBuffer(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return read(index, count);
+    }
+
+    @Override
+    public int getUInt16(int index) throws IOException
+    {
+        return getUInt16((long)index);
+    }
+
+    @Override
+    public int getUInt16(long index) throws IOException
+    {
+        validateIndex(index, 2);
+
+        return read(index, 2).getShort(0) & 0xFFFF;
+    }
+
+    @Override
+    public short getInt16(int index) throws IOException
+    {
+        validateIndex(index, 2);
+
+        return read(index, 2).getShort(0);
+    }
+
+    @Override
+    public int getInt24(int index) throws IOException
+    {
+        validateIndex(index, 3);
+
+        ByteBuffer buffer = read(index, 3);
+        return isMotorolaByteOrder()
+            ? (buffer.get(0) << 16 & 0xFF0000) | (buffer.get(1) << 8 & 0xFF00) | (buffer.get(2) & 0xFF)
+            : (buffer.get(2) << 16 & 0xFF0000) | (buffer.get(1) << 8 & 0xFF00) | (buffer.get(0) & 0xFF);
+    }
+
+    @Override
+    public long getUInt32(int index) throws IOException
+    {
+        return getInt32((long)index) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int getInt32(int index) throws IOException
+    {
+        return getInt32((long)index);
+    }
+
+    @Override
+    public int getInt32(long index) throws IOException
+    {
+        validateIndex(index, 4);
+
+        return read(index, 4).getInt(0);
+    }
+
+    @Override
+    public long getInt64(int index) throws IOException
+    {
+        return getInt64((long)index);
+    }
+
+    @Override
+    public long getInt64(long index) throws IOException
+    {
+        validateIndex(index, 8);
+
+        return read(index, 8).getLong(0);
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return isValidIndex((long)index, bytesRequested);
+    }
+
+    @Override
+    protected boolean isValidIndex(long index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+            && index >= 0
+            && index + (long)bytesRequested - 1L < _length;
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+
+    /**
+     * Reads <code>count</code> bytes from <code>position</code> into a new buffer ordered per the current byte order,
+     * with its position reset to zero.
+     */
+    @NotNull
+    private ByteBuffer read(long position, int count) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(count)
+            .order(isMotorolaByteOrder() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        readFully(position, buffer);
+        ((Buffer)buffer).rewind();
+        return buffer;
+    }
+
+    private void readFully(long position, @NotNull byte[] bytes) throws IOException
+    {
+        readFully(position, ByteBuffer.wrap(bytes));
+    }
+
+    private void readFully(long position, @NotNull ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            int bytesRead = _source.read(position + buffer.position(), buffer);
+            if (bytesRead == -1)
+                throw new BufferBoundsException("Attempt to read from beyond end of underlying data source");
+            if (bytesRead == 0)
+                throw new IOException("Underlying source returned no data.");
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class RandomAccessFileReader extends RandomAccessReader
     @NotNull
     private final RandomAccessFile _file;
     private final long _length;
-    private int _currentIndex;
+    private long _currentIndex;
 
     private final int _baseOffset;
 
@@ -74,6 +74,12 @@ public class RandomAccessFileReader extends RandomAccessReader
 
     @Override
     public byte getByte(int index) throws IOException
+    {
+        return getByte((long)index);
+    }
+
+    @Override
+    public byte getByte(long index) throws IOException
     {
         if (index != _currentIndex)
             seek(index);
@@ -92,6 +98,21 @@ public class RandomAccessFileReader extends RandomAccessReader
     {
         validateIndex(index, count);
 
+        return readBytes(index, count);
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(long index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return readBytes(index, count);
+    }
+
+    @NotNull
+    private byte[] readBytes(long index, int count) throws IOException
+    {
         if (index != _currentIndex)
             seek(index);
 
@@ -103,7 +124,7 @@ public class RandomAccessFileReader extends RandomAccessReader
         return bytes;
     }
 
-    private void seek(final int index) throws IOException
+    private void seek(final long index) throws IOException
     {
         if (index == _currentIndex)
             return;
@@ -120,6 +141,14 @@ public class RandomAccessFileReader extends RandomAccessReader
                 && (long)index + (long)bytesRequested - 1L < _length;
     }
 
+    @Override
+    protected boolean isValidIndex(long index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+                && index >= 0
+                && index + (long)bytesRequested - 1L < _length;
+    }
+
     @Override
     protected void validateIndex(final int index, final int bytesRequested) throws IOException
     {
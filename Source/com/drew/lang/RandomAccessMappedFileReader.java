@@ -0,0 +1,332 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides methods to read specific values from a memory-mapped file, with a consistent, checked exception structure
+ * for issues.
+ * <p>
+ * The file is mapped into memory in regions of up to {@link #DEFAULT_REGION_LENGTH} bytes, each of which is created
+ * on first access. Once a region has been mapped, reads within it do not require any system calls, unlike
+ * {@link RandomAccessFileReader} which must seek and read for every byte.
+ * <p>
+ * Mapped regions remain valid after the originating {@link FileChannel} is closed, and are released when this
+ * reader is garbage collected. Note that on some platforms (notably Windows) the file cannot be deleted while
+ * a mapping of it exists.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class RandomAccessMappedFileReader extends RandomAccessReader
+{
+    /** The maximum number of bytes mapped by a single region, being 1 GB. */
+    public final static int DEFAULT_REGION_LENGTH = 1 << 30;
+
+    @NotNull
+    private final FileChannel _channel;
+    private final long _length;
+    private final int _baseOffset;
+    private final int _regionLength;
+
+    /** Lazily mapped regions. Each region has a big endian view at [i][0] and a little endian view at [i][1]. */
+    @NotNull
+    private final ByteBuffer[][] _regions;
+
+    public RandomAccessMappedFileReader(@NotNull FileChannel channel) throws IOException
+    {
+        this(channel, 0);
+    }
+
+    public RandomAccessMappedFileReader(@NotNull FileChannel channel, int baseOffset) throws IOException
+    {
+        this(channel, baseOffset, DEFAULT_REGION_LENGTH);
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    RandomAccessMappedFileReader(@NotNull FileChannel channel, int baseOffset, int regionLength) throws IOException
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (baseOffset < 0)
+            throw new IllegalArgumentException("Must be zero or greater");
+        if (regionLength <= 0)
+            throw new IllegalArgumentException("regionLength must be greater than zero");
+
+        _channel = channel;
+        _baseOffset = baseOffset;
+        _regionLength = regionLength;
+        _length = _channel.size();
+
+        long regionCount = (_length + regionLength - 1) / regionLength;
+        if (regionCount > Integer.MAX_VALUE)
+            throw new IOException("File is too large to be mapped");
+        _regions = new ByteBuffer[(int)regionCount][];
+    }
+
+    @Override
+    public int toUnshiftedOffset(int localOffset)
+    {
+        return localOffset + _baseOffset;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length - _baseOffset;
+    }
+
+    @Override
+    public byte getByte(int index) throws IOException
+    {
+        return getByte((long)index);
+    }
+
+    @Override
+    public byte getByte(long index) throws IOException
+    {
+        long position = index + _baseOffset;
+        return region(position, true).get(offsetInRegion(position));
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return readBytes(index + (long)_baseOffset, count);
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(long index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return readBytes(index + _baseOffset, count);
+    }
+
+    @Override
+    @NotNull
+    protected ByteBuffer getByteBuffer(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        long position = index + (long)_baseOffset;
+        if (count == 0 || !isWithinOneRegion(position, count))
+            return ByteBuffer.wrap(readBytes(position, count));
+
+        int offset = offsetInRegion(position);
+        ByteBuffer view = region(position, true).duplicate();
+        ((Buffer)view).limit(offset + count);
+        ((Buffer)view).position(offset);
+        return view;
+    }
+
+    @Override
+    public int getUInt16(int index) throws IOException
+    {
+        validateIndex(index, 2);
+
+        return readInt16(index + (long)_baseOffset) & 0xFFFF;
+    }
+
+    @Override
+    public int getUInt16(long index) throws IOException
+    {
+        validateIndex(index, 2);
+
+        return readInt16(index + _baseOffset) & 0xFFFF;
+    }
+
+    @Override
+    public short getInt16(int index) throws IOException
+    {
+        validateIndex(index, 2);
+
+        return readInt16(index + (long)_baseOffset);
+    }
+
+    @Override
+    public long getUInt32(int index) throws IOException
+    {
+        validateIndex(index, 4);
+
+        return readInt32(index + (long)_baseOffset) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int getInt32(int index) throws IOException
+    {
+        validateIndex(index, 4);
+
+        return readInt32(index + (long)_baseOffset);
+    }
+
+    @Override
+    public int getInt32(long index) throws IOException
+    {
+        validateIndex(index, 4);
+
+        return readInt32(index + _baseOffset);
+    }
+
+    @Override
+    public long getInt64(int index) throws IOException
+    {
+        validateIndex(index, 8);
+
+        return readInt64(index + (long)_baseOffset);
+    }
+
+    @Override
+    public long getInt64(long index) throws IOException
+    {
+        validateIndex(index, 8);
+
+        return readInt64(index + _baseOffset);
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return isValidIndex((long)index, bytesRequested);
+    }
+
+    @Override
+    protected boolean isValidIndex(long index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+            && index >= 0
+            && index + (long)bytesRequested - 1L < getLength();
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, getLength());
+    }
+
+    @NotNull
+    private byte[] readBytes(long position, int count) throws IOException
+    {
+        byte[] bytes = new byte[count];
+        int toIndex = 0;
+
+        while (toIndex != count) {
+            int fromInnerIndex = offsetInRegion(position);
+            int length = Math.min(count - toIndex, _regionLength - fromInnerIndex);
+
+            ByteBuffer view = region(position, true).duplicate();
+            ((Buffer)view).position(fromInnerIndex);
+            view.get(bytes, toIndex, length);
+
+            position += length;
+            toIndex += length;
+        }
+
+        return bytes;
+    }
+
+    private short readInt16(long position) throws IOException
+    {
+        if (!isWithinOneRegion(position, 2))
+            return (short)readSpanning(position, 2);
+
+        return region(position, isMotorolaByteOrder()).getShort(offsetInRegion(position));
+    }
+
+    private int readInt32(long position) throws IOException
+    {
+        if (!isWithinOneRegion(position, 4))
+            return (int)readSpanning(position, 4);
+
+        return region(position, isMotorolaByteOrder()).getInt(offsetInRegion(position));
+    }
+
+    private long readInt64(long position) throws IOException
+    {
+        if (!isWithinOneRegion(position, 8))
+            return readSpanning(position, 8);
+
+        return region(position, isMotorolaByteOrder()).getLong(offsetInRegion(position));
+    }
+
+    /**
+     * Assembles a value from bytes that straddle a region boundary, honouring the current byte order.
+     */
+    private long readSpanning(long position, int byteCount) throws IOException
+    {
+        long result = 0;
+        if (isMotorolaByteOrder()) {
+            for (int i = 0; i < byteCount; i++)
+                result = result << 8 | (region(position + i, true).get(offsetInRegion(position + i)) & 0xFFL);
+        } else {
+            for (int i = byteCount - 1; i >= 0; i--)
+                result = result << 8 | (region(position + i, true).get(offsetInRegion(position + i)) & 0xFFL);
+        }
+        return result;
+    }
+
+    private boolean isWithinOneRegion(long position, int byteCount)
+    {
+        return offsetInRegion(position) + byteCount <= _regionLength;
+    }
+
+    private int offsetInRegion(long position)
+    {
+        return (int)(position % _regionLength);
+    }
+
+    @NotNull
+    private ByteBuffer region(long position, boolean isMotorolaByteOrder) throws IOException
+    {
+        int regionIndex = (int)(position / _regionLength);
+
+        if (regionIndex < 0 || regionIndex >= _regions.length)
+            throw new BufferBoundsException("Attempt to read from beyond end of underlying data source");
+
+        ByteBuffer[] views = _regions[regionIndex];
+
+        if (views == null) {
+            long regionStart = (long)regionIndex * _regionLength;
+            long regionLength = Math.min(_regionLength, _length - regionStart);
+            // held as ByteBuffer so that duplicate() links against the Java 8 signature
+            ByteBuffer mapped = _channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionLength);
+
+            views = new ByteBuffer[2];
+            views[0] = mapped.duplicate().order(ByteOrder.BIG_ENDIAN);
+            views[1] = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            _regions[regionIndex] = views;
+        }
+
+        return isMotorolaByteOrder ? views[0] : views[1];
+    }
+}
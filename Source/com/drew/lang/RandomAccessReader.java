@@ -27,6 +27,13 @@ import com.drew.metadata.StringValue;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -38,7 +45,10 @@ import java.nio.charset.Charset;
  * Concrete implementations include:
  * <ul>
  *     <li>{@link ByteArrayReader}</li>
+ *     <li>{@link RandomAccessFileReader}</li>
+ *     <li>{@link RandomAccessMappedFileReader}</li>
  *     <li>{@link RandomAccessStreamReader}</li>
+ *     <li>{@link BoundedRandomAccessStreamReader}</li>
  * </ul>
  *
  * @author Drew Noakes https://drewnoakes.com
@@ -98,12 +108,74 @@ public abstract class RandomAccessReader
      * <p>
      * Users of this method must be aware that sequentially accessed implementations such as
      * {@link RandomAccessStreamReader} will have to read and buffer the entire data source in
-     * order to determine the length.
+     * order to determine the length. For bounds checking, use {@link #hasBytes(long, long)} instead.
      *
      * @return the length of the data source, in bytes.
      */
     public abstract long getLength() throws IOException;
 
+    /**
+     * Gets whether the data source contains <code>bytesRequested</code> bytes starting at <code>index</code>.
+     * <p>
+     * Callers performing bounds checks should prefer this method over comparisons with {@link #getLength()}.
+     * Sequentially accessed implementations such as {@link RandomAccessStreamReader} only need to buffer data up
+     * to the end of the requested range in order to answer, rather than reading the entire data source.
+     *
+     * @param index the index from which the required bytes start
+     * @param bytesRequested the number of bytes which are required, which may be zero
+     * @return <code>true</code> if the range is within the data source, otherwise <code>false</code>
+     * @throws IOException if an error occurred reading from the underlying data source
+     */
+    public boolean hasBytes(long index, long bytesRequested) throws IOException
+    {
+        if (index < 0 || bytesRequested < 0)
+            return false;
+
+        if (bytesRequested > Integer.MAX_VALUE)
+            return isValidIndex(index + bytesRequested - 1, 1);
+
+        return isValidIndex(index, (int)bytesRequested);
+    }
+
+    /**
+     * Returns a reader over <code>count</code> bytes of this reader's data, starting at <code>index</code>.
+     * <p>
+     * The returned reader shares this reader's underlying data rather than copying it, so nested structures
+     * (such as an ICC profile or Exif block embedded within another segment) can be parsed without allocating
+     * memory proportional to their size. Like a newly constructed reader, it uses Motorola byte order until
+     * changed, independently of this reader. Its {@link #toUnshiftedOffset(int)} maps back to this reader's unshifted offsets.
+     *
+     * @param index The index within this reader at which the slice begins
+     * @param count The number of bytes in the slice
+     * @return A reader over the requested range
+     * @throws BufferBoundsException if the requested range extends beyond the end of the underlying data source
+     */
+    @NotNull
+    public RandomAccessReader slice(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        return new SliceReader(this, index, count);
+    }
+
+    /**
+     * Returns a {@link SequentialReader} over <code>count</code> bytes of this reader's data, starting at
+     * <code>index</code>.
+     * <p>
+     * Implementations backed by a byte array share it with the returned reader. The default implementation
+     * copies the requested bytes.
+     *
+     * @param index The index within this reader at which the slice begins
+     * @param count The number of bytes in the slice
+     * @return A sequential reader over the requested range
+     * @throws BufferBoundsException if the requested range extends beyond the end of the underlying data source
+     */
+    @NotNull
+    public SequentialReader sequentialSlice(int index, int count) throws IOException
+    {
+        return new SequentialByteArrayReader(getBytes(index, count));
+    }
+
     /**
      * Sets the endianness of this reader.
      * <ul>
@@ -368,6 +440,369 @@ public abstract class RandomAccessReader
         return Double.longBitsToDouble(getInt64(index));
     }
 
+    /**
+     * Gets <code>count</code> unsigned 8-bit integers starting at <code>index</code>.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements, as shorts
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public short[] getUInt8Array(int index, int count) throws IOException
+    {
+        ByteBuffer buffer = getArrayBuffer(index, count, 1);
+        short[] array = new short[count];
+        for (int i = 0; i < count; i++)
+            array[i] = (short)(buffer.get() & 0xFF);
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> signed 16-bit integers starting at <code>index</code>. Bounds are validated once for
+     * the whole array, rather than per element.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public short[] getInt16Array(int index, int count) throws IOException
+    {
+        ShortBuffer buffer = getArrayBuffer(index, count, 2).asShortBuffer();
+        short[] array = new short[count];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> unsigned 16-bit integers starting at <code>index</code>.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements, as ints
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public int[] getUInt16Array(int index, int count) throws IOException
+    {
+        ShortBuffer buffer = getArrayBuffer(index, count, 2).asShortBuffer();
+        int[] array = new int[count];
+        for (int i = 0; i < count; i++)
+            array[i] = buffer.get(i) & 0xFFFF;
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> signed 32-bit integers starting at <code>index</code>.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public int[] getInt32Array(int index, int count) throws IOException
+    {
+        IntBuffer buffer = getArrayBuffer(index, count, 4).asIntBuffer();
+        int[] array = new int[count];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> unsigned 32-bit integers starting at <code>index</code>.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements, as longs
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public long[] getUInt32Array(int index, int count) throws IOException
+    {
+        IntBuffer buffer = getArrayBuffer(index, count, 4).asIntBuffer();
+        long[] array = new long[count];
+        for (int i = 0; i < count; i++)
+            array[i] = buffer.get(i) & 0xFFFFFFFFL;
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> signed 64-bit integers starting at <code>index</code>.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public long[] getInt64Array(int index, int count) throws IOException
+    {
+        LongBuffer buffer = getArrayBuffer(index, count, 8).asLongBuffer();
+        long[] array = new long[count];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> 32-bit IEEE 754 floating point values starting at <code>index</code>.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public float[] getFloat32Array(int index, int count) throws IOException
+    {
+        FloatBuffer buffer = getArrayBuffer(index, count, 4).asFloatBuffer();
+        float[] array = new float[count];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> 64-bit IEEE 754 floating point values starting at <code>index</code>.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @return the elements
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public double[] getDouble64Array(int index, int count) throws IOException
+    {
+        DoubleBuffer buffer = getArrayBuffer(index, count, 8).asDoubleBuffer();
+        double[] array = new double[count];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * Gets <code>count</code> rational values starting at <code>index</code>, each being a 32-bit numerator
+     * followed by a 32-bit denominator.
+     *
+     * @param index position within the data buffer of the first element
+     * @param count the number of elements to read
+     * @param isSigned whether numerators and denominators are signed (TIFF SRATIONAL) or unsigned (TIFF RATIONAL)
+     * @return the elements
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    @NotNull
+    public Rational[] getRationalArray(int index, int count, boolean isSigned) throws IOException
+    {
+        IntBuffer buffer = getArrayBuffer(index, count, 8).asIntBuffer();
+        Rational[] array = new Rational[count];
+        for (int i = 0; i < count; i++) {
+            int numerator = buffer.get(2 * i);
+            int denominator = buffer.get(2 * i + 1);
+            array[i] = isSigned
+                ? new Rational(numerator, denominator)
+                : new Rational(numerator & 0xFFFFFFFFL, denominator & 0xFFFFFFFFL);
+        }
+        return array;
+    }
+
+    /**
+     * Returns a {@link ByteBuffer} whose remaining bytes are the <code>count</code> bytes starting at
+     * <code>index</code>, for use by the bulk array getters. Bounds are validated by this method.
+     * <p>
+     * The default implementation copies the bytes via {@link #getBytes(int, int)}. Implementations with direct
+     * access to their underlying storage may instead return a view of it, which callers must not modify.
+     *
+     * @param index The index from which the bytes begin
+     * @param count The number of bytes
+     * @return A buffer over the requested bytes
+     * @throws IOException if the bytes are unable to be read, or extend beyond the end of the data source
+     */
+    @NotNull
+    protected ByteBuffer getByteBuffer(int index, int count) throws IOException
+    {
+        return ByteBuffer.wrap(getBytes(index, count));
+    }
+
+    @NotNull
+    private ByteBuffer getArrayBuffer(int index, int count, int elementLength) throws IOException
+    {
+        if (count < 0)
+            throw new BufferBoundsException("Number of requested elements must be zero or greater");
+        if (count == 0)
+            return ByteBuffer.allocate(0);
+
+        long byteCount = (long)count * elementLength;
+        if (byteCount > Integer.MAX_VALUE)
+            throw new BufferBoundsException(String.format("Number of requested bytes exceeds maximum range of signed 32 bit integers (requested count: %d)", byteCount));
+
+        return getByteBuffer(index, (int)byteCount).order(_isMotorolaByteOrder ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Gets the byte value at the specified byte <code>index</code>, which may lie beyond the range of a signed 32-bit
+     * integer.
+     * <p>
+     * The default implementation supports indexes up to {@link Integer#MAX_VALUE} only, delegating to
+     * {@link #getByte(int)}. Implementations able to address larger data sources should override this method,
+     * along with {@link #isValidIndex(long, int)}.
+     * <p>
+     * As with {@link #getByte(int)}, no bounds checking is performed.
+     *
+     * @param index The index from which to read the byte
+     * @return The read byte value
+     * @throws BufferBoundsException if the requested byte is beyond the end of the underlying data source
+     * @throws IOException if the byte is unable to be read
+     */
+    public byte getByte(long index) throws IOException
+    {
+        if (index > Integer.MAX_VALUE)
+            throw new BufferBoundsException(index, 1, getLength());
+
+        return getByte((int)index);
+    }
+
+    /**
+     * Returns the required number of bytes from the specified 64-bit index within the underlying source.
+     *
+     * @param index The index from which the bytes begins in the underlying source
+     * @param count The number of bytes to be returned
+     * @return The requested bytes
+     * @throws BufferBoundsException if the requested bytes extend beyond the end of the underlying data source
+     * @throws IOException if the bytes are unable to be read
+     */
+    @NotNull
+    public byte[] getBytes(long index, int count) throws IOException
+    {
+        if (index >= 0 && index + count - 1L <= Integer.MAX_VALUE)
+            return getBytes((int)index, count);
+
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++)
+            bytes[i] = getByte(index + i);
+        return bytes;
+    }
+
+    /**
+     * Ensures that the specified range, which may lie beyond the range of a signed 32-bit integer, is available.
+     *
+     * @param index the index from which the required bytes start
+     * @param bytesRequested the number of bytes which are required
+     * @throws BufferBoundsException if the underlying data source does not contain the requested range
+     */
+    protected void validateIndex(long index, int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, getLength());
+    }
+
+    /**
+     * Gets whether the specified range, which may lie beyond the range of a signed 32-bit integer, is available.
+     * <p>
+     * The default implementation supports ranges ending at or before {@link Integer#MAX_VALUE} only.
+     */
+    protected boolean isValidIndex(long index, int bytesRequested) throws IOException
+    {
+        return index >= 0
+            && bytesRequested >= 0
+            && index + bytesRequested - 1L <= Integer.MAX_VALUE
+            && isValidIndex((int)index, bytesRequested);
+    }
+
+    /**
+     * Returns an unsigned 16-bit int calculated from two bytes of data at the specified 64-bit index.
+     *
+     * @param index position within the data buffer to read first byte
+     * @return the 16 bit int value, between 0x0000 and 0xFFFF
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    public int getUInt16(long index) throws IOException
+    {
+        if (index >= 0 && index <= Integer.MAX_VALUE - 1)
+            return getUInt16((int)index);
+
+        validateIndex(index, 2);
+
+        if (_isMotorolaByteOrder) {
+            // Motorola - MSB first
+            return (getByte(index    ) << 8 & 0xFF00) |
+                   (getByte(index + 1)      & 0xFF);
+        } else {
+            // Intel ordering - LSB first
+            return (getByte(index + 1) << 8 & 0xFF00) |
+                   (getByte(index    )      & 0xFF);
+        }
+    }
+
+    /**
+     * Get a 32-bit unsigned integer from the specified 64-bit index, returning it as a long.
+     *
+     * @param index position within the data buffer to read first byte
+     * @return the unsigned 32-bit int value as a long, between 0x00000000 and 0xFFFFFFFF
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    public long getUInt32(long index) throws IOException
+    {
+        return getInt32(index) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns a signed 32-bit integer from four bytes of data at the specified 64-bit index.
+     *
+     * @param index position within the data buffer to read first byte
+     * @return the signed 32 bit int value, between 0x00000000 and 0xFFFFFFFF
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    public int getInt32(long index) throws IOException
+    {
+        if (index >= 0 && index <= Integer.MAX_VALUE - 3)
+            return getInt32((int)index);
+
+        validateIndex(index, 4);
+
+        if (_isMotorolaByteOrder) {
+            // Motorola - MSB first (big endian)
+            return (getByte(index    ) << 24 & 0xFF000000) |
+                   (getByte(index + 1) << 16 & 0xFF0000) |
+                   (getByte(index + 2) << 8  & 0xFF00) |
+                   (getByte(index + 3)       & 0xFF);
+        } else {
+            // Intel ordering - LSB first (little endian)
+            return (getByte(index + 3) << 24 & 0xFF000000) |
+                   (getByte(index + 2) << 16 & 0xFF0000) |
+                   (getByte(index + 1) << 8  & 0xFF00) |
+                   (getByte(index    )       & 0xFF);
+        }
+    }
+
+    /**
+     * Get a signed 64-bit integer from the specified 64-bit index.
+     *
+     * @param index position within the data buffer to read first byte
+     * @return the 64 bit int value, between 0x0000000000000000 and 0xFFFFFFFFFFFFFFFF
+     * @throws IOException the buffer does not contain enough bytes to service the request, or index is negative
+     */
+    public long getInt64(long index) throws IOException
+    {
+        if (index >= 0 && index <= Integer.MAX_VALUE - 7)
+            return getInt64((int)index);
+
+        validateIndex(index, 8);
+
+        long result = 0;
+        if (_isMotorolaByteOrder) {
+            // Motorola - MSB first
+            for (int i = 0; i < 8; i++)
+                result = result << 8 | (getByte(index + i) & 0xFFL);
+        } else {
+            // Intel ordering - LSB first
+            for (int i = 7; i >= 0; i--)
+                result = result << 8 | (getByte(index + i) & 0xFFL);
+        }
+        return result;
+    }
+
     @NotNull
     public StringValue getStringValue(int index, int bytesRequested, @Nullable Charset charset) throws IOException
     {
@@ -442,4 +877,81 @@ public abstract class RandomAccessReader
             System.arraycopy(buffer, 0, bytes, 0, length);
         return bytes;
     }
+
+    /**
+     * A view over a range of another {@link RandomAccessReader}, used by {@link #slice(int, int)}.
+     */
+    private static final class SliceReader extends RandomAccessReader
+    {
+        @NotNull
+        private final RandomAccessReader _parent;
+        private final int _offset;
+        private final int _length;
+
+        SliceReader(@NotNull RandomAccessReader parent, int offset, int length)
+        {
+            _parent = parent;
+            _offset = offset;
+            _length = length;
+        }
+
+        @Override
+        public int toUnshiftedOffset(int localOffset)
+        {
+            return _parent.toUnshiftedOffset(localOffset + _offset);
+        }
+
+        @Override
+        public byte getByte(int index) throws IOException
+        {
+            return _parent.getByte(index + _offset);
+        }
+
+        @NotNull
+        @Override
+        public byte[] getBytes(int index, int count) throws IOException
+        {
+            validateIndex(index, count);
+            return _parent.getBytes(index + _offset, count);
+        }
+
+        @NotNull
+        @Override
+        protected ByteBuffer getByteBuffer(int index, int count) throws IOException
+        {
+            validateIndex(index, count);
+            return _parent.getByteBuffer(index + _offset, count);
+        }
+
+        @NotNull
+        @Override
+        public RandomAccessReader slice(int index, int count) throws IOException
+        {
+            validateIndex(index, count);
+
+            return new SliceReader(_parent, index + _offset, count);
+        }
+
+        @Override
+        protected void validateIndex(int index, int bytesRequested) throws IOException
+        {
+            if (!isValidIndex(index, bytesRequested))
+                throw new BufferBoundsException(index, bytesRequested, _length);
+        }
+
+        @Override
+        protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+        {
+            // the parent's bounds were validated when this slice was created
+            return bytesRequested >= 0
+                && index >= 0
+                && (long)index + (long)bytesRequested - 1L < _length;
+        }
+
+        @Override
+        public long getLength()
+        {
+            return _length;
+        }
+    }
 }
@@ -28,6 +28,11 @@ import java.io.InputStream;
 import java.util.ArrayList;
 
 /**
+ * A {@link RandomAccessReader} over an {@link InputStream}, which reads the stream in fixed-length chunks as they
+ * are required and retains every chunk it reads.
+ * <p>
+ * Subclasses may change how chunks are retained by overriding {@link #storeChunk} and {@link #getChunk}.
+ *
  * @author Drew Noakes https://drewnoakes.com
  */
 public class RandomAccessStreamReader extends RandomAccessReader
@@ -36,10 +41,13 @@ public class RandomAccessStreamReader extends RandomAccessReader
 
     @NotNull
     private final InputStream _stream;
-    private final int _chunkLength;
+    protected final int _chunkLength;
 
     private final ArrayList<byte[]> _chunks = new ArrayList<byte[]>();
 
+    /** The number of chunks that have been read from the stream so far. */
+    private int _chunkCount;
+
     private boolean _isStreamFinished;
     private long _streamLength;
 
@@ -105,7 +113,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
         }
 
         if (!isValidIndex(index, bytesRequested)) {
-            assert(_isStreamFinished);
+            assert(_isStreamFinished || _streamLength != -1);
             // TODO test that can continue using an instance of this type after this exception
             throw new BufferBoundsException(index, bytesRequested, _streamLength);
         }
@@ -130,10 +138,15 @@ public class RandomAccessStreamReader extends RandomAccessReader
             return endIndex < _streamLength;
         }
 
+        // When the length was provided up front, out-of-range requests can be rejected without reading
+        if (_streamLength != -1 && endIndex >= _streamLength) {
+            return false;
+        }
+
         int chunkIndex = endIndex / _chunkLength;
 
         // TODO test loading several chunks for a single request
-        while (chunkIndex >= _chunks.size()) {
+        while (chunkIndex >= _chunkCount) {
             assert (!_isStreamFinished);
 
             byte[] chunk = new byte[_chunkLength];
@@ -143,24 +156,23 @@ public class RandomAccessStreamReader extends RandomAccessReader
                 if (bytesRead == -1) {
                     // the stream has ended, which may be ok
                     _isStreamFinished = true;
-                    int observedStreamLength = _chunks.size() * _chunkLength + totalBytesRead;
+                    long observedStreamLength = (long)_chunkCount * _chunkLength + totalBytesRead;
                     if (_streamLength == -1) {
                         _streamLength = observedStreamLength;
                     } else if (_streamLength != observedStreamLength) {
                         assert(false);
                     }
-
-                    // check we have enough bytes for the requested index
-                    if (endIndex >= _streamLength) {
-                        _chunks.add(chunk);
-                        return false;
-                    }
                 } else {
                     totalBytesRead += bytesRead;
                 }
             }
 
-            _chunks.add(chunk);
+            storeChunk(_chunkCount++, chunk);
+
+            // check we have enough bytes for the requested index
+            if (_isStreamFinished && endIndex >= _streamLength) {
+                return false;
+            }
         }
 
         return true;
@@ -179,7 +191,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
 
         final int chunkIndex = index / _chunkLength;
         final int innerIndex = index % _chunkLength;
-        final byte[] chunk = _chunks.get(chunkIndex);
+        final byte[] chunk = getChunk(chunkIndex);
 
         return chunk[innerIndex];
     }
@@ -201,7 +213,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
             int fromInnerIndex = fromIndex % _chunkLength;
             int length = Math.min(remaining, _chunkLength - fromInnerIndex);
 
-            byte[] chunk = _chunks.get(fromChunkIndex);
+            byte[] chunk = getChunk(fromChunkIndex);
 
             System.arraycopy(chunk, fromInnerIndex, bytes, toIndex, length);
 
@@ -212,4 +224,32 @@ public class RandomAccessStreamReader extends RandomAccessReader
 
         return bytes;
     }
+
+    /** Gets the number of chunks that have been read from the stream so far. */
+    protected int getChunkCount()
+    {
+        return _chunkCount;
+    }
+
+    /**
+     * Retains a chunk that has just been read from the stream. Chunks are read in order, and each is stored once.
+     *
+     * @param chunkIndex the index of the chunk, being its offset divided by the chunk length
+     * @param chunk the chunk's bytes, which are only partially populated for the final chunk of the stream
+     */
+    protected void storeChunk(int chunkIndex, @NotNull byte[] chunk) throws IOException
+    {
+        _chunks.add(chunk);
+    }
+
+    /**
+     * Gets a chunk that was previously passed to {@link #storeChunk}.
+     *
+     * @param chunkIndex the index of the chunk, which is less than {@link #getChunkCount()}
+     */
+    @NotNull
+    protected byte[] getChunk(int chunkIndex) throws IOException
+    {
+        return _chunks.get(chunkIndex);
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A {@link ByteSource} over a {@link SeekableByteChannel}, starting at a given position within the channel.
+ * <p>
+ * A {@link FileChannel} is read by position, without changing the channel's own position. Other channels are
+ * repositioned before each read. Positions are not limited to the range of an <code>int</code>, so this source may be
+ * wrapped in a {@link RandomAccessByteSourceReader} to read data such as BigTIFF directories located beyond 2 GB.
+ * <p>
+ * The channel is not closed by this class.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class SeekableChannelByteSource implements ByteSource
+{
+    @NotNull
+    private final SeekableByteChannel _channel;
+    private final long _startPosition;
+
+    /**
+     * @param channel the channel to read from
+     * @param startPosition the position within the channel of this source's first byte
+     */
+    @SuppressWarnings("ConstantConditions")
+    public SeekableChannelByteSource(@NotNull SeekableByteChannel channel, long startPosition)
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (startPosition < 0)
+            throw new IllegalArgumentException("startPosition must be zero or greater");
+
+        _channel = channel;
+        _startPosition = startPosition;
+    }
+
+    @Override
+    public long getLength() throws IOException
+    {
+        return Math.max(0, _channel.size() - _startPosition);
+    }
+
+    @Override
+    public int read(long position, @NotNull ByteBuffer buffer) throws IOException
+    {
+        if (position < 0)
+            throw new IllegalArgumentException("position must be zero or greater");
+
+        long channelPosition = _startPosition + position;
+
+        if (_channel instanceof FileChannel)
+            return ((FileChannel)_channel).read(buffer, channelPosition);
+
+        if (channelPosition >= _channel.size())
+            return -1;
+        _channel.position(channelPosition);
+        return _channel.read(buffer);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * An {@link InputStream} over a {@link SeekableByteChannel}, starting at the channel's position when constructed,
+ * or over a given range of the channel.
+ * <p>
+ * Skipping moves this stream's position rather than reading the skipped bytes, so readers which skip over large
+ * payloads (such as media data in MP4 files, or image data in PSD files) do not have to read them. Mark and reset are
+ * supported without limit, in the same way. A {@link FileChannel} is read by position, without changing the channel's
+ * own position. Other channels are repositioned as required.
+ * <p>
+ * Leading bytes that have already been read, such as those used to detect the file's type, may be provided so that
+ * they are not read from the channel again.
+ * <p>
+ * Closing this stream does not close the channel.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class SeekableChannelInputStream extends InputStream
+{
+    @NotNull
+    private final SeekableByteChannel _channel;
+    @Nullable
+    private final FileChannel _fileChannel;
+    @Nullable
+    private final ByteBuffer _prefix;
+    private final long _startPosition;
+    private final long _endPosition;
+
+    private long _position;
+    /** Whether the channel's own position matches {@link #_position}. Unused for file channels. */
+    private boolean _isChannelPositioned = true;
+    private long _markPosition = -1;
+
+    public SeekableChannelInputStream(@NotNull SeekableByteChannel channel) throws IOException
+    {
+        this(channel, null);
+    }
+
+    /**
+     * @param channel the channel to read from
+     * @param prefix a buffer whose remaining bytes are those at the channel's current position, or <code>null</code>
+     */
+    @SuppressWarnings("ConstantConditions")
+    public SeekableChannelInputStream(@NotNull SeekableByteChannel channel, @Nullable ByteBuffer prefix) throws IOException
+    {
+        if (channel == null)
+            throw new NullPointerException();
+
+        _channel = channel;
+        _fileChannel = channel instanceof FileChannel ? (FileChannel)channel : null;
+        _prefix = prefix == null ? null : prefix.slice();
+        _startPosition = channel.position();
+        _endPosition = Long.MAX_VALUE;
+        _position = _startPosition;
+    }
+
+    /**
+     * Creates a stream over <code>length</code> bytes of the channel, starting at <code>position</code>. The
+     * channel's current position is disregarded.
+     *
+     * @param channel the channel to read from
+     * @param position the position within the channel of the first byte of the stream
+     * @param length the number of bytes in the stream
+     */
+    @SuppressWarnings("ConstantConditions")
+    public SeekableChannelInputStream(@NotNull SeekableByteChannel channel, long position, long length)
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (position < 0 || length < 0)
+            throw new IllegalArgumentException("position and length must be zero or greater");
+
+        _channel = channel;
+        _fileChannel = channel instanceof FileChannel ? (FileChannel)channel : null;
+        _prefix = null;
+        _startPosition = position;
+        _endPosition = position + length;
+        _position = position;
+        _isChannelPositioned = false;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        byte[] bytes = new byte[1];
+        int bytesRead = read(bytes, 0, 1);
+        return bytesRead == -1 ? -1 : bytes[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NotNull byte[] b, int off, int len) throws IOException
+    {
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+        if (_position >= _endPosition)
+            return -1;
+        len = (int)Math.min(len, _endPosition - _position);
+
+        if (_prefix != null && _position - _startPosition < _prefix.limit()) {
+            int prefixIndex = (int)(_position - _startPosition);
+            int count = Math.min(len, _prefix.limit() - prefixIndex);
+            for (int i = 0; i < count; i++)
+                b[off + i] = _prefix.get(prefixIndex + i);
+            movePosition(_position + count);
+            return count;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        int bytesRead;
+        if (_fileChannel != null) {
+            do {
+                bytesRead = _fileChannel.read(buffer, _position);
+            } while (bytesRead == 0);
+        } else {
+            if (!_isChannelPositioned) {
+                _channel.position(_position);
+                _isChannelPositioned = true;
+            }
+            do {
+                bytesRead = _channel.read(buffer);
+            } while (bytesRead == 0);
+        }
+
+        if (bytesRead != -1)
+            _position += bytesRead;
+
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        if (n <= 0)
+            return 0;
+
+        long skipped = Math.min(n, Math.max(0, getEndPosition() - _position));
+        movePosition(_position + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        long remaining = getEndPosition() - _position;
+        return (int)Math.max(0, Math.min(remaining, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit)
+    {
+        _markPosition = _position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        if (_markPosition == -1)
+            throw new IOException("Stream has not been marked");
+
+        movePosition(_markPosition);
+    }
+
+    private long getEndPosition() throws IOException
+    {
+        return Math.min(_channel.size(), _endPosition);
+    }
+
+    private void movePosition(long position)
+    {
+        if (position != _position)
+            _isChannelPositioned = false;
+        _position = position;
+    }
+}
@@ -35,11 +35,15 @@ public class SequentialByteArrayReader extends SequentialReader
     @NotNull
     private final byte[] _bytes;
     private int _index;
+    /** The index reported as position zero. Only non-zero for slices. */
+    private final int _startIndex;
+    /** The index after the last readable byte. */
+    private final int _endIndex;
 
     @Override
     public long getPosition()
     {
-        return _index;
+        return _index - _startIndex;
     }
 
     public SequentialByteArrayReader(@NotNull byte[] bytes)
@@ -55,12 +59,32 @@ public class SequentialByteArrayReader extends SequentialReader
 
         _bytes = bytes;
         _index = baseIndex;
+        _startIndex = 0;
+        _endIndex = bytes.length;
+    }
+
+    private SequentialByteArrayReader(@NotNull byte[] bytes, int startIndex, int endIndex)
+    {
+        _bytes = bytes;
+        _index = startIndex;
+        _startIndex = startIndex;
+        _endIndex = endIndex;
+    }
+
+    /**
+     * Creates a reader over <code>count</code> bytes of <code>bytes</code> starting at <code>index</code>, whose
+     * position starts at zero. The array is shared, not copied.
+     */
+    @NotNull
+    static SequentialByteArrayReader createSlice(@NotNull byte[] bytes, int index, int count)
+    {
+        return new SequentialByteArrayReader(bytes, index, index + count);
     }
 
     @Override
     public byte getByte() throws IOException
     {
-        if (_index >= _bytes.length) {
+        if (_index >= _endIndex) {
             throw new EOFException("End of data reached.");
         }
         return _bytes[_index++];
@@ -70,7 +94,7 @@ public class SequentialByteArrayReader extends SequentialReader
     @Override
     public byte[] getBytes(int count) throws IOException
     {
-        if ((long)_index + count > _bytes.length) {
+        if ((long)_index + count > _endIndex) {
             throw new EOFException("End of data reached.");
         }
 
@@ -84,7 +108,7 @@ public class SequentialByteArrayReader extends SequentialReader
     @Override
     public void getBytes(@NotNull byte[] buffer, int offset, int count) throws IOException
     {
-        if ((long)_index + count > _bytes.length) {
+        if ((long)_index + count > _endIndex) {
             throw new EOFException("End of data reached.");
         }
 
@@ -99,7 +123,7 @@ public class SequentialByteArrayReader extends SequentialReader
             throw new IllegalArgumentException("n must be zero or greater.");
         }
 
-        if (_index + n > _bytes.length) {
+        if (_index + n > _endIndex) {
             throw new EOFException("End of data reached.");
         }
 
@@ -113,8 +137,8 @@ public class SequentialByteArrayReader extends SequentialReader
             throw new IllegalArgumentException("n must be zero or greater.");
         }
 
-        if (_index + n > _bytes.length)  {
-            _index = _bytes.length;
+        if (_index + n > _endIndex)  {
+            _index = _endIndex;
             return false;
         }
 
@@ -123,8 +147,57 @@ public class SequentialByteArrayReader extends SequentialReader
         return true;
     }
 
+    @Override
+    public long skipPast(byte value, long maxCount) throws IOException
+    {
+        if (maxCount < 0)
+            throw new IllegalArgumentException("maxCount must be zero or greater.");
+
+        final boolean isLimited = maxCount <= _endIndex - _index;
+        final int end = isLimited ? _index + (int)maxCount : _endIndex;
+        final byte[] bytes = _bytes;
+        for (int i = _index; i < end; i++) {
+            if (bytes[i] == value) {
+                int skipped = i - _index;
+                _index = i + 1;
+                return skipped;
+            }
+        }
+
+        _index = end;
+        if (isLimited)
+            return -1;
+        throw new EOFException("End of data reached.");
+    }
+
     @Override
     public int available() {
-        return _bytes.length - _index;
+        return _endIndex - _index;
+    }
+
+    @NotNull
+    @Override
+    public SequentialReader slice(int count) throws IOException
+    {
+        if (count < 0 || (long)_index + count > _endIndex) {
+            throw new EOFException("End of data reached.");
+        }
+
+        SequentialReader slice = createSlice(_bytes, _index, count);
+        _index += count;
+        return slice;
+    }
+
+    @NotNull
+    @Override
+    public RandomAccessReader randomAccessSlice(int count) throws IOException
+    {
+        if (count < 0 || (long)_index + count > _endIndex) {
+            throw new EOFException("End of data reached.");
+        }
+
+        RandomAccessReader slice = new ByteArrayReader(_bytes, _index, count);
+        _index += count;
+        return slice;
     }
 }
@@ -102,6 +102,79 @@ public abstract class SequentialReader
      */
     public abstract int available();
 
+    /**
+     * Advances this reader past the next occurrence of <code>value</code> in the sequence.
+     * <p>
+     * This supports resynchronising with markers in damaged or padded data. Implementations that hold bytes in
+     * memory search them in bulk, rather than making a call per byte. The default implementation reads one byte
+     * at a time.
+     *
+     * @param value The byte value to search for
+     * @return The number of bytes skipped before the occurrence of <code>value</code>, excluding that byte itself
+     * @throws EOFException if the sequence ends before <code>value</code> is found
+     */
+    public long skipPast(byte value) throws IOException
+    {
+        return skipPast(value, Long.MAX_VALUE);
+    }
+
+    /**
+     * Advances this reader past the next occurrence of <code>value</code>, provided it occurs within the next
+     * <code>maxCount</code> bytes of the sequence. This bounds the bytes consumed when scanning untrusted data.
+     *
+     * @param value The byte value to search for
+     * @param maxCount The maximum number of bytes to consume, including the occurrence of <code>value</code>
+     * @return The number of bytes skipped before the occurrence of <code>value</code>, excluding that byte itself,
+     *         or -1 if it did not occur within <code>maxCount</code> bytes, in which case that many bytes were skipped
+     * @throws EOFException if the sequence ends before <code>value</code> is found or <code>maxCount</code> bytes
+     *                      are skipped
+     */
+    public long skipPast(byte value, long maxCount) throws IOException
+    {
+        if (maxCount < 0)
+            throw new IllegalArgumentException("maxCount must be zero or greater.");
+
+        for (long skipped = 0; skipped < maxCount; skipped++) {
+            if (getByte() == value)
+                return skipped;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a reader over the next <code>count</code> bytes of the sequence, and advances this reader past them.
+     * <p>
+     * Implementations backed by a byte array share it with the returned reader, so nested structures can be parsed
+     * without allocating memory proportional to their size. The default implementation copies the bytes.
+     * Like a newly constructed reader, the returned reader uses Motorola byte order.
+     *
+     * @param count The number of bytes in the slice
+     * @return A sequential reader over the requested bytes, positioned at zero
+     * @throws EOFException if the sequence ends before <code>count</code> bytes are available
+     */
+    @NotNull
+    public SequentialReader slice(int count) throws IOException
+    {
+        return new SequentialByteArrayReader(getBytes(count));
+    }
+
+    /**
+     * Returns a {@link RandomAccessReader} over the next <code>count</code> bytes of the sequence, and advances
+     * this reader past them.
+     * <p>
+     * Implementations backed by a byte array share it with the returned reader. The default implementation copies
+     * the bytes. Like a newly constructed reader, the returned reader uses Motorola byte order.
+     *
+     * @param count The number of bytes in the slice
+     * @return A random access reader over the requested bytes
+     * @throws EOFException if the sequence ends before <code>count</code> bytes are available
+     */
+    @NotNull
+    public RandomAccessReader randomAccessSlice(int count) throws IOException
+    {
+        return new ByteArrayReader(getBytes(count));
+    }
+
     /**
      * Sets the endianness of this reader.
      * <ul>
@@ -23,45 +23,84 @@ package com.drew.lang;
 
 import com.drew.lang.annotations.NotNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 
 /**
+ * A {@link SequentialReader} over an {@link InputStream}.
+ * <p>
+ * Bytes are read from the stream in blocks of up to {@link #DEFAULT_BUFFER_LENGTH} bytes, so that reading individual
+ * bytes and multi-byte values does not require a call to the stream for each byte. As a consequence, the underlying
+ * stream may be positioned ahead of this reader's {@link #getPosition()}, and should not be read directly while this
+ * reader is in use. To continue reading the stream once done with this reader, use {@link #getRemainingStream()}.
+ * Large reads and skips bypass the buffer.
  *
  * @author Drew Noakes https://drewnoakes.com
  */
 public class StreamReader extends SequentialReader
 {
+    public final static int DEFAULT_BUFFER_LENGTH = 4096;
+
     @NotNull
     private final InputStream _stream;
 
     private long _pos;
 
+    /** Bytes read from the stream but not yet consumed lie between {@link #_bufferIndex} and {@link #_bufferEnd}. */
+    @NotNull
+    private final byte[] _buffer;
+    private int _bufferIndex;
+    private int _bufferEnd;
+
     @Override
     public long getPosition()
     {
         return _pos;
     }
 
-    @SuppressWarnings("ConstantConditions")
+    /**
+     * Creates a reader which reads ahead from <code>stream</code> by up to {@link #DEFAULT_BUFFER_LENGTH} bytes.
+     * The stream's own position may therefore run ahead of {@link #getPosition()}, and {@link #available()} includes
+     * bytes already buffered. Callers that read the stream after this reader should do so via
+     * {@link #getRemainingStream()}.
+     */
     public StreamReader(@NotNull InputStream stream)
+    {
+        this(stream, DEFAULT_BUFFER_LENGTH);
+    }
+
+    /**
+     * Creates a reader which reads ahead from <code>stream</code> by up to <code>bufferLength</code> bytes.
+     * The stream's own position may therefore run ahead of {@link #getPosition()}, and {@link #available()} includes
+     * bytes already buffered. Callers that read the stream after this reader should do so via
+     * {@link #getRemainingStream()}.
+     *
+     * @param bufferLength the maximum number of bytes read ahead, being at least 8
+     */
+    @SuppressWarnings("ConstantConditions")
+    public StreamReader(@NotNull InputStream stream, int bufferLength)
     {
         if (stream == null)
             throw new NullPointerException();
+        if (bufferLength < 8)
+            throw new IllegalArgumentException("bufferLength must be at least 8");
 
         _stream = stream;
         _pos = 0;
+        _buffer = new byte[bufferLength];
     }
 
     @Override
     public byte getByte() throws IOException
     {
-        int value = _stream.read();
-        if (value == -1)
+        if (_bufferIndex == _bufferEnd && !fillBuffer(1))
             throw new EOFException("End of data reached.");
         _pos++;
-        return (byte)value;
+        return _buffer[_bufferIndex++];
     }
 
     @NotNull
@@ -81,18 +120,102 @@ public class StreamReader extends SequentialReader
     @Override
     public void getBytes(@NotNull byte[] buffer, int offset, int count) throws IOException
     {
-        int totalBytesRead = 0;
-        while (totalBytesRead != count)
-        {
-            final int bytesRead = _stream.read(buffer, offset + totalBytesRead, count - totalBytesRead);
-            if (bytesRead == -1)
+        int totalBytesRead = Math.min(count, _bufferEnd - _bufferIndex);
+        System.arraycopy(_buffer, _bufferIndex, buffer, offset, totalBytesRead);
+        _bufferIndex += totalBytesRead;
+
+        if (count - totalBytesRead >= _buffer.length) {
+            // Large reads go directly to the caller's array
+            while (totalBytesRead != count)
+            {
+                final int bytesRead = _stream.read(buffer, offset + totalBytesRead, count - totalBytesRead);
+                if (bytesRead == -1)
+                    throw new EOFException("End of data reached.");
+                totalBytesRead += bytesRead;
+                assert(totalBytesRead <= count);
+            }
+        } else if (totalBytesRead != count) {
+            int remaining = count - totalBytesRead;
+            if (!fillBuffer(remaining)) {
+                _bufferIndex = _bufferEnd;
                 throw new EOFException("End of data reached.");
-            totalBytesRead += bytesRead;
-            assert(totalBytesRead <= count);
+            }
+            System.arraycopy(_buffer, _bufferIndex, buffer, offset + totalBytesRead, remaining);
+            _bufferIndex += remaining;
+            totalBytesRead = count;
         }
         _pos += totalBytesRead;
     }
 
+    @Override
+    public int getUInt16() throws IOException
+    {
+        if (!ensureBuffered(2))
+            return super.getUInt16();
+
+        int i = _bufferIndex;
+        _bufferIndex += 2;
+        _pos += 2;
+        if (isMotorolaByteOrder()) {
+            return (_buffer[i] << 8 & 0xFF00) | (_buffer[i + 1] & 0xFF);
+        } else {
+            return (_buffer[i] & 0xFF) | (_buffer[i + 1] << 8 & 0xFF00);
+        }
+    }
+
+    @Override
+    public short getInt16() throws IOException
+    {
+        if (!ensureBuffered(2))
+            return super.getInt16();
+
+        return (short)getUInt16();
+    }
+
+    @Override
+    public long getUInt32() throws IOException
+    {
+        if (!ensureBuffered(4))
+            return super.getUInt32();
+
+        return getInt32() & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int getInt32() throws IOException
+    {
+        if (!ensureBuffered(4))
+            return super.getInt32();
+
+        int i = _bufferIndex;
+        _bufferIndex += 4;
+        _pos += 4;
+        if (isMotorolaByteOrder()) {
+            return (_buffer[i    ] << 24 & 0xFF000000) |
+                   (_buffer[i + 1] << 16 & 0xFF0000) |
+                   (_buffer[i + 2] << 8  & 0xFF00) |
+                   (_buffer[i + 3]       & 0xFF);
+        } else {
+            return (_buffer[i    ]       & 0xFF) |
+                   (_buffer[i + 1] << 8  & 0xFF00) |
+                   (_buffer[i + 2] << 16 & 0xFF0000) |
+                   (_buffer[i + 3] << 24 & 0xFF000000);
+        }
+    }
+
+    @Override
+    public long getInt64() throws IOException
+    {
+        if (!ensureBuffered(8))
+            return super.getInt64();
+
+        long first = getInt32() & 0xFFFFFFFFL;
+        long second = getInt32() & 0xFFFFFFFFL;
+        return isMotorolaByteOrder()
+            ? first << 32 | second
+            : second << 32 | first;
+    }
+
     @Override
     public void skip(long n) throws IOException
     {
@@ -114,24 +237,100 @@ public class StreamReader extends SequentialReader
         return skipInternal(n) == n;
     }
 
+    @Override
+    public long skipPast(byte value, long maxCount) throws IOException
+    {
+        if (maxCount < 0)
+            throw new IllegalArgumentException("maxCount must be zero or greater.");
+
+        long skipped = 0;
+
+        while (skipped != maxCount) {
+            if (_bufferIndex == _bufferEnd && !fillBuffer(1))
+                throw new EOFException("End of data reached.");
+
+            final byte[] buffer = _buffer;
+            final long limit = maxCount - skipped;
+            final int end = limit < _bufferEnd - _bufferIndex ? _bufferIndex + (int)limit : _bufferEnd;
+            for (int i = _bufferIndex; i < end; i++) {
+                if (buffer[i] == value) {
+                    int count = i - _bufferIndex;
+                    _bufferIndex = i + 1;
+                    _pos += count + 1;
+                    return skipped + count;
+                }
+            }
+
+            int count = end - _bufferIndex;
+            _bufferIndex = end;
+            _pos += count;
+            skipped += count;
+        }
+
+        return -1;
+    }
+
     @Override
     public int available() {
+        int buffered = _bufferEnd - _bufferIndex;
         try {
-            return _stream.available();
+            long total = (long)buffered + _stream.available();
+            return (int)Math.min(total, Integer.MAX_VALUE);
         } catch (IOException e) {
-            return 0;
+            return buffered;
+        }
+    }
+
+    /**
+     * Gets a stream of the bytes following {@link #getPosition()}, being any bytes this reader has buffered followed
+     * by the remainder of the underlying stream. This reader should not be used afterwards.
+     */
+    @NotNull
+    public InputStream getRemainingStream()
+    {
+        int buffered = _bufferEnd - _bufferIndex;
+        if (buffered == 0)
+            return _stream;
+
+        byte[] bytes = new byte[buffered];
+        System.arraycopy(_buffer, _bufferIndex, bytes, 0, buffered);
+        _bufferIndex = _bufferEnd;
+        return new SequenceInputStream(new ByteArrayInputStream(bytes), _stream);
+    }
+
+    /**
+     * Writes all remaining bytes to <code>output</code>, including any already read from the stream into this
+     * reader's buffer, until the end of the stream is reached.
+     *
+     * @return the number of bytes written
+     */
+    public long copyRemainingTo(@NotNull OutputStream output) throws IOException
+    {
+        long total = _bufferEnd - _bufferIndex;
+        output.write(_buffer, _bufferIndex, _bufferEnd - _bufferIndex);
+        _bufferIndex = _bufferEnd;
+
+        int bytesRead;
+        while ((bytesRead = _stream.read(_buffer)) != -1) {
+            output.write(_buffer, 0, bytesRead);
+            total += bytesRead;
         }
+
+        _pos += total;
+        return total;
     }
 
     private long skipInternal(long n) throws IOException
     {
+        long skippedTotal = Math.min(n, _bufferEnd - _bufferIndex);
+        _bufferIndex += (int)skippedTotal;
+
         // It seems that for some streams, such as BufferedInputStream, that skip can return
         // some smaller number than was requested. So loop until we either skip enough, or
         // InputStream.skip returns zero.
         //
         // See http://stackoverflow.com/questions/14057720/robust-skipping-of-data-in-a-java-io-inputstream-and-its-subtypes
         //
-        long skippedTotal = 0;
         while (skippedTotal != n) {
             long skipped = _stream.skip(n - skippedTotal);
             skippedTotal += skipped;
@@ -141,4 +340,39 @@ public class StreamReader extends SequentialReader
         _pos += skippedTotal;
         return skippedTotal;
     }
+
+    /**
+     * Ensures at least <code>count</code> unconsumed bytes are in the buffer, reading from the stream if required.
+     *
+     * @return <code>false</code> if the stream ended before <code>count</code> bytes were available
+     */
+    private boolean ensureBuffered(int count) throws IOException
+    {
+        return _bufferEnd - _bufferIndex >= count || fillBuffer(count);
+    }
+
+    /**
+     * Moves any unconsumed bytes to the start of the buffer, then reads from the stream until at least
+     * <code>count</code> unconsumed bytes are available, or the stream ends.
+     */
+    private boolean fillBuffer(int count) throws IOException
+    {
+        assert(count <= _buffer.length);
+
+        int buffered = _bufferEnd - _bufferIndex;
+        if (_bufferIndex != 0) {
+            System.arraycopy(_buffer, _bufferIndex, _buffer, 0, buffered);
+            _bufferIndex = 0;
+            _bufferEnd = buffered;
+        }
+
+        while (_bufferEnd < count) {
+            int bytesRead = _stream.read(_buffer, _bufferEnd, _buffer.length - _bufferEnd);
+            if (bytesRead == -1)
+                return false;
+            _bufferEnd += bytesRead;
+        }
+
+        return true;
+    }
 }
@@ -46,17 +46,12 @@ public abstract class Directory
 {
     private static final String _floatFormatPattern = "0.###";
 
-    /** Map of values hashed by type identifiers. */
-    @NotNull
-    protected final Map<Integer, Object> _tagMap = new HashMap<Integer, Object>();
-
     /**
-     * A convenient list holding tag values in the order in which they were stored.
-     * This is used for creation of an iterator, and for counting the number of
-     * defined tags.
+     * Tag values keyed by tag type, in the order in which they were stored. {@link Tag} instances are only created
+     * when iterating {@link #getTags()}.
      */
     @NotNull
-    protected final Collection<Tag> _definedTagList = new ArrayList<Tag>();
+    private final TagTable _tagTable = new TagTable();
 
     @NotNull
     private final Collection<String> _errorList = new ArrayList<String>(4);
@@ -95,7 +90,7 @@ public abstract class Directory
      */
     public boolean isEmpty()
     {
-        return _errorList.isEmpty() && _definedTagList.isEmpty();
+        return _errorList.isEmpty() && _tagTable.size() == 0;
     }
 
     /**
@@ -104,10 +99,9 @@ public abstract class Directory
      * @param tagType the tag type to check for
      * @return true if a value exists for the specified tag type, false if not
      */
-    @java.lang.SuppressWarnings({ "UnnecessaryBoxing" })
     public boolean containsTag(int tagType)
     {
-        return _tagMap.containsKey(Integer.valueOf(tagType));
+        return _tagTable.containsKey(tagType);
     }
 
     /**
@@ -118,7 +112,7 @@ public abstract class Directory
     @NotNull
     public Collection<Tag> getTags()
     {
-        return Collections.unmodifiableCollection(_definedTagList);
+        return new TagCollection();
     }
 
     /**
@@ -128,7 +122,7 @@ public abstract class Directory
      */
     public int getTagCount()
     {
-        return _definedTagList.size();
+        return _tagTable.size();
     }
 
     /**
@@ -383,21 +377,13 @@ public abstract class Directory
      * @param value   the value for the specified tag
      * @throws NullPointerException if value is <code>null</code>
      */
-    @java.lang.SuppressWarnings( { "ConstantConditions", "UnnecessaryBoxing" })
+    @java.lang.SuppressWarnings( { "ConstantConditions" })
     public void setObject(int tagType, @NotNull Object value)
     {
         if (value == null)
             throw new NullPointerException("cannot set a null object");
 
-        if (!_tagMap.containsKey(Integer.valueOf(tagType))) {
-            _definedTagList.add(new Tag(tagType, this));
-        }
-//        else {
-//            final Object oldValue = _tagMap.get(tagType);
-//            if (!oldValue.equals(value))
-//                addError(String.format("Overwritten tag 0x%s (%s).  Old=%s, New=%s", Integer.toHexString(tagType), getTagName(tagType), oldValue, value));
-//        }
-        _tagMap.put(tagType, value);
+        _tagTable.put(tagType, value);
     }
 
     /**
@@ -459,8 +445,12 @@ public abstract class Directory
     @Nullable
     public Integer getInteger(int tagType)
     {
-        Object o = getObject(tagType);
+        return convertToInteger(getObject(tagType));
+    }
 
+    @Nullable
+    static Integer convertToInteger(@Nullable Object o)
+    {
         if (o == null)
             return null;
 
@@ -690,7 +680,12 @@ public abstract class Directory
     @Nullable
     public Double getDoubleObject(int tagType)
     {
-        Object o = getObject(tagType);
+        return convertToDouble(getObject(tagType));
+    }
+
+    @Nullable
+    static Double convertToDouble(@Nullable Object o)
+    {
         if (o == null)
             return null;
         if (o instanceof String || o instanceof StringValue) {
@@ -753,7 +748,12 @@ public abstract class Directory
     @Nullable
     public Long getLongObject(int tagType)
     {
-        Object o = getObject(tagType);
+        return convertToLong(getObject(tagType));
+    }
+
+    @Nullable
+    static Long convertToLong(@Nullable Object o)
+    {
         if (o == null)
             return null;
         if (o instanceof Number)
@@ -977,8 +977,12 @@ public abstract class Directory
     @Nullable
     public Rational getRational(int tagType)
     {
-        Object o = getObject(tagType);
+        return convertToRational(getObject(tagType));
+    }
 
+    @Nullable
+    static Rational convertToRational(@Nullable Object o)
+    {
         if (o == null)
             return null;
 
@@ -1018,7 +1022,16 @@ public abstract class Directory
     @Nullable
     public String getString(int tagType)
     {
-        Object o = getObject(tagType);
+        return convertToString(getObject(tagType), this);
+    }
+
+    /**
+     * Converts a tag value to a String, as described for {@link #getString(int)}. Errors are added to
+     * <code>directory</code>, if provided.
+     */
+    @Nullable
+    static String convertToString(@Nullable Object o, @Nullable Directory directory)
+    {
         if (o == null)
             return null;
 
@@ -1079,8 +1092,8 @@ public abstract class Directory
                         string.append(' ');
                     string.append(Array.getByte(o, i) & 0xff);
                 }
-            } else {
-                addError("Unexpected array component type: " + componentType.getName());
+            } else if (directory != null) {
+                directory.addError("Unexpected array component type: " + componentType.getName());
             }
 
             return string.toString();
@@ -1127,11 +1140,10 @@ public abstract class Directory
      * @param tagType the tag type identifier
      * @return the tag's value as an Object if available, else <code>null</code>
      */
-    @java.lang.SuppressWarnings({ "UnnecessaryBoxing" })
     @Nullable
     public Object getObject(int tagType)
     {
-        return _tagMap.get(Integer.valueOf(tagType));
+        return _tagTable.get(tagType);
     }
 
 // OTHER METHODS
@@ -1186,9 +1198,52 @@ public abstract class Directory
     {
         return String.format("%s Directory (%d %s)",
             getName(),
-            _tagMap.size(),
-            _tagMap.size() == 1
+            _tagTable.size(),
+            _tagTable.size() == 1
                 ? "tag"
                 : "tags");
     }
+
+    /**
+     * A read-only view of this directory's tags, in the order in which they were stored, creating {@link Tag}
+     * instances as they are iterated.
+     */
+    private class TagCollection extends AbstractCollection<Tag>
+    {
+        @Override
+        public int size()
+        {
+            return _tagTable.size();
+        }
+
+        @NotNull
+        @Override
+        public Iterator<Tag> iterator()
+        {
+            return new Iterator<Tag>()
+            {
+                private int _index;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return _index < _tagTable.size();
+                }
+
+                @Override
+                public Tag next()
+                {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return new Tag(_tagTable.getTagType(_index++), Directory.this);
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Produces directories on demand, allowing the decoding of metadata to be deferred until it is first accessed.
+ * See {@link Metadata#addDirectoryDecoder(DirectoryDecoder)}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface DirectoryDecoder
+{
+    /**
+     * Indicates whether {@link #decode} may add a directory of type <code>type</code>, or of a subtype of it.
+     * Implementations that cannot tell must return <code>true</code>.
+     */
+    boolean mayProduce(@NotNull Class<? extends Directory> type);
+
+    /**
+     * Decodes the source data, adding the resulting directories to <code>metadata</code>. This is called at most
+     * once.
+     */
+    void decode(@NotNull Metadata metadata);
+}
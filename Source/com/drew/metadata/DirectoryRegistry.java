@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds factories that create {@link Directory} instances of a given type, so that directories can be created by type
+ * without reflection.
+ * <p>
+ * Readers register factories for the commonly created directory types, such as
+ * {@link com.drew.metadata.exif.ExifTiffHandler} for the standard Exif directories. Other directory types, such as
+ * makernote directories, may be registered via {@link #register(Class, Supplier)}. Types without a registered factory
+ * are created via their public no-argument constructor, using reflection.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class DirectoryRegistry
+{
+    @NotNull
+    private static final Map<Class<? extends Directory>, Supplier<? extends Directory>> _factories = new ConcurrentHashMap<Class<? extends Directory>, Supplier<? extends Directory>>();
+
+    /**
+     * Registers <code>factory</code> for the creation of directories of type <code>type</code>, replacing any
+     * factory previously registered for that type.
+     */
+    public static <T extends Directory> void register(@NotNull Class<T> type, @NotNull Supplier<? extends T> factory)
+    {
+        _factories.put(type, factory);
+    }
+
+    /**
+     * Gets the factory registered for <code>type</code>, or <code>null</code> if there is none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T extends Directory> Supplier<? extends T> getFactory(@NotNull Class<T> type)
+    {
+        return (Supplier<? extends T>)_factories.get(type);
+    }
+
+    /**
+     * Creates a new directory of type <code>type</code>, via its registered factory if there is one.
+     *
+     * @throws IllegalArgumentException if no factory is registered and the type cannot be instantiated via a
+     *                                  parameterless constructor
+     */
+    @NotNull
+    public static <T extends Directory> T create(@NotNull Class<T> type)
+    {
+        Supplier<? extends T> factory = getFactory(type);
+        if (factory != null)
+            return factory.get();
+
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to create directory of type " + type.getName(), e);
+        }
+    }
+
+    private DirectoryRegistry() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.Rational;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of a {@link Metadata} object, created via {@link Metadata#freeze()}.
+ * <p>
+ * All directories, errors, tag types and values are packed into a single byte array, avoiding the per-value objects
+ * held by {@link Directory}. Values are decoded on each access, and typed accessors follow the conversion rules of
+ * their {@link Directory} counterparts. Directories are addressed by their index, in the order of
+ * {@link Metadata#getDirectories()}.
+ * <p>
+ * Instances are safe to share between threads. Tag values of types that cannot be packed are retained by reference,
+ * so must not be modified by callers.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public final class FrozenMetadata
+{
+    @NotNull
+    private static final Object[] NO_OBJECTS = new Object[0];
+
+    /**
+     * The packed directories. Each consists of its parent's index (or -1), its name, its error count and errors, and
+     * its tag count, followed by a tag type and value offset for each tag, then the values themselves.
+     */
+    @NotNull
+    private final byte[] _arena;
+
+    /** The offset of each directory within {@link #_arena}. */
+    @NotNull
+    private final int[] _directoryOffsets;
+
+    /** The offset of each directory's tag count, which follows its variable-length name and errors. */
+    @NotNull
+    private final int[] _tagTableOffsets;
+
+    @NotNull
+    private final List<Class<? extends Directory>> _directoryTypes;
+
+    /** Values that cannot be packed, referenced by index from {@link #_arena}. */
+    @NotNull
+    private final Object[] _objects;
+
+    private FrozenMetadata(@NotNull byte[] arena, @NotNull int[] directoryOffsets, @NotNull int[] tagTableOffsets, @NotNull List<Class<? extends Directory>> directoryTypes, @NotNull Object[] objects)
+    {
+        _arena = arena;
+        _directoryOffsets = directoryOffsets;
+        _tagTableOffsets = tagTableOffsets;
+        _directoryTypes = directoryTypes;
+        _objects = objects;
+    }
+
+    @NotNull
+    static FrozenMetadata create(@NotNull Metadata metadata)
+    {
+        List<Directory> directories = new ArrayList<Directory>();
+        for (Directory directory : metadata.getDirectories())
+            directories.add(directory);
+
+        Map<Directory, Integer> indexes = new IdentityHashMap<Directory, Integer>();
+        for (int i = 0; i < directories.size(); i++)
+            indexes.put(directories.get(i), i);
+
+        int[] directoryOffsets = new int[directories.size()];
+        int[] tagTableOffsets = new int[directories.size()];
+        List<Class<? extends Directory>> directoryTypes = new ArrayList<Class<? extends Directory>>(directories.size());
+        List<Object> objects = new ArrayList<Object>();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            for (int i = 0; i < directories.size(); i++) {
+                Directory directory = directories.get(i);
+                Integer parentIndex = directory.getParent() == null ? null : indexes.get(directory.getParent());
+
+                directoryOffsets[i] = out.size();
+                directoryTypes.add(directory.getClass());
+
+                out.writeInt(parentIndex == null ? -1 : parentIndex);
+                TagValueFormat.writeString(out, directory.getName());
+                out.writeInt(directory.getErrorCount());
+                for (String error : directory.getErrors())
+                    TagValueFormat.writeString(out, error);
+
+                // The table of tag types and value offsets precedes the values, so is written once they are known
+                ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+                DataOutputStream valueOut = new DataOutputStream(valueBytes);
+                int tagCount = directory.getTagCount();
+                int valuesOffset = out.size() + 4 + tagCount * 8;
+
+                tagTableOffsets[i] = out.size();
+                out.writeInt(tagCount);
+                for (Tag tag : directory.getTags()) {
+                    out.writeInt(tag.getTagType());
+                    out.writeInt(valuesOffset + valueOut.size());
+                    Object value = directory.getObject(tag.getTagType());
+                    assert(value != null);
+                    TagValueFormat.write(valueOut, value, objects);
+                }
+                valueBytes.writeTo(out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Not thrown when writing to memory
+            throw new IllegalStateException(e);
+        }
+
+        return new FrozenMetadata(
+            bytes.toByteArray(),
+            directoryOffsets,
+            tagTableOffsets,
+            directoryTypes,
+            objects.isEmpty() ? NO_OBJECTS : objects.toArray());
+    }
+
+    /** Gets the number of bytes used to hold this snapshot's directories and values. */
+    public int getArenaLength()
+    {
+        return _arena.length;
+    }
+
+    public int getDirectoryCount()
+    {
+        return _directoryOffsets.length;
+    }
+
+    /**
+     * Gets the index of the first directory of the given type (or a subtype of it), or -1 if there is none.
+     */
+    public int indexOfDirectory(@NotNull Class<? extends Directory> type)
+    {
+        for (int i = 0; i < _directoryTypes.size(); i++) {
+            if (type.isAssignableFrom(_directoryTypes.get(i)))
+                return i;
+        }
+        return -1;
+    }
+
+    @NotNull
+    public Class<? extends Directory> getDirectoryType(int directoryIndex)
+    {
+        return _directoryTypes.get(directoryIndex);
+    }
+
+    /** Gets the name of the directory at <code>directoryIndex</code>, as given by {@link Directory#getName()}. */
+    @NotNull
+    public String getDirectoryName(int directoryIndex)
+    {
+        return TagValueFormat.readString(_arena, _directoryOffsets[directoryIndex] + 4);
+    }
+
+    /** Gets the index of the parent of the directory at <code>directoryIndex</code>, or -1 if it has none. */
+    public int getParentIndex(int directoryIndex)
+    {
+        return TagValueFormat.readInt(_arena, _directoryOffsets[directoryIndex]);
+    }
+
+    @NotNull
+    public List<String> getErrors(int directoryIndex)
+    {
+        int nameOffset = _directoryOffsets[directoryIndex] + 4;
+        int pos = nameOffset + 4 + TagValueFormat.readInt(_arena, nameOffset);
+        int errorCount = TagValueFormat.readInt(_arena, pos);
+        pos += 4;
+
+        List<String> errors = new ArrayList<String>(errorCount);
+        for (int i = 0; i < errorCount; i++) {
+            errors.add(TagValueFormat.readString(_arena, pos));
+            pos += 4 + TagValueFormat.readInt(_arena, pos);
+        }
+        return errors;
+    }
+
+    public int getTagCount(int directoryIndex)
+    {
+        return TagValueFormat.readInt(_arena, getTagTableOffset(directoryIndex));
+    }
+
+    /**
+     * Gets the type of the tag at <code>tagIndex</code>, where tags are in the order given by
+     * {@link Directory#getTags()}.
+     */
+    public int getTagType(int directoryIndex, int tagIndex)
+    {
+        int tableOffset = getTagTableOffset(directoryIndex);
+        if (tagIndex < 0 || tagIndex >= TagValueFormat.readInt(_arena, tableOffset))
+            throw new IndexOutOfBoundsException("Tag index " + tagIndex + " is out of range");
+        return TagValueFormat.readInt(_arena, tableOffset + 4 + tagIndex * 8);
+    }
+
+    public boolean containsTag(int directoryIndex, int tagType)
+    {
+        return getValueOffset(directoryIndex, tagType) != -1;
+    }
+
+    /**
+     * Gets the value of the specified tag. Each call returns a new instance, except for values retained by
+     * reference.
+     *
+     * @see Directory#getObject(int)
+     */
+    @Nullable
+    public Object getObject(int directoryIndex, int tagType)
+    {
+        int valueOffset = getValueOffset(directoryIndex, tagType);
+        return valueOffset == -1 ? null : TagValueFormat.read(_arena, valueOffset, _objects);
+    }
+
+    /** @see Directory#getInt(int) */
+    public int getInt(int directoryIndex, int tagType) throws MetadataException
+    {
+        int valueOffset = getValueOffset(directoryIndex, tagType);
+        if (valueOffset != -1 && _arena[valueOffset] == TagValueFormat.TYPE_INT)
+            return TagValueFormat.readInt(_arena, valueOffset + 1);
+
+        Integer value = getInteger(directoryIndex, tagType);
+        if (value != null)
+            return value;
+        throw createConversionException(directoryIndex, tagType, "an int");
+    }
+
+    /** @see Directory#getInteger(int) */
+    @Nullable
+    public Integer getInteger(int directoryIndex, int tagType)
+    {
+        return Directory.convertToInteger(getObject(directoryIndex, tagType));
+    }
+
+    /** @see Directory#getLong(int) */
+    public long getLong(int directoryIndex, int tagType) throws MetadataException
+    {
+        Long value = getLongObject(directoryIndex, tagType);
+        if (value != null)
+            return value;
+        throw createConversionException(directoryIndex, tagType, "a long");
+    }
+
+    /** @see Directory#getLongObject(int) */
+    @Nullable
+    public Long getLongObject(int directoryIndex, int tagType)
+    {
+        return Directory.convertToLong(getObject(directoryIndex, tagType));
+    }
+
+    /** @see Directory#getDouble(int) */
+    public double getDouble(int directoryIndex, int tagType) throws MetadataException
+    {
+        Double value = getDoubleObject(directoryIndex, tagType);
+        if (value != null)
+            return value;
+        throw createConversionException(directoryIndex, tagType, "a double");
+    }
+
+    /** @see Directory#getDoubleObject(int) */
+    @Nullable
+    public Double getDoubleObject(int directoryIndex, int tagType)
+    {
+        return Directory.convertToDouble(getObject(directoryIndex, tagType));
+    }
+
+    /** @see Directory#getRational(int) */
+    @Nullable
+    public Rational getRational(int directoryIndex, int tagType)
+    {
+        return Directory.convertToRational(getObject(directoryIndex, tagType));
+    }
+
+    /** @see Directory#getString(int) */
+    @Nullable
+    public String getString(int directoryIndex, int tagType)
+    {
+        return Directory.convertToString(getObject(directoryIndex, tagType), null);
+    }
+
+    /** @see Directory#getStringValue(int) */
+    @Nullable
+    public StringValue getStringValue(int directoryIndex, int tagType)
+    {
+        Object value = getObject(directoryIndex, tagType);
+        return value instanceof StringValue ? (StringValue)value : null;
+    }
+
+    @NotNull
+    private MetadataException createConversionException(int directoryIndex, int tagType, @NotNull String typeName)
+    {
+        Object value = getObject(directoryIndex, tagType);
+        if (value == null)
+            return new MetadataException("Tag '" + tagType + "' has not been set -- check using containsTag() first");
+        return new MetadataException("Tag '" + tagType + "' cannot be converted to " + typeName + ".  It is of type '" + value.getClass() + "'.");
+    }
+
+    /** Gets the offset of the value of the specified tag, or -1 if it has not been set. */
+    private int getValueOffset(int directoryIndex, int tagType)
+    {
+        int tableOffset = getTagTableOffset(directoryIndex);
+        int tagCount = TagValueFormat.readInt(_arena, tableOffset);
+        for (int i = 0, pos = tableOffset + 4; i < tagCount; i++, pos += 8) {
+            if (TagValueFormat.readInt(_arena, pos) == tagType)
+                return TagValueFormat.readInt(_arena, pos + 4);
+        }
+        return -1;
+    }
+
+    private int getTagTableOffset(int directoryIndex)
+    {
+        return _tagTableOffsets[directoryIndex];
+    }
+}
@@ -30,6 +30,10 @@ import java.util.*;
  * <p>
  * Metadata objects may contain zero or more {@link Directory} objects.  Each directory may contain zero or more tags
  * with corresponding values.
+ * <p>
+ * Directories added via {@link #addDirectoryDecoder(DirectoryDecoder)} are decoded on first request. Methods that may
+ * cause decoding are synchronized, so a lazily read instance may be queried from several threads once populated.
+ * Directories must not be added while other threads are reading.
  *
  * @author Drew Noakes https://drewnoakes.com
  */
@@ -41,21 +45,31 @@ public final class Metadata
     @NotNull
     private final List<Directory> _directories = new ArrayList<Directory>();
 
+    /**
+     * Decoders whose directories have not yet been requested, in the order they were added. Each is positioned in
+     * {@link #_directories} at the index recorded alongside it.
+     */
+    @NotNull
+    private final List<PendingDecoder> _pendingDecoders = new ArrayList<PendingDecoder>();
+
     /**
      * Returns an iterable set of the {@link Directory} instances contained in this metadata collection.
+     * Any directories added via {@link #addDirectoryDecoder(DirectoryDecoder)} are decoded first.
      *
      * @return an iterable set of directories
      */
     @NotNull
-    public Iterable<Directory> getDirectories()
+    public synchronized Iterable<Directory> getDirectories()
     {
+        decodePending(null);
         return _directories;
     }
 
     @NotNull
     @SuppressWarnings("unchecked")
-    public <T extends Directory> Collection<T> getDirectoriesOfType(Class<T> type)
+    public synchronized <T extends Directory> Collection<T> getDirectoriesOfType(Class<T> type)
     {
+        decodePending(type);
         List<T> directories = new ArrayList<T>();
         for (Directory dir : _directories) {
             if (type.isAssignableFrom(dir.getClass())) {
@@ -65,13 +79,27 @@ public final class Metadata
         return directories;
     }
 
+    /**
+     * Creates an immutable snapshot of this metadata, with all directories and values packed into a single byte
+     * array. Any directories added via {@link #addDirectoryDecoder(DirectoryDecoder)} are decoded first.
+     * <p>
+     * The snapshot retains far less memory than this object, and is safe to share between threads. Later changes to
+     * this object are not reflected in it.
+     */
+    @NotNull
+    public FrozenMetadata freeze()
+    {
+        return FrozenMetadata.create(this);
+    }
+
     /**
      * Returns the count of directories in this metadata collection.
      *
      * @return the number of unique directory types set for this metadata collection
      */
-    public int getDirectoryCount()
+    public synchronized int getDirectoryCount()
     {
+        decodePending(null);
         return _directories.size();
     }
 
@@ -80,7 +108,7 @@ public final class Metadata
      *
      * @param directory the {@link Directory} to add into this metadata collection.
      */
-    public <T extends Directory> void addDirectory(@NotNull T directory)
+    public synchronized <T extends Directory> void addDirectory(@NotNull T directory)
     {
         if (directory == null) {
             throw new IllegalArgumentException("Directory may not be null.");
@@ -89,6 +117,25 @@ public final class Metadata
         _directories.add(directory);
     }
 
+    /**
+     * Adds directories that will be decoded by <code>decoder</code> when first requested, rather than immediately.
+     * <p>
+     * Requests for directories of a particular type only cause decoding by those decoders that may produce that
+     * type, whereas methods that consider all directories, such as {@link #getDirectories()}, cause all pending
+     * decoding to occur. In either case the resulting directories are ordered as though they had been added at the
+     * time this method was called.
+     *
+     * @param decoder the {@link DirectoryDecoder} that produces the directories
+     */
+    public synchronized void addDirectoryDecoder(@NotNull DirectoryDecoder decoder)
+    {
+        if (decoder == null) {
+            throw new IllegalArgumentException("Decoder may not be null.");
+        }
+
+        _pendingDecoders.add(new PendingDecoder(decoder, _directories.size()));
+    }
+
     /**
      * Gets the first {@link Directory} of the specified type contained within this metadata collection.
      * If no instances of this type are present, <code>null</code> is returned.
@@ -99,8 +146,9 @@ public final class Metadata
      */
     @Nullable
     @SuppressWarnings("unchecked")
-    public <T extends Directory> T getFirstDirectoryOfType(@NotNull Class<T> type)
+    public synchronized <T extends Directory> T getFirstDirectoryOfType(@NotNull Class<T> type)
     {
+        decodePending(type);
         for (Directory dir : _directories) {
             if (type.isAssignableFrom(dir.getClass()))
                 return (T)dir;
@@ -114,8 +162,9 @@ public final class Metadata
      * @param type the {@link Directory} type
      * @return <code>true</code> if a {@link Directory} of the specified type exists, otherwise <code>false</code>
      */
-    public boolean containsDirectoryOfType(Class<? extends Directory> type)
+    public synchronized boolean containsDirectoryOfType(Class<? extends Directory> type)
     {
+        decodePending(type);
         for (Directory dir : _directories) {
             if (type.isAssignableFrom(dir.getClass()))
                 return true;
@@ -138,6 +187,36 @@ public final class Metadata
         return false;
     }
 
+    /**
+     * Decodes pending directories that may be of type <code>type</code>, or all pending directories if
+     * <code>type</code> is <code>null</code>, inserting them at the positions at which their decoders were added.
+     * Callers must hold this object's lock.
+     */
+    private void decodePending(@Nullable Class<? extends Directory> type)
+    {
+        if (_pendingDecoders.isEmpty())
+            return;
+
+        int insertedCount = 0;
+        Iterator<PendingDecoder> iterator = _pendingDecoders.iterator();
+        while (iterator.hasNext()) {
+            PendingDecoder pending = iterator.next();
+            pending._index += insertedCount;
+
+            if (type != null && !pending._decoder.mayProduce(type))
+                continue;
+
+            iterator.remove();
+
+            Metadata decoded = new Metadata();
+            pending._decoder.decode(decoded);
+            decoded.decodePending(null);
+
+            _directories.addAll(pending._index, decoded._directories);
+            insertedCount += decoded._directories.size();
+        }
+    }
+
     @Override
     public String toString()
     {
@@ -148,4 +227,17 @@ public final class Metadata
                 ? "directory"
                 : "directories");
     }
+
+    private static class PendingDecoder
+    {
+        @NotNull
+        final DirectoryDecoder _decoder;
+        int _index;
+
+        PendingDecoder(@NotNull DirectoryDecoder decoder, int index)
+        {
+            _decoder = decoder;
+            _index = index;
+        }
+    }
 }
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.adobe.internal.xmp.XMPException;
+import com.adobe.internal.xmp.XMPMetaFactory;
+import com.adobe.internal.xmp.options.SerializeOptions;
+import com.drew.imaging.FileType;
+import com.drew.imaging.png.PngChunkType;
+import com.drew.imaging.png.PngProcessingException;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.file.FileTypeDirectory;
+import com.drew.metadata.gif.GifCommentDirectory;
+import com.drew.metadata.png.PngDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes {@link Metadata} objects in a compact binary form, and decodes them again, for use when caching the results
+ * of extraction.
+ * <p>
+ * Encoded data begins with a magic number and a format version. Each directory is then written as its class name,
+ * followed by the length of its record so that it may be skipped while decoding. The record holds the index of the
+ * directory's parent (or -1), any state needed to construct the directory, its errors, and its tags, each of which
+ * is prefixed by its length. Tag values retain their types, including {@link com.drew.lang.Rational} values and the
+ * charsets of {@link StringValue} values. XMP data is stored in serialized form, and parsed when first used.
+ * <p>
+ * Only tag values of the types that directories in this library hold can be encoded. Decoding fails with an
+ * {@link IOException} if the data was written by a different version of the format, or references a directory class
+ * that is not available and is not excluded by the projection being decoded.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataCodec
+{
+    /** Identifies encoded metadata, being the ASCII characters <code>MXMD</code>. */
+    private static final int MAGIC = 0x4D584D44;
+
+    /** Incremented whenever the encoding changes in a way that prevents previously encoded data being decoded. */
+    public static final int FORMAT_VERSION = 1;
+
+    @NotNull
+    private static final Map<String, Class<? extends Directory>> _directoryTypes = new ConcurrentHashMap<String, Class<? extends Directory>>();
+
+    /**
+     * Encodes <code>metadata</code>, including all of its directories.
+     *
+     * @throws IllegalArgumentException if a tag holds a value of a type that cannot be encoded
+     */
+    @NotNull
+    public static byte[] encode(@NotNull Metadata metadata)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            encode(metadata, bytes);
+        } catch (IOException e) {
+            // Not thrown when writing to memory
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encodes <code>metadata</code> to <code>stream</code>, including all of its directories. The stream is not
+     * closed.
+     *
+     * @throws IllegalArgumentException if a tag holds a value of a type that cannot be encoded
+     */
+    public static void encode(@NotNull Metadata metadata, @NotNull OutputStream stream) throws IOException
+    {
+        List<Directory> directories = new ArrayList<Directory>();
+        for (Directory directory : metadata.getDirectories())
+            directories.add(directory);
+
+        Map<Directory, Integer> indexes = new IdentityHashMap<Directory, Integer>();
+        for (int i = 0; i < directories.size(); i++)
+            indexes.put(directories.get(i), i);
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeInt(directories.size());
+
+        // Records and values are prefixed by their lengths, so are buffered before being written
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(recordBytes);
+        ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+        DataOutputStream valueOut = new DataOutputStream(valueBytes);
+
+        for (Directory directory : directories) {
+            recordBytes.reset();
+
+            Integer parentIndex = directory.getParent() == null ? null : indexes.get(directory.getParent());
+            recordOut.writeInt(parentIndex == null ? -1 : parentIndex);
+
+            // The construction state is written as a value, with a length of zero if there is none
+            Object state = getConstructionState(directory);
+            valueBytes.reset();
+            if (state != null)
+                TagValueFormat.write(valueOut, state, null);
+            recordOut.writeInt(valueBytes.size());
+            valueBytes.writeTo(recordOut);
+
+            recordOut.writeInt(directory.getErrorCount());
+            for (String error : directory.getErrors())
+                TagValueFormat.writeString(recordOut, error);
+
+            recordOut.writeInt(directory.getTagCount());
+            for (Tag tag : directory.getTags()) {
+                Object value = directory.getObject(tag.getTagType());
+                assert(value != null);
+                valueBytes.reset();
+                TagValueFormat.write(valueOut, value, null);
+                recordOut.writeInt(tag.getTagType());
+                recordOut.writeInt(valueBytes.size());
+                valueBytes.writeTo(recordOut);
+            }
+
+            TagValueFormat.writeString(out, directory.getClass().getName());
+            out.writeInt(recordBytes.size());
+            recordBytes.writeTo(out);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Decodes metadata previously encoded via {@link #encode(Metadata)}.
+     */
+    @NotNull
+    public static Metadata decode(@NotNull byte[] bytes) throws IOException
+    {
+        return decode(bytes, null);
+    }
+
+    /**
+     * Decodes metadata previously encoded via {@link #encode(Metadata)}, restoring only the directories and tags
+     * included by <code>projection</code>. Other directories are skipped without their records being read, and their
+     * classes are not initialized. Directories whose classes are not available cannot be projected, so are also
+     * skipped. If a directory's parent is skipped, the directory is restored without a parent.
+     *
+     * @param projection the directories and tags to restore, or <code>null</code> to restore everything
+     */
+    @NotNull
+    public static Metadata decode(@NotNull byte[] bytes, @Nullable MetadataProjection projection) throws IOException
+    {
+        if (MetadataProjection.isUnrestricted(projection))
+            projection = null;
+
+        try {
+            if (bytes.length < 10 || TagValueFormat.readInt(bytes, 0) != MAGIC)
+                throw new IOException("Data does not contain encoded metadata");
+
+            int version = (bytes[4] & 0xFF) << 8 | (bytes[5] & 0xFF);
+            if (version != FORMAT_VERSION)
+                throw new IOException("Unsupported metadata format version " + version + ", expected " + FORMAT_VERSION);
+
+            int directoryCount = TagValueFormat.readInt(bytes, 6);
+            int pos = 10;
+
+            Directory[] directories = new Directory[directoryCount];
+            int[] parentIndexes = new int[directoryCount];
+
+            for (int i = 0; i < directoryCount; i++) {
+                String className = TagValueFormat.readString(bytes, pos);
+                pos += 4 + TagValueFormat.readInt(bytes, pos);
+                int recordLength = TagValueFormat.readInt(bytes, pos);
+                pos += 4;
+                int recordEnd = pos + recordLength;
+
+                Class<? extends Directory> type = getDirectoryType(className);
+                if (type == null && projection == null)
+                    throw new IOException("Unknown directory class " + className);
+
+                if (type != null && (projection == null || projection.includesDirectory(type))) {
+                    parentIndexes[i] = TagValueFormat.readInt(bytes, pos);
+                    directories[i] = decodeDirectory(type, bytes, pos + 4, projection);
+                }
+
+                pos = recordEnd;
+            }
+
+            Metadata metadata = new Metadata();
+            for (int i = 0; i < directoryCount; i++) {
+                Directory directory = directories[i];
+                if (directory == null)
+                    continue;
+                int parentIndex = parentIndexes[i];
+                if (parentIndex != -1 && directories[parentIndex] != null)
+                    directory.setParent(directories[parentIndex]);
+                metadata.addDirectory(directory);
+            }
+            return metadata;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Encoded metadata is truncated or corrupt", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Encoded metadata is corrupt", e);
+        }
+    }
+
+    @NotNull
+    private static Directory decodeDirectory(@NotNull Class<? extends Directory> type, @NotNull byte[] bytes, int pos, @Nullable MetadataProjection projection) throws IOException
+    {
+        int stateLength = TagValueFormat.readInt(bytes, pos);
+        Object state = stateLength == 0 ? null : TagValueFormat.read(bytes, pos + 4, null);
+        pos += 4 + stateLength;
+
+        Directory directory = createDirectory(type, state);
+
+        int errorCount = TagValueFormat.readInt(bytes, pos);
+        pos += 4;
+        for (int i = 0; i < errorCount; i++) {
+            directory.addError(TagValueFormat.readString(bytes, pos));
+            pos += 4 + TagValueFormat.readInt(bytes, pos);
+        }
+
+        int tagCount = TagValueFormat.readInt(bytes, pos);
+        pos += 4;
+        for (int i = 0; i < tagCount; i++) {
+            int tagType = TagValueFormat.readInt(bytes, pos);
+            int valueLength = TagValueFormat.readInt(bytes, pos + 4);
+            pos += 8;
+            if (projection == null || projection.includesTag(type, tagType))
+                directory.setObject(tagType, TagValueFormat.read(bytes, pos, null));
+            pos += valueLength;
+        }
+
+        // XMP is only parsed if used, as doing so costs far more than decoding the other directories
+        if (directory instanceof XmpDirectory && state != null)
+            ((XmpDirectory)directory).setXMPMetaBytes((byte[])state);
+
+        return directory;
+    }
+
+    /**
+     * Gets a value from which a directory of the same type may be constructed, or which is otherwise not available
+     * via its tags.
+     */
+    @Nullable
+    private static Object getConstructionState(@NotNull Directory directory) throws IOException
+    {
+        if (directory instanceof FileTypeDirectory) {
+            String name = directory.getString(FileTypeDirectory.TAG_DETECTED_FILE_TYPE_NAME);
+            for (FileType fileType : FileType.values()) {
+                if (fileType.getName().equals(name))
+                    return fileType.name();
+            }
+            return FileType.Unknown.name();
+        }
+        if (directory instanceof PngDirectory)
+            return ((PngDirectory)directory).getPngChunkType().getIdentifier();
+        if (directory instanceof GifCommentDirectory)
+            return directory.getStringValue(GifCommentDirectory.TAG_COMMENT);
+        if (directory instanceof ExifThumbnailDirectory)
+            return ((ExifThumbnailDirectory)directory).getExifStartOffset();
+        if (directory instanceof XmpDirectory && directory.containsTag(XmpDirectory.TAG_XMP_VALUE_COUNT)) {
+            try {
+                SerializeOptions options = new SerializeOptions().setOmitPacketWrapper(true);
+                return XMPMetaFactory.serializeToBuffer(((XmpDirectory)directory).getXMPMeta(), options);
+            } catch (XMPException e) {
+                throw new IOException("Unable to encode XMP data", e);
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private static Directory createDirectory(@NotNull Class<? extends Directory> type, @Nullable Object state) throws IOException
+    {
+        try {
+            if (type == FileTypeDirectory.class)
+                return new FileTypeDirectory(FileType.valueOf((String)requireState(type, state)));
+            if (type == PngDirectory.class)
+                return new PngDirectory(new PngChunkType((String)requireState(type, state)));
+            if (type == GifCommentDirectory.class)
+                return new GifCommentDirectory((StringValue)requireState(type, state));
+            if (type == ExifThumbnailDirectory.class)
+                return new ExifThumbnailDirectory((Integer)requireState(type, state));
+            return DirectoryRegistry.create(type);
+        } catch (PngProcessingException e) {
+            throw new IOException("Unable to decode PNG chunk type", e);
+        } catch (ClassCastException e) {
+            throw new IOException("Unexpected state for directory " + type.getName(), e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unable to create directory " + type.getName(), e);
+        }
+    }
+
+    @NotNull
+    private static Object requireState(@NotNull Class<? extends Directory> type, @Nullable Object state) throws IOException
+    {
+        if (state == null)
+            throw new IOException("Missing state for directory " + type.getName());
+        return state;
+    }
+
+    /**
+     * Gets the directory class of the given name, or <code>null</code> if it is not available. The class is not
+     * initialized, so that no static initialization is run for directories that are skipped.
+     */
+    @Nullable
+    private static Class<? extends Directory> getDirectoryType(@NotNull String className) throws IOException
+    {
+        Class<? extends Directory> type = _directoryTypes.get(className);
+        if (type == null) {
+            Class<?> loaded;
+            try {
+                loaded = Class.forName(className, false, MetadataCodec.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+            if (!Directory.class.isAssignableFrom(loaded))
+                throw new IOException("Class " + className + " is not a directory");
+            type = loaded.asSubclass(Directory.class);
+            _directoryTypes.put(className, type);
+        }
+        return type;
+    }
+
+    private MetadataCodec() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes the directories and tags that a caller requires, allowing format readers to skip data that cannot
+ * contribute to them.
+ * <p>
+ * A projection is a hint rather than a filter. Readers use it to avoid reading and decoding segments, chunks, boxes
+ * and makernotes that are known not to produce any projected tag, but the resulting {@link Metadata} may still
+ * contain directories and tags that were not projected, for example where a reader's output cannot be predicted.
+ * <p>
+ * A directory type that is projected in its entirety also covers its subtypes, so projecting {@link Directory}
+ * includes everything. Tags projected individually apply only to the given directory type itself, as subtypes often
+ * define tags of their own.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataProjection
+{
+    /** The projected directory types, each with its projected tag types, or <code>null</code> for all tags. */
+    @NotNull
+    private final Map<Class<? extends Directory>, Set<Integer>> _tagsByDirectoryType = new HashMap<Class<? extends Directory>, Set<Integer>>();
+
+    /**
+     * Includes all tags of directories of the given type.
+     */
+    public void addDirectory(@NotNull Class<? extends Directory> type)
+    {
+        _tagsByDirectoryType.put(type, null);
+    }
+
+    /**
+     * Includes the given tags of directories of the given type. This has no effect if the directory type has been
+     * added in its entirety via {@link #addDirectory(Class)}.
+     */
+    public void addTags(@NotNull Class<? extends Directory> type, @NotNull int... tagTypes)
+    {
+        if (_tagsByDirectoryType.containsKey(type) && _tagsByDirectoryType.get(type) == null)
+            return;
+
+        Set<Integer> tags = _tagsByDirectoryType.get(type);
+        if (tags == null) {
+            tags = new HashSet<Integer>();
+            _tagsByDirectoryType.put(type, tags);
+        }
+        for (int tagType : tagTypes)
+            tags.add(tagType);
+    }
+
+    /**
+     * Determines whether any tag of a directory of the given type is projected. This is the case when the type is a
+     * supertype of a projected directory type, or a subtype of a directory type projected in its entirety.
+     */
+    public boolean includesDirectory(@NotNull Class<? extends Directory> type)
+    {
+        for (Map.Entry<Class<? extends Directory>, Set<Integer>> entry : _tagsByDirectoryType.entrySet()) {
+            Class<? extends Directory> projectedType = entry.getKey();
+            if (type.isAssignableFrom(projectedType) || (entry.getValue() == null && projectedType.isAssignableFrom(type)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether the given tag of a directory of the given type is projected.
+     */
+    public boolean includesTag(@NotNull Class<? extends Directory> type, int tagType)
+    {
+        for (Map.Entry<Class<? extends Directory>, Set<Integer>> entry : _tagsByDirectoryType.entrySet()) {
+            Class<? extends Directory> projectedType = entry.getKey();
+            Set<Integer> tags = entry.getValue();
+            if (type.isAssignableFrom(projectedType) && (tags == null || tags.contains(tagType)))
+                return true;
+            if (tags == null && projectedType.isAssignableFrom(type))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether any of the given tags of a directory of the given type is projected.
+     */
+    public boolean includesAnyTag(@NotNull Class<? extends Directory> type, @NotNull int... tagTypes)
+    {
+        for (int tagType : tagTypes) {
+            if (includesTag(type, tagType))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether camera manufacturer makernotes must be decoded, being the case when a directory type from
+     * the <code>com.drew.metadata.exif.makernotes</code> package is projected, or all directories are.
+     */
+    public boolean includesMakernotes()
+    {
+        return isUnrestricted(this) || isMakernoteTypeProjected();
+    }
+
+    /**
+     * Determines whether metadata must be fully read, being the case when <code>projection</code> is
+     * <code>null</code> or includes all tags of {@link Directory} itself.
+     */
+    public static boolean isUnrestricted(@Nullable MetadataProjection projection)
+    {
+        return projection == null
+            || (projection._tagsByDirectoryType.containsKey(Directory.class) && projection._tagsByDirectoryType.get(Directory.class) == null);
+    }
+
+    private boolean isMakernoteTypeProjected()
+    {
+        for (Class<? extends Directory> projectedType : _tagsByDirectoryType.keySet()) {
+            Package typePackage = projectedType.getPackage();
+            if (typePackage != null && typePackage.getName().equals("com.drew.metadata.exif.makernotes"))
+                return true;
+        }
+        return false;
+    }
+}
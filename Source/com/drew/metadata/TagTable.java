@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Stores the values of a {@link Directory}'s tags, keyed by tag type, in the order in which they were first set.
+ * <p>
+ * Entries are held in parallel arrays of tag types and values, indexed by an open-addressing hash table of primitive
+ * ints. Compared with a <code>HashMap&lt;Integer, Object&gt;</code>, this avoids boxing each key and allocating a
+ * node per entry, and nothing is allocated until the first value is stored.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+final class TagTable
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    @NotNull
+    private static final int[] EMPTY_INTS = new int[0];
+    @NotNull
+    private static final Object[] EMPTY_OBJECTS = new Object[0];
+
+    /** Tag types, in the order in which they were first set. */
+    @NotNull
+    private int[] _tagTypes = EMPTY_INTS;
+
+    /** Values, corresponding to the entries of {@link #_tagTypes}. */
+    @NotNull
+    private Object[] _values = EMPTY_OBJECTS;
+
+    private int _size;
+
+    /**
+     * The hash table. Each slot holds the index of an entry plus one, or zero if unused. Its length is a power of
+     * two, and twice the entry capacity, so that at least half of the slots are always unused.
+     */
+    @NotNull
+    private int[] _slots = EMPTY_INTS;
+
+    int size()
+    {
+        return _size;
+    }
+
+    boolean containsKey(int tagType)
+    {
+        return indexOf(tagType) != -1;
+    }
+
+    @Nullable
+    Object get(int tagType)
+    {
+        int index = indexOf(tagType);
+        return index == -1 ? null : _values[index];
+    }
+
+    /**
+     * Gets the tag type of the entry at <code>index</code>, where entries are in the order in which they were first
+     * set.
+     */
+    int getTagType(int index)
+    {
+        if (index < 0 || index >= _size)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of range for " + _size + " entries");
+        return _tagTypes[index];
+    }
+
+    /**
+     * Stores a value for the given tag type, replacing any existing value while retaining its position.
+     *
+     * @return <code>true</code> if the tag type was not previously present
+     */
+    boolean put(int tagType, @NotNull Object value)
+    {
+        int index = indexOf(tagType);
+        if (index != -1) {
+            _values[index] = value;
+            return false;
+        }
+
+        if (_size == _tagTypes.length)
+            grow();
+
+        _tagTypes[_size] = tagType;
+        _values[_size] = value;
+        _size++;
+        insertSlot(tagType, _size);
+        return true;
+    }
+
+    private int indexOf(int tagType)
+    {
+        if (_size == 0)
+            return -1;
+
+        int mask = _slots.length - 1;
+        for (int slot = hash(tagType) & mask; ; slot = (slot + 1) & mask) {
+            int entry = _slots[slot];
+            if (entry == 0)
+                return -1;
+            if (_tagTypes[entry - 1] == tagType)
+                return entry - 1;
+        }
+    }
+
+    private void insertSlot(int tagType, int entry)
+    {
+        int mask = _slots.length - 1;
+        int slot = hash(tagType) & mask;
+        while (_slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        _slots[slot] = entry;
+    }
+
+    private void grow()
+    {
+        int capacity = _tagTypes.length == 0 ? INITIAL_CAPACITY : _tagTypes.length * 2;
+
+        _tagTypes = Arrays.copyOf(_tagTypes, capacity);
+        _values = Arrays.copyOf(_values, capacity);
+        _slots = new int[capacity * 2];
+
+        for (int i = 0; i < _size; i++)
+            insertSlot(_tagTypes[i], i + 1);
+    }
+
+    private static int hash(int tagType)
+    {
+        // Tag types are often small and sequential, so spread their bits across the table
+        int h = tagType * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
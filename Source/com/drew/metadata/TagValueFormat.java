@@ -0,0 +1,425 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.Charsets;
+import com.drew.lang.KeyValuePair;
+import com.drew.lang.Rational;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.jpeg.JpegComponent;
+import com.drew.metadata.mpf.MpfImageEntry;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Encodes and decodes tag values as a type code followed by a big-endian payload.
+ * <p>
+ * Strings are stored as UTF-8, and arrays and strings are preceded by their length as a 32-bit integer. Values of
+ * types without an encoding are stored by reference, as an index into a list of objects held alongside the bytes.
+ * When no such list is available, such values cannot be written.
+ * <p>
+ * Type codes are persisted by {@link MetadataCodec}, so existing codes must not be changed. Code 25, which held
+ * Java-serialized values, is retired and must not be reused.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+final class TagValueFormat
+{
+    static final byte TYPE_INT = 1;
+    static final byte TYPE_LONG = 2;
+    static final byte TYPE_SHORT = 3;
+    static final byte TYPE_BYTE = 4;
+    static final byte TYPE_FLOAT = 5;
+    static final byte TYPE_DOUBLE = 6;
+    static final byte TYPE_BOOLEAN = 7;
+    static final byte TYPE_STRING = 8;
+    static final byte TYPE_STRING_VALUE = 9;
+    static final byte TYPE_RATIONAL = 10;
+    static final byte TYPE_DATE = 11;
+    static final byte TYPE_BYTE_ARRAY = 12;
+    static final byte TYPE_SHORT_ARRAY = 13;
+    static final byte TYPE_INT_ARRAY = 14;
+    static final byte TYPE_LONG_ARRAY = 15;
+    static final byte TYPE_FLOAT_ARRAY = 16;
+    static final byte TYPE_DOUBLE_ARRAY = 17;
+    static final byte TYPE_RATIONAL_ARRAY = 18;
+    static final byte TYPE_STRING_ARRAY = 19;
+    static final byte TYPE_STRING_VALUE_ARRAY = 20;
+    static final byte TYPE_OBJECT = 21;
+    static final byte TYPE_JPEG_COMPONENT = 22;
+    static final byte TYPE_MPF_IMAGE_ENTRY_ARRAY = 23;
+    static final byte TYPE_KEY_VALUE_PAIR_LIST = 24;
+
+    private TagValueFormat() {}
+
+    /**
+     * Writes <code>value</code>. Values of types without an encoding are appended to <code>objects</code>, and
+     * their index written in their place.
+     *
+     * @throws IllegalArgumentException if <code>value</code> has no encoding and <code>objects</code> is
+     *                                  <code>null</code>
+     */
+    static void write(@NotNull DataOutputStream out, @NotNull Object value, @Nullable List<Object> objects) throws IOException
+    {
+        if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer)value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long)value);
+        } else if (value instanceof Short) {
+            out.writeByte(TYPE_SHORT);
+            out.writeShort((Short)value);
+        } else if (value instanceof Byte) {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte((Byte)value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float)value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double)value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean)value);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String)value);
+        } else if (value instanceof StringValue) {
+            out.writeByte(TYPE_STRING_VALUE);
+            writeStringValue(out, (StringValue)value);
+        } else if (value instanceof Rational) {
+            out.writeByte(TYPE_RATIONAL);
+            writeRational(out, (Rational)value);
+        } else if (value instanceof Date) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((Date)value).getTime());
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[])value;
+            out.writeByte(TYPE_BYTE_ARRAY);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof short[]) {
+            short[] shorts = (short[])value;
+            out.writeByte(TYPE_SHORT_ARRAY);
+            out.writeInt(shorts.length);
+            for (short s : shorts)
+                out.writeShort(s);
+        } else if (value instanceof int[]) {
+            int[] ints = (int[])value;
+            out.writeByte(TYPE_INT_ARRAY);
+            out.writeInt(ints.length);
+            for (int i : ints)
+                out.writeInt(i);
+        } else if (value instanceof long[]) {
+            long[] longs = (long[])value;
+            out.writeByte(TYPE_LONG_ARRAY);
+            out.writeInt(longs.length);
+            for (long l : longs)
+                out.writeLong(l);
+        } else if (value instanceof float[]) {
+            float[] floats = (float[])value;
+            out.writeByte(TYPE_FLOAT_ARRAY);
+            out.writeInt(floats.length);
+            for (float f : floats)
+                out.writeFloat(f);
+        } else if (value instanceof double[]) {
+            double[] doubles = (double[])value;
+            out.writeByte(TYPE_DOUBLE_ARRAY);
+            out.writeInt(doubles.length);
+            for (double d : doubles)
+                out.writeDouble(d);
+        } else if (value instanceof Rational[] && !containsNull((Rational[])value)) {
+            Rational[] rationals = (Rational[])value;
+            out.writeByte(TYPE_RATIONAL_ARRAY);
+            out.writeInt(rationals.length);
+            for (Rational rational : rationals)
+                writeRational(out, rational);
+        } else if (value instanceof String[] && !containsNull((String[])value)) {
+            String[] strings = (String[])value;
+            out.writeByte(TYPE_STRING_ARRAY);
+            out.writeInt(strings.length);
+            for (String string : strings)
+                writeString(out, string);
+        } else if (value instanceof StringValue[] && !containsNull((StringValue[])value)) {
+            StringValue[] strings = (StringValue[])value;
+            out.writeByte(TYPE_STRING_VALUE_ARRAY);
+            out.writeInt(strings.length);
+            for (StringValue string : strings)
+                writeStringValue(out, string);
+        } else if (value instanceof JpegComponent) {
+            JpegComponent component = (JpegComponent)value;
+            out.writeByte(TYPE_JPEG_COMPONENT);
+            out.writeByte(component.getComponentId());
+            out.writeByte(component.getHorizontalSamplingFactor() << 4 | component.getVerticalSamplingFactor());
+            out.writeByte(component.getQuantizationTableNumber());
+        } else if (value instanceof MpfImageEntry[] && !containsNull((MpfImageEntry[])value)) {
+            MpfImageEntry[] entries = (MpfImageEntry[])value;
+            out.writeByte(TYPE_MPF_IMAGE_ENTRY_ARRAY);
+            out.writeInt(entries.length);
+            for (MpfImageEntry entry : entries) {
+                out.writeLong(entry.getAttribute());
+                out.writeLong(entry.getSize());
+                out.writeLong(entry.getOffset());
+                out.writeInt(entry.getDependentImage1());
+                out.writeInt(entry.getDependentImage2());
+            }
+        } else if (isKeyValuePairList(value)) {
+            List<?> pairs = (List<?>)value;
+            out.writeByte(TYPE_KEY_VALUE_PAIR_LIST);
+            out.writeInt(pairs.size());
+            for (Object item : pairs) {
+                KeyValuePair pair = (KeyValuePair)item;
+                writeString(out, pair.getKey());
+                writeStringValue(out, pair.getValue());
+            }
+        } else if (objects != null) {
+            out.writeByte(TYPE_OBJECT);
+            out.writeInt(objects.size());
+            objects.add(value);
+        } else {
+            throw new IllegalArgumentException("No encoding exists for values of type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads the value at <code>offset</code>. A new instance is returned for each call, so that callers cannot
+     * modify the stored value. <code>objects</code> is only needed if values were written by reference.
+     */
+    @NotNull
+    static Object read(@NotNull byte[] bytes, int offset, @Nullable Object[] objects)
+    {
+        byte type = bytes[offset];
+        int pos = offset + 1;
+
+        switch (type) {
+            case TYPE_INT:
+                return readInt(bytes, pos);
+            case TYPE_LONG:
+                return readLong(bytes, pos);
+            case TYPE_SHORT:
+                return (short)readShort(bytes, pos);
+            case TYPE_BYTE:
+                return bytes[pos];
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat(readInt(bytes, pos));
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(readLong(bytes, pos));
+            case TYPE_BOOLEAN:
+                return bytes[pos] != 0;
+            case TYPE_STRING:
+                return readString(bytes, pos);
+            case TYPE_STRING_VALUE:
+                return readStringValue(bytes, pos);
+            case TYPE_RATIONAL:
+                return new Rational(readLong(bytes, pos), readLong(bytes, pos + 8));
+            case TYPE_DATE:
+                return new Date(readLong(bytes, pos));
+            case TYPE_OBJECT:
+                if (objects == null)
+                    throw new IllegalArgumentException("Value at offset " + offset + " was stored by reference");
+                return objects[readInt(bytes, pos)];
+            case TYPE_JPEG_COMPONENT:
+                return new JpegComponent(bytes[pos] & 0xFF, bytes[pos + 1] & 0xFF, bytes[pos + 2] & 0xFF);
+        }
+
+        int length = readInt(bytes, pos);
+        pos += 4;
+
+        switch (type) {
+            case TYPE_BYTE_ARRAY: {
+                byte[] array = new byte[length];
+                System.arraycopy(bytes, pos, array, 0, length);
+                return array;
+            }
+            case TYPE_SHORT_ARRAY: {
+                short[] array = new short[length];
+                for (int i = 0; i < length; i++)
+                    array[i] = (short)readShort(bytes, pos + i * 2);
+                return array;
+            }
+            case TYPE_INT_ARRAY: {
+                int[] array = new int[length];
+                for (int i = 0; i < length; i++)
+                    array[i] = readInt(bytes, pos + i * 4);
+                return array;
+            }
+            case TYPE_LONG_ARRAY: {
+                long[] array = new long[length];
+                for (int i = 0; i < length; i++)
+                    array[i] = readLong(bytes, pos + i * 8);
+                return array;
+            }
+            case TYPE_FLOAT_ARRAY: {
+                float[] array = new float[length];
+                for (int i = 0; i < length; i++)
+                    array[i] = Float.intBitsToFloat(readInt(bytes, pos + i * 4));
+                return array;
+            }
+            case TYPE_DOUBLE_ARRAY: {
+                double[] array = new double[length];
+                for (int i = 0; i < length; i++)
+                    array[i] = Double.longBitsToDouble(readLong(bytes, pos + i * 8));
+                return array;
+            }
+            case TYPE_RATIONAL_ARRAY: {
+                Rational[] array = new Rational[length];
+                for (int i = 0; i < length; i++)
+                    array[i] = new Rational(readLong(bytes, pos + i * 16), readLong(bytes, pos + i * 16 + 8));
+                return array;
+            }
+            case TYPE_STRING_ARRAY: {
+                String[] array = new String[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = readString(bytes, pos);
+                    pos += 4 + readInt(bytes, pos);
+                }
+                return array;
+            }
+            case TYPE_STRING_VALUE_ARRAY: {
+                StringValue[] array = new StringValue[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = readStringValue(bytes, pos);
+                    pos = skipStringValue(bytes, pos);
+                }
+                return array;
+            }
+            case TYPE_MPF_IMAGE_ENTRY_ARRAY: {
+                MpfImageEntry[] array = new MpfImageEntry[length];
+                for (int i = 0; i < length; i++, pos += 32) {
+                    array[i] = new MpfImageEntry(
+                        readLong(bytes, pos),
+                        readLong(bytes, pos + 8),
+                        readLong(bytes, pos + 16),
+                        readInt(bytes, pos + 24),
+                        readInt(bytes, pos + 28));
+                }
+                return array;
+            }
+            case TYPE_KEY_VALUE_PAIR_LIST: {
+                List<KeyValuePair> pairs = new ArrayList<KeyValuePair>(length);
+                for (int i = 0; i < length; i++) {
+                    String key = readString(bytes, pos);
+                    pos += 4 + readInt(bytes, pos);
+                    pairs.add(new KeyValuePair(key, readStringValue(bytes, pos)));
+                    pos = skipStringValue(bytes, pos);
+                }
+                return pairs;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown value type code " + type + " at offset " + offset);
+        }
+    }
+
+    static void writeString(@NotNull DataOutputStream out, @NotNull String string) throws IOException
+    {
+        byte[] bytes = string.getBytes(Charsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @NotNull
+    static String readString(@NotNull byte[] bytes, int offset)
+    {
+        return new String(bytes, offset + 4, readInt(bytes, offset), Charsets.UTF_8);
+    }
+
+    static int readInt(@NotNull byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xFF) << 24
+            | (bytes[offset + 1] & 0xFF) << 16
+            | (bytes[offset + 2] & 0xFF) << 8
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    static long readLong(@NotNull byte[] bytes, int offset)
+    {
+        return (long)readInt(bytes, offset) << 32 | (readInt(bytes, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static int readShort(@NotNull byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xFF) << 8 | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static void writeRational(@NotNull DataOutputStream out, @NotNull Rational rational) throws IOException
+    {
+        out.writeLong(rational.getNumerator());
+        out.writeLong(rational.getDenominator());
+    }
+
+    /** Writes the charset name (with length -1 if there is no charset), followed by the bytes. */
+    private static void writeStringValue(@NotNull DataOutputStream out, @NotNull StringValue value) throws IOException
+    {
+        Charset charset = value.getCharset();
+        if (charset == null)
+            out.writeInt(-1);
+        else
+            writeString(out, charset.name());
+        byte[] bytes = value.getBytes();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @NotNull
+    private static StringValue readStringValue(@NotNull byte[] bytes, int offset)
+    {
+        int charsetLength = readInt(bytes, offset);
+        Charset charset = charsetLength == -1 ? null : Charset.forName(readString(bytes, offset));
+        int pos = offset + 4 + Math.max(charsetLength, 0);
+        byte[] value = new byte[readInt(bytes, pos)];
+        System.arraycopy(bytes, pos + 4, value, 0, value.length);
+        return new StringValue(value, charset);
+    }
+
+    private static int skipStringValue(@NotNull byte[] bytes, int offset)
+    {
+        int pos = offset + 4 + Math.max(readInt(bytes, offset), 0);
+        return pos + 4 + readInt(bytes, pos);
+    }
+
+    private static boolean isKeyValuePairList(@NotNull Object value)
+    {
+        if (!(value instanceof List))
+            return false;
+        for (Object item : (List<?>)value) {
+            if (!(item instanceof KeyValuePair))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean containsNull(@NotNull Object[] array)
+    {
+        for (Object item : array) {
+            if (item == null)
+                return true;
+        }
+        return false;
+    }
+}
@@ -79,8 +79,7 @@ public class EpsReader
                     directory.setInt(EpsDirectory.TAG_TIFF_PREVIEW_OFFSET, tifOffset);
                     // Get Tiff metadata
                     try {
-                        ByteArrayReader byteArrayReader = new ByteArrayReader(reader.getBytes(tifOffset, tifSize));
-                        new TiffReader().processTiff(byteArrayReader, new PhotoshopTiffHandler(metadata, null), 0);
+                        new TiffReader().processTiff(reader.slice(tifOffset, tifSize), new PhotoshopTiffHandler(metadata, null), 0);
                     } catch (TiffProcessingException ex) {
                         directory.addError("Unable to process TIFF data: " + ex.getMessage());
                     }
@@ -89,8 +88,7 @@ public class EpsReader
                     directory.setInt(EpsDirectory.TAG_WMF_PREVIEW_OFFSET, wmfOffset);
                 }
 
-                // TODO avoid allocating byte array here -- read directly from InputStream
-                extract(directory, metadata, new SequentialByteArrayReader(reader.getBytes(postScriptOffset, postScriptLength)));
+                extract(directory, metadata, reader.sequentialSlice(postScriptOffset, postScriptLength));
                 break;
             case 0x25215053:
                 inputStream.reset();
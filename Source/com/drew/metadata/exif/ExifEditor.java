@@ -0,0 +1,356 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.metadata.exif;
+
+import com.drew.imaging.ImageProcessingException;
+import com.drew.imaging.jpeg.JpegProcessingException;
+import com.drew.imaging.jpeg.JpegSegmentHandler;
+import com.drew.imaging.jpeg.JpegSegmentReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.tiff.TiffDataFormat;
+import com.drew.imaging.tiff.TiffReader;
+import com.drew.imaging.tiff.TiffValueLocationHandler;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.Charsets;
+import com.drew.lang.RandomAccessByteSourceReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.Rational;
+import com.drew.lang.SeekableChannelByteSource;
+import com.drew.lang.SeekableChannelInputStream;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Modifies Exif values of JPEG and TIFF-based files in place, without rewriting the rest of the file.
+ * <p>
+ * On construction, the file's Exif data is walked using {@link TiffReader} and {@link ExifTiffHandler}, and the
+ * location, format and size of each value in the standard Exif directories are recorded. A new value may then be
+ * written over an existing one, provided it has a compatible format and fits within the bytes already allocated to
+ * it. Each modification is a single positional write of a few bytes. Values that would not fit cause a
+ * {@link MetadataException}, and the file is left unchanged.
+ * <p>
+ * Values within makernotes are not recorded, as their layout varies between manufacturers.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ExifEditor
+{
+    @NotNull
+    private final FileChannel _channel;
+    @NotNull
+    private final List<ExifValueLocation> _locations = new ArrayList<ExifValueLocation>();
+
+    /**
+     * Locates the Exif values in the JPEG or TIFF-based file whose data is in <code>channel</code>, beginning at
+     * position zero. The channel must have been opened for writing in order for values to be modified.
+     *
+     * @throws ImageProcessingException if the file is neither JPEG nor TIFF-based, or its structure is invalid
+     */
+    public ExifEditor(@NotNull FileChannel channel) throws ImageProcessingException, IOException
+    {
+        _channel = channel;
+
+        if (channel.size() < 4)
+            throw new ImageProcessingException("File is too short to contain Exif data");
+
+        ByteBuffer prefix = ByteBuffer.allocate(2);
+        while (prefix.hasRemaining())
+            channel.read(prefix, prefix.position());
+        int magicNumber = prefix.getShort(0) & 0xFFFF;
+
+        if (magicNumber == 0xFFD8) {
+            locateJpegValues();
+        } else if (magicNumber == 0x4D4D || magicNumber == 0x4949) {
+            // Read by position rather than mapping the file, as a mapping would outlive this editor
+            locateValues(new RandomAccessByteSourceReader(new SeekableChannelByteSource(channel, 0)), 0, 0, magicNumber == 0x4D4D);
+        } else {
+            throw new ImageProcessingException("File is neither JPEG nor TIFF-based");
+        }
+    }
+
+    /**
+     * Gets the locations of all values that may be modified, in the order they were found.
+     */
+    @NotNull
+    public List<ExifValueLocation> getLocations()
+    {
+        return Collections.unmodifiableList(_locations);
+    }
+
+    /**
+     * Gets the location of the value of tag <code>tagId</code> in the first directory of the given type, or
+     * <code>null</code> if no such value exists.
+     */
+    @Nullable
+    public ExifValueLocation getLocation(@NotNull Class<? extends Directory> directoryType, int tagId)
+    {
+        for (ExifValueLocation location : _locations) {
+            if (location.getDirectoryType() == directoryType && location.getTagId() == tagId)
+                return location;
+        }
+        return null;
+    }
+
+    /**
+     * Replaces an ASCII string value, such as {@link ExifSubIFDDirectory#TAG_DATETIME_ORIGINAL}. The string is
+     * encoded as UTF-8, which is identical to ASCII for ASCII text. Shorter strings are padded with null bytes.
+     *
+     * @throws MetadataException if the tag does not exist, is not a string, or the string and its null terminator
+     *                           do not fit in the space allocated to the existing value
+     */
+    public void setString(@NotNull Class<? extends Directory> directoryType, int tagId, @NotNull String value) throws MetadataException, IOException
+    {
+        ExifValueLocation location = getRequiredLocation(directoryType, tagId);
+        requireFormat(location, TiffDataFormat.CODE_STRING);
+
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+        if (bytes.length + 1 > location.getByteCount())
+            throw new MetadataException(String.format("String of %d bytes does not fit in the %d bytes allocated to %s", bytes.length, location.getByteCount(), location));
+
+        write(location, Arrays.copyOf(bytes, (int)location.getByteCount()));
+    }
+
+    /**
+     * Replaces a single integer value, such as {@link ExifDirectoryBase#TAG_ORIENTATION}, keeping its existing
+     * format.
+     *
+     * @throws MetadataException if the tag does not exist, does not hold exactly one integer, or
+     *                           <code>value</code> is outside the range of the existing format
+     */
+    public void setInt(@NotNull Class<? extends Directory> directoryType, int tagId, long value) throws MetadataException, IOException
+    {
+        ExifValueLocation location = getRequiredLocation(directoryType, tagId);
+        requireSingleComponent(location);
+
+        long min;
+        long max;
+        switch (location.getFormatCode()) {
+            case TiffDataFormat.CODE_INT8_U: min = 0; max = 0xFF; break;
+            case TiffDataFormat.CODE_INT8_S: min = Byte.MIN_VALUE; max = Byte.MAX_VALUE; break;
+            case TiffDataFormat.CODE_INT16_U: min = 0; max = 0xFFFF; break;
+            case TiffDataFormat.CODE_INT16_S: min = Short.MIN_VALUE; max = Short.MAX_VALUE; break;
+            case TiffDataFormat.CODE_INT32_U: min = 0; max = 0xFFFFFFFFL; break;
+            case TiffDataFormat.CODE_INT32_S: min = Integer.MIN_VALUE; max = Integer.MAX_VALUE; break;
+            default:
+                throw new MetadataException("Value is not an integer: " + location);
+        }
+
+        if (value < min || value > max)
+            throw new MetadataException(String.format("Value %d is outside the range of the format of %s", value, location));
+
+        write(location, encode(value, (int)location.getByteCount(), location.isMotorolaByteOrder()));
+    }
+
+    /**
+     * Replaces a single rational value, such as {@link ExifSubIFDDirectory#TAG_EXPOSURE_TIME}, keeping its
+     * existing format.
+     *
+     * @throws MetadataException if the tag does not exist, does not hold exactly one rational, or the numerator or
+     *                           denominator is outside the range of the existing format
+     */
+    public void setRational(@NotNull Class<? extends Directory> directoryType, int tagId, @NotNull Rational value) throws MetadataException, IOException
+    {
+        ExifValueLocation location = getRequiredLocation(directoryType, tagId);
+        requireSingleComponent(location);
+
+        long min;
+        long max;
+        if (location.getFormatCode() == TiffDataFormat.CODE_RATIONAL_U) {
+            min = 0;
+            max = 0xFFFFFFFFL;
+        } else if (location.getFormatCode() == TiffDataFormat.CODE_RATIONAL_S) {
+            min = Integer.MIN_VALUE;
+            max = Integer.MAX_VALUE;
+        } else {
+            throw new MetadataException("Value is not a rational: " + location);
+        }
+
+        long numerator = value.getNumerator();
+        long denominator = value.getDenominator();
+        if (numerator < min || numerator > max || denominator < min || denominator > max)
+            throw new MetadataException(String.format("Rational %s is outside the range of the format of %s", value, location));
+
+        byte[] bytes = new byte[8];
+        System.arraycopy(encode(numerator, 4, location.isMotorolaByteOrder()), 0, bytes, 0, 4);
+        System.arraycopy(encode(denominator, 4, location.isMotorolaByteOrder()), 0, bytes, 4, 4);
+        write(location, bytes);
+    }
+
+    /**
+     * Replaces a value having single-byte components, such as those of undefined format. Shorter values are padded
+     * with zeroes.
+     *
+     * @throws MetadataException if the tag does not exist, does not have single-byte components, or
+     *                           <code>bytes</code> does not fit in the space allocated to the existing value
+     */
+    public void setByteArray(@NotNull Class<? extends Directory> directoryType, int tagId, @NotNull byte[] bytes) throws MetadataException, IOException
+    {
+        ExifValueLocation location = getRequiredLocation(directoryType, tagId);
+
+        TiffDataFormat format = TiffDataFormat.fromTiffFormatCode(location.getFormatCode());
+        if (format == null || format.getComponentSizeBytes() != 1)
+            throw new MetadataException("Value does not have single-byte components: " + location);
+        if (bytes.length > location.getByteCount())
+            throw new MetadataException(String.format("Array of %d bytes does not fit in the %d bytes allocated to %s", bytes.length, location.getByteCount(), location));
+
+        write(location, Arrays.copyOf(bytes, (int)location.getByteCount()));
+    }
+
+    private void locateJpegValues() throws JpegProcessingException, IOException
+    {
+        final StreamReader reader = new StreamReader(new SeekableChannelInputStream(_channel, 0, _channel.size()));
+        final List<byte[]> segments = new ArrayList<byte[]>();
+        final List<Long> segmentOffsets = new ArrayList<Long>();
+
+        JpegSegmentReader.readSegments(reader, Collections.singletonList(JpegSegmentType.APP1), new JpegSegmentHandler()
+        {
+            @Override
+            public boolean onSegment(byte segmentType, @NotNull SequentialReader segmentReader, int segmentLength) throws IOException
+            {
+                long segmentOffset = reader.getPosition();
+                byte[] segmentBytes = segmentReader.getBytes(segmentLength);
+                if (ExifReader.startsWithJpegExifPreamble(segmentBytes)) {
+                    segments.add(segmentBytes);
+                    segmentOffsets.add(segmentOffset);
+                }
+                return true;
+            }
+        });
+
+        int tiffHeaderOffset = ExifReader.JPEG_SEGMENT_PREAMBLE.length();
+        for (int i = 0; i < segments.size(); i++) {
+            byte[] segment = segments.get(i);
+            if (segment.length < tiffHeaderOffset + 8)
+                continue;
+            boolean isMotorolaByteOrder = segment[tiffHeaderOffset] == 'M';
+            locateValues(new ByteArrayReader(segment), tiffHeaderOffset, segmentOffsets.get(i), isMotorolaByteOrder);
+        }
+    }
+
+    /**
+     * Walks the TIFF data at <code>tiffHeaderOffset</code> within <code>reader</code>, recording value locations.
+     *
+     * @param readerPosition the position within the file of the reader's first byte
+     */
+    private void locateValues(@NotNull RandomAccessReader reader, int tiffHeaderOffset, long readerPosition, boolean isMotorolaByteOrder) throws IOException
+    {
+        LocatingTiffHandler handler = new LocatingTiffHandler(_locations, readerPosition, isMotorolaByteOrder, tiffHeaderOffset);
+        try {
+            new TiffReader().processTiff(reader, handler, tiffHeaderOffset);
+        } catch (ImageProcessingException e) {
+            // Values located before the error remain usable
+        }
+    }
+
+    @NotNull
+    private ExifValueLocation getRequiredLocation(@NotNull Class<? extends Directory> directoryType, int tagId) throws MetadataException
+    {
+        ExifValueLocation location = getLocation(directoryType, tagId);
+        if (location == null)
+            throw new MetadataException(String.format("No value exists for tag 0x%04X in %s", tagId, directoryType.getSimpleName()));
+        return location;
+    }
+
+    private static void requireFormat(@NotNull ExifValueLocation location, int formatCode) throws MetadataException
+    {
+        if (location.getFormatCode() != formatCode)
+            throw new MetadataException(String.format("Expected format %d for %s", formatCode, location));
+    }
+
+    private static void requireSingleComponent(@NotNull ExifValueLocation location) throws MetadataException
+    {
+        if (location.getComponentCount() != 1)
+            throw new MetadataException("Expected a single component for " + location);
+    }
+
+    @NotNull
+    private static byte[] encode(long value, int byteCount, boolean isMotorolaByteOrder)
+    {
+        byte[] bytes = new byte[byteCount];
+        for (int i = 0; i < byteCount; i++) {
+            int shift = isMotorolaByteOrder ? (byteCount - 1 - i) * 8 : i * 8;
+            bytes[i] = (byte)(value >> shift);
+        }
+        return bytes;
+    }
+
+    private void write(@NotNull ExifValueLocation location, @NotNull byte[] bytes) throws IOException
+    {
+        assert (bytes.length <= location.getByteCount());
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+            _channel.write(buffer, location.getOffset() + buffer.position());
+    }
+
+    /**
+     * Records the locations of values in standard Exif directories, while otherwise processing them as usual.
+     */
+    private static class LocatingTiffHandler extends ExifTiffHandler implements TiffValueLocationHandler
+    {
+        @NotNull
+        private final List<ExifValueLocation> _locations;
+        private final long _readerPosition;
+        private final boolean _isMotorolaByteOrder;
+
+        LocatingTiffHandler(@NotNull List<ExifValueLocation> locations, long readerPosition, boolean isMotorolaByteOrder, int exifStartOffset)
+        {
+            super(new Metadata(), null, exifStartOffset);
+            _locations = locations;
+            _readerPosition = readerPosition;
+            _isMotorolaByteOrder = isMotorolaByteOrder;
+        }
+
+        @Override
+        public void setValueLocation(int tagId, int formatCode, long componentCount, long valueOffset)
+        {
+            // Makernotes may use other byte orders and offset schemes, so only standard directories are recorded
+            if (!(_currentDirectory instanceof ExifDirectoryBase))
+                return;
+
+            TiffDataFormat format = TiffDataFormat.fromTiffFormatCode(formatCode);
+            if (format == null)
+                return;
+
+            _locations.add(new ExifValueLocation(
+                _currentDirectory.getClass(),
+                tagId,
+                formatCode,
+                componentCount,
+                _readerPosition + valueOffset,
+                componentCount * format.getComponentSizeBytes(),
+                _isMotorolaByteOrder));
+        }
+    }
+}
@@ -47,6 +47,22 @@ public class ExifReader implements JpegSegmentMetadataReader
     /** Exif data stored in JPEG files' APP1 segment are preceded by this six character preamble "Exif\0\0". */
     public static final String JPEG_SEGMENT_PREAMBLE = "Exif\0\0";
 
+    private final boolean _isMakernoteProcessed;
+
+    public ExifReader()
+    {
+        this(true);
+    }
+
+    /**
+     * @param isMakernoteProcessed whether camera manufacturer makernotes are decoded. When <code>false</code>, the
+     *                             makernote tag is skipped without being read.
+     */
+    public ExifReader(boolean isMakernoteProcessed)
+    {
+        _isMakernoteProcessed = isMakernoteProcessed;
+    }
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
@@ -87,7 +103,7 @@ public class ExifReader implements JpegSegmentMetadataReader
     /** Reads TIFF formatted Exif data at a specified offset within a {@link RandomAccessReader}. */
     public void extract(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata, int readerOffset, @Nullable Directory parentDirectory)
     {
-        ExifTiffHandler exifTiffHandler = new ExifTiffHandler(metadata, parentDirectory, readerOffset);
+        ExifTiffHandler exifTiffHandler = new ExifTiffHandler(metadata, parentDirectory, readerOffset, _isMakernoteProcessed);
 
         try {
             // Read the TIFF-formatted Exif data
@@ -30,13 +30,12 @@ import com.drew.imaging.jpeg.JpegProcessingException;
 import com.drew.imaging.tiff.TiffProcessingException;
 import com.drew.imaging.tiff.TiffReader;
 import com.drew.lang.BufferBoundsException;
-import com.drew.lang.ByteArrayReader;
 import com.drew.lang.Charsets;
 import com.drew.lang.RandomAccessReader;
-import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
+import com.drew.metadata.DirectoryRegistry;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.StringValue;
 import com.drew.metadata.apple.AppleRunTimeReader;
@@ -57,23 +56,48 @@ import com.drew.metadata.xmp.XmpReader;
  */
 public class ExifTiffHandler extends DirectoryTiffHandler
 {
+    // Directories are created by type as IFDs are entered, so are registered to avoid doing so reflectively
+    static {
+        // Only the directories present in most files are registered. Makernote directories are each specific to
+        // one manufacturer, so are created via DirectoryRegistry's reflective fallback rather than loading every
+        // makernote class up front.
+        DirectoryRegistry.register(ExifIFD0Directory.class, ExifIFD0Directory::new);
+        DirectoryRegistry.register(ExifImageDirectory.class, ExifImageDirectory::new);
+        DirectoryRegistry.register(ExifInteropDirectory.class, ExifInteropDirectory::new);
+        DirectoryRegistry.register(ExifSubIFDDirectory.class, ExifSubIFDDirectory::new);
+        DirectoryRegistry.register(GpsDirectory.class, GpsDirectory::new);
+    }
+
     private final int _exifStartOffset;
+    private final boolean _isMakernoteProcessed;
 
     public ExifTiffHandler(@NotNull Metadata metadata, @Nullable Directory parentDirectory, int exifStartOffset)
+    {
+        this(metadata, parentDirectory, exifStartOffset, true);
+    }
+
+    /**
+     * @param isMakernoteProcessed whether camera manufacturer makernotes are decoded. When <code>false</code>, the
+     *                             makernote tag is skipped without its IFDs being entered.
+     */
+    public ExifTiffHandler(@NotNull Metadata metadata, @Nullable Directory parentDirectory, int exifStartOffset, boolean isMakernoteProcessed)
     {
         super(metadata, parentDirectory);
         _exifStartOffset = exifStartOffset;
+        _isMakernoteProcessed = isMakernoteProcessed;
     }
 
     public void setTiffMarker(int marker) throws TiffProcessingException
     {
-        final int standardTiffMarker = 0x002A;
+        final int standardTiffMarker = TiffReader.STANDARD_TIFF_MARKER;
+        final int bigTiffMarker = TiffReader.BIG_TIFF_MARKER;
         final int olympusRawTiffMarker = 0x4F52; // for ORF files
         final int olympusRawTiffMarker2 = 0x5352; // for ORF files
         final int panasonicRawTiffMarker = 0x0055; // for RW2 files
 
         switch (marker) {
             case standardTiffMarker:
+            case bigTiffMarker:
             case olympusRawTiffMarker:      // TODO implement an IFD0, if there is one
             case olympusRawTiffMarker2:     // TODO implement an IFD0, if there is one
                 pushDirectory(ExifIFD0Directory.class);
@@ -201,6 +225,8 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         // Custom processing for the Makernote tag
         if (tagId == ExifSubIFDDirectory.TAG_MAKERNOTE && _currentDirectory instanceof ExifSubIFDDirectory) {
+            if (!_isMakernoteProcessed)
+                return true;
             return processMakernote(tagOffset, processedIfdOffsets, tiffHeaderOffset, reader);
         }
 
@@ -208,8 +234,7 @@ public class ExifTiffHandler extends DirectoryTiffHandler
         if (tagId == ExifSubIFDDirectory.TAG_IPTC_NAA && _currentDirectory instanceof ExifIFD0Directory) {
             // NOTE Adobe sets type 4 for IPTC instead of 7
             if (reader.getInt8(tagOffset) == 0x1c) {
-                final byte[] iptcBytes = reader.getBytes(tagOffset, byteCount);
-                new IptcReader().extract(new SequentialByteArrayReader(iptcBytes), _metadata, iptcBytes.length, _currentDirectory);
+                new IptcReader().extract(reader.sequentialSlice(tagOffset, byteCount), _metadata, byteCount, _currentDirectory);
                 return true;
             }
             return false;
@@ -217,15 +242,13 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         // Custom processing for ICC Profile data
         if (tagId == ExifSubIFDDirectory.TAG_INTER_COLOR_PROFILE) {
-            final byte[] iccBytes = reader.getBytes(tagOffset, byteCount);
-            new IccReader().extract(new ByteArrayReader(iccBytes), _metadata, _currentDirectory);
+            new IccReader().extract(reader.slice(tagOffset, byteCount), _metadata, _currentDirectory);
             return true;
         }
 
         // Custom processing for Photoshop data
         if (tagId == ExifSubIFDDirectory.TAG_PHOTOSHOP_SETTINGS && _currentDirectory instanceof ExifIFD0Directory) {
-            final byte[] photoshopBytes = reader.getBytes(tagOffset, byteCount);
-            new PhotoshopReader().extract(new SequentialByteArrayReader(photoshopBytes), byteCount, _metadata, _currentDirectory);
+            new PhotoshopReader().extract(reader.sequentialSlice(tagOffset, byteCount), byteCount, _metadata, _currentDirectory);
             return true;
         }
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.metadata.exif;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Directory;
+
+/**
+ * Describes where the value of an Exif tag is stored within a file, as found by {@link ExifEditor}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ExifValueLocation
+{
+    @NotNull
+    private final Class<? extends Directory> _directoryType;
+    private final int _tagId;
+    private final int _formatCode;
+    private final long _componentCount;
+    private final long _offset;
+    private final long _byteCount;
+    private final boolean _isMotorolaByteOrder;
+
+    public ExifValueLocation(@NotNull Class<? extends Directory> directoryType, int tagId, int formatCode, long componentCount, long offset, long byteCount, boolean isMotorolaByteOrder)
+    {
+        _directoryType = directoryType;
+        _tagId = tagId;
+        _formatCode = formatCode;
+        _componentCount = componentCount;
+        _offset = offset;
+        _byteCount = byteCount;
+        _isMotorolaByteOrder = isMotorolaByteOrder;
+    }
+
+    /** Gets the type of directory in which the tag was found. */
+    @NotNull
+    public Class<? extends Directory> getDirectoryType()
+    {
+        return _directoryType;
+    }
+
+    public int getTagId()
+    {
+        return _tagId;
+    }
+
+    /** Gets the TIFF format code of the value, as defined by {@link com.drew.imaging.tiff.TiffDataFormat}. */
+    public int getFormatCode()
+    {
+        return _formatCode;
+    }
+
+    public long getComponentCount()
+    {
+        return _componentCount;
+    }
+
+    /** Gets the position of the value's first byte within the file. */
+    public long getOffset()
+    {
+        return _offset;
+    }
+
+    /** Gets the number of bytes available to the value, which is the most that may be written in place. */
+    public long getByteCount()
+    {
+        return _byteCount;
+    }
+
+    public boolean isMotorolaByteOrder()
+    {
+        return _isMotorolaByteOrder;
+    }
+
+    @Override
+    @NotNull
+    public String toString()
+    {
+        return String.format("%s tag 0x%04X: format %d, %d component(s) at offset %d", _directoryType.getSimpleName(), _tagId, _formatCode, _componentCount, _offset);
+    }
+}
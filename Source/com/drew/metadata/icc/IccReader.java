@@ -20,7 +20,8 @@
  */
 package com.drew.metadata.icc;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegMultiSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentConsumer;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.ByteArrayReader;
 import com.drew.lang.DateUtil;
@@ -31,6 +32,7 @@ import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.MetadataReader;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Collections;
 
@@ -47,7 +49,7 @@ import java.util.Collections;
  * @author Yuri Binev
  * @author Drew Noakes https://drewnoakes.com
  */
-public class IccReader implements JpegSegmentMetadataReader, MetadataReader
+public class IccReader implements JpegMultiSegmentMetadataReader, MetadataReader
 {
     public static final String JPEG_SEGMENT_PREAMBLE = "ICC_PROFILE";
 
@@ -58,35 +60,70 @@ public class IccReader implements JpegSegmentMetadataReader, MetadataReader
     }
 
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        JpegSegmentConsumer consumer = createSegmentConsumer(metadata, segmentType);
+        for (byte[] segmentBytes : segments) {
+            consumer.addSegment(segmentBytes);
+        }
+        consumer.complete();
+    }
+
+    @NotNull
+    public JpegSegmentConsumer createSegmentConsumer(@NotNull final Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         final int preambleLength = JPEG_SEGMENT_PREAMBLE.length();
 
         // ICC data can be spread across multiple JPEG segments.
-        // We concat them together in this buffer for later processing.
-        byte[] buffer = null;
-
-        for (byte[] segmentBytes : segments) {
-            // Skip any segments that do not contain the required preamble
-            if (segmentBytes.length < preambleLength || !JPEG_SEGMENT_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, preambleLength)))
-                continue;
+        // A single segment is read in place, otherwise their payloads are concatenated into one buffer as they arrive.
+        // NOTE we ignore three bytes after the preamble here -- are they useful for anything?
+        return new JpegSegmentConsumer()
+        {
+            @Nullable
+            private byte[] _firstSegment;
+            @Nullable
+            private ByteArrayOutputStream _buffer;
+
+            @Override
+            public void addSegment(@NotNull byte[] segmentBytes)
+            {
+                // Skip any segments that do not contain the required preamble
+                if (!isIccSegment(segmentBytes, preambleLength))
+                    return;
+
+                if (_buffer == null) {
+                    if (_firstSegment == null) {
+                        _firstSegment = segmentBytes;
+                        return;
+                    }
+                    _buffer = new ByteArrayOutputStream();
+                    appendPayload(_firstSegment);
+                    _firstSegment = null;
+                }
+                appendPayload(segmentBytes);
+            }
 
-            // NOTE we ignore three bytes here -- are they useful for anything?
+            @Override
+            public void complete()
+            {
+                if (_buffer != null) {
+                    extract(new ByteArrayReader(_buffer.toByteArray()), metadata);
+                } else if (_firstSegment != null) {
+                    // skip the first 14 bytes
+                    extract(new ByteArrayReader(_firstSegment, 14, _firstSegment.length - 14), metadata);
+                }
+            }
 
-            // Grow the buffer
-            if (buffer == null) {
-                buffer = new byte[segmentBytes.length - 14];
+            private void appendPayload(@NotNull byte[] segmentBytes)
+            {
                 // skip the first 14 bytes
-                System.arraycopy(segmentBytes, 14, buffer, 0, segmentBytes.length - 14);
-            } else {
-                byte[] newBuffer = new byte[buffer.length + segmentBytes.length - 14];
-                System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
-                System.arraycopy(segmentBytes, 14, newBuffer, buffer.length, segmentBytes.length - 14);
-                buffer = newBuffer;
+                _buffer.write(segmentBytes, 14, segmentBytes.length - 14);
             }
-        }
+        };
+    }
 
-        if (buffer != null)
-            extract(new ByteArrayReader(buffer), metadata);
+    private static boolean isIccSegment(@NotNull byte[] segmentBytes, int preambleLength)
+    {
+        return segmentBytes.length >= 14 && JPEG_SEGMENT_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, preambleLength));
     }
 
     public void extract(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata)
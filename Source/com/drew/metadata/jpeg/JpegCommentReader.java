@@ -20,12 +20,14 @@
  */
 package com.drew.metadata.jpeg;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSequentialSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.lang.SequentialReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.StringValue;
 
+import java.io.IOException;
 import java.util.Collections;
 
 /**
@@ -34,7 +36,7 @@ import java.util.Collections;
  *
  * @author Drew Noakes https://drewnoakes.com
  */
-public class JpegCommentReader implements JpegSegmentMetadataReader
+public class JpegCommentReader implements JpegSequentialSegmentMetadataReader
 {
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
@@ -45,11 +47,21 @@ public class JpegCommentReader implements JpegSegmentMetadataReader
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         for (byte[] segmentBytes : segments) {
-            JpegCommentDirectory directory = new JpegCommentDirectory();
-            metadata.addDirectory(directory);
-
-            // The entire contents of the directory are the comment
-            directory.setStringValue(JpegCommentDirectory.TAG_COMMENT, new StringValue(segmentBytes, null));
+            extract(segmentBytes, metadata);
         }
     }
+
+    public void readJpegSegment(@NotNull SequentialReader reader, int segmentLength, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType) throws IOException
+    {
+        extract(reader.getBytes(segmentLength), metadata);
+    }
+
+    private static void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata)
+    {
+        JpegCommentDirectory directory = new JpegCommentDirectory();
+        metadata.addDirectory(directory);
+
+        // The entire contents of the directory are the comment
+        directory.setStringValue(JpegCommentDirectory.TAG_COMMENT, new StringValue(segmentBytes, null));
+    }
 }
@@ -20,7 +20,7 @@
  */
 package com.drew.metadata.jpeg;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSequentialSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -36,7 +36,7 @@ import java.util.Collections;
  *
  * @author Nadahar
  */
-public class JpegDhtReader implements JpegSegmentMetadataReader
+public class JpegDhtReader implements JpegSequentialSegmentMetadataReader
 {
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
@@ -51,6 +51,11 @@ public class JpegDhtReader implements JpegSegmentMetadataReader
         }
     }
 
+    public void readJpegSegment(@NotNull SequentialReader reader, int segmentLength, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        extract(reader, metadata);
+    }
+
     /**
      * Performs the DHT tables extraction, adding found tables to the specified
      * instance of {@link Metadata}.
@@ -20,7 +20,7 @@
  */
 package com.drew.metadata.jpeg;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSequentialSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -36,7 +36,7 @@ import java.util.Arrays;
  * @author Drew Noakes https://drewnoakes.com
  * @author Darrell Silver http://www.darrellsilver.com
  */
-public class JpegReader implements JpegSegmentMetadataReader
+public class JpegReader implements JpegSequentialSegmentMetadataReader
 {
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
@@ -69,7 +69,17 @@ public class JpegReader implements JpegSegmentMetadataReader
         }
     }
 
+    public void readJpegSegment(@NotNull SequentialReader reader, int segmentLength, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        extract(reader, segmentLength, metadata, segmentType);
+    }
+
     public void extract(byte[] segmentBytes, Metadata metadata, JpegSegmentType segmentType)
+    {
+        extract(new SequentialByteArrayReader(segmentBytes), segmentBytes.length, metadata, segmentType);
+    }
+
+    public void extract(@NotNull SequentialReader reader, int segmentLength, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         JpegDirectory directory = new JpegDirectory();
         metadata.addDirectory(directory);
@@ -79,13 +89,11 @@ public class JpegReader implements JpegSegmentMetadataReader
 
         final int JPEG_HEADER_SIZE = 1 + 2 + 2 + 1;
 
-        if (segmentBytes.length < JPEG_HEADER_SIZE) {
+        if (segmentLength < JPEG_HEADER_SIZE) {
             directory.addError("Insufficient bytes for JPEG segment header.");
             return;
         }
 
-        SequentialReader reader = new SequentialByteArrayReader(segmentBytes);
-
         try {
             directory.setInt(JpegDirectory.TAG_DATA_PRECISION, reader.getUInt8());
             directory.setInt(JpegDirectory.TAG_IMAGE_HEIGHT, reader.getUInt16());
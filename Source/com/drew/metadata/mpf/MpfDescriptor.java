@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata.mpf;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.TagDescriptor;
+
+import static com.drew.metadata.mpf.MpfDirectory.*;
+
+/**
+ * Provides human-readable string representations of tag values stored in a {@link MpfDirectory}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@SuppressWarnings("WeakerAccess")
+public class MpfDescriptor extends TagDescriptor<MpfDirectory>
+{
+    public MpfDescriptor(@NotNull MpfDirectory directory)
+    {
+        super(directory);
+    }
+
+    @Override
+    @Nullable
+    public String getDescription(int tagType)
+    {
+        switch (tagType) {
+            case TAG_MPF_VERSION:
+                return getVersionBytesDescription(TAG_MPF_VERSION, 2);
+            case TAG_MP_ENTRY:
+                return getMpEntryDescription();
+            default:
+                return super.getDescription(tagType);
+        }
+    }
+
+    @Nullable
+    public String getMpEntryDescription()
+    {
+        MpfImageEntry[] entries = _directory.getImageEntries();
+        if (entries.length == 0)
+            return null;
+
+        StringBuilder description = new StringBuilder();
+        for (MpfImageEntry entry : entries) {
+            if (description.length() != 0)
+                description.append("; ");
+            description.append(entry);
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata.mpf;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Directory;
+
+import java.util.HashMap;
+
+/**
+ * Describes tags of the Multi-Picture Format (MPF), as defined by CIPA DC-007. MPF data is stored in a JPEG's APP2
+ * segment, and indexes further images (such as large previews, stereo pairs and gain maps) appended to the file.
+ * <p>
+ * Tags from both the MP Index IFD and the MP Attribute IFD are stored in this directory.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@SuppressWarnings("WeakerAccess")
+public class MpfDirectory extends Directory
+{
+    // MP Index IFD
+
+    public static final int TAG_MPF_VERSION = 0xB000;
+    public static final int TAG_NUMBER_OF_IMAGES = 0xB001;
+    /** The list of images, as an array of {@link MpfImageEntry}. */
+    public static final int TAG_MP_ENTRY = 0xB002;
+    public static final int TAG_IMAGE_UID_LIST = 0xB003;
+    public static final int TAG_TOTAL_FRAMES = 0xB004;
+
+    // MP Attribute IFD
+
+    public static final int TAG_MP_INDIVIDUAL_NUM = 0xB101;
+    public static final int TAG_PAN_ORIENTATION = 0xB201;
+    public static final int TAG_PAN_OVERLAP_H = 0xB202;
+    public static final int TAG_PAN_OVERLAP_V = 0xB203;
+    public static final int TAG_BASE_VIEWPOINT_NUM = 0xB204;
+    public static final int TAG_CONVERGENCE_ANGLE = 0xB205;
+    public static final int TAG_BASELINE_LENGTH = 0xB206;
+    public static final int TAG_VERTICAL_DIVERGENCE = 0xB207;
+    public static final int TAG_AXIS_DISTANCE_X = 0xB208;
+    public static final int TAG_AXIS_DISTANCE_Y = 0xB209;
+    public static final int TAG_AXIS_DISTANCE_Z = 0xB20A;
+    public static final int TAG_YAW_ANGLE = 0xB20B;
+    public static final int TAG_PITCH_ANGLE = 0xB20C;
+    public static final int TAG_ROLL_ANGLE = 0xB20D;
+
+    @NotNull
+    private static final HashMap<Integer, String> _tagNameMap = new HashMap<Integer, String>();
+
+    static
+    {
+        _tagNameMap.put(TAG_MPF_VERSION, "MPF Version");
+        _tagNameMap.put(TAG_NUMBER_OF_IMAGES, "Number Of Images");
+        _tagNameMap.put(TAG_MP_ENTRY, "MP Entry");
+        _tagNameMap.put(TAG_IMAGE_UID_LIST, "Image UID List");
+        _tagNameMap.put(TAG_TOTAL_FRAMES, "Total Frames");
+        _tagNameMap.put(TAG_MP_INDIVIDUAL_NUM, "MP Individual Image Number");
+        _tagNameMap.put(TAG_PAN_ORIENTATION, "Panorama Scanning Orientation");
+        _tagNameMap.put(TAG_PAN_OVERLAP_H, "Panorama Horizontal Overlap");
+        _tagNameMap.put(TAG_PAN_OVERLAP_V, "Panorama Vertical Overlap");
+        _tagNameMap.put(TAG_BASE_VIEWPOINT_NUM, "Base Viewpoint Number");
+        _tagNameMap.put(TAG_CONVERGENCE_ANGLE, "Convergence Angle");
+        _tagNameMap.put(TAG_BASELINE_LENGTH, "Baseline Length");
+        _tagNameMap.put(TAG_VERTICAL_DIVERGENCE, "Divergence Angle");
+        _tagNameMap.put(TAG_AXIS_DISTANCE_X, "Horizontal Axis Distance");
+        _tagNameMap.put(TAG_AXIS_DISTANCE_Y, "Vertical Axis Distance");
+        _tagNameMap.put(TAG_AXIS_DISTANCE_Z, "Collimation Axis Distance");
+        _tagNameMap.put(TAG_YAW_ANGLE, "Yaw Angle");
+        _tagNameMap.put(TAG_PITCH_ANGLE, "Pitch Angle");
+        _tagNameMap.put(TAG_ROLL_ANGLE, "Roll Angle");
+    }
+
+    public MpfDirectory()
+    {
+        this.setDescriptor(new MpfDescriptor(this));
+    }
+
+    @Override
+    @NotNull
+    public String getName()
+    {
+        return "MPF";
+    }
+
+    @Override
+    @NotNull
+    protected HashMap<Integer, String> getTagNameMap()
+    {
+        return _tagNameMap;
+    }
+
+    /**
+     * Gets the images listed in the MP Index IFD, or an empty array if there are none. The first entry describes
+     * the primary image.
+     */
+    @NotNull
+    public MpfImageEntry[] getImageEntries()
+    {
+        Object value = getObject(TAG_MP_ENTRY);
+        return value instanceof MpfImageEntry[] ? (MpfImageEntry[])value : new MpfImageEntry[0];
+    }
+}
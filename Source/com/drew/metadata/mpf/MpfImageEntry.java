@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata.mpf;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * An entry of the MP Entry tag in a Multi-Picture Format index, describing one image within the file.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MpfImageEntry
+{
+    /** The size in bytes of an MP Entry value. */
+    public static final int LENGTH = 16;
+
+    public static final int TYPE_UNDEFINED = 0x000000;
+    public static final int TYPE_LARGE_THUMBNAIL_VGA = 0x010001;
+    public static final int TYPE_LARGE_THUMBNAIL_FULL_HD = 0x010002;
+    public static final int TYPE_MULTI_FRAME_PANORAMA = 0x020001;
+    public static final int TYPE_MULTI_FRAME_DISPARITY = 0x020002;
+    public static final int TYPE_MULTI_FRAME_MULTI_ANGLE = 0x020003;
+    public static final int TYPE_BASELINE_MP_PRIMARY = 0x030000;
+
+    private final long _attribute;
+    private final long _size;
+    private final long _offset;
+    private final int _dependentImage1;
+    private final int _dependentImage2;
+
+    public MpfImageEntry(long attribute, long size, long offset, int dependentImage1, int dependentImage2)
+    {
+        _attribute = attribute;
+        _size = size;
+        _offset = offset;
+        _dependentImage1 = dependentImage1;
+        _dependentImage2 = dependentImage2;
+    }
+
+    /** Gets the raw Individual Image Attribute value, combining flags, the data format and the type code. */
+    public long getAttribute()
+    {
+        return _attribute;
+    }
+
+    /** Gets the MP Type code, such as {@link #TYPE_BASELINE_MP_PRIMARY}. */
+    public int getTypeCode()
+    {
+        return (int)(_attribute & 0xFFFFFF);
+    }
+
+    /** Gets the image data format, where zero indicates JPEG. */
+    public int getDataFormat()
+    {
+        return (int)(_attribute >> 24) & 0x7;
+    }
+
+    public boolean isDependentParent()
+    {
+        return (_attribute & 0x80000000L) != 0;
+    }
+
+    public boolean isDependentChild()
+    {
+        return (_attribute & 0x40000000L) != 0;
+    }
+
+    public boolean isRepresentative()
+    {
+        return (_attribute & 0x20000000L) != 0;
+    }
+
+    /** Gets the length of the image's data, in bytes. */
+    public long getSize()
+    {
+        return _size;
+    }
+
+    /**
+     * Gets the offset of the image's data, relative to the start of the MP header (the byte order mark following
+     * the <code>MPF\0</code> identifier in the APP2 segment). This is zero for the primary image.
+     */
+    public long getOffset()
+    {
+        return _offset;
+    }
+
+    public int getDependentImage1()
+    {
+        return _dependentImage1;
+    }
+
+    public int getDependentImage2()
+    {
+        return _dependentImage2;
+    }
+
+    @NotNull
+    public String getTypeDescription()
+    {
+        switch (getTypeCode()) {
+            case TYPE_BASELINE_MP_PRIMARY:
+                return "Baseline MP Primary Image";
+            case TYPE_LARGE_THUMBNAIL_VGA:
+                return "Large Thumbnail (VGA equivalent)";
+            case TYPE_LARGE_THUMBNAIL_FULL_HD:
+                return "Large Thumbnail (Full HD equivalent)";
+            case TYPE_MULTI_FRAME_PANORAMA:
+                return "Multi-frame Panorama";
+            case TYPE_MULTI_FRAME_DISPARITY:
+                return "Multi-frame Disparity";
+            case TYPE_MULTI_FRAME_MULTI_ANGLE:
+                return "Multi-frame Multi-angle";
+            case TYPE_UNDEFINED:
+                return "Undefined";
+            default:
+                return String.format("Unknown (0x%06X)", getTypeCode());
+        }
+    }
+
+    @Override
+    @NotNull
+    public String toString()
+    {
+        return String.format("%s, %d bytes at offset %d", getTypeDescription(), _size, _offset);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata.mpf;
+
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.imaging.tiff.TiffReader;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Decodes Multi-Picture Format (MPF) data, as stored in the APP2 segment of JPEG files produced by many cameras and
+ * phones.
+ * <p>
+ * The images indexed by MPF are appended to the file after the primary image. Use
+ * {@link com.drew.imaging.jpeg.JpegTrailerLocator} to find and read them.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@SuppressWarnings("WeakerAccess")
+public class MpfReader implements JpegSegmentMetadataReader
+{
+    /** MPF data stored in JPEG files' APP2 segment are preceded by this four character preamble "MPF\0". */
+    public static final String JPEG_SEGMENT_PREAMBLE = "MPF\0";
+
+    @NotNull
+    public Iterable<JpegSegmentType> getSegmentTypes()
+    {
+        return Collections.singletonList(JpegSegmentType.APP2);
+    }
+
+    public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        for (byte[] segmentBytes : segments) {
+            if (startsWithMpfPreamble(segmentBytes)) {
+                extract(new ByteArrayReader(segmentBytes), metadata, JPEG_SEGMENT_PREAMBLE.length());
+            }
+        }
+    }
+
+    /** Indicates whether <code>bytes</code> starts with {@link #JPEG_SEGMENT_PREAMBLE}. */
+    public static boolean startsWithMpfPreamble(@NotNull byte[] bytes)
+    {
+        return bytes.length >= JPEG_SEGMENT_PREAMBLE.length() &&
+            new String(bytes, 0, JPEG_SEGMENT_PREAMBLE.length()).equals(JPEG_SEGMENT_PREAMBLE);
+    }
+
+    /** Reads the TIFF-structured MP header at a specified offset within a {@link RandomAccessReader}. */
+    public void extract(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata, int readerOffset)
+    {
+        MpfTiffHandler handler = new MpfTiffHandler(metadata);
+
+        try {
+            new TiffReader().processTiff(reader, handler, readerOffset);
+        } catch (TiffProcessingException e) {
+            handler.error("Exception processing MPF data: " + e.getMessage());
+        } catch (IOException e) {
+            handler.error("Exception processing MPF data: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata.mpf;
+
+import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.imaging.tiff.TiffReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.DirectoryRegistry;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.tiff.DirectoryTiffHandler;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Implementation of {@link com.drew.imaging.tiff.TiffHandler} used for handling the TIFF-structured data of the
+ * Multi-Picture Format, as found in the APP2 segment of JPEG files.
+ * <p>
+ * The MP Index IFD is followed by the MP Attribute IFD, and the tags of both are stored in a single
+ * {@link MpfDirectory}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MpfTiffHandler extends DirectoryTiffHandler
+{
+    static {
+        DirectoryRegistry.register(MpfDirectory.class, MpfDirectory::new);
+    }
+
+    private boolean _hasReadAttributeIfd;
+
+    public MpfTiffHandler(@NotNull Metadata metadata)
+    {
+        super(metadata, null);
+    }
+
+    public void setTiffMarker(int marker) throws TiffProcessingException
+    {
+        if (marker != TiffReader.STANDARD_TIFF_MARKER)
+            throw new TiffProcessingException(String.format("Unexpected TIFF marker: 0x%X", marker));
+
+        pushDirectory(MpfDirectory.class);
+    }
+
+    public boolean tryEnterSubIfd(int tagId)
+    {
+        return false;
+    }
+
+    public boolean hasFollowerIfd()
+    {
+        // The MP Attribute IFD follows the MP Index IFD, and its tags are added to the same directory
+        if (_hasReadAttributeIfd)
+            return false;
+        _hasReadAttributeIfd = true;
+        return true;
+    }
+
+    @Nullable
+    public Long tryCustomProcessFormat(int tagId, int formatCode, long componentCount)
+    {
+        return null;
+    }
+
+    public boolean customProcessTag(int tagOffset, @NotNull Set<Integer> processedIfdOffsets, int tiffHeaderOffset, @NotNull RandomAccessReader reader, int tagId, int byteCount) throws IOException
+    {
+        if (tagId != MpfDirectory.TAG_MP_ENTRY || _currentDirectory == null)
+            return false;
+
+        MpfImageEntry[] entries = new MpfImageEntry[byteCount / MpfImageEntry.LENGTH];
+        for (int i = 0; i < entries.length; i++) {
+            int offset = tagOffset + i * MpfImageEntry.LENGTH;
+            entries[i] = new MpfImageEntry(
+                reader.getUInt32(offset),
+                reader.getUInt32(offset + 4),
+                reader.getUInt32(offset + 8),
+                reader.getUInt16(offset + 12),
+                reader.getUInt16(offset + 14));
+        }
+        _currentDirectory.setObjectArray(MpfDirectory.TAG_MP_ENTRY, entries);
+        return true;
+    }
+}
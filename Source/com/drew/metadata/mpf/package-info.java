@@ -0,0 +1,4 @@
+/**
+ * Contains classes for the extraction and modelling of Multi-Picture Format (MPF) metadata.
+ */
+package com.drew.metadata.mpf;
@@ -20,7 +20,7 @@
  */
 package com.drew.metadata.photoshop;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSequentialSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.Charsets;
 import com.drew.lang.SequentialByteArrayReader;
@@ -37,7 +37,7 @@ import java.util.Collections;
  * @author Drew Noakes https://drewnoakes.com
  */
 @SuppressWarnings("WeakerAccess")
-public class DuckyReader implements JpegSegmentMetadataReader
+public class DuckyReader implements JpegSequentialSegmentMetadataReader
 {
     @NotNull
     private static final String JPEG_SEGMENT_PREAMBLE = "Ducky";
@@ -63,6 +63,17 @@ public class DuckyReader implements JpegSegmentMetadataReader
         }
     }
 
+    public void readJpegSegment(@NotNull SequentialReader reader, int segmentLength, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType) throws IOException
+    {
+        final int preambleLength = JPEG_SEGMENT_PREAMBLE.length();
+
+        // Ensure data starts with the necessary preamble
+        if (segmentLength < preambleLength || !JPEG_SEGMENT_PREAMBLE.equals(new String(reader.getBytes(preambleLength))))
+            return;
+
+        extract(reader, metadata);
+    }
+
     public void extract(@NotNull final SequentialReader reader, @NotNull final Metadata metadata)
     {
         DuckyDirectory directory = new DuckyDirectory();
@@ -23,7 +23,7 @@ package com.drew.metadata.photoshop;
 import com.drew.imaging.ImageProcessingException;
 import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
-import com.drew.lang.ByteArrayReader;
+import com.drew.lang.RandomAccessReader;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
 import com.drew.lang.annotations.NotNull;
@@ -134,8 +134,17 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
                 // 4 bytes for the size of the resource data that follows.
                 int byteCount = reader.getInt32();
                 pos += 4;
-                // The resource data.
-                byte[] tagBytes = reader.getBytes(byteCount);
+                // The resource data. Embedded IPTC, ICC and Exif blocks are read in place rather than copied.
+                boolean isAdobeResource = signature.equals("8BIM");
+                SequentialReader iptcReader = null;
+                RandomAccessReader embeddedReader = null;
+                byte[] tagBytes = null;
+                if (isAdobeResource && tagType == PhotoshopDirectory.TAG_IPTC)
+                    iptcReader = reader.slice(byteCount);
+                else if (isAdobeResource && isRandomAccessResource(tagType))
+                    embeddedReader = reader.randomAccessSlice(byteCount);
+                else
+                    tagBytes = reader.getBytes(byteCount);
                 pos += byteCount;
                 // The number of bytes is padded with a trailing zero, if needed, to make the size even.
                 if (pos % 2 != 0) {
@@ -143,13 +152,13 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
                     pos++;
                 }
 
-                if (signature.equals("8BIM")) {
-                    if (tagType == PhotoshopDirectory.TAG_IPTC)
-                        new IptcReader().extract(new SequentialByteArrayReader(tagBytes), metadata, tagBytes.length, directory);
+                if (isAdobeResource) {
+                    if (iptcReader != null)
+                        new IptcReader().extract(iptcReader, metadata, byteCount, directory);
                     else if (tagType == PhotoshopDirectory.TAG_ICC_PROFILE_BYTES)
-                        new IccReader().extract(new ByteArrayReader(tagBytes), metadata, directory);
+                        new IccReader().extract(embeddedReader, metadata, directory);
                     else if (tagType == PhotoshopDirectory.TAG_EXIF_DATA_1 || tagType == PhotoshopDirectory.TAG_EXIF_DATA_3)
-                        new ExifReader().extract(new ByteArrayReader(tagBytes), metadata, 0, directory);
+                        new ExifReader().extract(embeddedReader, metadata, 0, directory);
                     else if (tagType == PhotoshopDirectory.TAG_XMP_DATA)
                         new XmpReader().extract(tagBytes, metadata, directory);
                     else if (tagType >= 0x07D0 && tagType <= 0x0BB6) {
@@ -177,4 +186,11 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
             }
         }
     }
+
+    private static boolean isRandomAccessResource(int tagType)
+    {
+        return tagType == PhotoshopDirectory.TAG_ICC_PROFILE_BYTES
+            || tagType == PhotoshopDirectory.TAG_EXIF_DATA_1
+            || tagType == PhotoshopDirectory.TAG_EXIF_DATA_3;
+    }
 }
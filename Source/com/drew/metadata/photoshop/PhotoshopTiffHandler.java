@@ -1,8 +1,6 @@
 package com.drew.metadata.photoshop;
 
-import com.drew.lang.ByteArrayReader;
 import com.drew.lang.RandomAccessReader;
-import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
@@ -48,10 +46,10 @@ public class PhotoshopTiffHandler extends ExifTiffHandler
                 new XmpReader().extract(reader.getBytes(tagOffset, byteCount), _metadata);
                 return true;
             case TAG_PHOTOSHOP_IMAGE_RESOURCES:
-                new PhotoshopReader().extract(new SequentialByteArrayReader(reader.getBytes(tagOffset, byteCount)), byteCount, _metadata);
+                new PhotoshopReader().extract(reader.sequentialSlice(tagOffset, byteCount), byteCount, _metadata);
                 return true;
             case TAG_ICC_PROFILES:
-                new IccReader().extract(new ByteArrayReader(reader.getBytes(tagOffset, byteCount)), _metadata);
+                new IccReader().extract(reader.slice(tagOffset, byteCount), _metadata);
                 return true;
         }
 
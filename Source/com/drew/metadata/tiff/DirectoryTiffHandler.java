@@ -25,6 +25,7 @@ import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
+import com.drew.metadata.DirectoryRegistry;
 import com.drew.metadata.ErrorDirectory;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.StringValue;
@@ -38,6 +39,10 @@ import java.util.Stack;
  */
 public abstract class DirectoryTiffHandler implements TiffHandler
 {
+    static {
+        DirectoryRegistry.register(ErrorDirectory.class, ErrorDirectory::new);
+    }
+
     private final Stack<Directory> _directoryStack = new Stack<Directory>();
 
     @Nullable private Directory _rootParentDirectory;
@@ -55,19 +60,12 @@ public abstract class DirectoryTiffHandler implements TiffHandler
         _currentDirectory = _directoryStack.empty() ? null : _directoryStack.pop();
     }
 
+    /**
+     * Creates a directory of type <code>directoryClass</code> via {@link DirectoryRegistry}, and pushes it.
+     */
     protected void pushDirectory(@NotNull Class<? extends Directory> directoryClass)
     {
-        Directory newDirectory;
-
-        try {
-            newDirectory = directoryClass.newInstance();
-        } catch (InstantiationException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
-
-        pushDirectory(newDirectory);
+        pushDirectory(DirectoryRegistry.create(directoryClass));
     }
 
     protected void pushDirectory(@NotNull Directory directory)
@@ -23,6 +23,7 @@ package com.drew.metadata.xmp;
 import com.adobe.internal.xmp.XMPException;
 import com.adobe.internal.xmp.XMPIterator;
 import com.adobe.internal.xmp.XMPMeta;
+import com.adobe.internal.xmp.XMPMetaFactory;
 import com.adobe.internal.xmp.impl.XMPMetaImpl;
 import com.adobe.internal.xmp.options.IteratorOptions;
 import com.adobe.internal.xmp.properties.XMPPropertyInfo;
@@ -59,6 +60,10 @@ public class XmpDirectory extends Directory
     @Nullable
     private XMPMeta _xmpMeta;
 
+    /** Serialized XMP data that has not yet been parsed into {@link #_xmpMeta}. */
+    @Nullable
+    private byte[] _xmpBytes;
+
     public XmpDirectory()
     {
         this.setDescriptor(new XmpDescriptor(this));
@@ -89,11 +94,12 @@ public class XmpDirectory extends Directory
     {
         Map<String, String> propertyValueByPath = new HashMap<String, String>();
 
-        if (_xmpMeta != null)
+        XMPMeta xmpMeta = getParsedXMPMeta();
+        if (xmpMeta != null)
         {
             try {
                 IteratorOptions options = new IteratorOptions().setJustLeafnodes(true);
-                for (XMPIterator i = _xmpMeta.iterator(options); i.hasNext(); ) {
+                for (XMPIterator i = xmpMeta.iterator(options); i.hasNext(); ) {
                     XMPPropertyInfo prop = (XMPPropertyInfo)i.next();
                     String path = prop.getPath();
                     String value = prop.getValue();
@@ -111,6 +117,7 @@ public class XmpDirectory extends Directory
     public void setXMPMeta(@NotNull XMPMeta xmpMeta)
     {
         _xmpMeta = xmpMeta;
+        _xmpBytes = null;
 
         try {
             int valueCount = 0;
@@ -133,8 +140,33 @@ public class XmpDirectory extends Directory
     @NotNull
     public XMPMeta getXMPMeta()
     {
-        if (_xmpMeta == null)
-            _xmpMeta = new XMPMetaImpl();
+        XMPMeta xmpMeta = getParsedXMPMeta();
+        if (xmpMeta == null)
+            _xmpMeta = xmpMeta = new XMPMetaImpl();
+        return xmpMeta;
+    }
+
+    /**
+     * Sets serialized XMP data, which is only parsed once it is needed. Unlike {@link #setXMPMeta(XMPMeta)}, the
+     * value of {@link #TAG_XMP_VALUE_COUNT} is not updated, so should be set by the caller.
+     */
+    public void setXMPMetaBytes(@NotNull byte[] xmpBytes)
+    {
+        _xmpMeta = null;
+        _xmpBytes = xmpBytes;
+    }
+
+    @Nullable
+    private XMPMeta getParsedXMPMeta()
+    {
+        if (_xmpMeta == null && _xmpBytes != null) {
+            try {
+                _xmpMeta = XMPMetaFactory.parseFromBuffer(_xmpBytes);
+            } catch (XMPException e) {
+                addError("Error processing XMP data: " + e.getMessage());
+            }
+            _xmpBytes = null;
+        }
         return _xmpMeta;
     }
 }
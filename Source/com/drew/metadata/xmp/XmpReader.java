@@ -27,7 +27,8 @@ import com.adobe.internal.xmp.XMPMetaFactory;
 import com.adobe.internal.xmp.impl.ByteBuffer;
 import com.adobe.internal.xmp.options.ParseOptions;
 import com.adobe.internal.xmp.properties.XMPPropertyInfo;
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegMultiSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentConsumer;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -55,7 +56,7 @@ import java.util.Collections;
  * @author Drew Noakes https://drewnoakes.com
  * @author https://github.com/bezineb5
  */
-public class XmpReader implements JpegSegmentMetadataReader
+public class XmpReader implements JpegMultiSegmentMetadataReader
 {
     @NotNull
     private static final String XMP_JPEG_PREAMBLE = "http://ns.adobe.com/xap/1.0/\0";
@@ -91,43 +92,63 @@ public class XmpReader implements JpegSegmentMetadataReader
      * @param segmentType The {@link JpegSegmentType} being read.
      */
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        JpegSegmentConsumer consumer = createSegmentConsumer(metadata, segmentType);
+        for (byte[] segmentBytes : segments) {
+            consumer.addSegment(segmentBytes);
+        }
+        consumer.complete();
+    }
+
+    @NotNull
+    public JpegSegmentConsumer createSegmentConsumer(@NotNull final Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         final int preambleLength = XMP_JPEG_PREAMBLE.length();
         final int extensionPreambleLength = XMP_EXTENSION_JPEG_PREAMBLE.length();
-        String extendedXMPGUID = null;
-        byte[] extendedXMPBuffer = null;
 
-        for (byte[] segmentBytes : segments) {
-            // XMP in a JPEG file has an identifying preamble which is not valid XML
-            if (segmentBytes.length >= preambleLength) {
-                // NOTE we expect the full preamble here, but some images (such as that reported on GitHub #102)
-                // start with "XMP\0://ns.adobe.com/xap/1.0/" which appears to be an error but is easily recovered
-                // from. In such cases, the actual XMP data begins at the same offset.
-                if (XMP_JPEG_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, preambleLength)) ||
-                    "XMP".equalsIgnoreCase(new String(segmentBytes, 0, 3))) {
-
-                    byte[] xmlBytes = new byte[segmentBytes.length - preambleLength];
-                    System.arraycopy(segmentBytes, preambleLength, xmlBytes, 0, xmlBytes.length);
-                    extract(xmlBytes, metadata);
-                    // Check in the Standard XMP if there should be a Extended XMP part in other chunks.
-                    extendedXMPGUID = getExtendedXMPGUID(metadata);
-                    continue;
+        return new JpegSegmentConsumer()
+        {
+            @Nullable
+            private String _extendedXMPGUID;
+            @Nullable
+            private byte[] _extendedXMPBuffer;
+
+            @Override
+            public void addSegment(@NotNull byte[] segmentBytes)
+            {
+                // XMP in a JPEG file has an identifying preamble which is not valid XML
+                if (segmentBytes.length >= preambleLength) {
+                    // NOTE we expect the full preamble here, but some images (such as that reported on GitHub #102)
+                    // start with "XMP\0://ns.adobe.com/xap/1.0/" which appears to be an error but is easily recovered
+                    // from. In such cases, the actual XMP data begins at the same offset.
+                    if (XMP_JPEG_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, preambleLength)) ||
+                        "XMP".equalsIgnoreCase(new String(segmentBytes, 0, 3))) {
+
+                        extract(segmentBytes, preambleLength, segmentBytes.length - preambleLength, metadata, null);
+                        // Check in the Standard XMP if there should be a Extended XMP part in other chunks.
+                        _extendedXMPGUID = getExtendedXMPGUID(metadata);
+                        return;
+                    }
                 }
-            }
 
-            // If we know that there's Extended XMP chunks, look for them.
-            if (extendedXMPGUID != null &&
-                segmentBytes.length >= extensionPreambleLength &&
-                XMP_EXTENSION_JPEG_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, extensionPreambleLength))) {
+                // If we know that there's Extended XMP chunks, look for them.
+                if (_extendedXMPGUID != null &&
+                    segmentBytes.length >= extensionPreambleLength &&
+                    XMP_EXTENSION_JPEG_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, extensionPreambleLength))) {
 
-                extendedXMPBuffer = processExtendedXMPChunk(metadata, segmentBytes, extendedXMPGUID, extendedXMPBuffer);
+                    _extendedXMPBuffer = processExtendedXMPChunk(metadata, segmentBytes, _extendedXMPGUID, _extendedXMPBuffer);
+                }
             }
-        }
 
-        // Now that the Extended XMP chunks have been concatenated, let's parse and merge with the Standard XMP.
-        if (extendedXMPBuffer != null) {
-            extract(extendedXMPBuffer, metadata);
-        }
+            @Override
+            public void complete()
+            {
+                // Now that the Extended XMP chunks have been concatenated, let's parse and merge with the Standard XMP.
+                if (_extendedXMPBuffer != null) {
+                    extract(_extendedXMPBuffer, metadata);
+                }
+            }
+        };
     }
 
     /**
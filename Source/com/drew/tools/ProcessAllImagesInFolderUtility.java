@@ -29,6 +29,7 @@ import com.adobe.internal.xmp.properties.XMPPropertyInfo;
 import com.drew.imaging.FileType;
 import com.drew.imaging.FileTypeDetector;
 import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.MetadataCache;
 import com.drew.lang.StringUtil;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
@@ -57,6 +58,7 @@ public class ProcessAllImagesInFolderUtility
         List<String> directories = new ArrayList<String>();
 
         FileHandler handler = null;
+        MetadataCache cache = null;
         PrintStream log = System.out;
 
         for (int i = 0; i < args.length; i++) {
@@ -76,6 +78,13 @@ public class ProcessAllImagesInFolderUtility
                     System.exit(1);
                 }
                 log = new PrintStream(new FileOutputStream(args[++i], false), true);
+            } else if (arg.equalsIgnoreCase("--cache")) {
+                // If "--cache" is specified, only extract metadata from files that changed since the previous run
+                if (i == args.length - 1) {
+                    printUsage();
+                    System.exit(1);
+                }
+                cache = new MetadataCache(new File(args[++i]));
             } else {
                 // Treat this argument as a directory
                 directories.add(arg);
@@ -95,11 +104,16 @@ public class ProcessAllImagesInFolderUtility
         long start = System.nanoTime();
 
         for (String directory : directories) {
-            processDirectory(new File(directory), handler, "", log);
+            processDirectory(new File(directory), handler, cache, "", log);
         }
 
         handler.onScanCompleted(log);
 
+        if (cache != null) {
+            log.println(String.format("Cache served %d files and extracted %d", cache.getHitCount(), cache.getMissCount()));
+            cache.close();
+        }
+
         System.out.println(String.format("Completed in %d ms", (System.nanoTime() - start) / 1000000));
 
         if (log != System.out) {
@@ -111,10 +125,10 @@ public class ProcessAllImagesInFolderUtility
     {
         System.out.println("Usage:");
         System.out.println();
-        System.out.println("  java com.drew.tools.ProcessAllImagesInFolderUtility [--text|--markdown|--unknown] [--log-file <file-name>]");
+        System.out.println("  java com.drew.tools.ProcessAllImagesInFolderUtility [--text|--markdown|--unknown] [--log-file <file-name>] [--cache <file-name>]");
     }
 
-    private static void processDirectory(@NotNull File path, @NotNull FileHandler handler, @NotNull String relativePath, PrintStream log)
+    private static void processDirectory(@NotNull File path, @NotNull FileHandler handler, @Nullable MetadataCache cache, @NotNull String relativePath, PrintStream log)
     {
         handler.onStartingDirectory(path);
 
@@ -131,7 +145,7 @@ public class ProcessAllImagesInFolderUtility
             File file = new File(path, pathItem);
 
             if (file.isDirectory()) {
-                processDirectory(file, handler, relativePath.length() == 0 ? pathItem : relativePath + "/" + pathItem, log);
+                processDirectory(file, handler, cache, relativePath.length() == 0 ? pathItem : relativePath + "/" + pathItem, log);
             } else if (handler.shouldProcess(file)) {
 
                 handler.onBeforeExtraction(file, log, relativePath);
@@ -139,7 +153,7 @@ public class ProcessAllImagesInFolderUtility
                 // Read metadata
                 final Metadata metadata;
                 try {
-                    metadata = ImageMetadataReader.readMetadata(file);
+                    metadata = cache != null ? cache.readMetadata(file) : ImageMetadataReader.readMetadata(file);
                 } catch (Throwable t) {
                     handler.onExtractionError(file, t, log);
                     continue;
@@ -24,7 +24,10 @@ import org.junit.Test;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 import static org.junit.Assert.assertEquals;
 
@@ -86,4 +89,46 @@ public class FileTypeDetectorTest
     {
         assertEquals(FileType.Unknown, detect(box(0x08, "junk", "\0\0\0\0junk")));
     }
+
+    @Test
+    public void testDetectFromPrefix() throws Exception
+    {
+        byte[] mp4 = box(0x18, "ftyp", "isom\0\0\0\0");
+        assertEquals(FileType.Mp4, FileTypeDetector.detectFileType(mp4, null));
+        assertEquals(FileType.Mp4, FileTypeDetector.detectFileType(ByteBuffer.wrap(mp4), null));
+        assertEquals(FileType.Mp4, FileTypeDetector.detectFileType(ByteBuffer.wrap(mp4).asReadOnlyBuffer(), null));
+
+        // short prefixes are padded for the fixed checkers
+        assertEquals(FileType.Jpeg, FileTypeDetector.detectFileType(new byte[]{(byte)0xFF, (byte)0xD8}, null));
+
+        // the buffer's remaining bytes are examined, without moving its position
+        ByteBuffer buffer = ByteBuffer.allocate(mp4.length + 3);
+        buffer.put(new byte[3]).put(mp4);
+        ((Buffer)buffer).position(3);
+        assertEquals(FileType.Mp4, FileTypeDetector.detectFileType(buffer, null));
+        assertEquals(3, buffer.position());
+
+        // bytes beyond the buffer's limit are not examined, even when they are in its backing array
+        byte[] wav = new byte[FileTypeDetector.getBytesNeeded()];
+        System.arraycopy("RIFF\0\0\0\0WAVE".getBytes(), 0, wav, 0, 12);
+        assertEquals(FileType.Wav, FileTypeDetector.detectFileType(ByteBuffer.wrap(wav), null));
+        buffer = ByteBuffer.wrap(wav);
+        ((Buffer)buffer).limit(8);
+        assertEquals(FileType.Riff, FileTypeDetector.detectFileType(buffer, null));
+
+        // the extension is used to disambiguate
+        assertEquals(FileType.Arw, FileTypeDetector.detectFileType(new byte[]{'I', 'I', 0x2a, 0x00}, "image.arw"));
+    }
+
+    @Test
+    public void testDetectFromPath() throws Exception
+    {
+        DetectedFileType detected = FileTypeDetector.detectFileType(new File("Tests/Data/withExif.jpg").toPath());
+
+        assertEquals(FileType.Jpeg, detected.getFileType());
+        ByteBuffer prefix = detected.getPrefix();
+        assertEquals(FileTypeDetector.getBytesNeeded(), prefix.remaining());
+        assertEquals((byte)0xFF, prefix.get(0));
+        assertEquals((byte)0xD8, prefix.get(1));
+    }
 }
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.CoalescingByteSource;
+import com.drew.lang.LatencySimulatingByteSource;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataProjection;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.GpsDirectory;
+import com.drew.metadata.exif.makernotes.NikonType1MakernoteDirectory;
+import com.drew.metadata.file.FileSystemDirectory;
+import com.drew.metadata.file.FileTypeDirectory;
+import com.drew.metadata.jfif.JfifDirectory;
+import com.drew.metadata.jpeg.HuffmanTablesDirectory;
+import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.png.PngDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ImageMetadataReaderTest
+{
+    @Test
+    public void testReadMetadataFromPathMatchesStream() throws Exception
+    {
+        String[] fileNames = {
+            "withExifAndIptc.jpg",
+            "8x4x8bit-Grayscale.psd",
+            "8x4x8bit-Grayscale.eps",
+            "mspaint-10x10.gif",
+            "24bpp-10x10.bmp",
+            "photoshop-8x12-rgb24-all-metadata.png"
+        };
+
+        for (String fileName : fileNames) {
+            File file = new File("Tests/Data/" + fileName);
+
+            Metadata fromPath = ImageMetadataReader.readMetadata(file.toPath());
+            assertNotNull(fromPath.getFirstDirectoryOfType(FileSystemDirectory.class));
+
+            Metadata fromStream;
+            InputStream inputStream = new FileInputStream(file);
+            try {
+                fromStream = ImageMetadataReader.readMetadata(inputStream, file.length(), fileName);
+            } finally {
+                inputStream.close();
+            }
+
+            assertEquals(fileName, describe(fromStream), describe(fromPath));
+        }
+    }
+
+    @Test
+    public void testReadTiffFromChannelAtOffset() throws Exception
+    {
+        byte[] tiff = new byte[]{
+            0x01, 0x02, 0x03,
+            'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08,
+            0x00, 0x01,
+            0x01, 0x00, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01, 0x00, 0x0A, 0x00, 0x00,
+            0x00, 0x00, 0x00, 0x00
+        };
+
+        File file = File.createTempFile("metadata-extractor-test-", ".tmp");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                stream.write(tiff);
+            } finally {
+                stream.close();
+            }
+
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                channel.position(3);
+
+                Metadata metadata = ImageMetadataReader.readMetadata(channel);
+
+                assertEquals(FileType.Tiff.getName(), metadata.getFirstDirectoryOfType(FileTypeDirectory.class).getString(FileTypeDirectory.TAG_DETECTED_FILE_TYPE_NAME));
+                ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+                assertNotNull(directory);
+                assertEquals(10, directory.getInt(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+            } finally {
+                randomAccessFile.close();
+            }
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void testReadBigTiffFromChannelWithIfdBeyond2GB() throws Exception
+    {
+        // A 3 GB BigTIFF whose only IFD is near the end, read by position rather than buffered through a stream
+        long ifdOffset = 3L * 1024 * 1024 * 1024;
+        byte[] header = new byte[]{'I', 'I', 0x2B, 0, 8, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        for (int i = 0; i < 8; i++)
+            header[8 + i] = (byte)(ifdOffset >> (8 * i));
+        byte[] ifd = new byte[]{
+            1, 0, 0, 0, 0, 0, 0, 0,
+            0x00, 0x01, 3, 0, 1, 0, 0, 0, 0, 0, 0, 0, 64, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+        };
+        SparseChannel channel = new SparseChannel(ifdOffset + ifd.length, header, ifdOffset, ifd);
+
+        Metadata metadata = ImageMetadataReader.readMetadata(channel);
+
+        ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(directory);
+        assertFalse(metadata.hasErrors());
+        assertEquals(64, directory.getInt(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+        assertTrue(channel.getBytesRead() < 64 * 1024);
+    }
+
+    @Test
+    public void testReadTiffFromByteSourceFetchesFewRanges() throws Exception
+    {
+        // A 4 MB TIFF whose only IFD is at the end of the file
+        byte[] bytes = new byte[4 * 1024 * 1024];
+        int ifdOffset = bytes.length - 32;
+        byte[] header = new byte[]{'M', 'M', 0x00, 0x2A, (byte)(ifdOffset >> 24), (byte)(ifdOffset >> 16), (byte)(ifdOffset >> 8), (byte)ifdOffset};
+        byte[] ifd = new byte[]{
+            0x00, 0x01,
+            0x01, 0x00, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01, 0x00, 0x0A, 0x00, 0x00,
+            0x00, 0x00, 0x00, 0x00
+        };
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        System.arraycopy(ifd, 0, bytes, ifdOffset, ifd.length);
+
+        LatencySimulatingByteSource remote = new LatencySimulatingByteSource(bytes, 5);
+        CoalescingByteSource source = new CoalescingByteSource(remote);
+
+        Metadata metadata = ImageMetadataReader.readMetadata(source, null);
+
+        ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(directory);
+        assertEquals(10, directory.getInt(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+        assertTrue(source.getFetchCount() <= 4);
+        assertTrue(remote.getRequestCount() <= 4);
+        assertTrue(source.getFetchedByteCount() < bytes.length / 8);
+    }
+
+    @Test
+    public void testReadMp4FromByteSourceSkipsMediaData() throws Exception
+    {
+        // ftyp, then 4 MB of media data, then an (empty) moov box
+        int mdatLength = 4 * 1024 * 1024;
+        byte[] bytes = new byte[16 + mdatLength + 8];
+        byte[] ftyp = new byte[]{0x00, 0x00, 0x00, 0x10, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm', 0x00, 0x00, 0x00, 0x00};
+        System.arraycopy(ftyp, 0, bytes, 0, ftyp.length);
+        byte[] mdat = new byte[]{(byte)(mdatLength >> 24), (byte)(mdatLength >> 16), (byte)(mdatLength >> 8), (byte)mdatLength, 'm', 'd', 'a', 't'};
+        System.arraycopy(mdat, 0, bytes, 16, mdat.length);
+        byte[] moov = new byte[]{0x00, 0x00, 0x00, 0x08, 'm', 'o', 'o', 'v'};
+        System.arraycopy(moov, 0, bytes, 16 + mdatLength, moov.length);
+
+        LatencySimulatingByteSource remote = new LatencySimulatingByteSource(bytes, 5);
+        CoalescingByteSource source = new CoalescingByteSource(remote);
+
+        Metadata metadata = ImageMetadataReader.readMetadata(source, null);
+
+        assertEquals(FileType.Mp4.getName(), metadata.getFirstDirectoryOfType(FileTypeDirectory.class).getString(FileTypeDirectory.TAG_DETECTED_FILE_TYPE_NAME));
+        assertTrue(source.getFetchCount() <= 4);
+        assertTrue(source.getFetchedByteCount() < bytes.length / 8);
+    }
+
+    @Test
+    public void testProjectionSkipsUnprojectedJpegSegmentsAndMakernotes() throws Exception
+    {
+        File file = new File("Tests/Data/nikonMakernoteType1.jpg");
+
+        MetadataProjection projection = new MetadataProjection();
+        projection.addTags(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE, ExifIFD0Directory.TAG_MODEL, ExifIFD0Directory.TAG_ORIENTATION);
+        projection.addTags(ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
+        projection.addDirectory(GpsDirectory.class);
+        projection.addTags(JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH, JpegDirectory.TAG_IMAGE_HEIGHT);
+
+        Metadata full = ImageMetadataReader.readMetadata(file.toPath());
+        Metadata projected = ImageMetadataReader.readMetadata(file.toPath(), projection);
+
+        assertNotNull(full.getFirstDirectoryOfType(NikonType1MakernoteDirectory.class));
+        assertNotNull(full.getFirstDirectoryOfType(JfifDirectory.class));
+
+        assertNull(projected.getFirstDirectoryOfType(NikonType1MakernoteDirectory.class));
+        assertNull(projected.getFirstDirectoryOfType(JfifDirectory.class));
+        assertNull(projected.getFirstDirectoryOfType(HuffmanTablesDirectory.class));
+        assertEquals(
+            full.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MAKE),
+            projected.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MAKE));
+        assertEquals(
+            full.getFirstDirectoryOfType(JpegDirectory.class).getInt(JpegDirectory.TAG_IMAGE_WIDTH),
+            projected.getFirstDirectoryOfType(JpegDirectory.class).getInt(JpegDirectory.TAG_IMAGE_WIDTH));
+    }
+
+    @Test
+    public void testProjectionSkipsUnprojectedPngChunks() throws Exception
+    {
+        File file = new File("Tests/Data/photoshop-8x12-rgb24-all-metadata.png");
+
+        MetadataProjection projection = new MetadataProjection();
+        projection.addTags(PngDirectory.class, PngDirectory.TAG_IMAGE_WIDTH, PngDirectory.TAG_IMAGE_HEIGHT);
+
+        Metadata full = ImageMetadataReader.readMetadata(file.toPath());
+        Metadata projected = ImageMetadataReader.readMetadata(file.toPath(), projection);
+
+        assertNotNull(full.getFirstDirectoryOfType(XmpDirectory.class));
+        assertNull(projected.getFirstDirectoryOfType(XmpDirectory.class));
+
+        Collection<PngDirectory> pngDirectories = projected.getDirectoriesOfType(PngDirectory.class);
+        assertEquals(1, pngDirectories.size());
+        assertEquals(8, pngDirectories.iterator().next().getInt(PngDirectory.TAG_IMAGE_WIDTH));
+    }
+
+    private static List<String> describe(Metadata metadata)
+    {
+        List<String> descriptions = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            if (directory instanceof FileSystemDirectory)
+                continue;
+            descriptions.add(directory.getName() + " " + directory.getTagCount() + " " + directory.getErrorCount());
+        }
+        return descriptions;
+    }
+
+    /** A read-only channel of zeros, other than two regions of given bytes, which counts the bytes read from it. */
+    private static class SparseChannel implements SeekableByteChannel
+    {
+        private final long _size;
+        private final byte[] _head;
+        private final long _tailPosition;
+        private final byte[] _tail;
+        private long _position;
+        private long _bytesRead;
+
+        SparseChannel(long size, byte[] head, long tailPosition, byte[] tail)
+        {
+            _size = size;
+            _head = head;
+            _tailPosition = tailPosition;
+            _tail = tail;
+        }
+
+        long getBytesRead()
+        {
+            return _bytesRead;
+        }
+
+        @Override
+        public int read(ByteBuffer dst)
+        {
+            if (_position >= _size)
+                return -1;
+            int count = (int)Math.min(dst.remaining(), _size - _position);
+            for (int i = 0; i < count; i++, _position++) {
+                byte b = 0;
+                if (_position < _head.length)
+                    b = _head[(int)_position];
+                else if (_position >= _tailPosition)
+                    b = _tail[(int)(_position - _tailPosition)];
+                dst.put(b);
+            }
+            _bytesRead += count;
+            return count;
+        }
+
+        @Override
+        public int write(ByteBuffer src)
+        {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position()
+        {
+            return _position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition)
+        {
+            _position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size()
+        {
+            return _size;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size)
+        {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
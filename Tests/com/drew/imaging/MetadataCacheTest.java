@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataCacheTest
+{
+    private File _cacheFile;
+    private File _imageFile;
+    private File _otherImageFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        _cacheFile = File.createTempFile("metadata-extractor-", ".cache");
+        _imageFile = File.createTempFile("metadata-extractor-", ".jpg");
+        _otherImageFile = File.createTempFile("metadata-extractor-", ".png");
+        Files.copy(new File("Tests/Data/nikonMakernoteType1.jpg").toPath(), _imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(new File("Tests/Data/mspaint-8x10.png").toPath(), _otherImageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @After
+    public void tearDown()
+    {
+        _cacheFile.delete();
+        _imageFile.delete();
+        _otherImageFile.delete();
+    }
+
+    @Test
+    public void testUnchangedFilesAreServedFromCache() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(_cacheFile);
+        Metadata extracted = cache.readMetadata(_imageFile);
+        Metadata cached = cache.readMetadata(_imageFile);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(
+            extracted.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MODEL),
+            cached.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MODEL));
+        cache.close();
+
+        // Entries persist across instances
+        cache = new MetadataCache(_cacheFile);
+        assertEquals(1, cache.getEntryCount());
+        cache.readMetadata(_imageFile);
+        assertEquals(1, cache.getHitCount());
+
+        // A changed file is extracted again
+        assertTrue(_imageFile.setLastModified(_imageFile.lastModified() - 60000));
+        cache.readMetadata(_imageFile);
+        assertEquals(1, cache.getMissCount());
+        cache.readMetadata(_imageFile);
+        assertEquals(2, cache.getHitCount());
+        cache.close();
+    }
+
+    @Test
+    public void testIncompleteRecordIsDiscarded() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(_cacheFile);
+        cache.readMetadata(_imageFile);
+        cache.readMetadata(_otherImageFile);
+        cache.close();
+
+        // Simulate a crash part way through appending the second record
+        long length = _cacheFile.length();
+        RandomAccessFile raf = new RandomAccessFile(_cacheFile, "rw");
+        raf.setLength(length - 10);
+        raf.close();
+
+        cache = new MetadataCache(_cacheFile);
+        assertEquals(1, cache.getEntryCount());
+        cache.readMetadata(_imageFile);
+        cache.readMetadata(_otherImageFile);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.close();
+
+        cache = new MetadataCache(_cacheFile);
+        assertEquals(2, cache.getEntryCount());
+        cache.close();
+    }
+
+    @Test
+    public void testDifferentVersionStampClearsEntries() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(_cacheFile);
+        cache.readMetadata(_imageFile);
+        cache.close();
+
+        // Alter the version stamp, which follows the magic number, format version and stamp length
+        RandomAccessFile raf = new RandomAccessFile(_cacheFile, "rw");
+        raf.seek(10);
+        raf.write('X');
+        raf.close();
+
+        cache = new MetadataCache(_cacheFile);
+        assertEquals(0, cache.getEntryCount());
+        cache.close();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(_cacheFile, 1, MetadataCache.DEFAULT_MAX_BYTE_COUNT, true);
+        cache.readMetadata(_imageFile);
+        long lengthWithOneEntry = _cacheFile.length();
+        cache.readMetadata(_otherImageFile);
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.readMetadata(_otherImageFile);
+        assertEquals(1, cache.getHitCount());
+
+        // The evicted record is larger than the live one, so is removed on close
+        cache.close();
+        assertTrue(_cacheFile.length() < lengthWithOneEntry);
+
+        cache = new MetadataCache(_cacheFile, 1, MetadataCache.DEFAULT_MAX_BYTE_COUNT, true);
+        cache.readMetadata(_otherImageFile);
+        assertEquals(1, cache.getHitCount());
+
+        // Content changes are detected even if length and last-modified time are not
+        long lastModified = _otherImageFile.lastModified();
+        RandomAccessFile raf = new RandomAccessFile(_otherImageFile, "rw");
+        raf.seek(raf.length() - 1);
+        int last = raf.read();
+        raf.seek(raf.length() - 1);
+        raf.write(last ^ 0xFF);
+        raf.close();
+        assertTrue(_otherImageFile.setLastModified(lastModified));
+        cache.readMetadata(_otherImageFile);
+        assertEquals(1, cache.getMissCount());
+        cache.close();
+    }
+
+    @Test
+    public void testFailedCompactionKeepsEntriesReadable() throws Exception
+    {
+        final boolean[] isReplaceFailing = { true };
+        MetadataCache cache = new MetadataCache(_cacheFile, 1, MetadataCache.DEFAULT_MAX_BYTE_COUNT, false)
+        {
+            @Override
+            void replaceFile(File source, File target) throws IOException
+            {
+                if (isReplaceFailing[0])
+                    throw new IOException("Simulated failure");
+                super.replaceFile(source, target);
+            }
+        };
+
+        // Evicting the first record means the live record would move when compacted
+        cache.readMetadata(_imageFile);
+        cache.readMetadata(_otherImageFile);
+        long length = _cacheFile.length();
+
+        try {
+            cache.compact();
+            fail("Expected an exception");
+        } catch (IOException e) {
+            assertEquals("Simulated failure", e.getMessage());
+        }
+
+        // The original file is unchanged, and entries still refer to their records within it
+        assertEquals(length, _cacheFile.length());
+        cache.readMetadata(_otherImageFile);
+        assertEquals(1, cache.getHitCount());
+
+        isReplaceFailing[0] = false;
+        cache.compact();
+        assertTrue(_cacheFile.length() < length);
+        cache.readMetadata(_otherImageFile);
+        assertEquals(2, cache.getHitCount());
+        cache.close();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static com.drew.imaging.jpeg.JpegTestData.frame;
+import static com.drew.imaging.jpeg.JpegTestData.jpeg;
+import static com.drew.imaging.jpeg.JpegTestData.segment;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PreviewLocator}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class PreviewLocatorTest
+{
+    private File _file;
+
+    @After
+    public void deleteFile()
+    {
+        if (_file != null && !_file.delete())
+            _file.deleteOnExit();
+    }
+
+    @Test
+    public void testJpegExifThumbnail() throws Exception
+    {
+        byte[] thumbnail = jpeg(frame(0xC0, 8, 6));
+
+        // TIFF header, IFD0 with an orientation tag, then IFD1 referencing the thumbnail
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 18 + 30 + thumbnail.length).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put(new byte[]{'I', 'I', 0x2A, 0x00}).putInt(8);
+        tiff.putShort((short)1);
+        putEntry(tiff, 0x0112, 3, 1);
+        tiff.putInt(26);
+        tiff.putShort((short)2);
+        putEntry(tiff, 0x0201, 4, 56);
+        putEntry(tiff, 0x0202, 4, thumbnail.length);
+        tiff.putInt(0);
+        tiff.put(thumbnail);
+
+        ByteArrayOutputStream app1 = new ByteArrayOutputStream();
+        app1.write("Exif\0\0".getBytes("US-ASCII"));
+        app1.write(tiff.array());
+
+        byte[] file = jpeg(segment(0xE1, app1.toByteArray()), frame(0xC0, 640, 480));
+        writeFile(file);
+
+        List<EmbeddedPreview> previews = PreviewLocator.locate(_file.toPath());
+
+        assertEquals(1, previews.size());
+        EmbeddedPreview preview = previews.get(0);
+        assertEquals("Exif Thumbnail", preview.getSource());
+        // SOI, the APP1 marker and length, "Exif\0\0" and the thumbnail's offset from the TIFF header
+        assertEquals(2 + 4 + 6 + 56, preview.getOffset());
+        assertEquals(thumbnail.length, preview.getLength());
+        assertEquals("image/jpeg", preview.getMimeType());
+        assertEquals(Integer.valueOf(8), preview.getWidth());
+        assertEquals(Integer.valueOf(6), preview.getHeight());
+
+        assertArrayEquals(thumbnail, transfer(preview));
+    }
+
+    @Test
+    public void testTiffPreviewsExcludeLosslessImageData() throws Exception
+    {
+        byte[] raw = jpeg(frame(0xC3, 4000, 3000));
+        byte[] preview = jpeg(frame(0xC0, 160, 120));
+
+        // IFD0 holds lossless JPEG compressed raw data in a single strip, and IFD1 references a preview
+        int ifd1Offset = 8 + 2 + 3 * 12 + 4;
+        int rawOffset = ifd1Offset + 2 + 2 * 12 + 4;
+        int previewOffset = rawOffset + raw.length;
+
+        ByteBuffer tiff = ByteBuffer.allocate(previewOffset + preview.length).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put(new byte[]{'I', 'I', 0x2A, 0x00}).putInt(8);
+        tiff.putShort((short)3);
+        putEntry(tiff, 0x0103, 3, 7);
+        putEntry(tiff, 0x0111, 4, rawOffset);
+        putEntry(tiff, 0x0117, 4, raw.length);
+        tiff.putInt(ifd1Offset);
+        tiff.putShort((short)2);
+        putEntry(tiff, 0x0201, 4, previewOffset);
+        putEntry(tiff, 0x0202, 4, preview.length);
+        tiff.putInt(0);
+        tiff.put(raw);
+        tiff.put(preview);
+        writeFile(tiff.array());
+
+        List<EmbeddedPreview> previews = PreviewLocator.locate(_file.toPath());
+
+        assertEquals(1, previews.size());
+        assertEquals(previewOffset, previews.get(0).getOffset());
+        assertEquals(preview.length, previews.get(0).getLength());
+        assertEquals(Integer.valueOf(160), previews.get(0).getWidth());
+        assertEquals(Integer.valueOf(120), previews.get(0).getHeight());
+
+        assertArrayEquals(preview, transfer(previews.get(0)));
+    }
+
+    @Test
+    public void testUnsupportedFileType() throws Exception
+    {
+        writeFile(new byte[]{'G', 'I', 'F', '8', '9', 'a', 0, 0, 0, 0, 0, 0, 0});
+
+        try {
+            PreviewLocator.locate(_file.toPath());
+            fail("Exception expected");
+        } catch (ImageProcessingException e) {
+            assertEquals("Locating previews is not supported for file type: GIF", e.getMessage());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testTransferToFailsWhenTargetAcceptsNothing() throws Exception
+    {
+        writeFile(jpeg(frame(0xC0, 8, 6)));
+        EmbeddedPreview preview = new EmbeddedPreview("Test", 0, _file.length(), "image/jpeg", 8, 6);
+
+        WritableByteChannel target = new WritableByteChannel()
+        {
+            @Override
+            public int write(ByteBuffer src)
+            {
+                return 0;
+            }
+
+            @Override
+            public boolean isOpen()
+            {
+                return true;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+
+        FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.READ);
+        try {
+            PreviewLocator.transferTo(channel, preview, target);
+            fail("Exception expected");
+        } catch (IOException e) {
+            assertEquals("Target channel accepted no preview data.", e.getMessage());
+        } finally {
+            channel.close();
+        }
+    }
+
+    private byte[] transfer(EmbeddedPreview preview) throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.READ);
+        try {
+            long count = PreviewLocator.transferTo(channel, preview, Channels.newChannel(output));
+            assertEquals(preview.getLength(), count);
+        } finally {
+            channel.close();
+        }
+        return output.toByteArray();
+    }
+
+    private void writeFile(byte[] bytes) throws IOException
+    {
+        _file = File.createTempFile("metadata-extractor-", ".bin");
+        FileOutputStream stream = new FileOutputStream(_file);
+        try {
+            stream.write(bytes);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static void putEntry(ByteBuffer buffer, int tag, int format, int value)
+    {
+        buffer.putShort((short)tag).putShort((short)format).putInt(1);
+        if (format == 3)
+            buffer.putShort((short)value).putShort((short)0);
+        else
+            buffer.putInt(value);
+    }
+}
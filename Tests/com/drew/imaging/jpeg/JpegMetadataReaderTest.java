@@ -20,21 +20,48 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.SequentialByteArrayReader;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Directory;
+import com.drew.metadata.ErrorDirectory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.icc.IccReader;
+import com.drew.metadata.jfif.JfifDirectory;
 import com.drew.metadata.jpeg.HuffmanTablesDirectory;
 import com.drew.metadata.jpeg.HuffmanTablesDirectory.HuffmanTable;
+import com.drew.metadata.jpeg.JpegDhtReader;
+import com.drew.metadata.jpeg.JpegDirectory;
 import com.drew.metadata.xmp.XmpDirectory;
+import com.drew.metadata.xmp.XmpReader;
+import com.drew.tools.FileUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static com.drew.imaging.jpeg.JpegTestData.segment;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Drew Noakes https://drewnoakes.com
@@ -85,6 +112,388 @@ public class JpegMetadataReaderTest
         }
     }
 
+    @Test
+    public void testEarlyExitStopsAtTables() throws Exception
+    {
+        byte[] jpeg = createJpegWithLargeSegmentAfterTables();
+        List<JpegSegmentMetadataReader> readers = Arrays.<JpegSegmentMetadataReader>asList(new ExifReader(), new XmpReader(), new IccReader());
+
+        CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(jpeg));
+        Metadata metadata = JpegMetadataReader.readMetadata(stream, readers, new JpegExtractionPolicy(Long.MAX_VALUE, true));
+        assertNotNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertTrue(stream.getCount() < 100000);
+
+        stream = new CountingInputStream(new ByteArrayInputStream(jpeg));
+        metadata = JpegMetadataReader.readMetadata(stream, readers, JpegExtractionPolicy.DEFAULT);
+        assertNotNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertEquals(jpeg.length, stream.getCount());
+    }
+
+    @Test
+    public void testProcessReportsWhetherScanWasReached() throws Exception
+    {
+        byte[] jpeg = createJpegWithLargeSegmentAfterTables();
+        List<JpegSegmentMetadataReader> readers = Arrays.<JpegSegmentMetadataReader>asList(new ExifReader(), new XmpReader(), new IccReader());
+
+        // Stopping early is expected behaviour, so is reported to the caller rather than as an error
+        Metadata metadata = new Metadata();
+        assertFalse(JpegMetadataReader.process(metadata, new ByteArrayInputStream(jpeg), readers, new JpegExtractionPolicy(Long.MAX_VALUE, true)));
+        assertFalse(metadata.hasErrors());
+
+        metadata = new Metadata();
+        assertTrue(JpegMetadataReader.process(metadata, new ByteArrayInputStream(jpeg), readers, JpegExtractionPolicy.DEFAULT));
+        assertFalse(metadata.hasErrors());
+        assertNull(metadata.getFirstDirectoryOfType(ErrorDirectory.class));
+
+        metadata = new Metadata();
+        assertFalse(JpegMetadataReader.process(metadata, new ByteArrayInputStream(jpeg), readers, new JpegExtractionPolicy(100, false)));
+        assertTrue(metadata.hasErrors());
+    }
+
+    @Test
+    public void testEarlyExitDoesNotApplyWhenTablesAreRequested() throws Exception
+    {
+        Metadata metadata = JpegMetadataReader.readMetadata(
+            new ByteArrayInputStream(createJpegWithLargeSegmentAfterTables()),
+            Arrays.<JpegSegmentMetadataReader>asList(new ExifReader(), new JpegDhtReader()),
+            new JpegExtractionPolicy(Long.MAX_VALUE, true));
+
+        assertNotNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertNotNull(metadata.getFirstDirectoryOfType(HuffmanTablesDirectory.class));
+    }
+
+    @Test
+    public void testByteBudget() throws Exception
+    {
+        byte[] jpeg = createJpegWithLargeSegmentAfterTables();
+
+        // The budget ends within the Exif segment, so only the JFIF segment before it is read
+        Metadata metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(jpeg), null, new JpegExtractionPolicy(100, false));
+        assertNotNull(metadata.getFirstDirectoryOfType(JfifDirectory.class));
+        assertNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        ErrorDirectory errorDirectory = metadata.getFirstDirectoryOfType(ErrorDirectory.class);
+        assertNotNull(errorDirectory);
+        assertEquals("JPEG data beyond the byte budget of 100 bytes was not read", errorDirectory.getErrors().iterator().next());
+
+        CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(jpeg));
+        metadata = JpegMetadataReader.readMetadata(stream, null, new JpegExtractionPolicy(50000, false));
+        assertNotNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertNotNull(metadata.getFirstDirectoryOfType(HuffmanTablesDirectory.class));
+        assertTrue(stream.getCount() < 100000);
+    }
+
+    @Test
+    public void testByteBudgetAppliesToDataBetweenSegments() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xD8});
+        bytes.write(segment(0xE0, FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app0")));
+        bytes.write(new byte[1000000]);
+        bytes.write(segment(0xE1, FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.0")));
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xDA});
+        byte[] jpeg = bytes.toByteArray();
+
+        CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(jpeg));
+        Metadata metadata = JpegMetadataReader.readMetadata(stream, null, new JpegExtractionPolicy(50000, false));
+        assertNotNull(metadata.getFirstDirectoryOfType(JfifDirectory.class));
+        assertNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertTrue(stream.getCount() < 100000);
+        assertNotNull(metadata.getFirstDirectoryOfType(ErrorDirectory.class));
+
+        metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(jpeg), null, JpegExtractionPolicy.DEFAULT);
+        assertNotNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertFalse(metadata.hasErrors());
+    }
+
+    @Test
+    public void testDirectoriesAreOrderedByReader() throws Exception
+    {
+        // Segments are streamed in file order, but directories must be in the order of ALL_READERS
+        Metadata metadata;
+        FileInputStream stream = new FileInputStream("Tests/Data/withExifAndIptc.jpg");
+        try {
+            metadata = JpegMetadataReader.readMetadata(stream);
+        } finally {
+            stream.close();
+        }
+
+        assertEquals(
+            Arrays.asList("JPEG", "JFIF", "Exif IFD0", "Exif SubIFD", "GPS", "Exif Thumbnail", "XMP", "ICC Profile", "Photoshop", "IPTC", "Adobe JPEG", "Huffman"),
+            getDirectoryNames(metadata));
+
+        Metadata sequential = new Metadata();
+        JpegMetadataReader.processJpegSegmentData(sequential, JpegMetadataReader.ALL_READERS, JpegSegmentReader.readSegments(new File("Tests/Data/withExifAndIptc.jpg"), null));
+        assertEquals(describe(sequential), describe(metadata));
+    }
+
+    @Test
+    public void testSoleSequentialReaderReadsFromSegmentStream() throws Exception
+    {
+        final List<Class<?>> readerTypes = new ArrayList<Class<?>>();
+        JpegSequentialSegmentMetadataReader reader = new JpegSequentialSegmentMetadataReader()
+        {
+            @NotNull
+            @Override
+            public Iterable<JpegSegmentType> getSegmentTypes()
+            {
+                return Collections.singletonList(JpegSegmentType.APPD);
+            }
+
+            @Override
+            public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+            {
+                fail("Segment should not have been copied");
+            }
+
+            @Override
+            public void readJpegSegment(@NotNull SequentialReader reader, int segmentLength, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType) throws IOException
+            {
+                readerTypes.add(reader.getClass());
+                reader.skip(segmentLength / 2);
+            }
+        };
+
+        JpegMetadataReader.readMetadata(new ByteArrayInputStream(createJpegWithLargeSegmentAfterTables()), Collections.<JpegSegmentMetadataReader>singletonList(reader));
+
+        assertEquals(4, readerTypes.size());
+        assertFalse(readerTypes.contains(SequentialByteArrayReader.class));
+    }
+
+    @Test
+    public void testMultiSegmentReaderConsumesSegmentsAsTheyAreRead() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xD8});
+        bytes.write(segment(0xE2, new byte[]{1}));
+        bytes.write(segment(0xE2, new byte[]{2}));
+        for (int i = 0; i < 4; i++)
+            bytes.write(segment(0xED, new byte[60000]));
+        bytes.write(segment(0xE2, new byte[]{3}));
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xDA});
+
+        final CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        final List<Long> positions = new ArrayList<Long>();
+        final List<Byte> payloads = new ArrayList<Byte>();
+        final int[] completions = new int[1];
+
+        JpegMultiSegmentMetadataReader reader = new JpegMultiSegmentMetadataReader()
+        {
+            @NotNull
+            @Override
+            public Iterable<JpegSegmentType> getSegmentTypes()
+            {
+                return Collections.singletonList(JpegSegmentType.APP2);
+            }
+
+            @Override
+            public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+            {
+                fail("Segments should have been passed to a consumer");
+            }
+
+            @NotNull
+            @Override
+            public JpegSegmentConsumer createSegmentConsumer(@NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+            {
+                return new JpegSegmentConsumer()
+                {
+                    @Override
+                    public void addSegment(@NotNull byte[] segmentBytes)
+                    {
+                        positions.add(stream.getCount());
+                        payloads.add(segmentBytes[0]);
+                    }
+
+                    @Override
+                    public void complete()
+                    {
+                        completions[0]++;
+                    }
+                };
+            }
+        };
+
+        JpegMetadataReader.readMetadata(stream, Collections.<JpegSegmentMetadataReader>singletonList(reader));
+
+        assertEquals(Arrays.asList((byte)1, (byte)2, (byte)3), payloads);
+        assertEquals(1, completions[0]);
+        // The first two segments are consumed before the large segments that follow them are read
+        assertTrue(positions.get(1) < 60000);
+    }
+
+    @Test
+    public void testParallelProcessingMatchesSequential() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (String path : new String[]{"Tests/Data/withExifAndIptc.jpg", "Tests/Data/withXmp.jpg"}) {
+                JpegSegmentData segmentData = JpegSegmentReader.readSegments(new File(path), null);
+
+                Metadata sequential = new Metadata();
+                JpegMetadataReader.processJpegSegmentData(sequential, JpegMetadataReader.ALL_READERS, segmentData);
+
+                Metadata parallel = new Metadata();
+                JpegMetadataReader.processJpegSegmentData(parallel, JpegMetadataReader.ALL_READERS, segmentData, executor);
+
+                assertEquals(describe(sequential), describe(parallel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutorOverloadMatchesSequentialProcess() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (String path : new String[]{"Tests/Data/withExifAndIptc.jpg", "Tests/Data/withXmp.jpg", "Tests/Data/withTypicalHuffman.jpg"}) {
+                byte[] bytes = FileUtil.readBytes(path);
+
+                Metadata sequential = new Metadata();
+                JpegMetadataReader.process(sequential, new ByteArrayInputStream(bytes), null);
+
+                Metadata parallel = new Metadata();
+                JpegMetadataReader.process(parallel, new ByteArrayInputStream(bytes), null, executor);
+
+                assertEquals(getDirectoryNames(sequential), getDirectoryNames(parallel));
+                assertEquals(describe(sequential), describe(parallel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelProcessingPropagatesReaderException() throws Exception
+    {
+        JpegSegmentMetadataReader failingReader = new JpegSegmentMetadataReader()
+        {
+            @NotNull
+            @Override
+            public Iterable<JpegSegmentType> getSegmentTypes()
+            {
+                return Collections.singletonList(JpegSegmentType.APP0);
+            }
+
+            @Override
+            public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+            {
+                throw new IllegalStateException("Test");
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            JpegSegmentData segmentData = JpegSegmentReader.readSegments(new File("Tests/Data/withExifAndIptc.jpg"), null);
+            Metadata metadata = new Metadata();
+            try {
+                JpegMetadataReader.processJpegSegmentData(metadata, Arrays.asList(new ExifReader(), failingReader), segmentData, executor);
+                fail("Expecting exception");
+            } catch (IllegalStateException e) {
+                assertEquals("Test", e.getMessage());
+            }
+            assertEquals(0, metadata.getDirectoryCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLazyProcessingMatchesEager() throws Exception
+    {
+        for (String path : new String[]{"Tests/Data/withExifAndIptc.jpg", "Tests/Data/withXmp.jpg", "Tests/Data/withTypicalHuffman.jpg"}) {
+            Metadata eager = new Metadata();
+            JpegMetadataReader.processJpegSegmentData(eager, JpegMetadataReader.ALL_READERS, JpegSegmentReader.readSegments(new File(path), null));
+
+            Metadata lazy = JpegMetadataReader.readMetadataLazily(new ByteArrayInputStream(FileUtil.readBytes(path)), null);
+
+            // Requesting a single type before all directories must not change the result
+            assertEquals(eager.getFirstDirectoryOfType(JpegDirectory.class).getTags().toString(),
+                         lazy.getFirstDirectoryOfType(JpegDirectory.class).getTags().toString());
+            assertEquals(describe(eager), describe(lazy));
+        }
+    }
+
+    @NotNull
+    private static List<String> describe(@NotNull Metadata metadata)
+    {
+        List<String> lines = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            for (Tag tag : directory.getTags()) {
+                lines.add(tag.toString());
+            }
+        }
+        return lines;
+    }
+
+    @NotNull
+    private static List<String> getDirectoryNames(@NotNull Metadata metadata)
+    {
+        List<String> names = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            names.add(directory.getName());
+        }
+        return names;
+    }
+
+    /** Creates a JPEG whose application segments are followed by DHT and a large APPD segment, then SOS. */
+    private static byte[] createJpegWithLargeSegmentAfterTables() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xD8});
+        bytes.write(segment(0xE0, FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app0")));
+        bytes.write(segment(0xE1, FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.0")));
+        byte[] dht = new byte[17 + 1];
+        dht[16] = 1; // a single code of length 16
+        bytes.write(segment(0xC4, dht));
+        for (int i = 0; i < 4; i++)
+            bytes.write(segment(0xED, new byte[60000]));
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xDA});
+        return bytes.toByteArray();
+    }
+
+    private static class CountingInputStream extends FilterInputStream
+    {
+        private long _count;
+
+        CountingInputStream(@NotNull InputStream stream)
+        {
+            super(stream);
+        }
+
+        long getCount()
+        {
+            return _count;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = super.read();
+            if (b != -1)
+                _count++;
+            return b;
+        }
+
+        @Override
+        public int read(@NotNull byte[] b, int off, int len) throws IOException
+        {
+            int count = super.read(b, off, len);
+            if (count != -1)
+                _count += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long count = super.skip(n);
+            _count += count;
+            return count;
+        }
+    }
+
     private void validate(Metadata metadata)
     {
         Directory directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
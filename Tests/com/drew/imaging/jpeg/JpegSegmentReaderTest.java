@@ -20,12 +20,23 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.SequentialReader;
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
 import com.drew.tools.FileUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -157,6 +168,114 @@ public class JpegSegmentReaderTest
         assertEquals(0, segmentData.getSegmentCount(JpegSegmentType.SOF0));
     }
 
+    @Test
+    public void testReadSegmentsWithHandler() throws Exception
+    {
+        final List<Byte> segmentTypes = new ArrayList<Byte>();
+        final List<byte[]> segments = new ArrayList<byte[]>();
+
+        InputStream stream = new FileInputStream("Tests/Data/withExifAndIptc.jpg");
+        try {
+            JpegSegmentReader.readSegments(new StreamReader(stream), Arrays.asList(JpegSegmentType.APP1, JpegSegmentType.APP2), new JpegSegmentHandler()
+            {
+                @Override
+                public boolean onSegment(byte segmentType, @NotNull SequentialReader reader, int segmentLength) throws IOException
+                {
+                    segmentTypes.add(segmentType);
+                    // Only consume part of the first segment, leaving the remainder to be skipped
+                    segments.add(reader.getBytes(segments.isEmpty() ? 10 : segmentLength));
+                    return true;
+                }
+            });
+        } finally {
+            stream.close();
+        }
+
+        assertEquals(Arrays.asList(JpegSegmentType.APP1.byteValue, JpegSegmentType.APP1.byteValue, JpegSegmentType.APP2.byteValue), segmentTypes);
+        assertArrayEquals(
+                Arrays.copyOf(FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.0"), 10),
+                segments.get(0));
+        assertArrayEquals(
+                FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.1"),
+                segments.get(1));
+        assertArrayEquals(
+                FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app2"),
+                segments.get(2));
+    }
+
+    @Test
+    public void testHandlerCanStopReading() throws Exception
+    {
+        final int[] segmentCount = new int[1];
+
+        InputStream stream = new FileInputStream("Tests/Data/withExifAndIptc.jpg");
+        try {
+            JpegSegmentReader.readSegments(new StreamReader(stream), null, new JpegSegmentHandler()
+            {
+                @Override
+                public boolean onSegment(byte segmentType, @NotNull SequentialReader reader, int segmentLength)
+                {
+                    segmentCount[0]++;
+                    return segmentType != JpegSegmentType.APP1.byteValue;
+                }
+            });
+        } finally {
+            stream.close();
+        }
+
+        // APP0, then the first APP1
+        assertEquals(2, segmentCount[0]);
+    }
+
+    @Test
+    public void testHandlerCannotReadBeyondSegment() throws Exception
+    {
+        InputStream stream = new FileInputStream("Tests/Data/withExifAndIptc.jpg");
+        try {
+            JpegSegmentReader.readSegments(new StreamReader(stream), Collections.singletonList(JpegSegmentType.APP0), new JpegSegmentHandler()
+            {
+                @Override
+                public boolean onSegment(byte segmentType, @NotNull SequentialReader reader, int segmentLength) throws IOException
+                {
+                    reader.skip(segmentLength);
+                    assertEquals(0, reader.available());
+                    try {
+                        reader.getByte();
+                        fail("Expecting exception");
+                    } catch (EOFException ignored) {
+                    }
+                    return false;
+                }
+            });
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testReadSegmentsAfterPadding() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xD8});
+        // garbage, including stuffed 0xFF00 pairs, then a run of 0xFF fill bytes before the next marker
+        for (int i = 0; i < 100000; i++) {
+            if (i % 1000 == 0)
+                bytes.write(0xFF);
+            bytes.write(i % 1000 == 0 ? 0x00 : 0x5A);
+        }
+        for (int i = 0; i < 1000; i++)
+            bytes.write(0xFF);
+        bytes.write(new byte[]{(byte)0xFE, 0x00, 0x05, 'a', 'b', 'c'});
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xDA});
+
+        JpegSegmentData segmentData = JpegSegmentReader.readSegments(
+                new StreamReader(new ByteArrayInputStream(bytes.toByteArray())),
+                null);
+
+        assertEquals(1, segmentData.getSegmentCount(JpegSegmentType.COM));
+        assertArrayEquals(new byte[]{'a', 'b', 'c'}, segmentData.getSegment(JpegSegmentType.COM));
+    }
+
     @Test
     public void testLoadJpegWithoutExifDataReturnsNull() throws Exception
     {
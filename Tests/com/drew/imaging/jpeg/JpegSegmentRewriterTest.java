@@ -0,0 +1,331 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.GpsDirectory;
+import com.drew.metadata.jpeg.JpegCommentDirectory;
+import com.drew.metadata.jpeg.JpegDirectory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.drew.imaging.jpeg.JpegTestData.concat;
+import static com.drew.imaging.jpeg.JpegTestData.frame;
+import static com.drew.imaging.jpeg.JpegTestData.jpeg;
+import static com.drew.imaging.jpeg.JpegTestData.scan;
+import static com.drew.imaging.jpeg.JpegTestData.segment;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JpegSegmentRewriter}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class JpegSegmentRewriterTest
+{
+    /** An MPF APP2 segment holding an empty big-endian IFD. */
+    private static final byte[] MPF_SEGMENT = segment(0xE2, new byte[]{'M', 'P', 'F', 0, 'M', 'M', 0x00, 0x2A, 0, 0, 0, 8, 0, 0, 0, 0, 0, 0});
+
+    @Test
+    public void testRemoveSegmentTypes() throws Exception
+    {
+        byte[] jpeg = createJpeg();
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Arrays.asList(JpegSegmentType.APP1, JpegSegmentType.COM), false, false);
+
+        byte[] output = rewrite(rewriter, jpeg);
+
+        Metadata metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(output));
+        assertNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertNull(metadata.getFirstDirectoryOfType(JpegCommentDirectory.class));
+        JpegDirectory jpegDirectory = metadata.getFirstDirectoryOfType(JpegDirectory.class);
+        assertNotNull(jpegDirectory);
+        assertEquals(16, jpegDirectory.getInt(JpegDirectory.TAG_IMAGE_WIDTH));
+
+        assertEndsWithScan(output);
+    }
+
+    @Test
+    public void testRetainSegmentTypes() throws Exception
+    {
+        byte[] jpeg = createJpeg();
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.singletonList(JpegSegmentType.COM), true, false);
+
+        byte[] output = rewrite(rewriter, jpeg);
+
+        Metadata metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(output));
+        assertNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        JpegCommentDirectory comment = metadata.getFirstDirectoryOfType(JpegCommentDirectory.class);
+        assertNotNull(comment);
+        assertEquals("hello", comment.getString(JpegCommentDirectory.TAG_COMMENT));
+
+        // Tables and frame header are always retained, however the segment lists are specified
+        assertNotNull(metadata.getFirstDirectoryOfType(JpegDirectory.class));
+        assertEndsWithScan(output);
+    }
+
+    @Test
+    public void testRemoveGps() throws Exception
+    {
+        byte[] jpeg = createJpeg();
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, true);
+
+        byte[] output = rewrite(rewriter, jpeg);
+
+        // GPS data is overwritten in place, so the length is unchanged
+        assertEquals(jpeg.length, output.length);
+
+        Metadata metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(output));
+        ExifIFD0Directory ifd0 = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(ifd0);
+        assertFalse(ifd0.hasErrors());
+        assertEquals(6, ifd0.getInt(ExifIFD0Directory.TAG_ORIENTATION));
+        assertFalse(ifd0.containsTag(ExifIFD0Directory.TAG_GPS_INFO_OFFSET));
+        assertNull(metadata.getFirstDirectoryOfType(GpsDirectory.class));
+
+        Metadata original = JpegMetadataReader.readMetadata(new ByteArrayInputStream(jpeg));
+        assertNotNull(original.getFirstDirectoryOfType(GpsDirectory.class));
+    }
+
+    @Test
+    public void testRewriteFileChannel() throws Exception
+    {
+        byte[] jpeg = createJpeg();
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.singletonList(JpegSegmentType.APP0), false, true);
+
+        File file = File.createTempFile("metadata-extractor-", ".jpg");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                stream.write(jpeg);
+            } finally {
+                stream.close();
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            try {
+                rewriter.rewrite(channel, Channels.newChannel(output));
+            } finally {
+                channel.close();
+            }
+
+            assertArrayEquals(rewrite(rewriter, jpeg), output.toByteArray());
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void testRemoveGpsFailsWhenDataFollowsImage() throws Exception
+    {
+        byte[] jpeg = concat(createJpeg(), createJpeg());
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, true);
+
+        try {
+            rewrite(rewriter, jpeg);
+            fail("Exception expected");
+        } catch (JpegProcessingException e) {
+            assertTrue(e.getMessage().startsWith("JPEG data follows the primary image"));
+        }
+    }
+
+    @Test
+    public void testRemoveGpsFailsWhenMpfSegmentPresent() throws Exception
+    {
+        byte[] jpeg = createJpeg(MPF_SEGMENT);
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, true);
+
+        try {
+            rewrite(rewriter, jpeg);
+            fail("Exception expected");
+        } catch (JpegProcessingException e) {
+            assertTrue(e.getMessage().startsWith("JPEG data contains MPF images"));
+        }
+    }
+
+    @Test
+    public void testRemoveTrailer() throws Exception
+    {
+        byte[] jpeg = concat(createJpeg(MPF_SEGMENT), createJpeg());
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, true, true);
+
+        byte[] output = rewrite(rewriter, jpeg);
+
+        // The MPF segment and the trailing image are removed, leaving the primary image with its GPS data removed
+        assertArrayEquals(rewrite(new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, true), createJpeg()), output);
+        assertEndsWithScan(output);
+    }
+
+    @Test
+    public void testRemoveTrailerFromFileChannel() throws Exception
+    {
+        byte[] jpeg = concat(createJpeg(), createJpeg());
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, false, true);
+
+        File file = File.createTempFile("metadata-extractor-", ".jpg");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                stream.write(jpeg);
+            } finally {
+                stream.close();
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            try {
+                rewriter.rewrite(channel, Channels.newChannel(output));
+            } finally {
+                channel.close();
+            }
+
+            assertArrayEquals(createJpeg(), output.toByteArray());
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRewriteFileChannelFailsWhenTargetAcceptsNothing() throws Exception
+    {
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, false);
+
+        File file = File.createTempFile("metadata-extractor-", ".jpg");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                stream.write(createJpeg());
+            } finally {
+                stream.close();
+            }
+
+            // Accepts the segments, which are flushed in a single write, but nothing thereafter
+            WritableByteChannel target = new WritableByteChannel()
+            {
+                private boolean _isFull;
+
+                @Override
+                public int write(ByteBuffer src)
+                {
+                    if (_isFull)
+                        return 0;
+                    _isFull = true;
+                    int count = src.remaining();
+                    src.position(src.limit());
+                    return count;
+                }
+
+                @Override
+                public boolean isOpen()
+                {
+                    return true;
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            try {
+                rewriter.rewrite(channel, target);
+                fail("Exception expected");
+            } catch (IOException e) {
+                assertEquals("Target channel accepted no image data.", e.getMessage());
+            } finally {
+                channel.close();
+            }
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void testRewriteNonJpegThrows() throws Exception
+    {
+        JpegSegmentRewriter rewriter = new JpegSegmentRewriter(Collections.<JpegSegmentType>emptyList(), false, false);
+
+        try {
+            rewrite(rewriter, new byte[]{'G', 'I', 'F', '8', '9', 'a'});
+            fail("Exception expected");
+        } catch (JpegProcessingException ignored) {}
+    }
+
+    private static byte[] rewrite(JpegSegmentRewriter rewriter, byte[] jpeg) throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        rewriter.rewrite(new ByteArrayInputStream(jpeg), output);
+        return output.toByteArray();
+    }
+
+    private static void assertEndsWithScan(byte[] output)
+    {
+        byte[] scan = scan();
+        assertArrayEquals(scan, Arrays.copyOfRange(output, output.length - scan.length, output.length));
+    }
+
+    /** Creates a JPEG with Exif data including GPS, followed by <code>additionalSegments</code> and other segments. */
+    private static byte[] createJpeg(byte[]... additionalSegments) throws IOException
+    {
+        // Big-endian TIFF data: IFD0 holds an orientation and the GPS IFD pointer, and the GPS IFD holds a
+        // version (stored inline) and a latitude (stored after the IFD)
+        ByteBuffer tiff = ByteBuffer.allocate(92);
+        tiff.put(new byte[]{'M', 'M', 0x00, 0x2A}).putInt(8);
+        tiff.putShort((short)2);
+        tiff.putShort((short)0x0112).putShort((short)3).putInt(1).putShort((short)6).putShort((short)0);
+        tiff.putShort((short)0x8825).putShort((short)4).putInt(1).putInt(38);
+        tiff.putInt(0);
+        tiff.putShort((short)2);
+        tiff.putShort((short)0x0000).putShort((short)1).putInt(4).put(new byte[]{2, 2, 0, 0});
+        tiff.putShort((short)0x0002).putShort((short)5).putInt(3).putInt(68);
+        tiff.putInt(0);
+        tiff.putInt(51).putInt(1).putInt(30).putInt(1).putInt(1234).putInt(100);
+
+        ByteArrayOutputStream exif = new ByteArrayOutputStream();
+        exif.write("Exif\0\0".getBytes("US-ASCII"));
+        exif.write(tiff.array());
+
+        return jpeg(
+            segment(0xE0, new byte[]{'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0}),
+            segment(0xE1, exif.toByteArray()),
+            concat(additionalSegments),
+            segment(0xFE, "hello".getBytes("US-ASCII")),
+            segment(0xDB, new byte[65]),
+            frame(0xC0, 16, 8));
+    }
+}
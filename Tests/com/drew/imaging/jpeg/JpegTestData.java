@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Builds minimal JPEG data for tests.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class JpegTestData
+{
+    /** A scan header, followed by entropy-coded data containing stuffed bytes and a restart marker, then EOI. */
+    private static final byte[] SCAN = {
+        (byte)0xFF, (byte)0xDA, 0x00, 0x08, 0x01, 0x01, 0x00, 0x00, 0x3F, 0x00,
+        0x12, (byte)0xFF, 0x00, (byte)0xD8, 0x34, (byte)0xFF, (byte)0xD0, 0x56, (byte)0xFF, (byte)0xD9
+    };
+
+    /** Builds a JPEG from SOI, the given segments, then {@link #scan()}. */
+    @NotNull
+    public static byte[] jpeg(@NotNull byte[]... segments)
+    {
+        return concat(new byte[]{(byte)0xFF, (byte)0xD8}, concat(segments), SCAN);
+    }
+
+    /** Builds a segment with the given marker byte and payload, preceded by the segment length. */
+    @NotNull
+    public static byte[] segment(int marker, @NotNull byte[] payload)
+    {
+        byte[] bytes = new byte[payload.length + 4];
+        bytes[0] = (byte)0xFF;
+        bytes[1] = (byte)marker;
+        bytes[2] = (byte)((payload.length + 2) >> 8);
+        bytes[3] = (byte)(payload.length + 2);
+        System.arraycopy(payload, 0, bytes, 4, payload.length);
+        return bytes;
+    }
+
+    /** Builds a single-component frame header segment of the given type and size. */
+    @NotNull
+    public static byte[] frame(int sofMarker, int width, int height)
+    {
+        return segment(sofMarker, new byte[]{8, (byte)(height >> 8), (byte)height, (byte)(width >> 8), (byte)width, 1, 1, 0x11, 0});
+    }
+
+    /** Gets the bytes with which {@link #jpeg} ends, from the scan header to EOI. */
+    @NotNull
+    public static byte[] scan()
+    {
+        return SCAN.clone();
+    }
+
+    @NotNull
+    public static byte[] concat(@NotNull byte[]... arrays)
+    {
+        int length = 0;
+        for (byte[] array : arrays)
+            length += array.length;
+
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (byte[] array : arrays) {
+            System.arraycopy(array, 0, bytes, offset, array.length);
+            offset += array.length;
+        }
+        return bytes;
+    }
+
+    private JpegTestData() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.metadata.Metadata;
+import com.drew.metadata.jpeg.JpegCommentDirectory;
+import com.drew.metadata.mp4.Mp4Directory;
+import com.drew.metadata.mpf.MpfDirectory;
+import com.drew.metadata.mpf.MpfImageEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static com.drew.imaging.jpeg.JpegTestData.jpeg;
+import static com.drew.imaging.jpeg.JpegTestData.segment;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JpegTrailerLocator}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class JpegTrailerLocatorTest
+{
+    private File _file;
+    private long _gainMapOffset;
+    private int _gainMapLength;
+    private long _videoOffset;
+    private int _videoLength;
+
+    @Before
+    public void createFile() throws Exception
+    {
+        byte[] gainMap = jpeg(segment(0xFE, new byte[]{'g', 'm', '!'}));
+        byte[] video = new byte[]{
+            0x00, 0x00, 0x00, 0x10, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm', 0x00, 0x00, 0x00, 0x00,
+            0x00, 0x00, 0x00, 0x08, 'm', 'o', 'o', 'v'
+        };
+        _gainMapLength = gainMap.length;
+        _videoLength = video.length;
+
+        String xmp = "http://ns.adobe.com/xap/1.0/\0" +
+            "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">" +
+            "<rdf:Description rdf:about=\"\" xmlns:GCamera=\"http://ns.google.com/photos/1.0/camera/\"" +
+            " xmlns:Container=\"http://ns.google.com/photos/1.0/container/\"" +
+            " xmlns:Item=\"http://ns.google.com/photos/1.0/container/item/\"" +
+            " GCamera:MicroVideoOffset=\"" + _videoLength + "\">" +
+            "<Container:Directory><rdf:Seq>" +
+            "<rdf:li rdf:parseType=\"Resource\"><Container:Item Item:Mime=\"image/jpeg\" Item:Semantic=\"Primary\"/></rdf:li>" +
+            "<rdf:li rdf:parseType=\"Resource\"><Container:Item Item:Mime=\"image/jpeg\" Item:Semantic=\"GainMap\" Item:Length=\"" + _gainMapLength + "\"/></rdf:li>" +
+            "<rdf:li rdf:parseType=\"Resource\"><Container:Item Item:Mime=\"video/mp4\" Item:Semantic=\"MotionPhoto\" Item:Length=\"" + _videoLength + "\"/></rdf:li>" +
+            "</rdf:Seq></Container:Directory>" +
+            "</rdf:Description></rdf:RDF></x:xmpmeta>";
+        byte[] app1 = segment(0xE1, xmp.getBytes("UTF-8"));
+
+        // The MP header follows SOI, the APP1 segment, the APP2 marker and length, and the "MPF\0" identifier
+        long mpHeaderOffset = 2 + app1.length + 4 + 4;
+        byte[] app2 = segment(0xE2, mpf(0, 0)); // sized before the offsets are known
+        int primaryLength = jpeg(app1, app2).length;
+        _gainMapOffset = primaryLength;
+        _videoOffset = primaryLength + _gainMapLength;
+        app2 = segment(0xE2, mpf(primaryLength, _gainMapOffset - mpHeaderOffset));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(jpeg(app1, app2));
+        bytes.write(gainMap);
+        bytes.write(video);
+
+        _file = File.createTempFile("metadata-extractor-", ".jpg");
+        FileOutputStream stream = new FileOutputStream(_file);
+        try {
+            stream.write(bytes.toByteArray());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @After
+    public void deleteFile()
+    {
+        if (_file != null && !_file.delete())
+            _file.deleteOnExit();
+    }
+
+    @Test
+    public void testLocate() throws Exception
+    {
+        List<JpegTrailerItem> items = JpegTrailerLocator.locate(_file.toPath());
+
+        // The gain map is listed by both MPF and XMP, and the video by both the container directory and MicroVideoOffset
+        assertEquals(2, items.size());
+
+        JpegTrailerItem gainMap = items.get(0);
+        assertEquals(JpegTrailerItem.Source.MPF, gainMap.getSource());
+        assertEquals(_gainMapOffset, gainMap.getOffset());
+        assertEquals(_gainMapLength, gainMap.getLength());
+        assertEquals("image/jpeg", gainMap.getMimeType());
+
+        JpegTrailerItem video = items.get(1);
+        assertEquals(JpegTrailerItem.Source.CONTAINER_DIRECTORY, video.getSource());
+        assertEquals(_videoOffset, video.getOffset());
+        assertEquals(_videoLength, video.getLength());
+        assertEquals("video/mp4", video.getMimeType());
+        assertEquals("MotionPhoto", video.getSemantic());
+    }
+
+    @Test
+    public void testReadItemMetadata() throws Exception
+    {
+        FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.READ);
+        try {
+            List<JpegTrailerItem> items = JpegTrailerLocator.locate(channel);
+
+            Metadata gainMap = JpegTrailerLocator.readMetadata(channel, items.get(0));
+            JpegCommentDirectory comment = gainMap.getFirstDirectoryOfType(JpegCommentDirectory.class);
+            assertNotNull(comment);
+            assertEquals("gm!", comment.getString(JpegCommentDirectory.TAG_COMMENT));
+
+            Metadata video = JpegTrailerLocator.readMetadata(channel, items.get(1));
+            Mp4Directory mp4 = video.getFirstDirectoryOfType(Mp4Directory.class);
+            assertNotNull(mp4);
+            assertEquals("isom", mp4.getString(Mp4Directory.TAG_MAJOR_BRAND));
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void testMpfDirectory() throws Exception
+    {
+        Metadata metadata = JpegMetadataReader.readMetadata(_file);
+
+        MpfDirectory directory = metadata.getFirstDirectoryOfType(MpfDirectory.class);
+        assertNotNull(directory);
+        assertFalse(directory.hasErrors());
+        assertEquals(2, directory.getInt(MpfDirectory.TAG_NUMBER_OF_IMAGES));
+        assertEquals("1.00", directory.getDescription(MpfDirectory.TAG_MPF_VERSION));
+
+        MpfImageEntry[] entries = directory.getImageEntries();
+        assertEquals(2, entries.length);
+        assertEquals(MpfImageEntry.TYPE_BASELINE_MP_PRIMARY, entries[0].getTypeCode());
+        assertTrue(entries[0].isRepresentative());
+        assertEquals(0, entries[0].getOffset());
+        assertEquals(_gainMapLength, entries[1].getSize());
+    }
+
+    /** Builds a big-endian MPF APP2 payload listing the primary image and a gain map. */
+    private byte[] mpf(int primaryLength, long gainMapOffset)
+    {
+        int[] words = {
+            // "MPF\0", then the TIFF header with the first IFD at offset 8
+            0x4D504600, 0x4D4D002A, 0x00000008,
+            // three tags, with the MP entries stored after the IFD's next-IFD offset (8 + 2 + 3 * 12 + 4 = 50)
+            0x0003B000, 0x00070000, 0x00043031, 0x3030B001, 0x00040000, 0x00010000, 0x0002B002, 0x00070000, 0x00200000, 0x00320000, 0x00000000,
+        };
+        byte[] bytes = new byte[4 + 50 + 32];
+        for (int i = 0; i < words.length; i++) {
+            bytes[i * 4] = (byte)(words[i] >> 24);
+            bytes[i * 4 + 1] = (byte)(words[i] >> 16);
+            bytes[i * 4 + 2] = (byte)(words[i] >> 8);
+            bytes[i * 4 + 3] = (byte)words[i];
+        }
+        writeEntry(bytes, 4 + 50, 0x20030000L, primaryLength, 0);
+        writeEntry(bytes, 4 + 50 + 16, 0, _gainMapLength, gainMapOffset);
+        return bytes;
+    }
+
+    private static void writeEntry(byte[] bytes, int index, long attribute, long size, long offset)
+    {
+        long[] values = {attribute, size, offset};
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 4; j++)
+                bytes[index + i * 4 + j] = (byte)(values[i] >> (24 - j * 8));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.tiff;
+
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class TiffMetadataReaderTest
+{
+    /** A minimal TIFF with a single IFD holding ImageWidth, followed by <code>paddingLength</code> bytes of image data. */
+    static byte[] createTiff(int paddingLength)
+    {
+        byte[] bytes = new byte[26 + paddingLength];
+        byte[] header = new byte[] {
+            'M','M', 0,42, 0,0,0,8,                 // TIFF header, IFD0 at offset 8
+            0,1,                                    // one entry
+            0x01,0x00, 0,3, 0,0,0,1, 0,64,0,0,      // ImageWidth, SHORT, count 1, inline value 64
+            0,0,0,0                                 // next IFD offset (none)
+        };
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        return bytes;
+    }
+
+    @Test
+    public void testStreamOfUnknownLengthIsNotReadToEnd() throws Exception
+    {
+        CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(createTiff(1024 * 1024)));
+
+        Metadata metadata = TiffMetadataReader.readMetadata(stream);
+
+        ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(directory);
+        assertFalse(metadata.hasErrors());
+        assertEquals(64, directory.getInt(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+
+        // Only the chunk containing the IFD chain should have been read
+        assertTrue("Read " + stream.count + " bytes", stream.count < 64 * 1024);
+    }
+
+    @Test
+    public void testReadMappedFile() throws Exception
+    {
+        File file = File.createTempFile("metadata-extractor-test-", ".tif");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                stream.write(createTiff(1024));
+            } finally {
+                stream.close();
+            }
+
+            Metadata metadata;
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                metadata = TiffMetadataReader.readMetadata(randomAccessFile.getChannel());
+            } finally {
+                randomAccessFile.close();
+            }
+
+            ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+            assertNotNull(directory);
+            assertFalse(metadata.hasErrors());
+            assertEquals(64, directory.getInt(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    private static class CountingInputStream extends InputStream
+    {
+        private final InputStream _inner;
+        long count;
+
+        CountingInputStream(InputStream inner)
+        {
+            _inner = inner;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = _inner.read();
+            if (b != -1)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int read = _inner.read(b, off, len);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.tools.FileUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the common reader tests with tiny chunks and a budget of two chunks, so that spilling is exercised.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class BoundedRandomAccessStreamReaderTest extends RandomAccessTestBase
+{
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            return new BoundedRandomAccessStreamReader(new ByteArrayInputStream(bytes), 2, 2);
+        } catch (IOException e) {
+            fail("Unable to create reader");
+            return null;
+        }
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullStreamThrows() throws IOException
+    {
+        new BoundedRandomAccessStreamReader(null);
+    }
+
+    private static byte[] createSequence(int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte)i;
+        return bytes;
+    }
+
+    @Test
+    public void testSpillsAndReloadsEvictedChunks() throws IOException
+    {
+        BoundedRandomAccessStreamReader reader = new BoundedRandomAccessStreamReader(new ByteArrayInputStream(createSequence(100)), 10, 3);
+        try {
+            assertEquals(99, reader.getUInt8(99));
+            assertEquals(7, reader.getChunkEvictionCount());
+
+            // chunk 0 was evicted, so is reloaded from the spill file
+            assertEquals(5, reader.getUInt8(5));
+            assertEquals(1, reader.getChunkMissCount());
+
+            // chunk 0 is now in memory again
+            assertEquals(6, reader.getUInt8(6));
+            assertEquals(1, reader.getChunkMissCount());
+
+            // out-of-order evictions are also spilled correctly
+            assertEquals(55, reader.getUInt8(55));
+            assertEquals(15, reader.getUInt8(15));
+            assertEquals(85, reader.getUInt8(85));
+            assertEquals(56, reader.getUInt8(56));
+            assertEquals(0x191A1B1C, reader.getInt32(25));
+            assertTrue(reader.getChunkHitCount() > 0);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testDoesNotRetainEvictedChunk() throws IOException
+    {
+        BoundedRandomAccessStreamReader reader = new BoundedRandomAccessStreamReader(new ByteArrayInputStream(createSequence(100)), 10, 1);
+        try {
+            assertEquals(5, reader.getUInt8(5));
+
+            // reading chunk 1 evicts chunk 0, which was the most recently accessed
+            assertTrue(reader.isValidIndex(10, 1));
+            assertEquals(1, reader.getChunkEvictionCount());
+
+            assertEquals(6, reader.getUInt8(6));
+            assertEquals(1, reader.getChunkMissCount());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReloadsEvictedChunksFromFileInputStream() throws IOException
+    {
+        File file = File.createTempFile("metadata-extractor-test-", ".tmp");
+        try {
+            FileUtil.saveBytes(file, createSequence(100));
+            FileInputStream stream = new FileInputStream(file);
+            try {
+                BoundedRandomAccessStreamReader reader = new BoundedRandomAccessStreamReader(stream, 10, 2);
+                assertEquals(90, reader.getUInt8(90));
+                assertEquals(0x00010203, reader.getInt32(0));
+                assertEquals(1, reader.getChunkMissCount());
+                reader.close();
+            } finally {
+                stream.close();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class CoalescingByteSourceTest
+{
+    private static byte[] createBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte)i;
+        return bytes;
+    }
+
+    @Test
+    public void testReadAhead() throws Exception
+    {
+        LatencySimulatingByteSource source = new LatencySimulatingByteSource(createBytes(1000), 0);
+        CoalescingByteSource coalescing = new CoalescingByteSource(source, 100, 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        assertEquals(10, coalescing.read(0, buffer));
+        assertEquals(9, buffer.get(9));
+
+        buffer = ByteBuffer.allocate(10);
+        assertEquals(10, coalescing.read(90, buffer));
+        assertEquals(99, buffer.get(9));
+
+        assertEquals(1, coalescing.getFetchCount());
+        assertEquals(100, coalescing.getFetchedByteCount());
+        assertEquals(1, source.getRequestCount());
+
+        // spans the end of the first range
+        buffer = ByteBuffer.allocate(10);
+        assertEquals(10, coalescing.read(95, buffer));
+        assertEquals((byte)104, buffer.get(9));
+        assertEquals(2, coalescing.getFetchCount());
+    }
+
+    @Test
+    public void testFillsSmallGaps() throws Exception
+    {
+        LatencySimulatingByteSource source = new LatencySimulatingByteSource(createBytes(1000), 0);
+        CoalescingByteSource coalescing = new CoalescingByteSource(source, 10, 50);
+
+        coalescing.read(0, ByteBuffer.allocate(4));
+        coalescing.read(40, ByteBuffer.allocate(4));
+        assertEquals(2, coalescing.getFetchCount());
+        assertEquals(50, coalescing.getFetchedByteCount());
+
+        // everything from zero to 50 is now held
+        ByteBuffer buffer = ByteBuffer.allocate(50);
+        assertEquals(50, coalescing.read(0, buffer));
+        assertEquals(2, coalescing.getFetchCount());
+        assertEquals(49, buffer.get(49));
+
+        // a distant read is not joined
+        coalescing.read(500, ByteBuffer.allocate(4));
+        assertEquals(3, coalescing.getFetchCount());
+        assertEquals(60, coalescing.getFetchedByteCount());
+
+        // a read just before a held range is extended to meet it
+        coalescing.read(470, ByteBuffer.allocate(4));
+        assertEquals(4, coalescing.getFetchCount());
+        assertEquals(90, coalescing.getFetchedByteCount());
+        assertEquals(4, source.getRequestCount());
+    }
+
+    @Test
+    public void testEndOfSource() throws Exception
+    {
+        CoalescingByteSource coalescing = new CoalescingByteSource(new LatencySimulatingByteSource(createBytes(20), 0), 100, 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        assertEquals(5, coalescing.read(15, buffer));
+        assertEquals(-1, coalescing.read(20, buffer));
+        assertEquals(20, coalescing.getLength());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedRanges() throws Exception
+    {
+        LatencySimulatingByteSource source = new LatencySimulatingByteSource(createBytes(1000), 0);
+        CoalescingByteSource coalescing = new CoalescingByteSource(source, 100, 0, 250);
+
+        coalescing.read(0, ByteBuffer.allocate(4));
+        coalescing.read(200, ByteBuffer.allocate(4));
+        coalescing.read(0, ByteBuffer.allocate(4));
+        assertEquals(200, coalescing.getRetainedByteCount());
+
+        // the range at 200 is least recently used, so is discarded
+        coalescing.read(400, ByteBuffer.allocate(4));
+        assertEquals(1, coalescing.getEvictionCount());
+        assertEquals(200, coalescing.getRetainedByteCount());
+
+        coalescing.read(0, ByteBuffer.allocate(4));
+        assertEquals(3, coalescing.getFetchCount());
+
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        coalescing.read(200, buffer);
+        assertEquals((byte)203, buffer.get(3));
+        assertEquals(4, coalescing.getFetchCount());
+        assertEquals(2, coalescing.getEvictionCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailsWhenSourceReturnsNoData() throws Exception
+    {
+        CoalescingByteSource coalescing = new CoalescingByteSource(new ByteSource()
+        {
+            @Override
+            public long getLength()
+            {
+                return 1000;
+            }
+
+            @Override
+            public int read(long position, @NotNull ByteBuffer buffer)
+            {
+                return 0;
+            }
+        });
+
+        try {
+            coalescing.read(0, ByteBuffer.allocate(4));
+            fail("Exception expected");
+        } catch (IOException e) {
+            assertEquals("Underlying source returned no data.", e.getMessage());
+        }
+    }
+}
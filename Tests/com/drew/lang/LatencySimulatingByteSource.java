@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ByteSource} over a byte array which stands in for a remote source, sleeping for a fixed period on each
+ * read and counting the number of reads made.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class LatencySimulatingByteSource implements ByteSource
+{
+    @NotNull
+    private final byte[] _bytes;
+    private final long _latencyMillis;
+    private int _requestCount;
+
+    public LatencySimulatingByteSource(@NotNull byte[] bytes, long latencyMillis)
+    {
+        _bytes = bytes;
+        _latencyMillis = latencyMillis;
+    }
+
+    public int getRequestCount()
+    {
+        return _requestCount;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _bytes.length;
+    }
+
+    @Override
+    public int read(long position, @NotNull ByteBuffer buffer) throws IOException
+    {
+        _requestCount++;
+
+        if (_latencyMillis != 0) {
+            try {
+                Thread.sleep(_latencyMillis);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        if (position >= _bytes.length)
+            return -1;
+
+        int count = (int)Math.min(buffer.remaining(), _bytes.length - position);
+        buffer.put(_bytes, (int)position, count);
+        return count;
+    }
+}
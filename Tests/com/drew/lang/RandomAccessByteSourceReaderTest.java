@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the common reader tests over a coalescing source with a tiny read-ahead, so that values spanning fetched
+ * ranges are covered.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class RandomAccessByteSourceReaderTest extends RandomAccessTestBase
+{
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            return new RandomAccessByteSourceReader(new CoalescingByteSource(new LatencySimulatingByteSource(bytes, 0), 3, 1));
+        } catch (IOException e) {
+            fail("Unable to create reader");
+            return null;
+        }
+    }
+
+    @Test
+    public void testMultiByteValuesUseSingleRead() throws Exception
+    {
+        LatencySimulatingByteSource source = new LatencySimulatingByteSource(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, 0);
+        RandomAccessByteSourceReader reader = new RandomAccessByteSourceReader(source);
+
+        assertEquals(0x00010203, reader.getInt32(0));
+        assertEquals(1, source.getRequestCount());
+
+        assertEquals(0x0102030405060708L, reader.getInt64(1L));
+        assertEquals(2, source.getRequestCount());
+
+        assertEquals(0x0304, reader.getUInt16(3));
+        assertEquals(3, source.getRequestCount());
+
+        reader.setMotorolaByteOrder(false);
+        assertEquals(0x060504, reader.getInt24(4));
+        assertEquals(4, source.getRequestCount());
+
+        assertEquals(2, reader.getInt16Array(0, 2).length);
+        assertEquals(5, source.getRequestCount());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.tools.FileUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the common reader tests with a tiny region length, so that values spanning region boundaries are covered.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class RandomAccessMappedFileReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            return new RandomAccessMappedFileReader(createChannel(bytes).getChannel(), 0, 3);
+        } catch (IOException e) {
+            fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    private RandomAccessFile createChannel(byte[] bytes) throws IOException
+    {
+        // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+        closeTempFile();
+
+        _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+        _tempFile.deleteOnExit();
+        FileUtil.saveBytes(_tempFile, bytes);
+        _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+        return _randomAccessFile;
+    }
+
+    @After
+    public void closeTempFile() throws IOException
+    {
+        // Mapped files cannot be deleted on all platforms until the mapping is collected, so rely on deleteOnExit
+        if (_randomAccessFile != null)
+            _randomAccessFile.close();
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullChannelThrows() throws IOException
+    {
+        new RandomAccessMappedFileReader(null);
+    }
+
+    @Test
+    public void testReadsAfterChannelClosed() throws IOException
+    {
+        RandomAccessFile file = createChannel(new byte[]{0x01, 0x02, 0x03, 0x04});
+        RandomAccessReader reader = new RandomAccessMappedFileReader(file.getChannel());
+
+        assertEquals(0x0102, reader.getUInt16(0));
+
+        file.close();
+
+        assertEquals(0x01020304, reader.getInt32(0));
+        assertArrayEquals(new byte[]{0x03, 0x04}, reader.getBytes(2, 2));
+    }
+
+    @Test
+    public void testBaseOffset() throws IOException
+    {
+        RandomAccessFile file = createChannel(new byte[]{0x01, 0x02, 0x03, 0x04, 0x05});
+        RandomAccessReader reader = new RandomAccessMappedFileReader(file.getChannel(), 2, 2);
+
+        assertEquals(3, reader.getLength());
+        assertEquals(0x0304, reader.getUInt16(0));
+        assertEquals(0x0405, reader.getUInt16(1));
+        assertEquals(4, reader.toUnshiftedOffset(2));
+        assertArrayEquals(new byte[]{0x03, 0x04, 0x05}, reader.getBytes(0, 3));
+
+        reader.setMotorolaByteOrder(false);
+        assertEquals(0x0504, reader.getUInt16(1));
+    }
+}
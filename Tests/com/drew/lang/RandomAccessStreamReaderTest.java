@@ -25,6 +25,10 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author Drew Noakes https://drewnoakes.com
  */
@@ -42,4 +46,29 @@ public class RandomAccessStreamReaderTest extends RandomAccessTestBase
     {
         return new RandomAccessStreamReader(new ByteArrayInputStream(bytes));
     }
+
+    @Test
+    public void testHasBytesOnlyReadsRequiredChunks() throws Exception
+    {
+        ByteArrayInputStream stream = new ByteArrayInputStream(new byte[10000]);
+        RandomAccessReader reader = new RandomAccessStreamReader(stream, 1000);
+
+        assertTrue(reader.hasBytes(0, 1500));
+        assertEquals(8000, stream.available());
+
+        assertFalse(reader.hasBytes(-1, 1));
+        assertTrue(reader.hasBytes(2000, 0));
+        assertFalse(reader.hasBytes(9999, 2));
+        assertEquals(0, stream.available());
+    }
+
+    @Test
+    public void testHasBytesWithKnownLengthDoesNotRead() throws Exception
+    {
+        ByteArrayInputStream stream = new ByteArrayInputStream(new byte[10000]);
+        RandomAccessReader reader = new RandomAccessStreamReader(stream, 1000, 10000);
+
+        assertFalse(reader.hasBytes(9999, 2));
+        assertEquals(10000, stream.available());
+    }
 }
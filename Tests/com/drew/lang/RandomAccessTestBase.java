@@ -25,6 +25,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -336,4 +337,110 @@ public abstract class RandomAccessTestBase
             fail("Expecting exception");
         } catch (IOException ignored) {}
     }
+
+    @Test
+    public void testLongIndexes() throws Exception
+    {
+        byte[] buffer = new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08};
+        RandomAccessReader reader = createReader(buffer);
+
+        assertEquals(0x0102, reader.getUInt16(1L));
+        assertEquals(0x01020304, reader.getInt32(1L));
+        assertEquals(0x01020304L, reader.getUInt32(1L));
+        assertEquals(0x0102030405060708L, reader.getInt64(1L));
+        assertEquals((byte)0x08, reader.getByte(8L));
+
+        byte[] bytes = reader.getBytes(7L, 2);
+        assertEquals(2, bytes.length);
+        assertEquals((byte)0x07, bytes[0]);
+        assertEquals((byte)0x08, bytes[1]);
+
+        reader.setMotorolaByteOrder(false);
+        assertEquals(0x0201, reader.getUInt16(1L));
+        assertEquals(0x04030201, reader.getInt32(1L));
+        assertEquals(0x0807060504030201L, reader.getInt64(1L));
+
+        try {
+            reader.getInt32(7L);
+            fail("Exception expected");
+        } catch (IOException ex) {
+            assertEquals("Attempt to read from beyond end of underlying data source (requested index: 7, requested count: 4, max index: 8)", ex.getMessage());
+        }
+
+        try {
+            reader.getInt64((long)Integer.MAX_VALUE + 1);
+            fail("Exception expected");
+        } catch (BufferBoundsException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSlice() throws Exception
+    {
+        byte[] buffer = new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07};
+        RandomAccessReader reader = createReader(buffer);
+        reader.setMotorolaByteOrder(false);
+
+        RandomAccessReader slice = reader.slice(2, 4);
+        assertEquals(4, slice.getLength());
+        assertTrue(slice.isMotorolaByteOrder());
+        assertEquals(0x02030405, slice.getInt32(0));
+        assertEquals(2, slice.toUnshiftedOffset(0) - reader.toUnshiftedOffset(0));
+
+        RandomAccessReader nested = slice.slice(1, 2);
+        assertEquals(0x0304, nested.getUInt16(0));
+
+        SequentialReader sequential = reader.sequentialSlice(5, 3);
+        assertEquals(0x05, sequential.getByte());
+        assertEquals(0x0607, sequential.getUInt16());
+
+        try {
+            slice.getByte(4);
+            slice.getInt32(1);
+            fail("Exception expected");
+        } catch (BufferBoundsException ignored) {}
+
+        try {
+            reader.slice(6, 3);
+            fail("Exception expected");
+        } catch (BufferBoundsException ignored) {}
+    }
+
+    @Test
+    public void testGetArrays() throws Exception
+    {
+        byte[] buffer = new byte[]{0x00, (byte)0xFF, 0x01, 0x00, 0x00, 0x00, 0x02, 0x00, 0x00, 0x00, 0x03, (byte)0x80, 0x00, 0x00, 0x00, 0x00, 0x01};
+        RandomAccessReader reader = createReader(buffer);
+
+        assertArrayEquals(new short[]{0xFF, 0x01}, reader.getUInt8Array(1, 2));
+        assertArrayEquals(new short[]{(short)0xFF01, 0x0000}, reader.getInt16Array(1, 2));
+        assertArrayEquals(new int[]{0xFF01, 0x0000}, reader.getUInt16Array(1, 2));
+        assertArrayEquals(new int[]{0x02, 0x03}, reader.getInt32Array(3, 2));
+        assertArrayEquals(new long[]{0x03L, 0x80000000L}, reader.getUInt32Array(7, 2));
+        assertArrayEquals(new long[]{0x0000000200000003L}, reader.getInt64Array(3, 1));
+        assertArrayEquals(new float[]{Float.intBitsToFloat(0x02), Float.intBitsToFloat(0x03)}, reader.getFloat32Array(3, 2), 0f);
+        assertArrayEquals(new double[]{Double.longBitsToDouble(0x0000000200000003L)}, reader.getDouble64Array(3, 1), 0d);
+        assertEquals(0, reader.getInt32Array(100, 0).length);
+
+        Rational[] rationals = reader.getRationalArray(3, 1, false);
+        assertEquals(1, rationals.length);
+        assertEquals(new Rational(2, 3), rationals[0]);
+        assertEquals(new Rational(3, 0x80000000L), reader.getRationalArray(7, 1, false)[0]);
+        assertEquals(new Rational(3, Integer.MIN_VALUE), reader.getRationalArray(7, 1, true)[0]);
+
+        reader.setMotorolaByteOrder(false);
+        assertArrayEquals(new int[]{0x01FF, 0x0000}, reader.getUInt16Array(1, 2));
+        assertArrayEquals(new int[]{0x02, 0x8003}, reader.getInt32Array(6, 2));
+
+        try {
+            reader.getInt32Array(10, 2);
+            fail("Exception expected");
+        } catch (BufferBoundsException ignored) {}
+
+        try {
+            reader.getInt16Array(0, -1);
+            fail("Exception expected");
+        } catch (BufferBoundsException ignored) {}
+    }
 }
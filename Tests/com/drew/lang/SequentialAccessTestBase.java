@@ -394,4 +394,74 @@ public abstract class SequentialAccessTestBase
         reader.getBytes(50);
         assertFalse(reader.trySkip(Integer.MAX_VALUE));
     }
+
+    @Test
+    public void testSlice() throws Exception
+    {
+        byte[] buffer = new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07};
+        SequentialReader reader = createReader(buffer);
+        reader.skip(1);
+
+        SequentialReader slice = reader.slice(3);
+        assertEquals(4, reader.getPosition());
+        assertEquals(0, slice.getPosition());
+        assertEquals(0x0102, slice.getUInt16());
+        assertEquals(0x03, slice.getByte());
+        assertEquals(0, slice.available());
+
+        RandomAccessReader randomAccess = reader.randomAccessSlice(2);
+        assertEquals(6, reader.getPosition());
+        assertEquals(2, randomAccess.getLength());
+        assertEquals(0x0405, randomAccess.getUInt16(0));
+
+        try {
+            slice.getByte();
+            fail("Exception expected");
+        } catch (EOFException ignored) {}
+
+        try {
+            reader.slice(3);
+            fail("Exception expected");
+        } catch (EOFException ignored) {}
+    }
+
+    @Test
+    public void testSkipPast() throws Exception
+    {
+        byte[] buffer = new byte[]{0x00, 0x01, (byte)0xFF, 0x02, (byte)0xFF, 0x03};
+        SequentialReader reader = createReader(buffer);
+
+        assertEquals(2, reader.skipPast((byte)0xFF));
+        assertEquals(3, reader.getPosition());
+        assertEquals(0x02, reader.getByte());
+        assertEquals(0, reader.skipPast((byte)0xFF));
+        assertEquals(5, reader.getPosition());
+        assertEquals(0x03, reader.getByte());
+
+        try {
+            reader.skipPast((byte)0xFF);
+            fail("Exception expected");
+        } catch (EOFException ignored) {}
+    }
+
+    @Test
+    public void testSkipPastWithLimit() throws Exception
+    {
+        byte[] buffer = new byte[]{0x00, 0x01, (byte)0xFF, 0x02, 0x03, 0x04, (byte)0xFF};
+        SequentialReader reader = createReader(buffer);
+
+        assertEquals(-1, reader.skipPast((byte)0xFF, 2));
+        assertEquals(2, reader.getPosition());
+        assertEquals(0, reader.skipPast((byte)0xFF, 1));
+        assertEquals(3, reader.getPosition());
+        assertEquals(-1, reader.skipPast((byte)0xFF, 0));
+        assertEquals(3, reader.getPosition());
+        assertEquals(3, reader.skipPast((byte)0xFF, 4));
+        assertEquals(7, reader.getPosition());
+
+        try {
+            reader.skipPast((byte)0xFF, 1);
+            fail("Exception expected");
+        } catch (EOFException ignored) {}
+    }
 }
@@ -23,6 +23,15 @@ package com.drew.lang;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 /**
  * @author Drew Noakes https://drewnoakes.com
@@ -41,4 +50,113 @@ public class StreamReaderTest extends SequentialAccessTestBase
     {
         return new StreamReader(new ByteArrayInputStream(bytes));
     }
+
+    @Test
+    public void testReadsSpanningBufferBoundaries() throws Exception
+    {
+        byte[] bytes = new byte[40];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)i;
+
+        StreamReader reader = new StreamReader(new ByteArrayInputStream(bytes), 8);
+
+        reader.skip(5);
+        assertEquals(0x05060708, reader.getInt32());
+        assertEquals(9, reader.getPosition());
+        assertEquals(31, reader.available());
+
+        reader.setMotorolaByteOrder(false);
+        assertEquals(0x100F0E0D0C0B0A09L, reader.getInt64());
+        assertEquals(0x1211, reader.getUInt16());
+        assertEquals(19, reader.getPosition());
+
+        byte[] large = reader.getBytes(12);
+        assertEquals(19, large[0]);
+        assertEquals(30, large[11]);
+        assertEquals(31, reader.getPosition());
+
+        assertEquals(31, reader.getByte());
+        assertFalse(reader.trySkip(10));
+        assertEquals(40, reader.getPosition());
+        assertEquals(0, reader.available());
+
+        try {
+            reader.getInt32();
+            fail("Exception expected");
+        } catch (EOFException ignored) {}
+    }
+
+    @Test
+    public void testMultiByteReadAtEndOfStream() throws Exception
+    {
+        StreamReader reader = new StreamReader(new ByteArrayInputStream(new byte[]{1, 2, 3}), 8);
+
+        try {
+            reader.getInt32();
+            fail("Exception expected");
+        } catch (EOFException ignored) {}
+
+        assertEquals(3, reader.getPosition());
+    }
+
+    @Test
+    public void testSkipPastSpanningBufferBoundaries() throws Exception
+    {
+        byte[] bytes = new byte[100];
+        bytes[37] = (byte)0xFF;
+        bytes[38] = 0x42;
+        StreamReader reader = new StreamReader(new ByteArrayInputStream(bytes), 8);
+        reader.getByte();
+
+        assertEquals(36, reader.skipPast((byte)0xFF));
+        assertEquals(38, reader.getPosition());
+        assertEquals(0x42, reader.getByte());
+
+        try {
+            reader.skipPast((byte)0xFF);
+            fail("Exception expected");
+        } catch (EOFException ignored) {}
+
+        assertEquals(100, reader.getPosition());
+    }
+
+    @Test
+    public void testCopyRemainingToIncludesBufferedBytes() throws Exception
+    {
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)i;
+        StreamReader reader = new StreamReader(new ByteArrayInputStream(bytes), 16);
+        reader.getBytes(5);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(95, reader.copyRemainingTo(output));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 5, 100), output.toByteArray());
+        assertEquals(100, reader.getPosition());
+    }
+
+    @Test
+    public void testStreamCanBeReusedAfterReading() throws Exception
+    {
+        byte[] bytes = new byte[40];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)i;
+
+        ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
+        StreamReader reader = new StreamReader(stream, 16);
+
+        assertEquals(0x00010203, reader.getInt32());
+        assertEquals(4, reader.getPosition());
+
+        // The stream has been read ahead of the reader
+        assertEquals(24, stream.available());
+        assertEquals(36, reader.available());
+
+        InputStream remaining = reader.getRemainingStream();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int b;
+        while ((b = remaining.read()) != -1)
+            output.write(b);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 4, 40), output.toByteArray());
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifTiffHandler;
+import com.drew.metadata.exif.makernotes.OlympusMakernoteDirectory;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class DirectoryRegistryTest
+{
+    public static class RegisteredDirectory extends MockDirectory
+    {
+    }
+
+    public static class UnregisteredDirectory extends MockDirectory
+    {
+    }
+
+    @Test
+    public void testCreateUsesRegisteredFactory() throws Exception
+    {
+        final AtomicInteger count = new AtomicInteger();
+        DirectoryRegistry.register(RegisteredDirectory.class, () -> {
+            count.incrementAndGet();
+            return new RegisteredDirectory();
+        });
+
+        assertNotNull(DirectoryRegistry.getFactory(RegisteredDirectory.class));
+        assertEquals(RegisteredDirectory.class, DirectoryRegistry.create(RegisteredDirectory.class).getClass());
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void testCreateFallsBackToReflection() throws Exception
+    {
+        assertNull(DirectoryRegistry.getFactory(UnregisteredDirectory.class));
+        assertEquals(UnregisteredDirectory.class, DirectoryRegistry.create(UnregisteredDirectory.class).getClass());
+    }
+
+    public static class UnconstructableDirectory extends MockDirectory
+    {
+        public UnconstructableDirectory(int value)
+        {
+        }
+    }
+
+    @Test
+    public void testCreateRejectsTypesWithoutParameterlessConstructor() throws Exception
+    {
+        try {
+            DirectoryRegistry.create(UnconstructableDirectory.class);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getCause() instanceof NoSuchMethodException);
+        }
+    }
+
+    @Test
+    public void testTiffHandlerRegistersDirectories() throws Exception
+    {
+        new ExifTiffHandler(new Metadata(), null, 0);
+
+        assertNotNull(DirectoryRegistry.getFactory(ExifIFD0Directory.class));
+        assertNotNull(DirectoryRegistry.getFactory(ErrorDirectory.class));
+
+        // makernote directories are not registered, and are created via reflection instead
+        assertNull(DirectoryRegistry.getFactory(OlympusMakernoteDirectory.class));
+        assertEquals(OlympusMakernoteDirectory.class, DirectoryRegistry.create(OlympusMakernoteDirectory.class).getClass());
+    }
+}
@@ -254,4 +254,36 @@ public class DirectoryTest
         directory.setString(2, "Tag 2");
         assertEquals("Exif IFD0 Directory (2 tags)", directory.toString());
     }
+
+    @Test
+    public void testGetTagsPreservesInsertionOrderAcrossGrowth() throws Exception
+    {
+        // Enough tags to grow the table several times, in an order unrelated to tag type
+        for (int i = 0; i < 500; i++)
+            _directory.setInt((i * 7919) % 65536, i);
+
+        // Overwriting a value retains the tag's original position
+        _directory.setInt(0, -1);
+
+        assertEquals(500, _directory.getTagCount());
+
+        int i = 0;
+        for (Tag tag : _directory.getTags()) {
+            int tagType = (i * 7919) % 65536;
+            assertEquals(tagType, tag.getTagType());
+            assertTrue(_directory.containsTag(tagType));
+            assertEquals(i == 0 ? -1 : i, _directory.getInt(tagType));
+            i++;
+        }
+        assertEquals(500, i);
+        assertFalse(_directory.containsTag(1));
+        assertNull(_directory.getObject(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetTagsIsReadOnly()
+    {
+        _directory.setInt(1, 1);
+        _directory.getTags().clear();
+    }
 }
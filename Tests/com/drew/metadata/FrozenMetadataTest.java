@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.lang.Charsets;
+import com.drew.lang.Rational;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class FrozenMetadataTest
+{
+    @Test
+    public void testFrozenValuesMatchDirectories() throws Exception
+    {
+        Metadata metadata = ImageMetadataReader.readMetadata(new File("Tests/Data/nikonMakernoteType1.jpg"));
+        FrozenMetadata frozen = metadata.freeze();
+
+        int directoryIndex = 0;
+        for (Directory directory : metadata.getDirectories()) {
+            assertEquals(directory.getClass(), frozen.getDirectoryType(directoryIndex));
+            assertEquals(directory.getName(), frozen.getDirectoryName(directoryIndex));
+            assertEquals(directory.getTagCount(), frozen.getTagCount(directoryIndex));
+            assertEquals(directory.getErrorCount(), frozen.getErrors(directoryIndex).size());
+
+            int tagIndex = 0;
+            for (Tag tag : directory.getTags()) {
+                int tagType = tag.getTagType();
+                assertEquals(tagType, frozen.getTagType(directoryIndex, tagIndex++));
+                assertTrue(frozen.containsTag(directoryIndex, tagType));
+                assertEquals(directory.getString(tagType), frozen.getString(directoryIndex, tagType));
+                assertEquals(directory.getInteger(tagType), frozen.getInteger(directoryIndex, tagType));
+                assertEquals(directory.getRational(tagType), frozen.getRational(directoryIndex, tagType));
+            }
+            directoryIndex++;
+        }
+        assertEquals(directoryIndex, frozen.getDirectoryCount());
+
+        int subIfdIndex = frozen.indexOfDirectory(ExifSubIFDDirectory.class);
+        assertEquals(frozen.indexOfDirectory(ExifIFD0Directory.class), frozen.getParentIndex(subIfdIndex));
+        assertEquals(-1, frozen.getParentIndex(frozen.indexOfDirectory(ExifIFD0Directory.class)));
+    }
+
+    @Test
+    public void testValueTypesRoundTrip() throws Exception
+    {
+        Directory directory = new MockDirectory();
+        directory.setInt(1, -7);
+        directory.setLong(2, 1L << 40);
+        directory.setObject(3, (short)-3);
+        directory.setObject(4, (byte)9);
+        directory.setFloat(5, 1.5f);
+        directory.setDouble(6, -2.25);
+        directory.setBoolean(7, true);
+        directory.setString(8, "caf\u00e9");
+        directory.setStringValue(9, new StringValue(new byte[]{'a', 'b'}, Charsets.ISO_8859_1));
+        directory.setRational(10, new Rational(1, 3));
+        directory.setDate(11, new Date(123456789L));
+        directory.setByteArray(12, new byte[]{1, 2, 3});
+        directory.setIntArray(13, new int[]{4, 5});
+        directory.setRationalArray(14, new Rational[]{new Rational(1, 2), new Rational(3, 4)});
+        directory.setStringArray(15, new String[]{"x", "y"});
+        directory.setStringValueArray(16, new StringValue[]{new StringValue(new byte[]{'z'}, null)});
+        directory.setDoubleArray(17, new double[]{0.5});
+        directory.setObject(18, new StringBuilder("retained"));
+        directory.addError("an error");
+
+        Metadata metadata = new Metadata();
+        metadata.addDirectory(directory);
+        FrozenMetadata frozen = metadata.freeze();
+
+        assertEquals(-7, frozen.getInt(0, 1));
+        assertEquals(1L << 40, frozen.getLong(0, 2));
+        assertEquals((short)-3, frozen.getObject(0, 3));
+        assertEquals((byte)9, frozen.getObject(0, 4));
+        assertEquals(1.5f, frozen.getObject(0, 5));
+        assertEquals(-2.25, frozen.getDouble(0, 6), 0);
+        assertEquals(true, frozen.getObject(0, 7));
+        assertEquals("caf\u00e9", frozen.getString(0, 8));
+        StringValue stringValue = frozen.getStringValue(0, 9);
+        assertNotNull(stringValue);
+        assertEquals("ab", stringValue.toString());
+        assertEquals(Charsets.ISO_8859_1, stringValue.getCharset());
+        assertEquals(new Rational(1, 3), frozen.getRational(0, 10));
+        assertEquals(new Date(123456789L), frozen.getObject(0, 11));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[])frozen.getObject(0, 12));
+        assertArrayEquals(new int[]{4, 5}, (int[])frozen.getObject(0, 13));
+        assertArrayEquals(new Rational[]{new Rational(1, 2), new Rational(3, 4)}, (Rational[])frozen.getObject(0, 14));
+        assertArrayEquals(new String[]{"x", "y"}, (String[])frozen.getObject(0, 15));
+        StringValue[] stringValues = (StringValue[])frozen.getObject(0, 16);
+        assertEquals(1, stringValues.length);
+        assertEquals("z", stringValues[0].toString());
+        assertNull(stringValues[0].getCharset());
+        assertEquals("0.5", frozen.getString(0, 17));
+        assertEquals("retained", frozen.getString(0, 18));
+        assertEquals("an error", frozen.getErrors(0).get(0));
+
+        assertFalse(frozen.containsTag(0, 99));
+        assertNull(frozen.getObject(0, 99));
+        try {
+            frozen.getInt(0, 99);
+            fail("Expected an exception");
+        } catch (MetadataException e) {
+            // expected
+        }
+
+        // Later changes to the source are not reflected
+        directory.setInt(1, 100);
+        assertEquals(-7, frozen.getInt(0, 1));
+
+        // Nor can the snapshot be changed via returned values
+        ((byte[])frozen.getObject(0, 12))[0] = 42;
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[])frozen.getObject(0, 12));
+    }
+}
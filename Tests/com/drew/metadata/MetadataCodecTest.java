@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.makernotes.NikonType1MakernoteDirectory;
+import com.drew.lang.Charsets;
+import com.drew.metadata.file.FileTypeDirectory;
+import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataCodecTest
+{
+    @Test
+    public void testRoundTripPreservesDirectories() throws Exception
+    {
+        String[] files = {
+            "Tests/Data/nikonMakernoteType1.jpg",
+            "Tests/Data/adobeJpeg1.jpg",
+            "Tests/Data/photoshop-8x12-rgb24-all-metadata.png",
+            "Tests/Data/photoshop-8x12-32colors-alpha.gif"
+        };
+
+        for (String file : files) {
+            Metadata metadata = ImageMetadataReader.readMetadata(new File(file));
+            Metadata decoded = MetadataCodec.decode(MetadataCodec.encode(metadata));
+
+            List<Directory> expected = toList(metadata.getDirectories());
+            List<Directory> actual = toList(decoded.getDirectories());
+            assertEquals(file, expected.size(), actual.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                Directory expectedDirectory = expected.get(i);
+                Directory actualDirectory = actual.get(i);
+                assertEquals(expectedDirectory.getClass(), actualDirectory.getClass());
+                assertEquals(expectedDirectory.getName(), actualDirectory.getName());
+                assertEquals(toList(expectedDirectory.getErrors()), toList(actualDirectory.getErrors()));
+                assertEquals(expected.indexOf(expectedDirectory.getParent()), actual.indexOf(actualDirectory.getParent()));
+                assertEquals(expectedDirectory.getTagCount(), actualDirectory.getTagCount());
+
+                for (Tag tag : expectedDirectory.getTags()) {
+                    int tagType = tag.getTagType();
+                    Object expectedValue = expectedDirectory.getObject(tagType);
+                    Object actualValue = actualDirectory.getObject(tagType);
+                    assertNotNull(actualValue);
+                    assertEquals(expectedValue.getClass(), actualValue.getClass());
+                    assertEquals(expectedDirectory.getString(tagType), actualDirectory.getString(tagType));
+                    assertEquals(expectedDirectory.getDescription(tagType), actualDirectory.getDescription(tagType));
+                }
+
+                if (expectedDirectory instanceof XmpDirectory) {
+                    assertEquals(((XmpDirectory)expectedDirectory).getXmpProperties(), ((XmpDirectory)actualDirectory).getXmpProperties());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeWithProjectionSkipsDirectories() throws Exception
+    {
+        Metadata metadata = ImageMetadataReader.readMetadata(new File("Tests/Data/nikonMakernoteType1.jpg"));
+        byte[] bytes = MetadataCodec.encode(metadata);
+
+        MetadataProjection projection = new MetadataProjection();
+        projection.addDirectory(ExifSubIFDDirectory.class);
+        projection.addTags(JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH);
+
+        Metadata decoded = MetadataCodec.decode(bytes, projection);
+
+        assertNull(decoded.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertNull(decoded.getFirstDirectoryOfType(NikonType1MakernoteDirectory.class));
+        assertNull(decoded.getFirstDirectoryOfType(FileTypeDirectory.class));
+
+        ExifSubIFDDirectory subIfd = decoded.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        assertNotNull(subIfd);
+        assertEquals(metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class).getTagCount(), subIfd.getTagCount());
+        // The parent was skipped
+        assertNull(subIfd.getParent());
+
+        JpegDirectory jpeg = decoded.getFirstDirectoryOfType(JpegDirectory.class);
+        assertNotNull(jpeg);
+        assertEquals(1, jpeg.getTagCount());
+        assertEquals(metadata.getFirstDirectoryOfType(JpegDirectory.class).getImageWidth(), jpeg.getImageWidth());
+    }
+
+    @Test
+    public void testDecodeRejectsOtherVersions() throws Exception
+    {
+        byte[] bytes = MetadataCodec.encode(new Metadata());
+        assertEquals(0, toList(MetadataCodec.decode(bytes).getDirectories()).size());
+
+        bytes[5]++;
+        try {
+            MetadataCodec.decode(bytes);
+            fail("Expected an exception");
+        } catch (IOException e) {
+            // expected
+        }
+
+        try {
+            MetadataCodec.decode(new byte[] { 1, 2, 3 });
+            fail("Expected an exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEncodeRejectsValuesWithoutEncoding() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        ExifIFD0Directory directory = new ExifIFD0Directory();
+        directory.setObject(ExifIFD0Directory.TAG_MAKE, new StringBuilder("Make"));
+        metadata.addDirectory(directory);
+
+        try {
+            MetadataCodec.encode(metadata);
+            fail("Expected an exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDecodeSkipsUnknownClassesExcludedByProjection() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        JpegDirectory jpeg = new JpegDirectory();
+        jpeg.setInt(JpegDirectory.TAG_IMAGE_WIDTH, 10);
+        metadata.addDirectory(jpeg);
+        ExifIFD0Directory ifd0 = new ExifIFD0Directory();
+        ifd0.setString(ExifIFD0Directory.TAG_MAKE, "Make");
+        metadata.addDirectory(ifd0);
+        byte[] bytes = MetadataCodec.encode(metadata);
+
+        MetadataProjection projection = new MetadataProjection();
+        projection.addDirectory(ExifIFD0Directory.class);
+
+        // A class name of the same length which does not exist
+        byte[] unknown = replace(bytes, JpegDirectory.class.getName(), "com.drew.metadata.jpeg.XpegDirectory");
+        Metadata decoded = MetadataCodec.decode(unknown, projection);
+        assertEquals(1, toList(decoded.getDirectories()).size());
+        assertEquals("Make", decoded.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MAKE));
+
+        try {
+            MetadataCodec.decode(unknown);
+            fail("Expected an exception");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // A class name of the same length which is not a directory
+        try {
+            MetadataCodec.decode(replace(bytes, JpegDirectory.class.getName(), "com.drew.metadata.jpeg.JpegComponent"), projection);
+            fail("Expected an exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static byte[] replace(byte[] bytes, String target, String replacement)
+    {
+        byte[] targetBytes = target.getBytes(Charsets.UTF_8);
+        byte[] replacementBytes = replacement.getBytes(Charsets.UTF_8);
+        assertEquals(targetBytes.length, replacementBytes.length);
+
+        byte[] result = bytes.clone();
+        for (int i = 0; i <= result.length - targetBytes.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(result, i, i + targetBytes.length), targetBytes)) {
+                System.arraycopy(replacementBytes, 0, result, i, replacementBytes.length);
+                return result;
+            }
+        }
+        fail("Target not found");
+        return null;
+    }
+
+    private static <T> List<T> toList(Iterable<T> items)
+    {
+        List<T> list = new ArrayList<T>();
+        for (T item : items)
+            list.add(item);
+        return list;
+    }
+}
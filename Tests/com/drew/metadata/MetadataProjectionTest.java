@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.metadata.exif.ExifDirectoryBase;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.makernotes.CanonMakernoteDirectory;
+import com.drew.metadata.mp4.Mp4Directory;
+import com.drew.metadata.mp4.media.Mp4VideoDirectory;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataProjectionTest
+{
+    @Test
+    public void testProjectedTagsApplyOnlyToTheirDirectoryType()
+    {
+        MetadataProjection projection = new MetadataProjection();
+        projection.addTags(Mp4Directory.class, Mp4Directory.TAG_LATITUDE, Mp4Directory.TAG_LONGITUDE);
+
+        assertTrue(projection.includesDirectory(Mp4Directory.class));
+        assertTrue(projection.includesDirectory(Directory.class));
+        assertFalse(projection.includesDirectory(Mp4VideoDirectory.class));
+        assertTrue(projection.includesTag(Mp4Directory.class, Mp4Directory.TAG_LATITUDE));
+        assertFalse(projection.includesTag(Mp4Directory.class, Mp4Directory.TAG_DURATION));
+        assertFalse(projection.includesTag(Mp4VideoDirectory.class, Mp4Directory.TAG_LATITUDE));
+        assertFalse(projection.includesMakernotes());
+        assertFalse(MetadataProjection.isUnrestricted(projection));
+    }
+
+    @Test
+    public void testProjectedDirectoryCoversSubtypes()
+    {
+        MetadataProjection projection = new MetadataProjection();
+        projection.addDirectory(ExifDirectoryBase.class);
+        projection.addTags(ExifDirectoryBase.class, ExifDirectoryBase.TAG_MAKE);
+
+        assertTrue(projection.includesDirectory(ExifIFD0Directory.class));
+        assertTrue(projection.includesTag(ExifIFD0Directory.class, ExifDirectoryBase.TAG_MODEL));
+        assertFalse(projection.includesMakernotes());
+
+        projection.addDirectory(CanonMakernoteDirectory.class);
+        assertTrue(projection.includesMakernotes());
+
+        projection.addDirectory(Directory.class);
+        assertTrue(MetadataProjection.isUnrestricted(projection));
+    }
+}
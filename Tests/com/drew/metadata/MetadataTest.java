@@ -20,14 +20,24 @@
  */
 package com.drew.metadata;
 
+import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifInteropDirectory;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.exif.GpsDirectory;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -113,4 +123,113 @@ public class MetadataTest
         assertSame(directory2, directories.toArray()[1]);
         assertSame(directory3, directories.toArray()[2]);
     }
+
+    @Test
+    public void testDirectoryDecoderRunsOnlyWhenItsTypeIsRequested()
+    {
+        final Directory decoded = new ExifSubIFDDirectory();
+        final int[] decodeCount = { 0 };
+
+        Metadata metadata = new Metadata();
+        Directory first = new ExifIFD0Directory();
+        Directory last = new ExifThumbnailDirectory(0);
+        metadata.addDirectory(first);
+        metadata.addDirectoryDecoder(new DirectoryDecoder()
+        {
+            @Override
+            public boolean mayProduce(@NotNull Class<? extends Directory> type)
+            {
+                return type.isAssignableFrom(ExifSubIFDDirectory.class);
+            }
+
+            @Override
+            public void decode(@NotNull Metadata metadata)
+            {
+                decodeCount[0]++;
+                metadata.addDirectory(decoded);
+            }
+        });
+        metadata.addDirectory(last);
+
+        assertSame(first, metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertSame(last, metadata.getFirstDirectoryOfType(ExifThumbnailDirectory.class));
+        assertEquals(0, decodeCount[0]);
+
+        assertSame(decoded, metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class));
+        assertEquals(1, decodeCount[0]);
+
+        // Decoded directories appear where the decoder was added, and are not decoded again
+        List<Directory> directories = new ArrayList<Directory>();
+        for (Directory directory : metadata.getDirectories()) {
+            directories.add(directory);
+        }
+        assertEquals(Arrays.asList(first, decoded, last), directories);
+        assertEquals(1, decodeCount[0]);
+    }
+
+    @Test
+    public void testConcurrentLookupsOfLazilyDecodedTypes() throws Exception
+    {
+        final List<Class<? extends Directory>> types = Arrays.<Class<? extends Directory>>asList(
+            ExifIFD0Directory.class, ExifSubIFDDirectory.class, GpsDirectory.class, ExifInteropDirectory.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(types.size());
+        try {
+            for (int iteration = 0; iteration < 50; iteration++) {
+                final Metadata metadata = new Metadata();
+                final AtomicInteger decodeCount = new AtomicInteger();
+                for (final Class<? extends Directory> type : types) {
+                    metadata.addDirectoryDecoder(new DirectoryDecoder()
+                    {
+                        @Override
+                        public boolean mayProduce(@NotNull Class<? extends Directory> requestedType)
+                        {
+                            return requestedType.isAssignableFrom(type);
+                        }
+
+                        @Override
+                        public void decode(@NotNull Metadata metadata)
+                        {
+                            decodeCount.incrementAndGet();
+                            try {
+                                for (int i = 0; i < 100; i++)
+                                    metadata.addDirectory(type.getDeclaredConstructor().newInstance());
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                    });
+                }
+
+                final CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+                for (final Class<? extends Directory> type : types) {
+                    results.add(executor.submit(new Callable<Integer>()
+                    {
+                        @Override
+                        public Integer call() throws Exception
+                        {
+                            start.await();
+                            assertNotNull(metadata.getFirstDirectoryOfType(type));
+                            assertTrue(metadata.containsDirectoryOfType(type));
+                            return metadata.getDirectoriesOfType(type).size();
+                        }
+                    }));
+                }
+                start.countDown();
+
+                for (Future<Integer> result : results)
+                    assertEquals(100, result.get().intValue());
+
+                // Each decoder ran once, and its directories were inserted in the order the decoders were added
+                assertEquals(types.size(), decodeCount.get());
+                assertEquals(types.size() * 100, metadata.getDirectoryCount());
+                int index = 0;
+                for (Directory directory : metadata.getDirectories())
+                    assertSame(types.get(index++ / 100), directory.getClass());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.metadata.exif;
+
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.tiff.TiffMetadataReader;
+import com.drew.lang.Rational;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ExifEditor}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ExifEditorTest
+{
+    private File _file;
+
+    @After
+    public void deleteFile()
+    {
+        if (_file != null && !_file.delete())
+            _file.deleteOnExit();
+    }
+
+    @Test
+    public void testEditTiff() throws Exception
+    {
+        byte[] original = createTiff();
+        writeFile(original);
+
+        FileChannel channel = open();
+        try {
+            ExifEditor editor = new ExifEditor(channel);
+
+            ExifValueLocation location = editor.getLocation(ExifSubIFDDirectory.class, ExifDirectoryBase.TAG_DATETIME_ORIGINAL);
+            assertNotNull(location);
+            assertEquals(76, location.getOffset());
+            assertEquals(20, location.getByteCount());
+
+            editor.setInt(ExifIFD0Directory.class, ExifDirectoryBase.TAG_ORIENTATION, 6);
+            editor.setString(ExifSubIFDDirectory.class, ExifDirectoryBase.TAG_DATETIME_ORIGINAL, "2020:01:02 03:04:05");
+            editor.setRational(ExifSubIFDDirectory.class, ExifDirectoryBase.TAG_EXPOSURE_TIME, new Rational(1, 250));
+        } finally {
+            channel.close();
+        }
+
+        assertEquals(original.length, _file.length());
+
+        Metadata metadata = TiffMetadataReader.readMetadata(_file);
+        ExifIFD0Directory ifd0 = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        ExifSubIFDDirectory subIfd = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        assertNotNull(ifd0);
+        assertNotNull(subIfd);
+        assertEquals(6, ifd0.getInt(ExifDirectoryBase.TAG_ORIENTATION));
+        assertEquals("2020:01:02 03:04:05", subIfd.getString(ExifDirectoryBase.TAG_DATETIME_ORIGINAL));
+        assertEquals(new Rational(1, 250), subIfd.getRational(ExifDirectoryBase.TAG_EXPOSURE_TIME));
+    }
+
+    @Test
+    public void testEditJpeg() throws Exception
+    {
+        byte[] tiff = createTiff();
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.write(new byte[]{(byte)0xFF, (byte)0xD8, (byte)0xFF, (byte)0xE1, 0, (byte)(tiff.length + 8)});
+        jpeg.write("Exif\0\0".getBytes("US-ASCII"));
+        jpeg.write(tiff);
+        jpeg.write(new byte[]{(byte)0xFF, (byte)0xDA, 0x00, 0x02, 0x12, 0x34, (byte)0xFF, (byte)0xD9});
+        writeFile(jpeg.toByteArray());
+
+        FileChannel channel = open();
+        try {
+            ExifEditor editor = new ExifEditor(channel);
+
+            // SOI, the APP1 marker and length, and the Exif preamble precede the TIFF header
+            ExifValueLocation location = editor.getLocation(ExifIFD0Directory.class, ExifDirectoryBase.TAG_ORIENTATION);
+            assertNotNull(location);
+            assertEquals(2 + 4 + 6 + 18, location.getOffset());
+
+            editor.setString(ExifSubIFDDirectory.class, ExifDirectoryBase.TAG_DATETIME_ORIGINAL, "2020:01:02");
+        } finally {
+            channel.close();
+        }
+
+        Metadata metadata = JpegMetadataReader.readMetadata(_file);
+        ExifSubIFDDirectory subIfd = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        assertNotNull(subIfd);
+        assertEquals("2020:01:02", subIfd.getString(ExifDirectoryBase.TAG_DATETIME_ORIGINAL));
+    }
+
+    @Test
+    public void testValuesThatDoNotFitAreRejected() throws Exception
+    {
+        byte[] original = createTiff();
+        writeFile(original);
+
+        FileChannel channel = open();
+        try {
+            ExifEditor editor = new ExifEditor(channel);
+
+            assertRejected(editor, ExifSubIFDDirectory.class, ExifDirectoryBase.TAG_DATETIME_ORIGINAL, "2020:01:02 03:04:05.678");
+            assertRejected(editor, ExifIFD0Directory.class, ExifDirectoryBase.TAG_ORIENTATION, 70000);
+            assertRejected(editor, ExifIFD0Directory.class, ExifDirectoryBase.TAG_ORIENTATION, "6");
+            assertRejected(editor, ExifIFD0Directory.class, ExifDirectoryBase.TAG_ARTIST, "Someone");
+        } finally {
+            channel.close();
+        }
+
+        assertArrayEquals(original, Files.readAllBytes(_file.toPath()));
+    }
+
+    private static void assertRejected(ExifEditor editor, Class<? extends ExifDirectoryBase> directoryType, int tagId, Object value) throws IOException
+    {
+        try {
+            if (value instanceof String)
+                editor.setString(directoryType, tagId, (String)value);
+            else
+                editor.setInt(directoryType, tagId, (Integer)value);
+            fail("Exception expected");
+        } catch (MetadataException ignored) {}
+    }
+
+    private FileChannel open() throws IOException
+    {
+        return FileChannel.open(_file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void writeFile(byte[] bytes) throws IOException
+    {
+        _file = File.createTempFile("metadata-extractor-", ".bin");
+        FileOutputStream stream = new FileOutputStream(_file);
+        try {
+            stream.write(bytes);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Creates little-endian TIFF data whose IFD0 holds an orientation and points to a sub-IFD holding an exposure
+     * time and original date, both of which are stored after the sub-IFD.
+     */
+    private static byte[] createTiff()
+    {
+        ByteBuffer tiff = ByteBuffer.allocate(96).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put(new byte[]{'I', 'I', 0x2A, 0x00}).putInt(8);
+        tiff.putShort((short)2);
+        tiff.putShort((short)0x0112).putShort((short)3).putInt(1).putShort((short)1).putShort((short)0);
+        tiff.putShort((short)0x8769).putShort((short)4).putInt(1).putInt(38);
+        tiff.putInt(0);
+        tiff.putShort((short)2);
+        tiff.putShort((short)0x829A).putShort((short)5).putInt(1).putInt(68);
+        tiff.putShort((short)0x9003).putShort((short)2).putInt(20).putInt(76);
+        tiff.putInt(0);
+        tiff.putInt(1).putInt(60);
+        tiff.put("2019:05:06 07:08:09\0".getBytes());
+        return tiff.array();
+    }
+}
@@ -120,6 +120,28 @@ public class ExifReaderTest
         assertEquals(-42L, directory.getLong(0x1002));
     }
 
+    @Test
+    public void testBigTiff() throws Exception
+    {
+        // BigTIFF uses marker 0x2B, 8-byte offsets and 20-byte IFD entries
+        byte[] tiffData = new byte[] {
+            'I','I', 0x2B,0, 8,0, 0,0,                           // BigTIFF header, 8-byte offsets
+            16,0,0,0,0,0,0,0,                                   // IFD0 at offset 16
+            2,0,0,0,0,0,0,0,                                    // two entries
+            0x00,0x01, 3,0, 1,0,0,0,0,0,0,0, 64,0,0,0,0,0,0,0,  // ImageWidth, SHORT, count 1, inline value 64
+            0x0F,0x01, 2,0, 10,0,0,0,0,0,0,0, 72,0,0,0,0,0,0,0, // Make, STRING, count 10, value at offset 72
+            0,0,0,0,0,0,0,0,                                    // next IFD offset (none)
+            'B','i','g','C','a','m','e','r','a',0
+        };
+        Metadata metadata = new Metadata();
+        new ExifReader().extract(new ByteArrayReader(tiffData), metadata);
+        ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(directory);
+        assertFalse(metadata.hasErrors());
+        assertEquals(64, directory.getInt(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+        assertEquals("BigCamera", directory.getString(ExifIFD0Directory.TAG_MAKE));
+    }
+
     @Test
     public void testCrashRegressionTest() throws Exception
     {